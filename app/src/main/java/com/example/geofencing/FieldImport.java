@@ -0,0 +1,191 @@
+package com.example.geofencing;
+
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.geofencing.core.FieldImporter;
+import com.example.geofencing.core.MultiPolygon;
+import com.example.geofencing.core.PointList;
+import com.example.geofencing.core.PolygonFileStore;
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.PolygonSink;
+import com.example.geofencing.core.PreparedPolygon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Import d'un fichier de limites de champs (GeoJSON ou KML) dans le PolygonFileStore et le cache partagé.
+// Le fichier est lu en flux sur un thread d'import ; les champs lus (contour et trous) passent dans le cache au
+// fil de la lecture et sont écrits dans le fichier par lots, chaque lot étant une tâche distincte sur
+// PolygonStorage.io() : le chargement et les écritures de la carte passent entre deux lots.
+final class FieldImport {
+
+    private static final String TAG = "FieldImport";
+
+    // Taille d'un lot d'écriture, en champs et en sommets
+    private static final int BATCH_FIELDS = 32;
+    private static final int BATCH_VERTICES = 64 * 1024;
+
+    // Un import à la fois, dans l'ordre des demandes
+    private static final ExecutorService IMPORT = Executors.newSingleThreadExecutor();
+
+    interface Listener {
+        // Appelés sur le thread d'import
+        void onProgress(long bytesRead, long totalBytes, int fieldCount);
+
+        void onFinished(int fieldCount, IOException error);
+    }
+
+    private FieldImport() {
+    }
+
+    static void start(Context context, Uri uri, Listener listener) {
+        Context appContext = context.getApplicationContext();
+        IMPORT.execute(() -> {
+            try {
+                int count = run(appContext, uri, listener);
+                // Les nouveaux champs deviennent des géofences candidates
+                PolygonStorage.io().execute(() -> GeofenceRegistration.refresh(appContext));
+                listener.onFinished(count, null);
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot import " + uri, e);
+                listener.onFinished(0, e);
+            }
+        });
+    }
+
+    @WorkerThread
+    private static int run(Context context, Uri uri, Listener listener) throws IOException {
+        // Les URI de contenu n'ont pas toujours d'extension : sinon le format est déduit du contenu
+        FieldImporter.Format format = FieldImporter.Format.forFileName(uri.getLastPathSegment());
+        long totalBytes = -1;
+        try (AssetFileDescriptor descriptor = context.getContentResolver().openAssetFileDescriptor(uri, "r")) {
+            if (descriptor != null) {
+                totalBytes = descriptor.getLength();
+            }
+        }
+
+        // Le stockage n'est lu et écrit que sur PolygonStorage.io()
+        PolygonFileStore store = await(PolygonStorage.io().submit(() -> PolygonStorage.get(context)));
+        int[] ids = await(PolygonStorage.io().submit(store::polygonIds));
+        // Identifiants après le plus grand existant (le polygone en cours d'édition garde le sien)
+        int firstId = Math.max(MapsActivity.CURRENT_POLYGON_ID, ids.length > 0 ? ids[ids.length - 1] : 0) + 1;
+        BatchWriter writer = new BatchWriter(store, PolygonRepository.getInstance(), firstId);
+
+        int count;
+        try (InputStream in = context.getContentResolver().openInputStream(uri)) {
+            if (in == null) {
+                throw new IOException("Cannot open " + uri);
+            }
+            count = FieldImporter.importStream(in, totalBytes, format, writer, listener::onProgress);
+        } finally {
+            // Les champs déjà lus sont enregistrés même si la suite du fichier est invalide
+            writer.finish();
+        }
+        Log.d(TAG, "Imported " + count + " fields from " + uri);
+        return count;
+    }
+
+    private static <T> T await(Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private static final class Field {
+        final int id;
+        final double[] lats;
+        final double[] lngs;
+        final MultiPolygon holes;
+
+        Field(int id, double[] lats, double[] lngs, MultiPolygon holes) {
+            this.id = id;
+            this.lats = lats;
+            this.lngs = lngs;
+            this.holes = holes;
+        }
+    }
+
+    // Thread d'import : chaque champ lu passe dans le cache (niveaux de détail et index du containment compris), puis les champs sont
+    // écrits dans le fichier par lots sur PolygonStorage.io(). Au plus un lot attend son écriture : la lecture ne
+    // prend pas d'avance sur le disque.
+    private static final class BatchWriter implements PolygonSink {
+
+        private final PolygonFileStore store;
+        private final PolygonRepository repository;
+        private int nextId;
+        private List<Field> batch = new ArrayList<>();
+        private int batchVertices;
+        private Future<?> previous;
+
+        BatchWriter(PolygonFileStore store, PolygonRepository repository, int firstId) {
+            this.store = store;
+            this.repository = repository;
+            this.nextId = firstId;
+        }
+
+        @Override
+        public void onPolygon(PointList ring, MultiPolygon holes) throws IOException {
+            Field field = new Field(nextId++, ring.toLatArray(), ring.toLngArray(), holes);
+            PreparedPolygon polygon = repository.put(field.id, field.lats, field.lngs, holes, null);
+            // Niveaux de détail prêts pour la carte, qui ne les construit pas sur le thread principal
+            polygon.lod();
+            polygon.prepareContainment();
+            batch.add(field);
+            batchVertices += field.lats.length;
+            if (batch.size() >= BATCH_FIELDS || batchVertices >= BATCH_VERTICES) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (previous != null) {
+                await(previous);
+                previous = null;
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Field> fields = batch;
+            batch = new ArrayList<>();
+            batchVertices = 0;
+            previous = PolygonStorage.io().submit(() -> {
+                for (Field field : fields) {
+                    store.replace(field.id, field.lats, field.lngs, field.lats.length, field.holes);
+                }
+                return null;
+            });
+        }
+
+        void finish() throws IOException {
+            flush();
+            if (previous != null) {
+                await(previous);
+                previous = null;
+            }
+            await(PolygonStorage.io().submit(() -> {
+                store.sync();
+                return null;
+            }));
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.geofencing;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.location.Location;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.geofencing.core.CircularFence;
+import com.example.geofencing.core.FieldTransitionRouter;
+import com.example.geofencing.core.GeofenceRegistry;
+import com.example.geofencing.core.GeofenceTransition;
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.PreparedPolygon;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingEvent;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Traitement des transitions de géofences hors du thread principal.
+// Le thread du broadcast ne fait que copier l'événement. Sur le thread du pipeline, une fois le cache de polygones
+// rempli, les transitions passent le FieldTransitionRouter (ramenées au champ, regroupées, puis chaîne de
+// gestionnaires, le même chemin que le rejeu de traces) ; les broadcasts concernés sont ensuite terminés (goAsync).
+final class GeofenceEventPipeline implements FieldTransitionRouter.Handler {
+
+    private static final String TAG = "GeofenceEventPipeline";
+
+    // Bien en dessous du délai accordé à un broadcast en goAsync()
+    private static final long COALESCING_WINDOW_MILLIS = 3000;
+    private static final long REPOSITORY_WAIT_MILLIS = 4000;
+
+    // Événement reçu, copié sur le thread du broadcast
+    private static final class PendingBroadcast {
+        final BroadcastReceiver.PendingResult result;
+        final String[] requestIds;
+        final int transition;
+        final double lat;
+        final double lng;
+        final long receivedAt;
+        // Avant offered : traitement dès que possible ; ensuite, fin de la fenêtre des transitions offertes
+        long deadline;
+        boolean offered;
+
+        PendingBroadcast(BroadcastReceiver.PendingResult result, String[] requestIds, int transition, double lat, double lng, long receivedAt) {
+            this.result = result;
+            this.requestIds = requestIds;
+            this.transition = transition;
+            this.lat = lat;
+            this.lng = lng;
+            this.receivedAt = receivedAt;
+            this.deadline = receivedAt;
+        }
+    }
+
+    private static GeofenceEventPipeline instance;
+
+    private final Context context;
+    private final FieldTransitionRouter router = new FieldTransitionRouter(GeofenceRegistry.getInstance(), COALESCING_WINDOW_MILLIS);
+    // Un seul thread, et au plus une tâche de vidage planifiée : la file ne peut pas grossir avec les rafales
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private final List<PendingBroadcast> pendingBroadcasts = new ArrayList<>();
+    private long scheduledFlush = Long.MAX_VALUE;
+
+    private GeofenceEventPipeline(Context context) {
+        this.context = context;
+    }
+
+    static synchronized GeofenceEventPipeline get(Context context) {
+        if (instance == null) {
+            instance = new GeofenceEventPipeline(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Appelé sur le thread principal : copie de l'événement, rien d'autre. Le containment peut construire les
+    // index d'un grand champ, et le cache n'est pas encore rempli si le broadcast a démarré le processus.
+    void submit(GeofencingEvent event, BroadcastReceiver.PendingResult result) {
+        long now = SystemClock.elapsedRealtime();
+        Location location = event.getTriggeringLocation();
+        List<Geofence> geofences = event.getTriggeringGeofences();
+        String[] requestIds = new String[geofences.size()];
+        for (int i = 0; i < requestIds.length; i++) {
+            requestIds[i] = geofences.get(i).getRequestId();
+        }
+        PendingBroadcast broadcast = new PendingBroadcast(result, requestIds, event.getGeofenceTransition(),
+                location != null ? location.getLatitude() : Double.NaN,
+                location != null ? location.getLongitude() : Double.NaN, now);
+        synchronized (this) {
+            pendingBroadcasts.add(broadcast);
+            scheduleFlushLocked(now);
+        }
+    }
+
+    // Retourne la fin de la fenêtre de regroupement des transitions gardées par le routeur
+    private long offer(PendingBroadcast broadcast) {
+        long deadline = broadcast.receivedAt;
+        for (String requestId : broadcast.requestIds) {
+            deadline = Math.max(deadline, router.offer(requestId, broadcast.transition, broadcast.lat, broadcast.lng, broadcast.receivedAt));
+        }
+        return deadline;
+    }
+
+    private void scheduleFlushLocked(long now) {
+        long next = router.nextDeadline();
+        for (PendingBroadcast broadcast : pendingBroadcasts) {
+            next = Math.min(next, broadcast.deadline);
+        }
+        if (next < scheduledFlush) {
+            scheduledFlush = next;
+            executor.schedule(this::flush, Math.max(0, next - now), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void flush() {
+        List<PendingBroadcast> received = new ArrayList<>();
+        synchronized (this) {
+            scheduledFlush = Long.MAX_VALUE;
+            for (PendingBroadcast broadcast : pendingBroadcasts) {
+                if (!broadcast.offered) {
+                    received.add(broadcast);
+                }
+            }
+        }
+        long now = SystemClock.elapsedRealtime();
+        try {
+            awaitRepository();
+            for (PendingBroadcast broadcast : received) {
+                long deadline = broadcast.receivedAt;
+                try {
+                    deadline = offer(broadcast);
+                } catch (RuntimeException e) {
+                    Log.e(TAG, "Cannot filter transition " + broadcast.transition, e);
+                }
+                synchronized (this) {
+                    broadcast.deadline = deadline;
+                    broadcast.offered = true;
+                }
+            }
+            now = SystemClock.elapsedRealtime();
+            router.flush(now, this);
+        } finally {
+            synchronized (this) {
+                Iterator<PendingBroadcast> it = pendingBroadcasts.iterator();
+                while (it.hasNext()) {
+                    PendingBroadcast broadcast = it.next();
+                    if (broadcast.offered && broadcast.deadline <= now) {
+                        broadcast.result.finish();
+                        it.remove();
+                    }
+                }
+                scheduleFlushLocked(SystemClock.elapsedRealtime());
+            }
+        }
+    }
+
+    // Processus démarré par ce broadcast : attendre la fin du remplissage du cache (StartupPipeline),
+    // dans la limite du délai accordé au broadcast
+    private static void awaitRepository() {
+        try {
+            if (!PolygonRepository.getInstance().awaitLoaded(REPOSITORY_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                Log.w(TAG, "Polygons still loading, handling transitions with a partial cache");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // L'appareil a quitté la zone de reclassement : enregistrer les géofences désormais les plus proches
+    @Override
+    public void onRerank(double lat, double lng) {
+        if (!Double.isNaN(lat)) {
+            PolygonStorage.io().execute(() -> GeofenceRegistration.onLocation(context, lat, lng));
+        }
+    }
+
+    @Override
+    public void onFieldTransition(PreparedPolygon field, GeofenceTransition transition) {
+        try {
+            switch (transition.transition()) {
+                case CircularFence.TRANSITION_ENTER:
+                case CircularFence.TRANSITION_DWELL:
+                    String title = transition.transition() == CircularFence.TRANSITION_ENTER ? "Entered geofence zone" : "Dwelling in geofence zone";
+                    new NotificationHelper(context).sendFieldNotification(title, field);
+                    break;
+                default:
+                    Log.d(TAG, "Exited field " + field.id() + " (" + transition.coalescedCount() + " events)");
+                    break;
+            }
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Cannot handle transition " + transition.transition() + " of " + transition.fenceKey(), e);
+        }
+    }
+}
@@ -6,12 +6,15 @@ import android.content.Context;
 import android.content.ContextWrapper;
 import android.content.Intent;
 
+import com.example.geofencing.core.CircularFence;
 import com.google.android.gms.common.api.ApiException;
 import com.google.android.gms.location.Geofence;
 import com.google.android.gms.location.GeofenceStatusCodes;
 import com.google.android.gms.location.GeofencingRequest;
 import com.google.android.gms.maps.model.LatLng;
 
+import java.util.List;
+
 public class GeofenceHelper extends ContextWrapper {
 
     private static final String TAG = "GeofenceHelper";
@@ -28,6 +31,14 @@ public class GeofenceHelper extends ContextWrapper {
                 .build();
     }
 
+    // Une seule requête pour tout un lot de géofences (au plus GeofenceClient.MAX_ACTIVE_FENCES)
+    public GeofencingRequest getGeofencingRequest(List<Geofence> geofences) {
+        return new GeofencingRequest.Builder()
+                .addGeofences(geofences)
+                .setInitialTrigger(GeofencingRequest.INITIAL_TRIGGER_ENTER)
+                .build();
+    }
+
     public Geofence getGeofence(String ID, LatLng latLng, float radius, int transitionTypes) {
         return new Geofence.Builder()
                 .setCircularRegion(latLng.latitude, latLng.longitude, radius)
@@ -38,6 +49,11 @@ public class GeofenceHelper extends ContextWrapper {
                 .build();
     }
 
+    // Géofence d'un cercle de recouvrement, identifiant émis par le GeofenceRegistry
+    public Geofence getGeofence(CircularFence fence) {
+        return getGeofence(fence.requestId(), new LatLng(fence.lat(), fence.lng()), fence.radiusMeters(), fence.transitionTypes());
+    }
+
     public PendingIntent getPendingIntent() {
         if (pendingIntent != null) {
             return pendingIntent;
@@ -0,0 +1,102 @@
+package com.example.geofencing;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+
+import androidx.core.content.ContextCompat;
+
+import com.example.geofencing.core.CircleCovering;
+import com.example.geofencing.core.CircularFence;
+import com.example.geofencing.core.GeofenceRegistrationManager;
+import com.example.geofencing.core.GeofenceRegistry;
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.PreparedPolygon;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Rotation des géofences enregistrées : seules les plus proches de l'appareil sont actives.
+// Toutes les méthodes s'exécutent sur PolygonStorage.io().
+final class GeofenceRegistration {
+
+    private static final int TRANSITION_TYPES = Geofence.GEOFENCE_TRANSITION_ENTER
+            | Geofence.GEOFENCE_TRANSITION_DWELL | Geofence.GEOFENCE_TRANSITION_EXIT;
+
+    // Débordement maximal des cercles hors du champ : limite les ENTER déclenchés à côté du champ
+    private static final double COVERING_TOLERANCE_METERS = 25;
+
+    private static GeofenceRegistrationManager manager;
+
+    private GeofenceRegistration() {
+    }
+
+    private static synchronized GeofenceRegistrationManager get(Context context) {
+        if (manager == null) {
+            manager = new GeofenceRegistrationManager(new PlayServicesGeofenceClient(context.getApplicationContext()));
+        }
+        return manager;
+    }
+
+    // Reconstruire les géofences candidates depuis le cache de polygones, puis les classer
+    // autour de la dernière position connue
+    static void refresh(Context context) {
+        get(context).setCandidates(buildCandidates());
+        rankAroundLastLocation(context);
+    }
+
+    // Un seul champ a changé (polygone en cours d'édition) : seul son recouvrement est recalculé et seules ses
+    // géofences candidates sont remplacées ; les autres champs ne sont ni relus ni recouverts
+    static void update(Context context, int polygonId) {
+        GeofenceRegistry registry = GeofenceRegistry.getInstance();
+        PreparedPolygon field = PolygonRepository.getInstance().get(polygonId);
+        List<CircularFence> fences = new ArrayList<>();
+        if (field != null && field.vertexCount() >= 3) {
+            registry.mintFences(field, COVERING_TOLERANCE_METERS, TRANSITION_TYPES, fences);
+        } else {
+            registry.remove(polygonId);
+        }
+        if (!get(context).replaceCandidates(GeofenceRegistry.fenceIdPrefix(polygonId), fences)) {
+            rankAroundLastLocation(context);
+        }
+    }
+
+    private static void rankAroundLastLocation(Context context) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
+            try {
+                LocationServices.getFusedLocationProviderClient(context).getLastLocation()
+                        .addOnSuccessListener(location -> {
+                            if (location != null) {
+                                PolygonStorage.io().execute(() -> onLocation(context, location.getLatitude(), location.getLongitude()));
+                            }
+                        });
+            } catch (SecurityException e) {
+                // Permission retirée entre-temps : le classement attendra la prochaine transition
+            }
+        }
+    }
+
+    static void onLocation(Context context, double lat, double lng) {
+        get(context).onLocation(lat, lng);
+    }
+
+    // Recouvrement par cercles de chaque polygone, calculé en parallèle et gardé par version de polygone.
+    // Les identifiants sont émis par le GeofenceRegistry, qui les résout à la réception des transitions.
+    private static List<CircularFence> buildCandidates() {
+        List<PreparedPolygon> polygons = new ArrayList<>();
+        PolygonRepository.getInstance().queryBounds(-90, -180, 90, 180, polygon -> {
+            if (polygon.vertexCount() >= 3) {
+                polygons.add(polygon);
+            }
+            return true;
+        });
+        CircleCovering.computeAll(polygons, COVERING_TOLERANCE_METERS, ForkJoinPool.commonPool());
+
+        List<CircularFence> candidates = new ArrayList<>();
+        GeofenceRegistry.getInstance().mintAll(polygons, COVERING_TOLERANCE_METERS, TRANSITION_TYPES, candidates);
+        return candidates;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.geofencing;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import com.example.geofencing.core.Metrics;
+import com.example.geofencing.core.MetricsDump;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class GeofencingApplication extends Application {
+
+    private static final String TAG = "GeofencingApplication";
+
+    // Relevé des métriques toutes les minutes, au plus 2 x 1 Mo sur l'appareil
+    private static final long METRICS_DUMP_INTERVAL_SECONDS = 60;
+    private static final long METRICS_DUMP_MAX_BYTES = 1024 * 1024;
+
+    static File metricsFile(Context context) {
+        return new File(context.getFilesDir(), "metrics.jsonl");
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        // Remplir le cache de polygones dès le démarrage du processus, par étapes sur l'exécuteur d'entrées-sorties.
+        // Les tâches soumises ensuite à PolygonStorage.io() voient au moins les contours et le polygone courant ;
+        // les géofences sont enregistrées une fois tous les champs chargés.
+        StartupPipeline.start(this);
+
+        startMetricsDump();
+    }
+
+    private void startMetricsDump() {
+        MetricsDump dump = new MetricsDump(Metrics.getInstance(), metricsFile(this), METRICS_DUMP_MAX_BYTES);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                dump.append(System.currentTimeMillis());
+            } catch (IOException e) {
+                Log.w(TAG, "Cannot write metrics", e);
+            }
+        }, METRICS_DUMP_INTERVAL_SECONDS, METRICS_DUMP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.geofencing;
+
+import android.Manifest;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.location.Location;
+import android.os.Build;
+import android.os.IBinder;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+
+import com.example.geofencing.core.HysteresisTracker;
+import com.example.geofencing.core.LocationIntervalPolicy;
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.PreparedPolygon;
+import com.google.android.gms.location.FusedLocationProviderClient;
+import com.google.android.gms.location.LocationCallback;
+import com.google.android.gms.location.LocationRequest;
+import com.google.android.gms.location.LocationResult;
+import com.google.android.gms.location.LocationServices;
+import com.google.android.gms.location.Priority;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Suivi continu de la présence dans les champs, en complément des géofences du système (lentes à se déclencher).
+// Les positions fusionnées sont demandées par lots (max-wait) : le lot est copié sur le thread principal puis
+// traité en une passe sur le thread du service, contre les polygones du cache, par un HysteresisTracker.
+// Ce thread est propre au service : un lot n'attend pas derrière un import ou une écriture de PolygonStorage.io().
+// L'entrée dans un champ partage la notification du champ avec GeofenceEventPipeline : la seconde source à la
+// signaler la remplace au lieu d'en afficher une autre.
+// L'intervalle et le délai de regroupement suivent la vitesse et la distance à la bordure la plus proche ;
+// loin de tout champ, la précision est réduite pour économiser la batterie.
+public class LocationTrackingService extends Service {
+
+    private static final String TAG = "LocationTrackingService";
+
+    private static final String CHANNEL_ID = "com.example.geofencing.tracking";
+    private static final int NOTIFICATION_ID = 1001;
+
+    // Un seul thread : les lots sont traités dans l'ordre
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Accédés uniquement sur executor
+    private final HysteresisTracker tracker = new HysteresisTracker(PolygonRepository.getInstance());
+    private final LocationIntervalPolicy policy = new LocationIntervalPolicy();
+
+    private FusedLocationProviderClient client;
+    private boolean destroyed;
+
+    private final LocationCallback callback = new LocationCallback() {
+        @Override
+        public void onLocationResult(LocationResult result) {
+            onBatch(result.getLocations());
+        }
+    };
+
+    static void start(Context context) {
+        ContextCompat.startForegroundService(context, new Intent(context, LocationTrackingService.class));
+    }
+
+    static void stop(Context context) {
+        context.stopService(new Intent(context, LocationTrackingService.class));
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        startForeground(NOTIFICATION_ID, buildNotification());
+        client = LocationServices.getFusedLocationProviderClient(this);
+        requestUpdates(policy.intervalMillis(), policy.maxWaitMillis());
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        return START_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        destroyed = true;
+        client.removeLocationUpdates(callback);
+        executor.shutdown();
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    // Renouveler la demande remplace la précédente (même callback)
+    private void requestUpdates(long intervalMillis, long maxWaitMillis) {
+        if (destroyed) {
+            return;
+        }
+        if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            Log.w(TAG, "Location permission missing, stopping");
+            stopSelf();
+            return;
+        }
+        int priority = intervalMillis >= LocationIntervalPolicy.DEFAULT_MAX_INTERVAL_MILLIS
+                ? Priority.PRIORITY_BALANCED_POWER_ACCURACY
+                : Priority.PRIORITY_HIGH_ACCURACY;
+        LocationRequest request = new LocationRequest.Builder(priority, intervalMillis)
+                .setMinUpdateIntervalMillis(intervalMillis / 2)
+                .setMaxUpdateDelayMillis(maxWaitMillis)
+                .build();
+        try {
+            client.requestLocationUpdates(request, callback, Looper.getMainLooper());
+        } catch (SecurityException e) {
+            Log.e(TAG, "SecurityException: " + e.getMessage());
+        }
+    }
+
+    // Thread principal : copie du lot seulement
+    private void onBatch(List<Location> locations) {
+        int count = locations.size();
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        long[] times = new long[count];
+        double reportedSpeed = Double.NaN;
+        for (int i = 0; i < count; i++) {
+            Location location = locations.get(i);
+            lats[i] = location.getLatitude();
+            lngs[i] = location.getLongitude();
+            times[i] = location.getTime();
+            reportedSpeed = location.hasSpeed() ? location.getSpeed() : Double.NaN;
+        }
+        double speed = reportedSpeed;
+        if (!destroyed) {
+            executor.execute(() -> process(lats, lngs, times, count, speed));
+        }
+    }
+
+    private void process(double[] lats, double[] lngs, long[] times, int count, double reportedSpeed) {
+        tracker.processBatch(lats, lngs, times, count, new HysteresisTracker.Listener() {
+            @Override
+            public void onEnter(PreparedPolygon field, double lat, double lng, long timeMillis) {
+                new NotificationHelper(LocationTrackingService.this).sendFieldNotification("Entered field", field);
+            }
+
+            @Override
+            public void onExit(PreparedPolygon field, double lat, double lng, long timeMillis) {
+                Log.d(TAG, "Exited field " + field.id());
+            }
+        });
+        double speed = Double.isNaN(reportedSpeed) ? tracker.speedMetersPerSecond() : reportedSpeed;
+        if (policy.update(speed, tracker.boundaryDistanceMeters())) {
+            long interval = policy.intervalMillis();
+            long maxWait = policy.maxWaitMillis();
+            Log.d(TAG, "Location interval " + interval + " ms, max wait " + maxWait + " ms");
+            ContextCompat.getMainExecutor(this).execute(() -> requestUpdates(interval, maxWait));
+        }
+    }
+
+    private Notification buildNotification() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Field tracking", NotificationManager.IMPORTANCE_LOW);
+            getSystemService(NotificationManager.class).createNotificationChannel(channel);
+        }
+        PendingIntent pendingIntent = PendingIntent.getActivity(this, 0, new Intent(this, MapsActivity.class), PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+        return new NotificationCompat.Builder(this, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_launcher_background)
+                .setContentTitle("Field tracking")
+                .setContentText("Tracking field entries and exits")
+                .setPriority(NotificationCompat.PRIORITY_LOW)
+                .setContentIntent(pendingIntent)
+                .setOngoing(true)
+                .build();
+    }
+}
@@ -6,9 +6,13 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.FragmentActivity;
 
 import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.graphics.Color;
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -17,15 +21,16 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
-import com.google.android.gms.maps.model.PolygonOptions;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.example.geofencing.core.EditablePolygon;
+import com.example.geofencing.core.IncrementalSprayPlan;
+import com.example.geofencing.core.PointList;
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.PreparedPolygon;
+import com.example.geofencing.core.SprayPointGenerator;
 
-import android.content.SharedPreferences;
-
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class MapsActivity extends FragmentActivity implements OnMapReadyCallback, GoogleMap.OnMapLongClickListener {
 
@@ -38,30 +43,154 @@ public class MapsActivity extends FragmentActivity implements OnMapReadyCallback
     private static final int POLYGON_STROKE_WIDTH_PX = 5; // Largeur de la ligne du polygone en pixels
     private static final int POLYGON_FILL_COLOR = Color.argb(128, 255, 0, 0); // Couleur de remplissage du polygone (rouge avec une opacité de 50%)
 
-    private List<LatLng> polygonPoints = new ArrayList<>();
+    // Couches d'édition attachées au plus tard ce délai après onMapReady, même si la carte n'a pas fini son rendu (hors ligne)
+    private static final long EDITING_LAYERS_FALLBACK_MILLIS = 1000;
+
+    // Géofences du polygone courant recalculées une fois ce délai écoulé sans nouveau sommet
+    private static final long FENCE_UPDATE_DELAY_MILLIS = 2000;
+
+    // Identifiant du polygone en cours d'édition dans le PolygonStore et le PolygonFileStore
+    static final int CURRENT_POLYGON_ID = 0;
+
+    // Polygone en cours d'édition et son plan de pulvérisation, recalculé segment par segment
+    private final EditablePolygon polygon = new EditablePolygon();
+    private IncrementalSprayPlan sprayPlan;
+    private StoredPolygonsLayer storedPolygonsLayer;
+    private PolygonOutlineLayer polygonOutlineLayer;
+    private SprayPointRenderer sprayPointRenderer;
+    private SprayRouteLayer sprayRouteLayer;
+
+    private final PolygonRepository polygonRepository = PolygonRepository.getInstance();
 
-    private SharedPreferences prefs;
+    // Les longs clics sont ignorés tant que le polygone stocké n'est pas chargé
+    private boolean polygonLoaded;
+    private boolean editingLayersAttached;
+    private boolean fullyDrawnReported;
+    // Au plus un redessin des champs en attente pendant le chargement par lots
+    private final AtomicBoolean fieldsRedrawPending = new AtomicBoolean();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    // Au plus une mise à jour des géofences du polygone courant en attente pendant l'édition
+    private final Runnable fenceUpdate = this::updateCurrentFences;
+    private boolean fenceUpdatePending;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_maps);
 
-        prefs = getSharedPreferences("geofence_prefs", MODE_PRIVATE);
+        sprayPlan = new IncrementalSprayPlan(polygon, new SprayPointGenerator());
 
-        // Load polygon points from SharedPreferences
-        String polygonPointsJson = prefs.getString("polygon_points", null);
-        if (polygonPointsJson!= null) {
-            Gson gson = new Gson();
-            polygonPoints = gson.fromJson(polygonPointsJson, new TypeToken<List<LatLng>>(){}.getType());
-        }
+        // Champs chargés par lots en arrière-plan (StartupPipeline) : redessiner ceux de la zone visible
+        StartupPipeline.setListener(pendingCount -> {
+            if (fieldsRedrawPending.compareAndSet(false, true)) {
+                runOnUiThread(this::redrawStoredFields);
+            }
+        });
+
+        // Récupérer le polygone en arrière-plan pendant l'initialisation de la carte.
+        // Sur PolygonStorage.io(), cette tâche passe après la lecture des contours et du polygone courant
+        // lancée par GeofencingApplication, pas après le chargement de tous les champs.
+        PolygonStorage.io().execute(() -> {
+            PreparedPolygon stored = polygonRepository.get(CURRENT_POLYGON_ID);
+            runOnUiThread(() -> onPolygonLoaded(stored));
+        });
 
         // Initialiser la carte
         SupportMapFragment mapFragment = (SupportMapFragment) getSupportFragmentManager()
                 .findFragmentById(R.id.map);
         mapFragment.getMapAsync(this);
+
+        handleImportIntent(getIntent());
+    }
+
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        handleImportIntent(intent);
+    }
+
+    // Fichier GeoJSON ou KML ouvert avec l'application : import en flux, progression dans le titre
+    private void handleImportIntent(Intent intent) {
+        if (intent == null || !Intent.ACTION_VIEW.equals(intent.getAction()) || intent.getData() == null) {
+            return;
+        }
+        FieldImport.start(this, intent.getData(), new FieldImport.Listener() {
+            @Override
+            public void onProgress(long bytesRead, long totalBytes, int fieldCount) {
+                String progress = totalBytes > 0
+                        ? "Import " + (bytesRead * 100 / totalBytes) + "% (" + fieldCount + " fields)"
+                        : "Import (" + fieldCount + " fields)";
+                runOnUiThread(() -> setTitle(progress));
+            }
+
+            @Override
+            public void onFinished(int fieldCount, IOException error) {
+                runOnUiThread(() -> {
+                    setTitle(R.string.title_activity_maps);
+                    String message = error == null ? "Imported " + fieldCount + " fields" : "Import failed: " + error.getMessage();
+                    Toast.makeText(MapsActivity.this, message, Toast.LENGTH_LONG).show();
+                    if (storedPolygonsLayer != null && !isDestroyed()) {
+                        storedPolygonsLayer.onCameraIdle();
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPolygonLoaded(PreparedPolygon stored) {
+        if (isDestroyed()) {
+            return;
+        }
+        if (stored != null) {
+            for (int i = 0; i < stored.vertexCount(); i++) {
+                polygon.addVertex(stored.lat(i), stored.lng(i));
+            }
+        }
+        polygonLoaded = true;
+        reportFullyDrawnIfReady();
+    }
+
+    // Carte utilisable : polygone courant chargé et couches d'édition attachées
+    private void reportFullyDrawnIfReady() {
+        if (polygonLoaded && editingLayersAttached && !fullyDrawnReported) {
+            fullyDrawnReported = true;
+            reportFullyDrawn();
+        }
+    }
+
+    private void redrawStoredFields() {
+        fieldsRedrawPending.set(false);
+        if (storedPolygonsLayer != null && !isDestroyed()) {
+            storedPolygonsLayer.onCameraIdle();
+        }
     }
 
+    @Override
+    protected void onDestroy() {
+        StartupPipeline.setListener(null);
+        handler.removeCallbacksAndMessages(null);
+        // Dernière édition pas encore prise en compte par les géofences
+        if (fenceUpdatePending) {
+            updateCurrentFences();
+        }
+        if (storedPolygonsLayer != null) {
+            storedPolygonsLayer.release();
+        }
+        if (editingLayersAttached) {
+            polygonOutlineLayer.release();
+            sprayPointRenderer.release();
+            sprayRouteLayer.release();
+        }
+        sprayPlan.release();
+        // Le suivi continue écran éteint, mais pas après la fermeture de la carte
+        if (isFinishing()) {
+            LocationTrackingService.stop(this);
+        }
+        super.onDestroy();
+    }
+
+    // Démarrage par étapes : d'abord les champs (rectangles tant que leur géométrie n'est pas chargée,
+    // zone visible chargée en priorité), puis, une fois la carte rendue, les couches d'édition et la localisation
     @Override
     public void onMapReady(GoogleMap googleMap) {
         mMap = googleMap;
@@ -70,13 +199,46 @@ public class MapsActivity extends FragmentActivity implements OnMapReadyCallback
         LatLng rabat = new LatLng(34.020882, -6.841650);
         mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(rabat, 16));
 
-        // Activer la localisation de l'utilisateur
-        enableUserLocation();
+        // Dessiner les autres champs (niveau de détail selon le zoom)
+        storedPolygonsLayer = new StoredPolygonsLayer(mMap, polygonRepository, CURRENT_POLYGON_ID, POLYGON_STROKE_WIDTH_PX, POLYGON_FILL_COLOR);
+        onCameraIdle();
+        mMap.setOnCameraIdleListener(this::onCameraIdle);
+
+        mMap.setOnMapLoadedCallback(this::attachEditingLayers);
+        handler.postDelayed(this::attachEditingLayers, EDITING_LAYERS_FALLBACK_MILLIS);
 
         // Écouter les longs clics sur la carte
         mMap.setOnMapLongClickListener(this);
     }
 
+    private void attachEditingLayers() {
+        if (editingLayersAttached || isDestroyed()) {
+            return;
+        }
+        editingLayersAttached = true;
+
+        // Polygone courant avec son plan de pulvérisation
+        polygonOutlineLayer = new PolygonOutlineLayer(mMap, polygon, POLYGON_STROKE_WIDTH_PX, POLYGON_FILL_COLOR);
+        // Points de pulvérisation : uniquement la zone visible, regroupés à faible zoom, redessinés à l'arrêt de la caméra
+        sprayPointRenderer = new SprayPointRenderer(mMap, sprayPlan);
+        // Itinéraire de pulvérisation de l'intérieur du champ, recalculé à chaque modification
+        sprayRouteLayer = new SprayRouteLayer(mMap, polygon);
+
+        // Activer la localisation de l'utilisateur
+        enableUserLocation();
+        reportFullyDrawnIfReady();
+    }
+
+    private void onCameraIdle() {
+        LatLngBounds bounds = mMap.getProjection().getVisibleRegion().latLngBounds;
+        StartupPipeline.setViewport(bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude);
+        storedPolygonsLayer.onCameraIdle();
+        if (sprayPointRenderer != null) {
+            sprayPointRenderer.onCameraIdle();
+        }
+    }
+
     // Activer la localisation de l'utilisateur
     private void enableUserLocation() {
         if (ContextCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
@@ -85,6 +247,7 @@ public class MapsActivity extends FragmentActivity implements OnMapReadyCallback
             } catch (SecurityException e) {
                 Log.e(TAG, "SecurityException: " + e.getMessage());
             }
+            LocationTrackingService.start(this);
         } else {
             ActivityCompat.requestPermissions(this, new String[]{Manifest.permission.ACCESS_FINE_LOCATION}, FINE_LOCATION_ACCESS_REQUEST_CODE);
         }
@@ -100,83 +263,66 @@ public class MapsActivity extends FragmentActivity implements OnMapReadyCallback
                 } catch (SecurityException e) {
                     Log.e(TAG, "SecurityException: " + e.getMessage());
                 }
+                // La position est maintenant accessible : classer les géofences autour de l'appareil
+                PolygonStorage.io().execute(() -> GeofenceRegistration.refresh(this));
+                // et suivre en continu la présence dans les champs
+                LocationTrackingService.start(this);
             }
         }
     }
 
     @Override
     public void onMapLongClick(LatLng latLng) {
-        // Ajouter le point à la liste des points du polygone
-        polygonPoints.add(latLng);
-
-        // Effacer la carte avant de redessiner le polygone et les points de pulvérisation
-        mMap.clear();
-
-        // Dessiner le polygone
-        drawPolygon();
-
-        // Calculer et dessiner les points de pulvérisation
-        calculateAndDrawSprayingPoints();
-
-        // Store the polygon points in SharedPreferences
-        Gson gson = new Gson();
-        String polygonPointsJson = gson.toJson(polygonPoints);
-        prefs.edit().putString("polygon_points", polygonPointsJson).apply();
-    }
-
-    // Dessiner le polygone sur la carte
-    private void drawPolygon() {
-        if (polygonPoints.size() < 3) {
-            Toast.makeText(this, "A polygon needs at least 3 points.", Toast.LENGTH_SHORT).show();
+        if (!polygonLoaded) {
             return;
         }
 
-        PolygonOptions polygonOptions = new PolygonOptions()
-                .addAll(polygonPoints)
-                .strokeWidth(POLYGON_STROKE_WIDTH_PX)
-                .strokeColor(Color.RED)
-                .fillColor(POLYGON_FILL_COLOR);
-        mMap.addPolygon(polygonOptions);
-    }
+        // Ajouter le sommet : le plan de pulvérisation et la carte ne mettent à jour que les segments touchés
+        polygon.addVertex(latLng.latitude, latLng.longitude);
 
-    // Calculer et dessiner les points de pulvérisation
-    private void calculateAndDrawSprayingPoints() {
-        if (polygonPoints.size() < 3) {
-            return; // Au moins 3 points sont nécessaires pour former un polygone
+        if (polygon.size() < 3) {
+            Toast.makeText(this, "A polygon needs at least 3 points.", Toast.LENGTH_SHORT).show();
         }
 
-        // Diamètre de pulvérisation
-        double sprayingDiameter = 1.5; // Diamètre de pulvérisation en mètres
-        double distanceBetweenPoints = 1.45; // Distance entre chaque point de pulvérisation en mètres
-
-        // Calculer les points de pulvérisation pour chaque segment du polygone
-        for (int i = 0; i < polygonPoints.size(); i++) {
-            LatLng point = polygonPoints.get(i);
-            LatLng nextPoint = polygonPoints.get((i + 1) % polygonPoints.size()); // Point suivant dans le polygone
-
-            // Calculer la direction vectorielle entre les deux points
-            double dx = nextPoint.longitude - point.longitude;
-            double dy = nextPoint.latitude - point.latitude;
-            double length = Math.sqrt(dx * dx + dy * dy);
-
-            // Calculer le nombre de points de pulvérisation nécessaires le long de ce segment
-            int numPoints = (int) Math.ceil(length / distanceBetweenPoints);
-
-            // Calculer et dessiner les points de pulvérisation le long de ce segment
-            for (int j = 0; j < numPoints; j++) {
-                double t = (double) j / (numPoints - 1);
-                double sprayingLat = point.latitude + t * dy;
-                double sprayingLng = point.longitude + t * dx;
-                LatLng sprayingPoint = new LatLng(sprayingLat, sprayingLng);
-
-                // Dessiner un marqueur pour le point de pulvérisation
-                mMap.addMarker(new MarkerOptions().position(sprayingPoint).title("Spraying Point"));
-
-                // Log pour débogage
-                Log.d(TAG, "Spraying Point: " + sprayingPoint.latitude + ", " + sprayingPoint.longitude);
+        // Ajouter le sommet au fichier binaire, sans réécrire le reste du polygone
+        final double lat = latLng.latitude;
+        final double lng = latLng.longitude;
+        final Runnable storeCurrent = polygon.size() >= 3 ? currentPolygonUpdate() : null;
+        PolygonStorage.io().execute(() -> {
+            try {
+                PolygonStorage.get(this).append(CURRENT_POLYGON_ID, lat, lng);
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot save polygon vertex", e);
+            }
+            // Polygone fermé : son entrée du cache change
+            if (storeCurrent != null) {
+                storeCurrent.run();
             }
+        });
+        // puis les cercles de ses géofences, une fois l'édition au repos
+        if (storeCurrent != null) {
+            handler.removeCallbacks(fenceUpdate);
+            handler.postDelayed(fenceUpdate, FENCE_UPDATE_DELAY_MILLIS);
+            fenceUpdatePending = true;
         }
     }
 
+    // S'exécute sur PolygonStorage.io() après les put des sommets déjà ajoutés
+    private void updateCurrentFences() {
+        fenceUpdatePending = false;
+        Context context = getApplicationContext();
+        PolygonStorage.io().execute(() -> GeofenceRegistration.update(context, CURRENT_POLYGON_ID));
+    }
 
+    // Remplacement de l'entrée du polygone courant dans le cache partagé avec le GeofenceBroadcastReceiver, avec le
+    // plan de pulvérisation déjà calculé incrémentalement. Seul un polygone fermé y est utile. Le polygone et le plan
+    // appartiennent au thread principal : leur copie est prise ici, le put (prétraitement du PreparedPolygon)
+    // s'exécute sur PolygonStorage.io().
+    private Runnable currentPolygonUpdate() {
+        double[] lats = polygon.toLatArray();
+        double[] lngs = polygon.toLngArray();
+        PointList plan = new PointList(sprayPlan.totalPointCount());
+        sprayPlan.copyTo(plan);
+        return () -> polygonRepository.put(CURRENT_POLYGON_ID, lats, lngs, plan);
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.geofencing;
+
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import com.example.geofencing.core.Metrics;
+
+// Écran de debug : compteurs et durées (p50, p90, p99, max) du processus, rafraîchis chaque seconde.
+// adb shell am start -n com.example.geofencing/.MetricsActivity
+public class MetricsActivity extends AppCompatActivity {
+
+    private static final long REFRESH_INTERVAL_MILLIS = 1000;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable refresh = this::refresh;
+    private TextView text;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+        text = findViewById(R.id.metrics_text);
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    @Override
+    protected void onPause() {
+        handler.removeCallbacks(refresh);
+        super.onPause();
+    }
+
+    private void refresh() {
+        text.setText(Metrics.getInstance().format() + "\nDump: " + GeofencingApplication.metricsFile(this));
+        handler.postDelayed(refresh, REFRESH_INTERVAL_MILLIS);
+    }
+}
@@ -17,15 +17,17 @@ import androidx.core.app.ActivityCompat;
 import androidx.core.app.NotificationCompat;
 import androidx.core.app.NotificationManagerCompat;
 
-import com.google.android.gms.maps.model.LatLng;
+import com.example.geofencing.core.PointList;
+import com.example.geofencing.core.PreparedPolygon;
 
-import java.util.List;
 import java.util.Random;
 
 public class NotificationHelper extends ContextWrapper {
 
     private static final String CHANNEL_NAME = "High priority channel";
     private static final String CHANNEL_ID = "com.example.notifications" + CHANNEL_NAME;
+    // Étiquette des notifications de champ, identifiées par l'id du polygone
+    private static final String FIELD_TAG = "field";
 
     public NotificationHelper(Context base) {
         super(base);
@@ -46,16 +48,28 @@ public class NotificationHelper extends ContextWrapper {
         manager.createNotificationChannel(notificationChannel);
     }
 
-    public void sendHighPriorityNotification(String geofenceTransitionEnter, String s, Class<MapsActivity> mapsActivityClass, List<LatLng> sprayingPoints) {
+    public void sendHighPriorityNotification(String geofenceTransitionEnter, String s, Class<MapsActivity> mapsActivityClass, PointList sprayingPoints) {
+        send(null, new Random().nextInt(), geofenceTransitionEnter, s, sprayingPoints);
+    }
+
+    // Une seule notification par champ : la même entrée signalée par les géofences (GeofenceEventPipeline) et par
+    // le suivi continu (LocationTrackingService) remplace la notification affichée, sans nouvelle alerte
+    public void sendFieldNotification(String title, PreparedPolygon field) {
+        // Plan de pulvérisation précalculé par le cache
+        send(FIELD_TAG, field.id(), title, "Field " + field.id(), field.sprayPlan());
+    }
+
+    private void send(String tag, int id, String geofenceTransitionEnter, String s, PointList sprayingPoints) {
         Intent intent = new Intent(this, MapsActivity.class);
         PendingIntent pendingIntent = PendingIntent.getActivity(this, 267, intent, PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
 
         Notification notification = new NotificationCompat.Builder(this, CHANNEL_ID)
                 .setSmallIcon(R.drawable.ic_launcher_background)
                 .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setStyle(new NotificationCompat.BigTextStyle().setSummaryText("summary").setBigContentTitle(geofenceTransitionEnter).bigText(s + " Spraying points: " + sprayingPoints))
+                .setStyle(new NotificationCompat.BigTextStyle().setSummaryText("summary").setBigContentTitle(geofenceTransitionEnter).bigText(s + " Spraying points: " + sprayingPoints.size()))
                 .setContentIntent(pendingIntent)
                 .setAutoCancel(true)
+                .setOnlyAlertOnce(true)
                 .build();
 
         // Check for POST_NOTIFICATIONS permission for Android 13+
@@ -77,7 +91,7 @@ public class NotificationHelper extends ContextWrapper {
             // for ActivityCompat#requestPermissions for more details.
             return;
         }
-        NotificationManagerCompat.from(this).notify(new Random().nextInt(), notification);
+        NotificationManagerCompat.from(this).notify(tag, id, notification);
     }
 
 
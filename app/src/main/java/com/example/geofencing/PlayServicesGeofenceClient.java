@@ -0,0 +1,59 @@
+package com.example.geofencing;
+
+import android.annotation.SuppressLint;
+import android.content.Context;
+import android.util.Log;
+
+import com.example.geofencing.core.CircularFence;
+import com.example.geofencing.core.GeofenceClient;
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Enregistrement des géofences auprès de Play Services, un GeofencingRequest par lot
+class PlayServicesGeofenceClient implements GeofenceClient {
+
+    private static final String TAG = "PlayServicesGeofenceClient";
+
+    private final GeofencingClient geofencingClient;
+    private final GeofenceHelper geofenceHelper;
+
+    PlayServicesGeofenceClient(Context context) {
+        geofencingClient = LocationServices.getGeofencingClient(context);
+        geofenceHelper = new GeofenceHelper(context);
+    }
+
+    // Nécessite ACCESS_FINE_LOCATION (et ACCESS_BACKGROUND_LOCATION en arrière-plan) : l'échec est remonté au callback
+    @SuppressLint("MissingPermission")
+    @Override
+    public void addFences(List<CircularFence> fences, Callback callback) {
+        List<Geofence> geofences = new ArrayList<>(fences.size());
+        for (CircularFence fence : fences) {
+            geofences.add(geofenceHelper.getGeofence(fence));
+        }
+        try {
+            geofencingClient.addGeofences(geofenceHelper.getGeofencingRequest(geofences), geofenceHelper.getPendingIntent())
+                    .addOnSuccessListener(unused -> callback.onComplete(true, null))
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Cannot add " + geofences.size() + " geofences: " + geofenceHelper.getErrorString(e));
+                        callback.onComplete(false, e);
+                    });
+        } catch (SecurityException e) {
+            Log.e(TAG, "SecurityException: " + e.getMessage());
+            callback.onComplete(false, e);
+        }
+    }
+
+    @Override
+    public void removeFences(List<String> requestIds, Callback callback) {
+        geofencingClient.removeGeofences(requestIds)
+                .addOnSuccessListener(unused -> callback.onComplete(true, null))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Cannot remove " + requestIds.size() + " geofences: " + geofenceHelper.getErrorString(e));
+                    callback.onComplete(false, e);
+                });
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.geofencing;
+
+import android.graphics.Color;
+
+import com.example.geofencing.core.EditablePolygon;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Polygon;
+import com.google.android.gms.maps.model.PolygonOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Affiche le contour d'un polygone en cours d'édition, mis à jour sur place à chaque modification
+// plutôt qu'en effaçant et redessinant toute la carte.
+class PolygonOutlineLayer implements EditablePolygon.Listener {
+
+    private final GoogleMap map;
+    private final EditablePolygon polygon;
+    private final int strokeWidth;
+    private final int fillColor;
+
+    private Polygon shape;
+
+    PolygonOutlineLayer(GoogleMap map, EditablePolygon polygon, int strokeWidth, int fillColor) {
+        this.map = map;
+        this.polygon = polygon;
+        this.strokeWidth = strokeWidth;
+        this.fillColor = fillColor;
+
+        updateShape();
+        polygon.addListener(this);
+    }
+
+    void release() {
+        polygon.removeListener(this);
+        if (shape != null) {
+            shape.remove();
+            shape = null;
+        }
+    }
+
+    @Override
+    public void onVertexInserted(EditablePolygon polygon, int index) {
+        updateShape();
+    }
+
+    @Override
+    public void onVertexMoved(EditablePolygon polygon, int index) {
+        updateShape();
+    }
+
+    @Override
+    public void onVertexRemoved(EditablePolygon polygon, int index) {
+        updateShape();
+    }
+
+    private void updateShape() {
+        if (polygon.size() < 3) {
+            if (shape != null) {
+                shape.remove();
+                shape = null;
+            }
+            return;
+        }
+        List<LatLng> points = new ArrayList<>(polygon.size());
+        for (int i = 0; i < polygon.size(); i++) {
+            points.add(new LatLng(polygon.lat(i), polygon.lng(i)));
+        }
+        if (shape == null) {
+            shape = map.addPolygon(new PolygonOptions()
+                    .addAll(points)
+                    .strokeWidth(strokeWidth)
+                    .strokeColor(Color.RED)
+                    .fillColor(fillColor));
+        } else {
+            shape.setPoints(points);
+        }
+    }
+}
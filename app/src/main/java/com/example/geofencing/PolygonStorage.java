@@ -0,0 +1,73 @@
+package com.example.geofencing;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+
+import com.example.geofencing.core.PolygonFileStore;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Accès partagé au fichier binaire des polygones (PolygonFileStore).
+// Toutes les lectures et écritures passent par l'exécuteur io(), jamais par le thread principal.
+final class PolygonStorage {
+
+    private static final String TAG = "PolygonStorage";
+
+    private static final String FILE_NAME = "polygons.bin";
+
+    // Ancien stockage : liste de LatLng sérialisée en JSON dans les SharedPreferences
+    private static final String LEGACY_PREFS_NAME = "geofence_prefs";
+    private static final String LEGACY_POLYGON_POINTS_KEY = "polygon_points";
+
+    private static final ExecutorService IO = Executors.newSingleThreadExecutor();
+    private static PolygonFileStore store;
+
+    private PolygonStorage() {
+    }
+
+    static ExecutorService io() {
+        return IO;
+    }
+
+    @WorkerThread
+    static synchronized PolygonFileStore get(Context context) throws IOException {
+        if (store == null) {
+            Context appContext = context.getApplicationContext();
+            store = PolygonFileStore.open(new File(appContext.getFilesDir(), FILE_NAME));
+            migrateFromPreferences(appContext, store);
+        }
+        return store;
+    }
+
+    // Migration unique : l'entrée JSON est convertie puis supprimée des préférences
+    private static void migrateFromPreferences(Context context, PolygonFileStore store) throws IOException {
+        SharedPreferences prefs = context.getSharedPreferences(LEGACY_PREFS_NAME, Context.MODE_PRIVATE);
+        String polygonPointsJson = prefs.getString(LEGACY_POLYGON_POINTS_KEY, null);
+        if (polygonPointsJson == null) {
+            return;
+        }
+        List<LatLng> polygonPoints = new Gson().fromJson(polygonPointsJson, new TypeToken<List<LatLng>>(){}.getType());
+        if (polygonPoints != null && !store.contains(MapsActivity.CURRENT_POLYGON_ID)) {
+            double[] lats = new double[polygonPoints.size()];
+            double[] lngs = new double[polygonPoints.size()];
+            for (int i = 0; i < polygonPoints.size(); i++) {
+                lats[i] = polygonPoints.get(i).latitude;
+                lngs[i] = polygonPoints.get(i).longitude;
+            }
+            store.replace(MapsActivity.CURRENT_POLYGON_ID, lats, lngs, lats.length);
+            store.sync();
+            Log.d(TAG, "Migrated " + lats.length + " polygon points from SharedPreferences");
+        }
+        prefs.edit().remove(LEGACY_POLYGON_POINTS_KEY).commit();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.geofencing;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.geofencing.core.IncrementalSprayPlan;
+import com.example.geofencing.core.LatencyHistogram;
+import com.example.geofencing.core.LogSampler;
+import com.example.geofencing.core.Metrics;
+import com.example.geofencing.core.PointGridIndex;
+import com.example.geofencing.core.PointList;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Marker;
+import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.TileOverlay;
+import com.google.android.gms.maps.model.TileOverlayOptions;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Affichage des points de pulvérisation d'un IncrementalSprayPlan :
+// - les points sont indexés sur une grille (PointGridIndex), reconstruite en arrière-plan quand le plan change ;
+// - seuls les points de la zone visible sont dessinés, à chaque arrêt de la caméra ;
+// - à faible zoom ou au-delà de MAX_MARKERS points visibles, ils sont regroupés en amas ;
+// - en mode TILES (ou AUTO au-delà de DENSE_POINT_THRESHOLD points), ils sont rasterisés dans un TileOverlay.
+class SprayPointRenderer implements IncrementalSprayPlan.Listener, GoogleMap.OnCameraIdleListener {
+
+    enum Mode {
+        MARKERS,
+        TILES,
+        AUTO
+    }
+
+    private static final String TAG = "SprayPointRenderer";
+
+    private static final int MAX_MARKERS = 300;
+    private static final int DENSE_POINT_THRESHOLD = 20000;
+    private static final float MIN_POINT_ZOOM = 18f;
+    private static final int CLUSTER_SIZE_PX = 64;
+    private static final int TILE_SIZE = 256;
+
+    private static final LatencyHistogram REDRAW_LATENCY = Metrics.getInstance().histogram("map.redraw.spray");
+    // Un rendu à chaque arrêt de la caméra : journal échantillonné, et seulement si le niveau DEBUG est actif
+    private static final LogSampler RENDER_LOG = new LogSampler(20);
+
+    private final GoogleMap map;
+    private final IncrementalSprayPlan plan;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor();
+    private final SprayPointTileProvider tileProvider = new SprayPointTileProvider();
+
+    // Marqueurs affichés, par clé (indice du point dans l'index, ou amas)
+    private final Map<Long, Marker> markers = new HashMap<>();
+    private TileOverlay tileOverlay;
+    private boolean tilesStale;
+
+    private Mode mode = Mode.AUTO;
+    private PointGridIndex index;
+    private int generation;
+    private boolean rebuildScheduled;
+    private boolean released;
+
+    SprayPointRenderer(GoogleMap map, IncrementalSprayPlan plan) {
+        this.map = map;
+        this.plan = plan;
+        plan.addListener(this);
+        rebuildIndex();
+    }
+
+    void setMode(Mode mode) {
+        this.mode = mode;
+        render();
+    }
+
+    void release() {
+        released = true;
+        plan.removeListener(this);
+        mainHandler.removeCallbacksAndMessages(null);
+        indexExecutor.shutdownNow();
+        clearMarkers();
+        if (tileOverlay != null) {
+            tileOverlay.remove();
+            tileOverlay = null;
+        }
+    }
+
+    @Override
+    public void onSegmentInserted(IncrementalSprayPlan plan, int index) {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onSegmentChanged(IncrementalSprayPlan plan, int index) {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onSegmentRemoved(IncrementalSprayPlan plan, int index) {
+        scheduleRebuild();
+    }
+
+    @Override
+    public void onCameraIdle() {
+        render();
+    }
+
+    // Une modification du polygone émet plusieurs événements de segment : une seule reconstruction
+    private void scheduleRebuild() {
+        if (rebuildScheduled) {
+            return;
+        }
+        rebuildScheduled = true;
+        mainHandler.post(this::rebuildIndex);
+    }
+
+    private void rebuildIndex() {
+        rebuildScheduled = false;
+        PointList snapshot = new PointList(plan.totalPointCount());
+        plan.copyTo(snapshot);
+        int buildGeneration = ++generation;
+        indexExecutor.execute(() -> {
+            PointGridIndex built = PointGridIndex.build(snapshot);
+            mainHandler.post(() -> {
+                // Ignorer un index devenu obsolète entre-temps
+                if (released || buildGeneration != generation) {
+                    return;
+                }
+                index = built;
+                tileProvider.setIndex(built);
+                tilesStale = true;
+                clearMarkers();
+                render();
+            });
+        });
+    }
+
+    private void render() {
+        if (index == null || released) {
+            return;
+        }
+        long start = System.nanoTime();
+        if (mode == Mode.TILES || (mode == Mode.AUTO && index.size() > DENSE_POINT_THRESHOLD)) {
+            clearMarkers();
+            renderTiles();
+        } else {
+            if (tileOverlay != null) {
+                tileOverlay.remove();
+                tileOverlay = null;
+            }
+            renderMarkers();
+        }
+        REDRAW_LATENCY.recordSince(start);
+    }
+
+    private void renderTiles() {
+        if (tileOverlay == null) {
+            tileOverlay = map.addTileOverlay(new TileOverlayOptions().tileProvider(tileProvider).fadeIn(false));
+            tilesStale = false;
+        } else if (tilesStale) {
+            tileOverlay.clearTileCache();
+            tilesStale = false;
+        }
+    }
+
+    private void renderMarkers() {
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        double south = bounds.southwest.latitude;
+        double west = bounds.southwest.longitude;
+        double north = bounds.northeast.latitude;
+        double east = bounds.northeast.longitude;
+        float zoom = map.getCameraPosition().zoom;
+
+        Map<Long, MarkerOptions> wanted = new HashMap<>();
+        boolean individual = zoom >= MIN_POINT_ZOOM && !exceeds(south, west, north, east, MAX_MARKERS);
+        if (individual) {
+            index.query(south, west, north, east, (i, lat, lng) -> {
+                wanted.put((long) i, new MarkerOptions().position(new LatLng(lat, lng)).title("Spraying Point"));
+                return true;
+            });
+        } else {
+            // Pas des amas : CLUSTER_SIZE_PX pixels à ce zoom
+            double clusterSize = 360.0 / (TILE_SIZE * Math.pow(2, zoom)) * CLUSTER_SIZE_PX;
+            index.cluster(south, west, north, east, clusterSize, (lat, lng, count) -> {
+                long key = Double.doubleToLongBits(lat) * 31 + Double.doubleToLongBits(lng) * 17 + count;
+                wanted.put(key | Long.MIN_VALUE, new MarkerOptions()
+                        .position(new LatLng(lat, lng))
+                        .title(count + " spraying points")
+                        .icon(BitmapDescriptorFactory.defaultMarker(BitmapDescriptorFactory.HUE_AZURE)));
+            });
+        }
+
+        // Ne toucher qu'aux marqueurs qui apparaissent ou disparaissent
+        Iterator<Map.Entry<Long, Marker>> iterator = markers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Marker> entry = iterator.next();
+            if (wanted.remove(entry.getKey()) == null) {
+                entry.getValue().remove();
+                iterator.remove();
+            }
+        }
+        for (Map.Entry<Long, MarkerOptions> entry : wanted.entrySet()) {
+            markers.put(entry.getKey(), map.addMarker(entry.getValue()));
+        }
+        if (Log.isLoggable(TAG, Log.DEBUG) && RENDER_LOG.sample()) {
+            Log.d(TAG, "Rendered " + markers.size() + (individual ? " spraying points" : " clusters")
+                    + " of " + index.size() + " at zoom " + zoom + " (1 of " + RENDER_LOG.every() + " renders logged)");
+        }
+    }
+
+    private boolean exceeds(double south, double west, double north, double east, int limit) {
+        final int[] count = {0};
+        index.query(south, west, north, east, (i, lat, lng) -> ++count[0] <= limit);
+        return count[0] > limit;
+    }
+
+    private void clearMarkers() {
+        for (Marker marker : markers.values()) {
+            marker.remove();
+        }
+        markers.clear();
+    }
+}
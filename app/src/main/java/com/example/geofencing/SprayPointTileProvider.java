@@ -0,0 +1,100 @@
+package com.example.geofencing;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import com.example.geofencing.core.LatencyHistogram;
+import com.example.geofencing.core.Metrics;
+import com.example.geofencing.core.PointGridIndex;
+import com.example.geofencing.core.SprayPointGenerator;
+import com.google.android.gms.maps.model.Tile;
+import com.google.android.gms.maps.model.TileProvider;
+
+import java.io.ByteArrayOutputStream;
+
+// Rasterise les points de pulvérisation en tuiles PNG. Google Maps appelle getTile() sur ses propres
+// threads d'arrière-plan : aucun objet Marker n'est créé, quelle que soit la densité des points.
+class SprayPointTileProvider implements TileProvider {
+
+    private static final int TILE_SIZE = 256;
+    private static final float MIN_DOT_RADIUS_PX = 1.5f;
+    private static final double EARTH_CIRCUMFERENCE_METERS = 40075016.686;
+
+    private static final LatencyHistogram TILE_LATENCY = Metrics.getInstance().histogram("map.tile");
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private volatile PointGridIndex index;
+
+    SprayPointTileProvider() {
+        paint.setColor(Color.BLUE);
+        paint.setStyle(Paint.Style.FILL);
+    }
+
+    void setIndex(PointGridIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public Tile getTile(int x, int y, int zoom) {
+        long start = System.nanoTime();
+        Tile tile = renderTile(x, y, zoom);
+        TILE_LATENCY.recordSince(start);
+        return tile;
+    }
+
+    private Tile renderTile(int x, int y, int zoom) {
+        PointGridIndex current = index;
+        if (current == null) {
+            return NO_TILE;
+        }
+        double scale = 1 << zoom;
+        double west = x / scale * 360 - 180;
+        double east = (x + 1) / scale * 360 - 180;
+        double north = tileLat(y, scale);
+        double south = tileLat(y + 1, scale);
+
+        // Rayon d'un point = demi-diamètre de pulvérisation à ce zoom (approximation à la latitude de la tuile)
+        double metersPerPixel = EARTH_CIRCUMFERENCE_METERS * Math.cos(Math.toRadians((north + south) / 2)) / (scale * TILE_SIZE);
+        float radius = (float) Math.max(MIN_DOT_RADIUS_PX, SprayPointGenerator.SPRAYING_DIAMETER / 2 / metersPerPixel);
+
+        // Marge d'un rayon pour ne pas couper les points à cheval sur deux tuiles
+        double marginDegrees = radius / TILE_SIZE * (east - west);
+        double topY = mercatorY(north);
+        double spanY = mercatorY(south) - topY;
+
+        // Le bitmap n'est alloué qu'au premier point trouvé : les tuiles vides ne coûtent qu'une requête
+        final Bitmap[] bitmap = {null};
+        final Canvas[] canvas = {null};
+        current.query(south - marginDegrees, west - marginDegrees, north + marginDegrees, east + marginDegrees, (i, lat, lng) -> {
+            if (bitmap[0] == null) {
+                bitmap[0] = Bitmap.createBitmap(TILE_SIZE, TILE_SIZE, Bitmap.Config.ARGB_8888);
+                canvas[0] = new Canvas(bitmap[0]);
+            }
+            float px = (float) ((lng - west) / (east - west) * TILE_SIZE);
+            float py = (float) ((mercatorY(lat) - topY) / spanY * TILE_SIZE);
+            canvas[0].drawCircle(px, py, radius, paint);
+            return true;
+        });
+        if (bitmap[0] == null) {
+            return NO_TILE;
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap[0].compress(Bitmap.CompressFormat.PNG, 100, out);
+        bitmap[0].recycle();
+        return new Tile(TILE_SIZE, TILE_SIZE, out.toByteArray());
+    }
+
+    private static double tileLat(int y, double scale) {
+        double n = Math.PI * (1 - 2 * y / scale);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    // Ordonnée Web Mercator normalisée (0 au nord, 1 au sud)
+    private static double mercatorY(double lat) {
+        double sin = Math.sin(Math.toRadians(lat));
+        return 0.5 - Math.log((1 + sin) / (1 - sin)) / (4 * Math.PI);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.geofencing;
+
+import android.graphics.Color;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.example.geofencing.core.EditablePolygon;
+import com.example.geofencing.core.PointList;
+import com.example.geofencing.core.SprayRoutePlanner;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.Polyline;
+import com.google.android.gms.maps.model.PolylineOptions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Itinéraire de pulvérisation du polygone en cours d'édition, tracé par-dessus le champ.
+// Chaque modification annule le calcul en cours et en lance un nouveau en arrière-plan ;
+// seul le dernier résultat est affiché.
+class SprayRouteLayer implements EditablePolygon.Listener {
+
+    private static final String TAG = "SprayRouteLayer";
+
+    private static final float ROUTE_WIDTH_PX = 3;
+    private static final int ROUTE_COLOR = Color.argb(200, 0, 90, 200);
+
+    private final GoogleMap map;
+    private final EditablePolygon polygon;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService planExecutor = Executors.newSingleThreadExecutor();
+
+    private SprayRoutePlanner planner;
+    private Polyline line;
+    private int generation;
+    private boolean released;
+
+    SprayRouteLayer(GoogleMap map, EditablePolygon polygon) {
+        this.map = map;
+        this.polygon = polygon;
+        polygon.addListener(this);
+        replan();
+    }
+
+    void release() {
+        released = true;
+        polygon.removeListener(this);
+        if (planner != null) {
+            planner.cancel();
+        }
+        mainHandler.removeCallbacksAndMessages(null);
+        planExecutor.shutdownNow();
+        if (line != null) {
+            line.remove();
+            line = null;
+        }
+    }
+
+    @Override
+    public void onVertexInserted(EditablePolygon polygon, int index) {
+        replan();
+    }
+
+    @Override
+    public void onVertexMoved(EditablePolygon polygon, int index) {
+        replan();
+    }
+
+    @Override
+    public void onVertexRemoved(EditablePolygon polygon, int index) {
+        replan();
+    }
+
+    private void replan() {
+        if (planner != null) {
+            planner.cancel();
+        }
+        int planGeneration = ++generation;
+        if (polygon.size() < 3) {
+            planner = null;
+            showPath(null);
+            return;
+        }
+        SprayRoutePlanner current = new SprayRoutePlanner();
+        planner = current;
+        double[] lats = polygon.toLatArray();
+        double[] lngs = polygon.toLngArray();
+        planExecutor.execute(() -> {
+            SprayRoutePlanner.Route route;
+            try {
+                route = current.plan(lats, lngs, lats.length);
+            } catch (CancellationException e) {
+                return;
+            }
+            Log.d(TAG, String.format("Route: %d passes, %.0f m (%.0f m before 2-opt), %d points in %.1f ms",
+                    route.passCount(), route.lengthMeters(), route.initialLengthMeters(), route.points().size(),
+                    route.computeNanos() / 1e6));
+            mainHandler.post(() -> {
+                if (!released && planGeneration == generation) {
+                    showPath(route.path());
+                }
+            });
+        });
+    }
+
+    private void showPath(PointList path) {
+        if (path == null || path.isEmpty()) {
+            if (line != null) {
+                line.remove();
+                line = null;
+            }
+            return;
+        }
+        List<LatLng> points = new ArrayList<>(path.size());
+        for (int i = 0; i < path.size(); i++) {
+            points.add(new LatLng(path.lat(i), path.lng(i)));
+        }
+        if (line == null) {
+            line = map.addPolyline(new PolylineOptions().addAll(points).width(ROUTE_WIDTH_PX).color(ROUTE_COLOR));
+        } else {
+            line.setPoints(points);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.geofencing;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.StagedPolygonLoader;
+
+import java.io.IOException;
+
+// Remplissage du cache de polygones par étapes, sur PolygonStorage.io(), lancé par GeofencingApplication :
+// contours (boîtes englobantes) de tous les champs et polygone en cours d'édition d'abord, puis géométrie
+// complète par lots, les champs visibles sur la carte en priorité. Chaque lot est une tâche distincte :
+// les écritures de la carte ne restent pas bloquées derrière tout le chargement.
+final class StartupPipeline {
+
+    private static final String TAG = "StartupPipeline";
+
+    interface Listener {
+        // Appelé sur PolygonStorage.io() après chaque lot
+        void onFieldsLoaded(int pendingCount);
+    }
+
+    private static volatile StagedPolygonLoader loader;
+    private static volatile Listener listener;
+    // Dernière zone visible, retenue si la carte est prête avant la lecture des contours
+    private static volatile double[] viewport;
+
+    private StartupPipeline() {
+    }
+
+    static void start(Context context) {
+        Context appContext = context.getApplicationContext();
+        PolygonStorage.io().execute(() -> {
+            try {
+                StagedPolygonLoader staged = new StagedPolygonLoader(PolygonStorage.get(appContext), PolygonRepository.getInstance());
+                staged.readOutlines();
+                // MapsActivity lit le polygone courant juste après cette tâche
+                staged.load(MapsActivity.CURRENT_POLYGON_ID);
+                loader = staged;
+                double[] view = viewport;
+                if (view != null) {
+                    staged.setViewport(view[0], view[1], view[2], view[3]);
+                }
+                notifyListener(staged);
+                PolygonStorage.io().execute(() -> loadChunk(appContext, staged));
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot load polygons", e);
+            }
+        });
+    }
+
+    private static void loadChunk(Context context, StagedPolygonLoader staged) {
+        try {
+            staged.loadNext(StagedPolygonLoader.DEFAULT_CHUNK_SIZE);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot load polygons", e);
+            return;
+        }
+        notifyListener(staged);
+        if (!staged.isComplete()) {
+            PolygonStorage.io().execute(() -> loadChunk(context, staged));
+        } else {
+            // Enregistrer les géofences les plus proches parmi tous les champs chargés
+            GeofenceRegistration.refresh(context);
+        }
+    }
+
+    private static void notifyListener(StagedPolygonLoader staged) {
+        Listener current = listener;
+        if (current != null) {
+            current.onFieldsLoaded(staged.pendingCount());
+        }
+    }
+
+    // null tant que les contours ne sont pas lus
+    static StagedPolygonLoader loader() {
+        return loader;
+    }
+
+    static void setListener(Listener newListener) {
+        listener = newListener;
+    }
+
+    // La zone visible passe en tête du chargement
+    static void setViewport(double south, double west, double north, double east) {
+        viewport = new double[]{south, west, north, east};
+        StagedPolygonLoader current = loader;
+        if (current != null) {
+            current.setViewport(south, west, north, east);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.geofencing;
+
+import android.graphics.Color;
+
+import com.example.geofencing.core.LatencyHistogram;
+import com.example.geofencing.core.Metrics;
+import com.example.geofencing.core.PolygonLod;
+import com.example.geofencing.core.PolygonRepository;
+import com.example.geofencing.core.PreparedPolygon;
+import com.example.geofencing.core.StagedPolygonLoader;
+import com.google.android.gms.maps.GoogleMap;
+import com.google.android.gms.maps.model.LatLng;
+import com.google.android.gms.maps.model.LatLngBounds;
+import com.google.android.gms.maps.model.Polygon;
+import com.google.android.gms.maps.model.PolygonOptions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Affiche les polygones stockés (hors polygone en cours d'édition) visibles à l'écran,
+// avec le niveau de détail adapté au zoom : un contour relevé de dizaines de milliers de sommets
+// n'en envoie que quelques centaines à la carte quand il tient sur quelques centaines de pixels.
+// Pendant le chargement par étapes, un champ dont la géométrie n'est pas encore chargée est dessiné par
+// le rectangle de sa boîte englobante, remplacé sur place dès que le champ arrive dans le dépôt.
+// Les niveaux de détail sont construits hors du thread principal (chargement, import, enregistrement des
+// géofences) : un champ dont ils ne sont pas encore prêts garde son dessin actuel jusqu'au prochain passage.
+class StoredPolygonsLayer implements GoogleMap.OnCameraIdleListener {
+
+    private static final int TILE_SIZE = 256;
+    private static final double EARTH_CIRCUMFERENCE_METERS = 40075016.686;
+
+    // Niveau de détail des rectangles provisoires
+    private static final int OUTLINE_LEVEL = -1;
+
+    private static final LatencyHistogram REDRAW_LATENCY = Metrics.getInstance().histogram("map.redraw.fields");
+
+    private static final class Shape {
+        final Polygon polygon;
+        long version;
+        int level;
+
+        Shape(Polygon polygon, long version, int level) {
+            this.polygon = polygon;
+            this.version = version;
+            this.level = level;
+        }
+    }
+
+    private final GoogleMap map;
+    private final PolygonRepository repository;
+    private final int excludedId;
+    private final int strokeWidth;
+    private final int fillColor;
+    private final Map<Integer, Shape> shapes = new HashMap<>();
+
+    StoredPolygonsLayer(GoogleMap map, PolygonRepository repository, int excludedId, int strokeWidth, int fillColor) {
+        this.map = map;
+        this.repository = repository;
+        this.excludedId = excludedId;
+        this.strokeWidth = strokeWidth;
+        this.fillColor = fillColor;
+    }
+
+    void release() {
+        for (Shape shape : shapes.values()) {
+            shape.polygon.remove();
+        }
+        shapes.clear();
+    }
+
+    @Override
+    public void onCameraIdle() {
+        long start = System.nanoTime();
+        LatLngBounds bounds = map.getProjection().getVisibleRegion().latLngBounds;
+        double centerLat = (bounds.southwest.latitude + bounds.northeast.latitude) / 2;
+        double metersPerPixel = EARTH_CIRCUMFERENCE_METERS * Math.cos(Math.toRadians(centerLat))
+                / (TILE_SIZE * Math.pow(2, map.getCameraPosition().zoom));
+
+        // Les champs visibles sont relevés d'abord ; la carte n'est modifiée qu'une fois la requête terminée
+        List<PreparedPolygon> visible = new ArrayList<>();
+        repository.queryBounds(bounds.southwest.latitude, bounds.southwest.longitude,
+                bounds.northeast.latitude, bounds.northeast.longitude, stored -> {
+                    if (stored.id() != excludedId && stored.vertexCount() >= 3) {
+                        visible.add(stored);
+                    }
+                    return true;
+                });
+
+        for (PreparedPolygon stored : visible) {
+            PolygonLod lod = stored.lodIfReady();
+            if (lod == null) {
+                continue;
+            }
+            int level = lod.levelFor(metersPerPixel);
+            Shape shape = shapes.get(stored.id());
+            if (shape == null) {
+                PolygonOptions polygonOptions = new PolygonOptions()
+                        .strokeWidth(strokeWidth)
+                        .strokeColor(Color.RED)
+                        .fillColor(fillColor)
+                        .addAll(points(lod, level));
+                shapes.put(stored.id(), new Shape(map.addPolygon(polygonOptions), stored.version(), level));
+            } else if (shape.level != level || shape.version != stored.version()) {
+                // Mise à jour sur place, seulement quand le niveau de détail ou le polygone change
+                if (shape.level == OUTLINE_LEVEL) {
+                    shape.polygon.setFillColor(fillColor);
+                }
+                shape.polygon.setPoints(points(lod, level));
+                shape.level = level;
+                shape.version = stored.version();
+            }
+        }
+
+        StagedPolygonLoader loader = StartupPipeline.loader();
+        if (loader != null && !repository.isLoaded()) {
+            loader.queryOutlines(bounds.southwest.latitude, bounds.southwest.longitude,
+                    bounds.northeast.latitude, bounds.northeast.longitude, (polygonId, south, west, north, east) -> {
+                        if (polygonId == excludedId || shapes.containsKey(polygonId)) {
+                            return true;
+                        }
+                        PolygonOptions polygonOptions = new PolygonOptions()
+                                .strokeWidth(strokeWidth)
+                                .strokeColor(Color.RED)
+                                .add(new LatLng(south, west), new LatLng(south, east), new LatLng(north, east), new LatLng(north, west));
+                        shapes.put(polygonId, new Shape(map.addPolygon(polygonOptions), 0, OUTLINE_LEVEL));
+                        return true;
+                    });
+        }
+        REDRAW_LATENCY.recordSince(start);
+    }
+
+    private static List<LatLng> points(PolygonLod lod, int level) {
+        List<LatLng> points = new ArrayList<>(lod.vertexCount(level));
+        for (int i = 0; i < lod.vertexCount(level); i++) {
+            points.add(new LatLng(lod.lat(level, i), lod.lng(level, i)));
+        }
+        return points;
+    }
+}
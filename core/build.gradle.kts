@@ -0,0 +1,36 @@
+plugins {
+    `java-library`
+    alias(libs.plugins.jmh)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_1_8
+    targetCompatibility = JavaVersion.VERSION_1_8
+}
+
+// Sources commentées en français : encodage explicite pour toutes les compilations (main, test, jmh et les classes
+// générées par JMH), quel que soit l'encodage par défaut de la machine de build
+tasks.withType<JavaCompile>().configureEach {
+    options.encoding = "UTF-8"
+}
+
+dependencies {
+    // Lecture en flux du GeoJSON (JsonReader), même version que l'application
+    implementation("com.google.code.gson:gson:2.8.6")
+    testImplementation(libs.junit)
+}
+
+jmh {
+    jmhVersion.set(libs.versions.jmhCore)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+}
+
+// Rejeu de traces GPS hors appareil : ./gradlew :core:replay --args="polygons.bin trace.gpx"
+tasks.register<JavaExec>("replay") {
+    group = "verification"
+    description = "Replays recorded location traces through the geofence decision path"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.geofencing.core.TraceReplayEngine")
+}
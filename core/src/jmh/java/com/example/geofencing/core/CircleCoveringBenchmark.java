@@ -0,0 +1,77 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Recouvrement par cercles de 1000 champs étoilés d'environ 300 m : séquentiel contre fork-join.
+// Une nouvelle version de chaque polygone par appel, pour ne pas mesurer le cache.
+// largeField : un champ levé au GPS (4000 sommets, environ 2 km), où domine la distance au bord.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CircleCoveringBenchmark {
+
+    private static final int POLYGON_COUNT = 1000;
+
+    @Param({"10", "25"})
+    public double toleranceMeters;
+
+    private final PolygonRepository repository = new PolygonRepository();
+    private double[][][] fields;
+    private double[][] largeField;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        fields = new double[POLYGON_COUNT][][];
+        for (int id = 0; id < POLYGON_COUNT; id++) {
+            double lat = SyntheticFields.ORIGIN_LAT + random.nextDouble() * SyntheticFields.EXTENT;
+            double lng = SyntheticFields.ORIGIN_LNG + random.nextDouble() * SyntheticFields.EXTENT;
+            fields[id] = SyntheticFields.starField(random, lat, lng, 0.0015, 24);
+        }
+        largeField = SyntheticFields.starField(random, SyntheticFields.ORIGIN_LAT, SyntheticFields.ORIGIN_LNG, 0.01, 4000);
+    }
+
+    private List<PreparedPolygon> newVersions() {
+        List<PreparedPolygon> polygons = new ArrayList<>(POLYGON_COUNT);
+        for (int id = 0; id < POLYGON_COUNT; id++) {
+            polygons.add(repository.put(id, fields[id][0], fields[id][1], null));
+        }
+        return polygons;
+    }
+
+    @Benchmark
+    public int sequential() {
+        int circles = 0;
+        for (PreparedPolygon polygon : newVersions()) {
+            circles += polygon.circleCovering(toleranceMeters).size();
+        }
+        return circles;
+    }
+
+    @Benchmark
+    public int forkJoin() {
+        int circles = 0;
+        for (CircleCovering covering : CircleCovering.computeAll(newVersions(), toleranceMeters, ForkJoinPool.commonPool())) {
+            circles += covering.size();
+        }
+        return circles;
+    }
+
+    @Benchmark
+    public int largeField() {
+        return CircleCovering.compute(largeField[0], largeField[1], largeField[0].length, toleranceMeters).size();
+    }
+}
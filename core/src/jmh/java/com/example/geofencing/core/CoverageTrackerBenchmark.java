@@ -0,0 +1,60 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Suivi de couverture d'un champ étoilé de quelques centaines d'hectares : rastérisation, puis marquage
+// d'un flux de positions GPS tirées dans sa boîte englobante
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CoverageTrackerBenchmark {
+
+    private static final int POSITION_COUNT = 1 << 16;
+
+    private double[][] field;
+    private double[] lats;
+    private double[] lngs;
+    private CoverageTracker tracker;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        field = SyntheticFields.starField(random, SyntheticFields.ORIGIN_LAT, SyntheticFields.ORIGIN_LNG, 0.01, 200);
+        lats = new double[POSITION_COUNT];
+        lngs = new double[POSITION_COUNT];
+        for (int i = 0; i < POSITION_COUNT; i++) {
+            lats[i] = SyntheticFields.ORIGIN_LAT + (random.nextDouble() - 0.5) * 0.02;
+            lngs[i] = SyntheticFields.ORIGIN_LNG + (random.nextDouble() - 0.5) * 0.02;
+        }
+        tracker = CoverageTracker.forPolygon(field[0], field[1], field[0].length);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public CoverageTracker rasterise() {
+        return CoverageTracker.forPolygon(field[0], field[1], field[0].length);
+    }
+
+    @Benchmark
+    public boolean mark() {
+        int i = next++ & (POSITION_COUNT - 1);
+        return tracker.mark(lats[i], lngs[i]);
+    }
+
+    @Benchmark
+    public double markAndReadCoverage() {
+        int i = next++ & (POSITION_COUNT - 1);
+        tracker.mark(lats[i], lngs[i]);
+        return tracker.coverage();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Import en flux d'un fichier synthétique de 2000 champs de 500 sommets (1 million de sommets),
+// en GeoJSON et en KML. Débit = taille du fichier (affichée au setup) / temps par opération.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FieldImportBenchmark {
+
+    private static final int FIELD_COUNT = 2000;
+    private static final int VERTEX_COUNT = 500;
+
+    @Param({"GEOJSON", "KML"})
+    public FieldImporter.Format format;
+
+    private byte[] file;
+    private long vertices;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        StringBuilder out = new StringBuilder();
+        out.append(format == FieldImporter.Format.KML ? "<kml><Document>\n" : "{\"type\":\"FeatureCollection\",\"features\":[\n");
+        for (int id = 0; id < FIELD_COUNT; id++) {
+            double lat = SyntheticFields.ORIGIN_LAT + random.nextDouble() * SyntheticFields.EXTENT;
+            double lng = SyntheticFields.ORIGIN_LNG + random.nextDouble() * SyntheticFields.EXTENT;
+            double[][] field = SyntheticFields.starField(random, lat, lng, 0.002, VERTEX_COUNT);
+            if (format == FieldImporter.Format.KML) {
+                out.append("<Placemark><name>Champ ").append(id).append("</name><Polygon><outerBoundaryIs><LinearRing><coordinates>\n");
+                for (int i = 0; i <= VERTEX_COUNT; i++) {
+                    int k = i % VERTEX_COUNT;
+                    out.append(String.format(Locale.ROOT, "%.7f,%.7f,0 ", field[1][k], field[0][k]));
+                }
+                out.append("\n</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>\n");
+            } else {
+                out.append(id == 0 ? "" : ",\n").append("{\"type\":\"Feature\",\"properties\":{\"name\":\"Champ ").append(id)
+                        .append("\"},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[");
+                for (int i = 0; i <= VERTEX_COUNT; i++) {
+                    int k = i % VERTEX_COUNT;
+                    out.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "[%.7f,%.7f]", field[1][k], field[0][k]));
+                }
+                out.append("]]}}");
+            }
+        }
+        out.append(format == FieldImporter.Format.KML ? "</Document></kml>\n" : "]}\n");
+        file = out.toString().getBytes(StandardCharsets.UTF_8);
+        System.out.println(format + ": " + file.length / 1024 + " KB");
+    }
+
+    @Benchmark
+    public long importFile() throws IOException {
+        vertices = 0;
+        FieldImporter.importStream(new ByteArrayInputStream(file), file.length, format,
+                (ring, holes) -> vertices += ring.size(), (bytesRead, totalBytes, polygonCount) -> {
+                });
+        return vertices;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Coût d'une distance selon le mode, entre points d'un champ de quelques kilomètres, et points de pulvérisation
+// d'un contour mesurés par chaque mode
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoDistanceBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"EQUIRECTANGULAR", "HAVERSINE", "VINCENTY"})
+    public GeoDistance.Mode mode;
+
+    private double[] lats;
+    private double[] lngs;
+    private double[] fieldLats;
+    private double[] fieldLngs;
+    private GeoDistance distance;
+    private SprayPointGenerator generator;
+    private PointList points;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(5);
+        lats = new double[QUERIES + 1];
+        lngs = new double[QUERIES + 1];
+        for (int q = 0; q <= QUERIES; q++) {
+            lats[q] = 34.02 + (random.nextDouble() - 0.5) * 0.05;
+            lngs[q] = -6.84 + (random.nextDouble() - 0.5) * 0.05;
+        }
+        double[][] field = SyntheticFields.starField(random, 34.02, -6.84, 0.001, 512);
+        fieldLats = field[0];
+        fieldLngs = field[1];
+        distance = GeoDistance.forField(mode, lats, lngs, lats.length);
+        generator = new SprayPointGenerator();
+        points = new PointList(1 << 16);
+    }
+
+    @Benchmark
+    public double meters() {
+        int q = next++ & (QUERIES - 1);
+        return distance.meters(lats[q], lngs[q], lats[q + 1], lngs[q + 1]);
+    }
+
+    @Benchmark
+    public int sprayPoints() {
+        points.clear();
+        return generator.generate(fieldLats, fieldLngs, fieldLats.length, distance, points);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Reclassement des géofences enregistrées le long d'un trajet, avec le client en mémoire
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GeofenceRotationBenchmark {
+
+    private static final int POSITIONS = 1024;
+
+    @Param({"1000", "10000"})
+    public int fenceCount;
+
+    private GeofenceRegistrationManager manager;
+    private double[] lats;
+    private double[] lngs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        double[] centerLats = SyntheticFields.randomLats(random, fenceCount);
+        double[] centerLngs = SyntheticFields.randomLngs(random, fenceCount);
+        List<CircularFence> fences = new ArrayList<>(fenceCount);
+        for (int i = 0; i < fenceCount; i++) {
+            fences.add(new CircularFence("field" + i, centerLats[i], centerLngs[i], 50, CircularFence.TRANSITION_ENTER));
+        }
+        manager = new GeofenceRegistrationManager(new InMemoryGeofenceClient());
+        manager.setCandidates(fences);
+        lats = SyntheticFields.randomLats(random, POSITIONS);
+        lngs = SyntheticFields.randomLngs(random, POSITIONS);
+    }
+
+    // Positions tirées dans toute la zone : chaque appel reclasse et échange une partie des géofences
+    @Benchmark
+    public boolean rerank() {
+        int q = next++ & (POSITIONS - 1);
+        return manager.onLocation(lats[q], lngs[q]);
+    }
+}
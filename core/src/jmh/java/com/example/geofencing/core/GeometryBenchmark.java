@@ -0,0 +1,86 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Containment (brut et préparé), points de pulvérisation et distances selon la taille du polygone
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"8", "64", "512", "4096"})
+    public int vertexCount;
+
+    private double[] polygonLats;
+    private double[] polygonLngs;
+    private double[] lats;
+    private double[] lngs;
+    private PreparedPolygon preparedPolygon;
+    private PointList sprayingPoints;
+    private SprayPointGenerator sprayPointGenerator;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        // Champ d'environ 100 m de rayon : quelques centaines de points de pulvérisation sur le contour
+        double[][] field = SyntheticFields.starField(random, 34.02, -6.84, 0.001, vertexCount);
+        polygonLats = field[0];
+        polygonLngs = field[1];
+        lats = new double[QUERIES];
+        lngs = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            lats[q] = 34.02 + (random.nextDouble() - 0.5) * 0.0025;
+            lngs[q] = -6.84 + (random.nextDouble() - 0.5) * 0.0025;
+        }
+        preparedPolygon = new PolygonRepository().put(0, polygonLats, polygonLngs, null);
+        // Niveaux de détail et bandes construits hors mesure
+        preparedPolygon.lod();
+        preparedPolygon.slabs();
+        sprayingPoints = new PointList(1 << 16);
+        sprayPointGenerator = new SprayPointGenerator();
+    }
+
+    @Benchmark
+    public boolean containsPoint() {
+        int q = next++ & (QUERIES - 1);
+        return PolygonMath.containsPoint(polygonLats, polygonLngs, lats[q], lngs[q]);
+    }
+
+    // À partir de 256 sommets, filtre conservateur sur le niveau de détail simplifié avant le test exact
+    @Benchmark
+    public boolean preparedContains() {
+        int q = next++ & (QUERIES - 1);
+        return preparedPolygon.contains(lats[q], lngs[q]);
+    }
+
+    @Benchmark
+    public int sprayingPoints() {
+        sprayingPoints.clear();
+        return sprayPointGenerator.generate(polygonLats, polygonLngs, vertexCount, sprayingPoints);
+    }
+
+    @Benchmark
+    public double degreeDistance() {
+        int q = next++ & (QUERIES - 1);
+        return PolygonMath.degreeDistance(lats[q], lngs[q], polygonLats[0], polygonLngs[0]);
+    }
+
+    @Benchmark
+    public double haversineMeters() {
+        int q = next++ & (QUERIES - 1);
+        return PolygonMath.haversineMeters(lats[q], lngs[q], polygonLats[0], polygonLngs[0]);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Containment d'un champ étoilé avec deux zones exclues : arbre de segments sur les bandes (O(log² n))
+// contre lancer de rayon (O(n)), selon le nombre total de sommets
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MultiPolygonBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"1000", "10000", "100000"})
+    public int vertexCount;
+
+    private double[][] outer;
+    private MultiPolygon field;
+    private double[] lats;
+    private double[] lngs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(7);
+        double lat = SyntheticFields.ORIGIN_LAT;
+        double lng = SyntheticFields.ORIGIN_LNG;
+        outer = SyntheticFields.starField(random, lat, lng, 0.004, vertexCount * 8 / 10);
+        double[][] pond = SyntheticFields.starField(random, lat + 0.001, lng, 0.0005, vertexCount / 10);
+        double[][] barn = SyntheticFields.starField(random, lat - 0.001, lng - 0.001, 0.0004, vertexCount / 10);
+        field = new MultiPolygon.Builder()
+                .addOuter(outer[0], outer[1], outer[0].length)
+                .addHole(pond[0], pond[1], pond[0].length)
+                .addHole(barn[0], barn[1], barn[0].length)
+                .build();
+        lats = new double[QUERIES];
+        lngs = new double[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            lats[q] = lat + (random.nextDouble() - 0.5) * 0.01;
+            lngs[q] = lng + (random.nextDouble() - 0.5) * 0.01;
+        }
+    }
+
+    @Benchmark
+    public boolean slabs() {
+        int q = next++ & (QUERIES - 1);
+        return field.contains(lats[q], lngs[q]);
+    }
+
+    @Benchmark
+    public boolean rayCast() {
+        int q = next++ & (QUERIES - 1);
+        return field.containsRayCast(lats[q], lngs[q]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MultiPolygon build() {
+        return new MultiPolygon.Builder()
+                .addOuter(outer[0], outer[1], outer[0].length)
+                .build();
+    }
+}
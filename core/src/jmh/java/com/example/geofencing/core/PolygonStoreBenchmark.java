@@ -0,0 +1,61 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Recherche du champ contenant un point : index STR contre parcours linéaire (10k et 100k polygones)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PolygonStoreBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    @Param({"10000", "100000"})
+    public int polygonCount;
+
+    private PolygonStore store;
+    private double[][][] polygons;
+    private double[] lats;
+    private double[] lngs;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(1);
+        store = new PolygonStore();
+        polygons = new double[polygonCount][][];
+        for (int id = 0; id < polygonCount; id++) {
+            polygons[id] = SyntheticFields.randomField(random);
+            store.put(id, polygons[id][0], polygons[id][1]);
+        }
+        lats = SyntheticFields.randomLats(random, QUERIES);
+        lngs = SyntheticFields.randomLngs(random, QUERIES);
+    }
+
+    @Benchmark
+    public int indexed() {
+        int q = next++ & (QUERIES - 1);
+        return store.findContaining(lats[q], lngs[q]);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        int q = next++ & (QUERIES - 1);
+        for (int id = 0; id < polygons.length; id++) {
+            if (PolygonMath.containsPoint(polygons[id][0], polygons[id][1], lats[q], lngs[q])) {
+                return id;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Export d'un plan de pulvérisation vers un canal qui jette les octets : binaire et CSV de l'exporteur,
+// contre un CSV construit en String (String.format) comme le ferait une sérialisation naïve
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SprayPlanExportBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int pointCount;
+
+    private PointList plan;
+    private final WritableByteChannel sink = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer source) {
+            int remaining = source.remaining();
+            source.position(source.limit());
+            return remaining;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(9);
+        plan = new PointList(pointCount);
+        for (int i = 0; i < pointCount; i++) {
+            plan.add(SyntheticFields.ORIGIN_LAT + random.nextDouble() * SyntheticFields.EXTENT,
+                    SyntheticFields.ORIGIN_LNG + random.nextDouble() * SyntheticFields.EXTENT);
+        }
+    }
+
+    @Benchmark
+    public long binary() throws IOException {
+        return SprayPlanExporter.export(plan, sink, SprayPlanExporter.Format.BINARY);
+    }
+
+    @Benchmark
+    public long csv() throws IOException {
+        return SprayPlanExporter.export(plan, sink, SprayPlanExporter.Format.CSV);
+    }
+
+    @Benchmark
+    public long csvStringFormat() throws IOException {
+        StringBuilder csv = new StringBuilder("lat,lng\n");
+        for (int i = 0; i < plan.size(); i++) {
+            csv.append(String.format(Locale.ROOT, "%.7f,%.7f%n", plan.lat(i), plan.lng(i)));
+        }
+        return sink.write(ByteBuffer.wrap(csv.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+}
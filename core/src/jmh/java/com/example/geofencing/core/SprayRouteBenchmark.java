@@ -0,0 +1,52 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// Itinéraire de pulvérisation d'un champ étoilé (concave) de 40 sommets : un seul thread contre le pool commun
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SprayRouteBenchmark {
+
+    // Rayon du champ en degrés (~100 m et ~300 m)
+    @Param({"0.001", "0.003"})
+    public double radiusDegrees;
+
+    @Param({"single", "common"})
+    public String pool;
+
+    private double[][] field;
+    private ForkJoinPool forkJoinPool;
+
+    @Setup
+    public void setUp() {
+        field = SyntheticFields.starField(new Random(1), SyntheticFields.ORIGIN_LAT, SyntheticFields.ORIGIN_LNG, radiusDegrees, 40);
+        forkJoinPool = pool.equals("single") ? new ForkJoinPool(1) : ForkJoinPool.commonPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (forkJoinPool != ForkJoinPool.commonPool()) {
+            forkJoinPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public SprayRoutePlanner.Route plan() {
+        SprayRoutePlanner planner = new SprayRoutePlanner(SprayPointGenerator.SPRAYING_DIAMETER,
+                SprayPointGenerator.DISTANCE_BETWEEN_POINTS, forkJoinPool);
+        return planner.plan(field[0], field[1], field[0].length);
+    }
+}
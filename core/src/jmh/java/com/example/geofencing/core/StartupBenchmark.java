@@ -0,0 +1,109 @@
+package com.example.geofencing.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Démarrage de la carte avec 1000 champs stockés : temps avant que la carte soit utilisable
+// (contours de tous les champs, polygone courant et champs visibles chargés, plans de pulvérisation compris)
+// en chargement par étapes, contre le chargement complet du fichier qui le précédait
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StartupBenchmark {
+
+    private static final int FIELD_COUNT = 1000;
+    private static final int CURRENT_POLYGON_ID = 0;
+
+    @Param({"16", "256"})
+    public int vertexCount;
+
+    private File file;
+    private double[] viewport;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = File.createTempFile("startup", ".bin");
+        file.delete();
+        Random random = new Random(3);
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            for (int id = 0; id < FIELD_COUNT; id++) {
+                double lat = SyntheticFields.ORIGIN_LAT + random.nextDouble() * SyntheticFields.EXTENT;
+                double lng = SyntheticFields.ORIGIN_LNG + random.nextDouble() * SyntheticFields.EXTENT;
+                double[][] field = SyntheticFields.starField(random, lat, lng, 0.001, vertexCount);
+                store.replace(id, field[0], field[1], vertexCount);
+            }
+            store.sync();
+        }
+        // Zone visible d'environ 1,5 km autour du centre de la zone des champs (zoom 16)
+        double centerLat = SyntheticFields.ORIGIN_LAT + SyntheticFields.EXTENT / 2;
+        double centerLng = SyntheticFields.ORIGIN_LNG + SyntheticFields.EXTENT / 2;
+        viewport = new double[]{centerLat - 0.007, centerLng - 0.008, centerLat + 0.007, centerLng + 0.008};
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+    }
+
+    // Ancien démarrage : tous les champs décodés et préparés avant que la carte n'affiche quoi que ce soit
+    @Benchmark
+    public int loadAll() throws IOException {
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            PolygonRepository repository = new PolygonRepository();
+            repository.loadFrom(store);
+            warmVisible(repository);
+            return repository.size();
+        }
+    }
+
+    // Carte utilisable : contours, polygone courant, puis un premier lot centré sur la zone visible
+    @Benchmark
+    public int timeToInteractive() throws IOException {
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            PolygonRepository repository = new PolygonRepository();
+            StagedPolygonLoader loader = new StagedPolygonLoader(store, repository);
+            loader.readOutlines();
+            loader.load(CURRENT_POLYGON_ID);
+            loader.setViewport(viewport[0], viewport[1], viewport[2], viewport[3]);
+            loader.loadNext(StagedPolygonLoader.DEFAULT_CHUNK_SIZE);
+            return repository.size();
+        }
+    }
+
+    // Chargement par étapes jusqu'au dernier lot
+    @Benchmark
+    public int stagedComplete() throws IOException {
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            PolygonRepository repository = new PolygonRepository();
+            StagedPolygonLoader loader = new StagedPolygonLoader(store, repository);
+            loader.readOutlines();
+            loader.load(CURRENT_POLYGON_ID);
+            loader.setViewport(viewport[0], viewport[1], viewport[2], viewport[3]);
+            while (!loader.isComplete()) {
+                loader.loadNext(StagedPolygonLoader.DEFAULT_CHUNK_SIZE);
+            }
+            return repository.size();
+        }
+    }
+
+    // Niveaux de détail et plans de pulvérisation des champs visibles, comme au premier dessin de la carte
+    private void warmVisible(PolygonRepository repository) {
+        repository.queryBounds(viewport[0], viewport[1], viewport[2], viewport[3], polygon -> {
+            polygon.lod();
+            polygon.sprayPlan();
+            return true;
+        });
+    }
+}
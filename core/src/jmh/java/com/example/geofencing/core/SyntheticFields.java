@@ -0,0 +1,54 @@
+package com.example.geofencing.core;
+
+import java.util.Random;
+
+// Polygones synthétiques autour de Rabat pour les benchmarks
+final class SyntheticFields {
+
+    static final double ORIGIN_LAT = 34.0;
+    static final double ORIGIN_LNG = -6.9;
+    static final double EXTENT = 0.5;
+
+    private SyntheticFields() {
+    }
+
+    // Quadrilatère aléatoire d'environ 100 m de côté
+    static double[][] randomField(Random random) {
+        double lat = ORIGIN_LAT + random.nextDouble() * EXTENT;
+        double lng = ORIGIN_LNG + random.nextDouble() * EXTENT;
+        double size = 0.0005 + random.nextDouble() * 0.001;
+        return new double[][]{
+                {lat, lat + size, lat + size * 1.1, lat - size * 0.1},
+                {lng, lng - size * 0.1, lng + size, lng + size * 1.2}
+        };
+    }
+
+    // Polygone étoilé de vertexCount sommets, rayon d'environ radiusDegrees autour du centre
+    static double[][] starField(Random random, double centerLat, double centerLng, double radiusDegrees, int vertexCount) {
+        double[] lats = new double[vertexCount];
+        double[] lngs = new double[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            double r = radiusDegrees * (0.7 + 0.3 * random.nextDouble());
+            lats[i] = centerLat + r * Math.sin(angle);
+            lngs[i] = centerLng + r * Math.cos(angle);
+        }
+        return new double[][]{lats, lngs};
+    }
+
+    static double[] randomLats(Random random, int count) {
+        double[] lats = new double[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = ORIGIN_LAT + random.nextDouble() * EXTENT;
+        }
+        return lats;
+    }
+
+    static double[] randomLngs(Random random, int count) {
+        double[] lngs = new double[count];
+        for (int i = 0; i < count; i++) {
+            lngs[i] = ORIGIN_LNG + random.nextDouble() * EXTENT;
+        }
+        return lngs;
+    }
+}
@@ -0,0 +1,719 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Recouvrement d'un polygone par des cercles, pour l'enregistrer comme un ensemble de géofences circulaires.
+// Chaque point du polygone est dans au moins un cercle, et aucun cercle ne dépasse le polygone
+// de plus de la tolérance appliquée (en mètres).
+//
+// En mètres, dans la projection locale du polygone, en deux étapes :
+// 1. Grands cercles intérieurs, choisis de façon gloutonne : un point intérieur à distance d du bord est le centre
+//    d'un cercle de rayon d + tolérance, qui ne dépasse pas le polygone de plus de la tolérance.
+// 2. Complément en quadtree : une cellule est écartée si elle est hors du polygone ou si sa partie dans le
+//    polygone est déjà dans un cercle, retenue dès que son cercle reste dans la tolérance, sinon découpée en quatre.
+// Un carré de 100 ha se couvre d'une trentaine de cercles à 25 m (plus de 130 en quadtree seul).
+// Au-delà de MAX_CIRCLES cercles (champ long et étroit), la tolérance est relevée jusqu'à tenir dans la limite :
+// un champ ne doit pas occuper à lui seul les géofences disponibles.
+// Distances au bord et containment passent par un index des arêtes (EdgeIndex), construit une fois et gardé d'un
+// relèvement de tolérance à l'autre avec les distances des points de l'étape 1 : un champ levé au GPS (milliers de
+// sommets) ne parcourt pas toutes ses arêtes à chaque point.
+public final class CircleCovering {
+
+    public static final int MAX_CIRCLES = 32;
+
+    private static final double TOLERANCE_GROWTH = 1.5;
+
+    // Au-delà, les cellules de bord sont retenues telles quelles : la tolérance n'est plus garantie
+    private static final int MAX_DEPTH = 10;
+
+    // Grille de l'étape 1 : pas d'une demi-tolérance, élargi pour rester sous MAX_GRID_POINTS points.
+    // Un point sur CANDIDATE_STRIDE par ligne et par colonne est candidat.
+    private static final int MAX_GRID_POINTS = 2048;
+    private static final int CANDIDATE_STRIDE = 2;
+    // Marge des points du contour, en pas de grille
+    private static final double BOUNDARY_MARGIN = 0.25;
+
+    private static final double SQRT_2 = Math.sqrt(2);
+
+    private final double toleranceMeters;
+    private final double appliedToleranceMeters;
+    private final double[] lats;
+    private final double[] lngs;
+    private final double[] radii;
+
+    private CircleCovering(double toleranceMeters, double appliedToleranceMeters, double[] lats, double[] lngs, double[] radii) {
+        this.toleranceMeters = toleranceMeters;
+        this.appliedToleranceMeters = appliedToleranceMeters;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.radii = radii;
+    }
+
+    // Tolérance demandée
+    public double toleranceMeters() {
+        return toleranceMeters;
+    }
+
+    // Tolérance respectée par les cercles : celle demandée, ou plus si MAX_CIRCLES l'a imposé
+    public double appliedToleranceMeters() {
+        return appliedToleranceMeters;
+    }
+
+    public int size() {
+        return radii.length;
+    }
+
+    public double lat(int index) {
+        return lats[index];
+    }
+
+    public double lng(int index) {
+        return lngs[index];
+    }
+
+    public double radiusMeters(int index) {
+        return radii[index];
+    }
+
+    public static CircleCovering compute(double[] lats, double[] lngs, int count, double toleranceMeters) {
+        if (count < 3) {
+            return new CircleCovering(toleranceMeters, toleranceMeters, new double[0], new double[0], new double[0]);
+        }
+        LocalProjection projection = LocalProjection.forPolygon(lats, lngs, count);
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            xs[i] = projection.toX(lngs[i]);
+            ys[i] = projection.toY(lats[i]);
+            minX = Math.min(minX, xs[i]);
+            minY = Math.min(minY, ys[i]);
+            maxX = Math.max(maxX, xs[i]);
+            maxY = Math.max(maxY, ys[i]);
+        }
+        // L'origine de la projection est le centre de la boîte englobante
+        double halfSide = Math.max(Math.max(-minX, maxX), Math.max(-minY, maxY));
+
+        EdgeIndex index = new EdgeIndex(xs, ys, count, minX, minY, maxX, maxY);
+        double applied = toleranceMeters;
+        Builder builder;
+        while (true) {
+            builder = new Builder(index, applied);
+            builder.inscribe(minX, minY, maxX, maxY);
+            builder.cover(0, 0, halfSide, 0);
+            if (builder.size <= MAX_CIRCLES) {
+                break;
+            }
+            applied *= TOLERANCE_GROWTH;
+        }
+
+        int n = builder.size;
+        double[] circleLats = new double[n];
+        double[] circleLngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            circleLats[i] = projection.toLat(builder.ys[i]);
+            circleLngs[i] = projection.toLng(builder.xs[i]);
+        }
+        return new CircleCovering(toleranceMeters, applied, circleLats, circleLngs, Arrays.copyOf(builder.radii, n));
+    }
+
+    // Calcule en parallèle les recouvrements manquants ; chaque polygone garde le sien pour sa version
+    public static CircleCovering[] computeAll(List<PreparedPolygon> polygons, double toleranceMeters, ForkJoinPool pool) {
+        CircleCovering[] coverings = new CircleCovering[polygons.size()];
+        pool.invoke(new CoverTask(polygons, toleranceMeters, coverings, 0, coverings.length));
+        return coverings;
+    }
+
+    private static final class CoverTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // Un champ de quelques centaines de mètres se couvre en quelques centaines de microsecondes
+        private static final int SEQUENTIAL_THRESHOLD = 8;
+
+        private final List<PreparedPolygon> polygons;
+        private final double toleranceMeters;
+        private final CircleCovering[] out;
+        private final int from;
+        private final int to;
+
+        CoverTask(List<PreparedPolygon> polygons, double toleranceMeters, CircleCovering[] out, int from, int to) {
+            this.polygons = polygons;
+            this.toleranceMeters = toleranceMeters;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    out[i] = polygons.get(i).circleCovering(toleranceMeters);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new CoverTask(polygons, toleranceMeters, out, from, mid),
+                    new CoverTask(polygons, toleranceMeters, out, mid, to));
+        }
+    }
+
+    // Points de l'étape 1 rangés par case (tableaux compressés), avec le nombre de points encore découverts
+    // par case : les cases vides sont sautées, les cases entièrement dans un cercle comptées d'un bloc.
+    private static final class Grid {
+
+        private final double minX;
+        private final double minY;
+        private final double step;
+        private final int columns;
+        private final int rows;
+        private final double[] xs;
+        private final double[] ys;
+        private final double[] margins;
+        private final double maxMargin;
+        private final boolean[] covered;
+        private final int[] cellStart;
+        private final int[] cellPoints;
+        private final int[] cellUncovered;
+        // Sommes cumulées des points par case, pour borner le gain d'un cercle en temps constant
+        private final int[] prefix;
+
+        Grid(double minX, double minY, double step, int columns, int rows, double[] xs, double[] ys, double[] margins, int n) {
+            this.minX = minX;
+            this.minY = minY;
+            this.step = step;
+            this.columns = columns;
+            this.rows = rows;
+            this.xs = xs;
+            this.ys = ys;
+            this.margins = margins;
+            this.covered = new boolean[n];
+            double largest = 0;
+            int cells = columns * rows;
+            int[] cellOf = new int[n];
+            cellStart = new int[cells + 1];
+            for (int i = 0; i < n; i++) {
+                cellOf[i] = row(ys[i]) * columns + column(xs[i]);
+                cellStart[cellOf[i] + 1]++;
+                largest = Math.max(largest, margins[i]);
+            }
+            maxMargin = largest;
+            cellUncovered = new int[cells];
+            for (int c = 0; c < cells; c++) {
+                cellUncovered[c] = cellStart[c + 1];
+                cellStart[c + 1] += cellStart[c];
+            }
+            cellPoints = new int[n];
+            int[] fill = Arrays.copyOf(cellStart, cells);
+            for (int i = 0; i < n; i++) {
+                cellPoints[fill[cellOf[i]]++] = i;
+            }
+            prefix = new int[(rows + 1) * (columns + 1)];
+            for (int row = 0; row < rows; row++) {
+                for (int column = 0; column < columns; column++) {
+                    prefix[(row + 1) * (columns + 1) + column + 1] = cellUncovered[row * columns + column]
+                            + prefix[row * (columns + 1) + column + 1] + prefix[(row + 1) * (columns + 1) + column]
+                            - prefix[row * (columns + 1) + column];
+                }
+            }
+        }
+
+        // Nombre de points dans les cases touchées par le cercle : borne supérieure de son gain
+        int bound(double x, double y, double radius) {
+            int fromRow = row(y - radius), toRow = row(y + radius) + 1;
+            int fromColumn = column(x - radius), toColumn = column(x + radius) + 1;
+            int stride = columns + 1;
+            return prefix[toRow * stride + toColumn] - prefix[fromRow * stride + toColumn]
+                    - prefix[toRow * stride + fromColumn] + prefix[fromRow * stride + fromColumn];
+        }
+
+        // Nombre de points encore découverts à moins de radius - margins[i] de (x, y) ; les marque couverts si mark
+        int cover(double x, double y, double radius, boolean mark) {
+            int fromRow = row(y - radius), toRow = row(y + radius);
+            int fromColumn = column(x - radius), toColumn = column(x + radius);
+            double inner = radius - maxMargin;
+            int count = 0;
+            for (int row = fromRow; row <= toRow; row++) {
+                double dy = Math.max(Math.abs(minY + row * step - y), Math.abs(minY + (row + 1) * step - y));
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    int cell = row * columns + column;
+                    if (cellUncovered[cell] == 0) {
+                        continue;
+                    }
+                    double dx = Math.max(Math.abs(minX + column * step - x), Math.abs(minX + (column + 1) * step - x));
+                    boolean whole = inner > 0 && dx * dx + dy * dy <= inner * inner;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        int i = cellPoints[k];
+                        if (covered[i]) {
+                            continue;
+                        }
+                        if (!whole) {
+                            double ex = xs[i] - x, ey = ys[i] - y;
+                            double reach = radius - margins[i];
+                            if (reach <= 0 || ex * ex + ey * ey > reach * reach) {
+                                continue;
+                            }
+                        }
+                        count++;
+                        if (mark) {
+                            covered[i] = true;
+                            cellUncovered[cell]--;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+
+        private int column(double x) {
+            return Math.min(columns - 1, Math.max(0, (int) ((x - minX) / step)));
+        }
+
+        private int row(double y) {
+            return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / step)));
+        }
+    }
+
+    // Points intérieurs de la grille de l'étape 1 et leur distance au bord
+    private static final class Interior {
+
+        final double step;
+        final double[] xs;
+        final double[] ys;
+        final double[] distances;
+        final boolean[] candidates;
+        final int count;
+
+        Interior(double step, double[] xs, double[] ys, double[] distances, boolean[] candidates, int count) {
+            this.step = step;
+            this.xs = xs;
+            this.ys = ys;
+            this.distances = distances;
+            this.candidates = candidates;
+            this.count = count;
+        }
+    }
+
+    // Arêtes du contour projeté rangées par case d'une grille (tableaux compressés), et par bande horizontale pour le
+    // containment. La distance au bord parcourt les cases par anneaux autour du point et s'arrête dès que les cases
+    // restantes sont plus loin que la meilleure arête ; le containment ne teste que les arêtes de la bande du point.
+    // L'arête e va du sommet e au suivant.
+    private static final class EdgeIndex {
+
+        // Arêtes par case en moyenne, pour un contour régulier
+        private static final double EDGES_PER_CELL = 2;
+
+        final double[] xs;
+        final double[] ys;
+        final int count;
+        private final double minX;
+        private final double minY;
+        private final double cell;
+        final int columns;
+        private final int rows;
+        final int[] cellStart;
+        final int[] cellEdges;
+        private final int[] bandStart;
+        private final int[] bandEdges;
+        // Dernier ensemble de points de l'étape 1 : un relèvement de tolérance qui garde le pas de grille
+        // (grands champs, pas fixé par MAX_GRID_POINTS) reprend leurs distances au bord
+        private Interior interior;
+
+        EdgeIndex(double[] xs, double[] ys, int count, double minX, double minY, double maxX, double maxY) {
+            this.xs = xs;
+            this.ys = ys;
+            this.count = count;
+            this.minX = minX;
+            this.minY = minY;
+            double width = maxX - minX, height = maxY - minY;
+            // Au plus count colonnes et count lignes, même pour un champ très allongé
+            double side = Math.max(Math.sqrt(width * height * EDGES_PER_CELL / count), Math.max(width, height) / count);
+            cell = side > 0 ? side : 1;
+            columns = Math.max(1, Math.min(count, (int) Math.ceil(width / cell)));
+            rows = Math.max(1, Math.min(count, (int) Math.ceil(height / cell)));
+
+            cellStart = new int[columns * rows + 1];
+            bandStart = new int[rows + 1];
+            for (int e = 0; e < count; e++) {
+                place(e, null, null);
+            }
+            for (int c = 0; c < columns * rows; c++) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            for (int r = 0; r < rows; r++) {
+                bandStart[r + 1] += bandStart[r];
+            }
+            cellEdges = new int[cellStart[columns * rows]];
+            bandEdges = new int[bandStart[rows]];
+            int[] cellFill = Arrays.copyOf(cellStart, columns * rows);
+            int[] bandFill = Arrays.copyOf(bandStart, rows);
+            for (int e = 0; e < count; e++) {
+                place(e, cellFill, bandFill);
+            }
+        }
+
+        // Compte (fill null) ou range l'arête dans chaque bande qu'elle traverse et, par bande, dans les cases
+        // de la portion d'arête comprise dans la bande
+        private void place(int e, int[] cellFill, int[] bandFill) {
+            int next = e + 1 == count ? 0 : e + 1;
+            double ax = xs[e], ay = ys[e], bx = xs[next], by = ys[next];
+            int fromRow = row(Math.min(ay, by)), toRow = row(Math.max(ay, by));
+            for (int r = fromRow; r <= toRow; r++) {
+                double x0 = ax, x1 = bx;
+                if (ay != by) {
+                    double bandY0 = Math.max(Math.min(ay, by), minY + r * cell);
+                    double bandY1 = Math.min(Math.max(ay, by), minY + (r + 1) * cell);
+                    x0 = ax + (bx - ax) * (bandY0 - ay) / (by - ay);
+                    x1 = ax + (bx - ax) * (bandY1 - ay) / (by - ay);
+                }
+                int fromColumn = column(Math.min(x0, x1)), toColumn = column(Math.max(x0, x1));
+                if (bandFill == null) {
+                    bandStart[r + 1]++;
+                    for (int c = fromColumn; c <= toColumn; c++) {
+                        cellStart[r * columns + c + 1]++;
+                    }
+                } else {
+                    bandEdges[bandFill[r]++] = e;
+                    for (int c = fromColumn; c <= toColumn; c++) {
+                        cellEdges[cellFill[r * columns + c]++] = e;
+                    }
+                }
+            }
+        }
+
+        // Même règle que PolygonMath.containsPoint
+        boolean contains(double x, double y) {
+            boolean inside = false;
+            int band = row(y);
+            for (int k = bandStart[band]; k < bandStart[band + 1]; k++) {
+                int j = bandEdges[k];
+                int i = j + 1 == count ? 0 : j + 1;
+                if (((ys[i] <= y && y < ys[j]) || (ys[j] <= y && y < ys[i]))
+                        && (x < (xs[j] - xs[i]) * (y - ys[i]) / (ys[j] - ys[i]) + xs[i])) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+
+        double boundaryDistance(double x, double y) {
+            int centerColumn = column(x), centerRow = row(y);
+            double best = Double.POSITIVE_INFINITY;
+            for (int ring = 0; ; ring++) {
+                int c0 = centerColumn - ring, c1 = centerColumn + ring;
+                int r0 = centerRow - ring, r1 = centerRow + ring;
+                for (int r = Math.max(0, r0); r <= Math.min(rows - 1, r1); r++) {
+                    if (r == r0 || r == r1) {
+                        for (int c = Math.max(0, c0); c <= Math.min(columns - 1, c1); c++) {
+                            best = Math.min(best, cellDistanceSquared(r * columns + c, x, y));
+                        }
+                        continue;
+                    }
+                    if (c0 >= 0) {
+                        best = Math.min(best, cellDistanceSquared(r * columns + c0, x, y));
+                    }
+                    if (c1 < columns) {
+                        best = Math.min(best, cellDistanceSquared(r * columns + c1, x, y));
+                    }
+                }
+                // Distance minimale aux cases pas encore parcourues
+                double bound = Double.POSITIVE_INFINITY;
+                if (c0 > 0) {
+                    bound = Math.min(bound, x - (minX + c0 * cell));
+                }
+                if (c1 < columns - 1) {
+                    bound = Math.min(bound, minX + (c1 + 1) * cell - x);
+                }
+                if (r0 > 0) {
+                    bound = Math.min(bound, y - (minY + r0 * cell));
+                }
+                if (r1 < rows - 1) {
+                    bound = Math.min(bound, minY + (r1 + 1) * cell - y);
+                }
+                if (bound == Double.POSITIVE_INFINITY || best <= bound * bound) {
+                    return Math.sqrt(best);
+                }
+            }
+        }
+
+        private double cellDistanceSquared(int cell, double x, double y) {
+            double best = Double.POSITIVE_INFINITY;
+            for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                int j = cellEdges[k];
+                int i = j + 1 == count ? 0 : j + 1;
+                double ax = xs[j], ay = ys[j];
+                double dx = xs[i] - ax, dy = ys[i] - ay;
+                double lengthSquared = dx * dx + dy * dy;
+                double t = lengthSquared > 0 ? ((x - ax) * dx + (y - ay) * dy) / lengthSquared : 0;
+                t = Math.max(0, Math.min(1, t));
+                double ex = ax + t * dx - x, ey = ay + t * dy - y;
+                best = Math.min(best, ex * ex + ey * ey);
+            }
+            return best;
+        }
+
+        // Centres intérieurs des cases de la grille de l'étape 1 et leur distance au bord, repris si le pas n'a pas changé
+        Interior interior(double gridMinX, double gridMinY, double step, int gridColumns, int gridRows) {
+            if (interior != null && interior.step == step) {
+                return interior;
+            }
+            int capacity = gridColumns * gridRows;
+            double[] sampleXs = new double[capacity];
+            double[] sampleYs = new double[capacity];
+            double[] distances = new double[capacity];
+            boolean[] candidates = new boolean[capacity];
+            int n = 0;
+            for (int row = 0; row < gridRows; row++) {
+                for (int column = 0; column < gridColumns; column++) {
+                    double x = gridMinX + (column + 0.5) * step;
+                    double y = gridMinY + (row + 0.5) * step;
+                    if (contains(x, y)) {
+                        candidates[n] = row % CANDIDATE_STRIDE == 0 && column % CANDIDATE_STRIDE == 0;
+                        sampleXs[n] = x;
+                        sampleYs[n] = y;
+                        distances[n] = boundaryDistance(x, y);
+                        n++;
+                    }
+                }
+            }
+            interior = new Interior(step, sampleXs, sampleYs, distances, candidates, n);
+            return interior;
+        }
+
+        int column(double x) {
+            return Math.min(columns - 1, Math.max(0, (int) ((x - minX) / cell)));
+        }
+
+        int row(double y) {
+            return Math.min(rows - 1, Math.max(0, (int) ((y - minY) / cell)));
+        }
+    }
+
+    private static final class Builder {
+
+        private final EdgeIndex index;
+        private final double[] polygonXs;
+        private final double[] polygonYs;
+        private final int count;
+        private final double tolerance;
+
+        double[] xs = new double[16];
+        double[] ys = new double[16];
+        double[] radii = new double[16];
+        int size;
+
+        Builder(EdgeIndex index, double tolerance) {
+            this.index = index;
+            this.polygonXs = index.xs;
+            this.polygonYs = index.ys;
+            this.count = index.count;
+            this.tolerance = tolerance;
+        }
+
+        // Étape 1, glouton : à chaque tour, le cercle candidat qui couvre le plus de points encore découverts.
+        // Points à couvrir : une grille dans le polygone et des points du contour, au même pas.
+        // Candidats : une partie des points de la grille, de rayon distance au bord + tolérance, et les points
+        // du contour, de rayon tolérance. Un point du contour n'est compté couvert qu'à une marge du bord du cercle :
+        // entre deux points du contour, l'union des cercles ne laisse alors que peu de trous à l'étape 2.
+        void inscribe(double minX, double minY, double maxX, double maxY) {
+            double width = maxX - minX, height = maxY - minY;
+            double step = Math.max(tolerance / 2, Math.sqrt(width * height / MAX_GRID_POINTS));
+            int columns = Math.max(1, (int) Math.ceil(width / step));
+            int rows = Math.max(1, (int) Math.ceil(height / step));
+            double boundaryMargin = step * BOUNDARY_MARGIN;
+
+            int boundaryCount = 0;
+            for (int i = 0, j = count - 1; i < count; j = i++) {
+                boundaryCount += pieces(j, i, step);
+            }
+            Interior interior = index.interior(minX, minY, step, columns, rows);
+            int capacity = interior.count + boundaryCount;
+            double[] sampleXs = new double[capacity];
+            double[] sampleYs = new double[capacity];
+            double[] reach = new double[capacity];
+            double[] margin = new double[capacity];
+            boolean[] candidates = new boolean[capacity];
+            int n = interior.count;
+            System.arraycopy(interior.xs, 0, sampleXs, 0, n);
+            System.arraycopy(interior.ys, 0, sampleYs, 0, n);
+            System.arraycopy(interior.candidates, 0, candidates, 0, n);
+            for (int i = 0; i < n; i++) {
+                reach[i] = interior.distances[i] + tolerance;
+            }
+            for (int i = 0, j = count - 1; i < count; j = i++) {
+                int pieces = pieces(j, i, step);
+                for (int k = 0; k < pieces; k++) {
+                    sampleXs[n] = polygonXs[j] + (polygonXs[i] - polygonXs[j]) * k / pieces;
+                    sampleYs[n] = polygonYs[j] + (polygonYs[i] - polygonYs[j]) * k / pieces;
+                    reach[n] = tolerance;
+                    margin[n] = boundaryMargin;
+                    candidates[n] = true;
+                    n++;
+                }
+            }
+
+            Grid grid = new Grid(minX, minY, step, columns, rows, sampleXs, sampleYs, margin, n);
+            int uncovered = n;
+            // Lazy greedy : les clés sont des bornes supérieures des gains, le gain exact n'est calculé que pour le
+            // candidat en tête, et retenu s'il reste au moins égal à la clé suivante
+            PriorityQueue<long[]> queue = new PriorityQueue<>(Math.max(1, n), (p, q) -> Long.compare(q[0], p[0]));
+            for (int i = 0; i < n; i++) {
+                if (candidates[i]) {
+                    queue.add(new long[]{grid.bound(sampleXs[i], sampleYs[i], reach[i]), i});
+                }
+            }
+            while (uncovered > 0 && !queue.isEmpty() && size <= MAX_CIRCLES) {
+                long[] top = queue.poll();
+                int candidate = (int) top[1];
+                int gain = grid.cover(sampleXs[candidate], sampleYs[candidate], reach[candidate], false);
+                if (gain == 0) {
+                    continue;
+                }
+                if (!queue.isEmpty() && gain < queue.peek()[0]) {
+                    top[0] = gain;
+                    queue.add(top);
+                    continue;
+                }
+                add(sampleXs[candidate], sampleYs[candidate], reach[candidate]);
+                uncovered -= grid.cover(sampleXs[candidate], sampleYs[candidate], reach[candidate], true);
+            }
+        }
+
+        private int pieces(int from, int to, double step) {
+            return Math.max(1, (int) Math.ceil(Math.hypot(polygonXs[to] - polygonXs[from], polygonYs[to] - polygonYs[from]) / step));
+        }
+
+        // Étape 2. Abandonnée dès que MAX_CIRCLES est dépassé : la tolérance sera relevée
+        void cover(double x, double y, double halfSide, int depth) {
+            if (size > MAX_CIRCLES) {
+                return;
+            }
+            double radius = halfSide * SQRT_2;
+            boolean inside = index.contains(x, y);
+            double boundaryDistance = index.boundaryDistance(x, y);
+            if (!inside && boundaryDistance >= radius) {
+                return;
+            }
+            if (isCovered(x, y, halfSide, inside && boundaryDistance >= radius)) {
+                return;
+            }
+            // Le cercle de rayon distance au bord + tolérance (centre intérieur) ou tolérance - distance au bord
+            // (centre extérieur) reste dans le polygone élargi de la tolérance ; il est retenu dès qu'il contient
+            // la cellule.
+            double reach = inside ? boundaryDistance + tolerance : tolerance - boundaryDistance;
+            if (reach >= radius || depth == MAX_DEPTH) {
+                add(x, y, Math.max(reach, radius));
+                return;
+            }
+            double quarter = halfSide / 2;
+            cover(x - quarter, y - quarter, quarter, depth + 1);
+            cover(x + quarter, y - quarter, quarter, depth + 1);
+            cover(x - quarter, y + quarter, quarter, depth + 1);
+            cover(x + quarter, y + quarter, quarter, depth + 1);
+        }
+
+        // Vrai si la partie de la cellule dans le polygone est dans un seul des cercles déjà retenus
+        private boolean isCovered(double x, double y, double halfSide, boolean interior) {
+            double x0 = x - halfSide, x1 = x + halfSide, y0 = y - halfSide, y1 = y + halfSide;
+            boolean[] cornersInside = null;
+            for (int c = 0; c < size; c++) {
+                double cx = xs[c], cy = ys[c], r = radii[c];
+                // Cercle disjoint de la cellule
+                double gapX = Math.max(0, Math.max(x0 - cx, cx - x1));
+                double gapY = Math.max(0, Math.max(y0 - cy, cy - y1));
+                if (gapX * gapX + gapY * gapY > r * r) {
+                    continue;
+                }
+                boolean allCorners = inCircle(c, x0, y0) && inCircle(c, x1, y0) && inCircle(c, x0, y1) && inCircle(c, x1, y1);
+                if (allCorners) {
+                    return true;
+                }
+                if (interior) {
+                    continue;
+                }
+                // Cellule de bord : la partie dans le polygone est bornée par les coins intérieurs et les arêtes
+                // découpées à la cellule ; le cercle étant convexe, il suffit qu'il contienne ces points.
+                if (cornersInside == null) {
+                    cornersInside = new boolean[]{
+                            index.contains(x0, y0), index.contains(x1, y0), index.contains(x0, y1), index.contains(x1, y1)};
+                }
+                if ((cornersInside[0] && !inCircle(c, x0, y0)) || (cornersInside[1] && !inCircle(c, x1, y0))
+                        || (cornersInside[2] && !inCircle(c, x0, y1)) || (cornersInside[3] && !inCircle(c, x1, y1))) {
+                    continue;
+                }
+                if (clippedEdgesInCircle(c, x0, y0, x1, y1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Chaque arête découpée à la cellule (Liang-Barsky) a ses deux extrémités dans le cercle c.
+        // Seules les arêtes des cases de l'index qui touchent la cellule peuvent la traverser.
+        private boolean clippedEdgesInCircle(int c, double x0, double y0, double x1, double y1) {
+            int fromRow = index.row(y0), toRow = index.row(y1);
+            int fromColumn = index.column(x0), toColumn = index.column(x1);
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int column = fromColumn; column <= toColumn; column++) {
+                    int cell = row * index.columns + column;
+                    for (int k = index.cellStart[cell]; k < index.cellStart[cell + 1]; k++) {
+                        if (!clippedEdgeInCircle(c, index.cellEdges[k], x0, y0, x1, y1)) {
+                            return false;
+                        }
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean clippedEdgeInCircle(int c, int edge, double x0, double y0, double x1, double y1) {
+            int next = edge + 1 == count ? 0 : edge + 1;
+            double ax = polygonXs[edge], ay = polygonYs[edge];
+            double dx = polygonXs[next] - ax, dy = polygonYs[next] - ay;
+            double t0 = 0, t1 = 1;
+            double[] p = {-dx, dx, -dy, dy};
+            double[] q = {ax - x0, x1 - ax, ay - y0, y1 - ay};
+            for (int k = 0; k < 4; k++) {
+                if (p[k] == 0) {
+                    if (q[k] < 0) {
+                        return true;
+                    }
+                } else {
+                    double t = q[k] / p[k];
+                    if (p[k] < 0) {
+                        t0 = Math.max(t0, t);
+                    } else {
+                        t1 = Math.min(t1, t);
+                    }
+                    if (t0 > t1) {
+                        return true;
+                    }
+                }
+            }
+            return inCircle(c, ax + t0 * dx, ay + t0 * dy) && inCircle(c, ax + t1 * dx, ay + t1 * dy);
+        }
+
+        private boolean inCircle(int c, double x, double y) {
+            double dx = x - xs[c], dy = y - ys[c];
+            return dx * dx + dy * dy <= radii[c] * radii[c];
+        }
+
+        private void add(double x, double y, double radius) {
+            if (size == radii.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+                radii = Arrays.copyOf(radii, size * 2);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            radii[size] = radius;
+            size++;
+        }
+    }
+}
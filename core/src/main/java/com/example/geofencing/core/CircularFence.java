@@ -0,0 +1,44 @@
+package com.example.geofencing.core;
+
+// Géofence circulaire à enregistrer auprès du système (centre en degrés, rayon en mètres)
+public final class CircularFence {
+
+    // Mêmes valeurs que les constantes Geofence.GEOFENCE_TRANSITION_* de Play Services
+    public static final int TRANSITION_ENTER = 1;
+    public static final int TRANSITION_EXIT = 2;
+    public static final int TRANSITION_DWELL = 4;
+
+    private final String requestId;
+    private final double lat;
+    private final double lng;
+    private final float radiusMeters;
+    private final int transitionTypes;
+
+    public CircularFence(String requestId, double lat, double lng, float radiusMeters, int transitionTypes) {
+        this.requestId = requestId;
+        this.lat = lat;
+        this.lng = lng;
+        this.radiusMeters = radiusMeters;
+        this.transitionTypes = transitionTypes;
+    }
+
+    public String requestId() {
+        return requestId;
+    }
+
+    public double lat() {
+        return lat;
+    }
+
+    public double lng() {
+        return lng;
+    }
+
+    public float radiusMeters() {
+        return radiusMeters;
+    }
+
+    public int transitionTypes() {
+        return transitionTypes;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Polygone modifiable sommet par sommet, qui notifie ses écouteurs de chaque modification.
+// Le segment i relie le sommet i au sommet (i + 1) % size().
+public class EditablePolygon {
+
+    public interface Listener {
+        void onVertexInserted(EditablePolygon polygon, int index);
+
+        void onVertexMoved(EditablePolygon polygon, int index);
+
+        void onVertexRemoved(EditablePolygon polygon, int index);
+    }
+
+    private final List<Listener> listeners = new ArrayList<>();
+    private double[] lats = new double[16];
+    private double[] lngs = new double[16];
+    private int size;
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double lat(int index) {
+        checkIndex(index, size);
+        return lats[index];
+    }
+
+    public double lng(int index) {
+        checkIndex(index, size);
+        return lngs[index];
+    }
+
+    public void addVertex(double lat, double lng) {
+        insertVertex(size, lat, lng);
+    }
+
+    public void insertVertex(int index, double lat, double lng) {
+        checkIndex(index, size + 1);
+        if (size == lats.length) {
+            lats = Arrays.copyOf(lats, size * 2);
+            lngs = Arrays.copyOf(lngs, size * 2);
+        }
+        System.arraycopy(lats, index, lats, index + 1, size - index);
+        System.arraycopy(lngs, index, lngs, index + 1, size - index);
+        lats[index] = lat;
+        lngs[index] = lng;
+        size++;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onVertexInserted(this, index);
+        }
+    }
+
+    public void moveVertex(int index, double lat, double lng) {
+        checkIndex(index, size);
+        lats[index] = lat;
+        lngs[index] = lng;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onVertexMoved(this, index);
+        }
+    }
+
+    public void removeVertex(int index) {
+        checkIndex(index, size);
+        System.arraycopy(lats, index + 1, lats, index, size - index - 1);
+        System.arraycopy(lngs, index + 1, lngs, index, size - index - 1);
+        size--;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onVertexRemoved(this, index);
+        }
+    }
+
+    // Copies des sommets, par exemple pour les publier dans un PolygonStore
+    public double[] toLatArray() {
+        return Arrays.copyOf(lats, size);
+    }
+
+    public double[] toLngArray() {
+        return Arrays.copyOf(lngs, size);
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + bound);
+        }
+    }
+}
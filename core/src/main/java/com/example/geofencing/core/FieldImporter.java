@@ -0,0 +1,147 @@
+package com.example.geofencing.core;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Locale;
+
+// Import en flux d'un fichier de limites de champs (GeoJSON ou KML), avec suivi de la progression
+// en octets lus. La mémoire utilisée ne dépend que du plus grand contour, pas de la taille du fichier.
+public final class FieldImporter {
+
+    public enum Format {
+        GEOJSON, KML;
+
+        // null si l'extension n'est pas reconnue
+        public static Format forFileName(String fileName) {
+            String lower = fileName == null ? "" : fileName.toLowerCase(Locale.ROOT);
+            if (lower.endsWith(".geojson") || lower.endsWith(".json")) {
+                return GEOJSON;
+            }
+            if (lower.endsWith(".kml")) {
+                return KML;
+            }
+            return null;
+        }
+    }
+
+    public interface Progress {
+        // totalBytes vaut -1 si la taille est inconnue
+        void onProgress(long bytesRead, long totalBytes, int polygonCount);
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    // Sans taille connue, progression signalée tous les N polygones
+    private static final int PROGRESS_POLYGON_STEP = 256;
+
+    private FieldImporter() {
+    }
+
+    // Retourne le nombre de polygones transmis au sink ; progress est appelé sur le thread appelant.
+    // Avec format null, le format est déduit du premier caractère significatif ('<' pour KML).
+    public static int importStream(InputStream in, long totalBytes, Format format, PolygonSink sink, Progress progress) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        if (format == null) {
+            format = sniff(buffered);
+        }
+        // Compté au-dessus du tampon : la progression suit ce que le parseur a réellement lu
+        CountingInputStream counting = new CountingInputStream(buffered);
+        Reader reader = new InputStreamReader(counting, Charset.forName("UTF-8"));
+        ProgressSink progressSink = new ProgressSink(sink, counting, totalBytes, progress);
+        int count = format == Format.KML
+                ? new KmlImporter().read(reader, progressSink)
+                : new GeoJsonImporter().read(reader, progressSink);
+        progress.onProgress(counting.count, totalBytes, count);
+        return count;
+    }
+
+    private static Format sniff(BufferedInputStream in) throws IOException {
+        in.mark(BUFFER_SIZE);
+        try {
+            int b;
+            while ((b = in.read()) >= 0) {
+                // Blancs et BOM UTF-8 (EF BB BF)
+                if (b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == 0xEF || b == 0xBB || b == 0xBF) {
+                    continue;
+                }
+                return b == '<' ? Format.KML : Format.GEOJSON;
+            }
+            return Format.GEOJSON;
+        } finally {
+            in.reset();
+        }
+    }
+
+    private static final class ProgressSink implements PolygonSink {
+
+        private final PolygonSink sink;
+        private final CountingInputStream counting;
+        private final long totalBytes;
+        private final Progress progress;
+        private int polygonCount;
+        private long lastPercent = -1;
+
+        ProgressSink(PolygonSink sink, CountingInputStream counting, long totalBytes, Progress progress) {
+            this.sink = sink;
+            this.counting = counting;
+            this.totalBytes = totalBytes;
+            this.progress = progress;
+        }
+
+        @Override
+        public void onPolygon(PointList ring, MultiPolygon holes) throws IOException {
+            sink.onPolygon(ring, holes);
+            polygonCount++;
+            // Au plus une notification par pour cent
+            boolean report;
+            if (totalBytes > 0) {
+                long percent = counting.count * 100 / totalBytes;
+                report = percent != lastPercent;
+                lastPercent = percent;
+            } else {
+                report = polygonCount % PROGRESS_POLYGON_STEP == 0;
+            }
+            if (report) {
+                progress.onProgress(counting.count, totalBytes, polygonCount);
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.geofencing.core;
+
+// Chemin de décision des transitions de géofences, commun à l'application (GeofenceEventPipeline) et au rejeu
+// hors appareil (TraceReplayEngine) : le rejeu valide le code qui tourne sur l'appareil.
+// 1. offer() : une transition d'un cercle est ramenée à son champ (clé commune du GeofenceRegistry) et écartée
+//    si la position de déclenchement la contredit (entrée dans un cercle qui déborde du champ, sortie d'un cercle
+//    en restant dans le champ), puis regroupée par champ (TransitionCoalescer).
+// 2. flush() : chaque transition retenue passe la chaîne de gestionnaires : géofence de reclassement, puis
+//    transition de champ. Les sorties de reclassement successives sont toutes remises au gestionnaire.
+// Le containment peut construire les index d'un grand champ : offer() ne s'appelle pas sur le thread principal.
+public final class FieldTransitionRouter {
+
+    public interface Handler {
+        // L'appareil a quitté la zone de reclassement ; position de déclenchement, NaN si inconnue
+        void onRerank(double lat, double lng);
+
+        // ENTER, DWELL ou EXIT d'un champ du registre
+        void onFieldTransition(PreparedPolygon field, GeofenceTransition transition);
+    }
+
+    private final GeofenceRegistry registry;
+    private final TransitionCoalescer coalescer;
+
+    public FieldTransitionRouter(GeofenceRegistry registry, long coalescingWindowMillis) {
+        this.registry = registry;
+        this.coalescer = new TransitionCoalescer(coalescingWindowMillis);
+    }
+
+    // Retourne l'instant à partir duquel flush() traitera la transition, timeMillis si elle est écartée
+    public long offer(String requestId, int transition, double lat, double lng, long timeMillis) {
+        // Géofence de reclassement : ni champ ni filtre de position, chaque sortie est gardée (voir TransitionCoalescer)
+        if (GeofenceRegistrationManager.RERANK_FENCE_ID.equals(requestId)) {
+            return coalescer.offer(GeofenceRegistrationManager.RERANK_FENCE_ID, transition, lat, lng, timeMillis);
+        }
+        if (!isFieldTransition(requestId, transition, lat, lng)) {
+            return timeMillis;
+        }
+        return coalescer.offer(registry.fieldKey(requestId), transition, lat, lng, timeMillis);
+    }
+
+    // Champ inconnu ou position absente : la transition est gardée telle quelle
+    private boolean isFieldTransition(String requestId, int transition, double lat, double lng) {
+        PreparedPolygon field = registry.field(requestId);
+        if (field == null || Double.isNaN(lat)) {
+            return true;
+        }
+        return field.contains(lat, lng) != (transition == CircularFence.TRANSITION_EXIT);
+    }
+
+    // Traite les transitions dont la fenêtre de regroupement est écoulée ; retourne leur nombre
+    public int flush(long nowMillis, Handler handler) {
+        return coalescer.flush(nowMillis, transition -> dispatch(transition, handler));
+    }
+
+    // Long.MAX_VALUE si rien n'est en attente
+    public long nextDeadline() {
+        return coalescer.nextDeadline();
+    }
+
+    // Transitions brutes absorbées par le regroupement ou sans changement d'état
+    public long droppedCount() {
+        return coalescer.droppedCount();
+    }
+
+    private void dispatch(GeofenceTransition transition, Handler handler) {
+        if (GeofenceRegistrationManager.RERANK_FENCE_ID.equals(transition.fenceKey())) {
+            handler.onRerank(transition.lat(), transition.lng());
+            return;
+        }
+        // Champ précompilé associé à la clé : ni parsing de coordonnées ni accès disque
+        PreparedPolygon field = registry.field(transition.fenceKey());
+        if (field == null) {
+            return;
+        }
+        switch (transition.transition()) {
+            case CircularFence.TRANSITION_ENTER:
+            case CircularFence.TRANSITION_DWELL:
+            case CircularFence.TRANSITION_EXIT:
+                handler.onFieldTransition(field, transition);
+                break;
+            default:
+                break;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.geofencing.core;
+
+// Distances en mètres entre deux positions (lat, lng) en degrés, selon un compromis précision / coût
+// choisi explicitement par l'appelant :
+// - EQUIRECTANGULAR : projection locale figée pour un champ (LocalProjection), quelques ns par appel ;
+//   erreur relative < 0,6 % tant que les points restent à quelques kilomètres de l'origine
+// - HAVERSINE : grand cercle sur la sphère de rayon moyen, erreur relative < 0,6 % (aplatissement ignoré)
+// - VINCENTY : géodésique sur l'ellipsoïde WGS84 (précision millimétrique), pour la validation
+public final class GeoDistance {
+
+    public enum Mode {
+        EQUIRECTANGULAR,
+        HAVERSINE,
+        VINCENTY
+    }
+
+    // Ellipsoïde WGS84
+    static final double WGS84_A = 6378137.0;
+    static final double WGS84_F = 1 / 298.257223563;
+    static final double WGS84_B = WGS84_A * (1 - WGS84_F);
+
+    private static final int VINCENTY_MAX_ITERATIONS = 200;
+    private static final double VINCENTY_TOLERANCE = 1e-12;
+
+    private final Mode mode;
+    private final LocalProjection projection;
+
+    private GeoDistance(Mode mode, LocalProjection projection) {
+        this.mode = mode;
+        this.projection = projection;
+    }
+
+    public static GeoDistance haversine() {
+        return new GeoDistance(Mode.HAVERSINE, null);
+    }
+
+    public static GeoDistance vincenty() {
+        return new GeoDistance(Mode.VINCENTY, null);
+    }
+
+    public static GeoDistance equirectangular(LocalProjection projection) {
+        return new GeoDistance(Mode.EQUIRECTANGULAR, projection);
+    }
+
+    // Moteur pour les calculs sur un champ : la projection équirectangulaire est centrée sur sa boîte englobante
+    public static GeoDistance forField(Mode mode, double[] lats, double[] lngs, int count) {
+        return mode == Mode.EQUIRECTANGULAR
+                ? equirectangular(LocalProjection.forPolygon(lats, lngs, count))
+                : new GeoDistance(mode, null);
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    // null hors mode EQUIRECTANGULAR
+    public LocalProjection projection() {
+        return projection;
+    }
+
+    public double meters(double lat1, double lng1, double lat2, double lng2) {
+        switch (mode) {
+            case EQUIRECTANGULAR:
+                return projection.distance(lat1, lng1, lat2, lng2);
+            case HAVERSINE:
+                return PolygonMath.haversineMeters(lat1, lng1, lat2, lng2);
+            default:
+                return vincentyMeters(lat1, lng1, lat2, lng2);
+        }
+    }
+
+    // Formule inverse de Vincenty. Pour des points presque antipodaux, où l'itération ne converge pas,
+    // retourne la distance de haversine
+    public static double vincentyMeters(double lat1, double lng1, double lat2, double lng2) {
+        double l = Math.toRadians(lng2 - lng1);
+        double u1 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - WGS84_F) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1), cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2), cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        for (int iteration = 0; iteration < VINCENTY_MAX_ITERATIONS; iteration++) {
+            double sinLambda = Math.sin(lambda), cosLambda = Math.cos(lambda);
+            double a = cosU2 * sinLambda;
+            double b = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            double sinSigma = Math.sqrt(a * a + b * b);
+            if (sinSigma == 0) {
+                return 0; // Points confondus
+            }
+            double cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            double sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            double cosSqAlpha = 1 - sinAlpha * sinAlpha;
+            // Sur l'équateur, cosSqAlpha est nul
+            double cos2SigmaM = cosSqAlpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cosSqAlpha;
+            double c = WGS84_F / 16 * cosSqAlpha * (4 + WGS84_F * (4 - 3 * cosSqAlpha));
+            double previous = lambda;
+            lambda = l + (1 - c) * WGS84_F * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+            if (Math.abs(lambda - previous) < VINCENTY_TOLERANCE) {
+                double uSq = cosSqAlpha * (WGS84_A * WGS84_A - WGS84_B * WGS84_B) / (WGS84_B * WGS84_B);
+                double bigA = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+                double bigB = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+                double deltaSigma = bigB * sinSigma * (cos2SigmaM + bigB / 4 * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                        - bigB / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+                return WGS84_B * bigA * (sigma - deltaSigma);
+            }
+        }
+        return PolygonMath.haversineMeters(lat1, lng1, lat2, lng2);
+    }
+}
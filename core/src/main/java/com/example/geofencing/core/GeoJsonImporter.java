@@ -0,0 +1,146 @@
+package com.example.geofencing.core;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Lecture en flux de GeoJSON (FeatureCollection, Feature, GeometryCollection, Polygon, MultiPolygon) :
+// les coordonnées sont lues au fil du JsonReader, sans arbre JSON en mémoire.
+// Chaque polygone est transmis avec ses trous (anneaux d'indice 1 et suivants) ; les autres géométries sont ignorées.
+// Non thread-safe : une instance par import.
+public final class GeoJsonImporter {
+
+    private static final int OTHER = 0;
+    private static final int POSITION = 1;
+    private static final int RING = 2;
+
+    private PointList ring = new PointList(1024);
+    // Polygone en cours : contour extérieur (vide s'il a été écarté) et trous déjà lus
+    private PointList outer = new PointList(1024);
+    private MultiPolygon.Builder holes;
+    private int polygonCount;
+
+    // Retourne le nombre de polygones transmis au sink
+    public int read(Reader reader, PolygonSink sink) throws IOException {
+        polygonCount = 0;
+        JsonReader json = new JsonReader(reader);
+        json.setLenient(true);
+        readValue(json, sink);
+        return polygonCount;
+    }
+
+    private void readValue(JsonReader json, PolygonSink sink) throws IOException {
+        JsonToken token = json.peek();
+        if (token == JsonToken.BEGIN_OBJECT) {
+            readObject(json, sink);
+        } else if (token == JsonToken.BEGIN_ARRAY) {
+            json.beginArray();
+            while (json.hasNext()) {
+                readValue(json, sink);
+            }
+            json.endArray();
+        } else {
+            json.skipValue();
+        }
+    }
+
+    private void readObject(JsonReader json, PolygonSink sink) throws IOException {
+        String type = null;
+        json.beginObject();
+        while (json.hasNext()) {
+            String name = json.nextName();
+            if ("type".equals(name) && json.peek() == JsonToken.STRING) {
+                type = json.nextString();
+            } else if ("coordinates".equals(name) && json.peek() == JsonToken.BEGIN_ARRAY
+                    && (type == null || "Polygon".equals(type) || "MultiPolygon".equals(type))) {
+                // Type encore inconnu (clé "type" placée après) : seuls les anneaux fermés sont retenus,
+                // pour écarter les MultiLineString de même forme
+                readCoordinates(json, sink, 1, 0, type == null);
+            } else if ("features".equals(name) || "geometries".equals(name) || "geometry".equals(name)) {
+                readValue(json, sink);
+            } else {
+                json.skipValue();
+            }
+        }
+        json.endObject();
+    }
+
+    // depth : profondeur du tableau dans "coordinates" (1 = le tableau lui-même), index : sa position dans le parent.
+    // Un tableau de positions est un anneau ; dans son polygone, celui d'indice 0 est le contour extérieur,
+    // les suivants sont des trous. Le polygone est transmis à la fin de son tableau d'anneaux.
+    // Retourne POSITION pour une position [lng, lat, (altitude)], RING pour un anneau.
+    private int readCoordinates(JsonReader json, PolygonSink sink, int depth, int index, boolean requireClosed) throws IOException {
+        json.beginArray();
+        if (json.hasNext() && json.peek() == JsonToken.NUMBER) {
+            double lng = json.nextDouble();
+            double lat = json.nextDouble();
+            while (json.hasNext()) {
+                json.skipValue();
+            }
+            json.endArray();
+            ring.add(lat, lng);
+            return POSITION;
+        }
+        ring.clear();
+        int kind = OTHER;
+        int child = 0;
+        while (json.hasNext()) {
+            if (json.peek() != JsonToken.BEGIN_ARRAY) {
+                json.skipValue();
+                continue;
+            }
+            kind = readCoordinates(json, sink, depth + 1, child, requireClosed);
+            child++;
+        }
+        json.endArray();
+        if (kind == RING) {
+            emitPolygon(sink);
+            return OTHER;
+        }
+        if (kind != POSITION) {
+            return OTHER;
+        }
+        if (depth >= 2 && closeRing(requireClosed)) {
+            if (index == 0) {
+                // Le contour lu devient le contour extérieur, sans copie
+                PointList read = ring;
+                ring = outer;
+                outer = read;
+                holes = null;
+            } else if (outer.size() > 0) {
+                if (holes == null) {
+                    holes = new MultiPolygon.Builder();
+                }
+                holes.addOuter(ring.toLatArray(), ring.toLngArray(), ring.size());
+            }
+        } else if (index == 0) {
+            outer.clear();
+        }
+        ring.clear();
+        return RING;
+    }
+
+    // GeoJSON répète le premier sommet en fin d'anneau ; retourne false si l'anneau est à écarter
+    private boolean closeRing(boolean requireClosed) {
+        int n = ring.size();
+        boolean closed = n > 1 && ring.lat(0) == ring.lat(n - 1) && ring.lng(0) == ring.lng(n - 1);
+        if (requireClosed && !closed) {
+            return false;
+        }
+        if (closed) {
+            ring.removeLast();
+        }
+        return ring.size() >= 3;
+    }
+
+    private void emitPolygon(PolygonSink sink) throws IOException {
+        if (outer.size() > 0) {
+            sink.onPolygon(outer, holes == null ? null : holes.build());
+            polygonCount++;
+        }
+        outer.clear();
+        holes = null;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.geofencing.core;
+
+import java.util.List;
+
+// Client d'enregistrement des géofences auprès du système (Play Services sur Android,
+// InMemoryGeofenceClient sur la JVM pour les tests et benchmarks)
+public interface GeofenceClient {
+
+    interface Callback {
+        void onComplete(boolean success, Exception error);
+    }
+
+    // Nombre maximal de géofences actives par application imposé par le système
+    int MAX_ACTIVE_FENCES = 100;
+
+    void addFences(List<CircularFence> fences, Callback callback);
+
+    void removeFences(List<String> requestIds, Callback callback);
+}
@@ -0,0 +1,217 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Garde enregistrées les géofences les plus proches de l'appareil parmi un nombre quelconque de candidates,
+// dans la limite imposée par le système.
+//
+// Une place est réservée à une géofence de sortie centrée sur l'appareil (RERANK_FENCE_ID) : sa sortie
+// signale que l'appareil s'est assez déplacé pour qu'un nouveau classement soit utile. À chaque
+// classement, seules les différences avec l'ensemble enregistré sont envoyées au client, par lots.
+public class GeofenceRegistrationManager {
+
+    public static final String RERANK_FENCE_ID = "rerank";
+
+    private static final double MIN_RERANK_RADIUS_METERS = 200;
+
+    private final GeofenceClient client;
+    private final int capacity;
+
+    private String[] ids = new String[0];
+    private CircularFence[] fences = new CircularFence[0];
+    private double[] distances = new double[0];
+    private int[] order = new int[0];
+
+    // Ensemble supposé enregistré côté système (mis à jour de façon optimiste, corrigé en cas d'échec)
+    private final Map<String, CircularFence> registered = new LinkedHashMap<>();
+    private boolean hasLocation;
+    private double lastLat;
+    private double lastLng;
+    private double rerankRadius;
+    private int rankings;
+
+    public GeofenceRegistrationManager(GeofenceClient client) {
+        this(client, GeofenceClient.MAX_ACTIVE_FENCES);
+    }
+
+    public GeofenceRegistrationManager(GeofenceClient client, int maxActiveFences) {
+        this.client = client;
+        this.capacity = maxActiveFences - 1;
+    }
+
+    // Remplace l'ensemble des géofences candidates ; le classement est refait si la position est connue
+    public synchronized void setCandidates(Collection<CircularFence> candidates) {
+        replaceAll(candidates.toArray(new CircularFence[0]));
+    }
+
+    // Remplace les seules candidates dont l'identifiant commence par idPrefix (un champ modifié, voir
+    // GeofenceRegistry.fenceIdPrefix) ; les cercles des autres champs sont gardés tels quels.
+    // Retourne false si la position n'est pas encore connue : rien n'a été classé.
+    public synchronized boolean replaceCandidates(String idPrefix, Collection<CircularFence> replacement) {
+        CircularFence[] next = new CircularFence[fences.length + replacement.size()];
+        int n = 0;
+        for (int i = 0; i < fences.length; i++) {
+            if (!ids[i].startsWith(idPrefix)) {
+                next[n++] = fences[i];
+            }
+        }
+        for (CircularFence fence : replacement) {
+            next[n++] = fence;
+        }
+        replaceAll(Arrays.copyOf(next, n));
+        return hasLocation;
+    }
+
+    private void replaceAll(CircularFence[] candidates) {
+        int n = candidates.length;
+        fences = candidates;
+        ids = new String[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = fences[i].requestId();
+        }
+        distances = new double[n];
+        order = new int[n];
+        if (hasLocation) {
+            rerank(lastLat, lastLng);
+        }
+    }
+
+    // Nouvelle position de l'appareil : reclasse seulement si elle sort du rayon de reclassement
+    public synchronized boolean onLocation(double lat, double lng) {
+        if (hasLocation && PolygonMath.haversineMeters(lastLat, lastLng, lat, lng) < rerankRadius) {
+            return false;
+        }
+        rerank(lat, lng);
+        return true;
+    }
+
+    public synchronized Set<String> registeredIds() {
+        return new HashSet<>(registered.keySet());
+    }
+
+    public synchronized int rankings() {
+        return rankings;
+    }
+
+    private void rerank(double lat, double lng) {
+        hasLocation = true;
+        lastLat = lat;
+        lastLng = lng;
+        rankings++;
+
+        // Distance au bord de chaque géofence, en projection locale autour de l'appareil
+        LocalProjection projection = new LocalProjection(lat, lng);
+        int n = fences.length;
+        for (int i = 0; i < n; i++) {
+            distances[i] = Math.max(0, projection.distance(lat, lng, fences[i].lat(), fences[i].lng()) - fences[i].radiusMeters());
+            order[i] = i;
+        }
+        int keep = Math.min(capacity, n);
+        if (keep < n) {
+            select(order, distances, 0, n - 1, keep);
+        }
+
+        // La géofence de reclassement s'étend jusqu'à mi-chemin de la plus lointaine géofence retenue
+        double farthest = 0;
+        Map<String, CircularFence> wanted = new LinkedHashMap<>();
+        for (int k = 0; k < keep; k++) {
+            int i = order[k];
+            farthest = Math.max(farthest, distances[i]);
+            wanted.put(ids[i], fences[i]);
+        }
+        rerankRadius = Math.max(MIN_RERANK_RADIUS_METERS, farthest / 2);
+        wanted.put(RERANK_FENCE_ID, new CircularFence(RERANK_FENCE_ID, lat, lng, (float) rerankRadius, CircularFence.TRANSITION_EXIT));
+
+        apply(wanted);
+    }
+
+    private void apply(Map<String, CircularFence> wanted) {
+        // Les identifiants ne suffisent pas : un champ modifié garde les siens, et la géofence de reclassement
+        // change de centre. Une géofence dont le cercle a changé est retirée puis renvoyée.
+        List<String> toRemove = new ArrayList<>();
+        for (Map.Entry<String, CircularFence> entry : registered.entrySet()) {
+            CircularFence next = wanted.get(entry.getKey());
+            if (next == null || !sameCircle(entry.getValue(), next)) {
+                toRemove.add(entry.getKey());
+            }
+        }
+        List<CircularFence> toAdd = new ArrayList<>();
+        for (Map.Entry<String, CircularFence> entry : wanted.entrySet()) {
+            CircularFence current = registered.get(entry.getKey());
+            if (current == null || !sameCircle(current, entry.getValue())) {
+                toAdd.add(entry.getValue());
+            }
+        }
+
+        // Retirer avant d'ajouter pour ne jamais dépasser la limite du système
+        if (!toRemove.isEmpty()) {
+            for (String id : toRemove) {
+                registered.remove(id);
+            }
+            client.removeFences(toRemove, (success, error) -> {
+            });
+        }
+        if (!toAdd.isEmpty()) {
+            for (CircularFence fence : toAdd) {
+                registered.put(fence.requestId(), fence);
+            }
+            client.addFences(toAdd, (success, error) -> {
+                if (!success) {
+                    onAddFailed(toAdd);
+                }
+            });
+        }
+    }
+
+    private static boolean sameCircle(CircularFence a, CircularFence b) {
+        return a.lat() == b.lat() && a.lng() == b.lng() && a.radiusMeters() == b.radiusMeters()
+                && a.transitionTypes() == b.transitionTypes();
+    }
+
+    // Les géofences refusées seront renvoyées au prochain classement
+    private synchronized void onAddFailed(List<CircularFence> fences) {
+        for (CircularFence fence : fences) {
+            registered.remove(fence.requestId());
+        }
+    }
+
+    // Sélection rapide : place dans order[0, k) les indices des k plus petites distances
+    private static void select(int[] order, double[] keys, int left, int right, int k) {
+        while (left < right) {
+            int pivotIndex = partition(order, keys, left, right, left + (right - left) / 2);
+            if (pivotIndex == k) {
+                return;
+            } else if (pivotIndex < k) {
+                left = pivotIndex + 1;
+            } else {
+                right = pivotIndex - 1;
+            }
+        }
+    }
+
+    private static int partition(int[] order, double[] keys, int left, int right, int pivotIndex) {
+        double pivot = keys[order[pivotIndex]];
+        swap(order, pivotIndex, right);
+        int store = left;
+        for (int i = left; i < right; i++) {
+            if (keys[order[i]] < pivot) {
+                swap(order, store++, i);
+            }
+        }
+        swap(order, right, store);
+        return store;
+    }
+
+    private static void swap(int[] order, int a, int b) {
+        int tmp = order[a];
+        order[a] = order[b];
+        order[b] = tmp;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.geofencing.core;
+
+import java.util.List;
+
+// Identifiants courts des géofences enregistrées et champs précompilés correspondants.
+//
+// Un identifiant code le champ et le cercle de son recouvrement : "g" + id du polygone + "." + indice du cercle,
+// en base 36 (ex. "g2s.4"). Il est stable d'un processus à l'autre, et se décode sans allocation :
+// la recherche d'un champ à partir de l'identifiant reçu par le broadcast se fait en temps constant.
+// Un champ modifié garde ses identifiants : GeofenceRegistrationManager compare les cercles pour renvoyer ceux qui ont changé.
+public final class GeofenceRegistry {
+
+    private static final char PREFIX = 'g';
+    private static final char SEPARATOR = '.';
+    private static final int RADIX = 36;
+
+    private static final GeofenceRegistry INSTANCE = new GeofenceRegistry(PolygonRepository.getInstance());
+
+    private final PolygonRepository repository;
+
+    // Table à adressage ouvert id de polygone -> version enregistrée du champ. Remplacée d'un bloc par mintAll() :
+    // un événement reçu pendant la reconstruction résout son champ dans l'ancienne table ou dans la nouvelle.
+    private Table table = new Table(64);
+
+    GeofenceRegistry(PolygonRepository repository) {
+        this.repository = repository;
+    }
+
+    public static GeofenceRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    // Enregistre le champ et ajoute à out une géofence par cercle de son recouvrement.
+    // Les niveaux de détail (et, pour les grands champs, les bandes) sont préparés ici : le containment à la
+    // réception les utilise sans les construire.
+    public void mintFences(PreparedPolygon field, double toleranceMeters, int transitionTypes, List<CircularFence> out) {
+        addFences(field, toleranceMeters, transitionTypes, out);
+        synchronized (this) {
+            table.put(field);
+        }
+    }
+
+    // Réémet les géofences de tous les champs, puis remplace la table par celle de ces seuls champs : les champs
+    // supprimés ne sont plus résolus, sans passer par une table vide
+    public void mintAll(List<PreparedPolygon> fields, double toleranceMeters, int transitionTypes, List<CircularFence> out) {
+        Table next = new Table(Integer.highestOneBit(Math.max(32, fields.size())) * 4);
+        for (PreparedPolygon field : fields) {
+            addFences(field, toleranceMeters, transitionTypes, out);
+            next.put(field);
+        }
+        synchronized (this) {
+            table = next;
+        }
+    }
+
+    private static void addFences(PreparedPolygon field, double toleranceMeters, int transitionTypes, List<CircularFence> out) {
+        CircleCovering covering = field.circleCovering(toleranceMeters);
+        field.lod();
+        field.prepareContainment();
+        String prefix = fenceIdPrefix(field.id());
+        for (int i = 0; i < covering.size(); i++) {
+            out.add(new CircularFence(prefix + Integer.toString(i, RADIX), covering.lat(i), covering.lng(i),
+                    (float) Math.ceil(covering.radiusMeters(i)), transitionTypes));
+        }
+    }
+
+    // Début commun des identifiants des géofences d'un champ ("g2s.")
+    public static String fenceIdPrefix(int polygonId) {
+        return PREFIX + Integer.toString(polygonId, RADIX) + SEPARATOR;
+    }
+
+    // Champ d'une géofence ("g2s.4") ou d'une clé de champ ("g2s"), ou null si l'identifiant n'a pas été émis
+    // par ce registre ou si le champ a été supprimé.
+    // Au premier événement après un redémarrage du processus, le champ est repris du PolygonRepository.
+    public PreparedPolygon field(String requestId) {
+        int id = polygonId(requestId);
+        if (id == Integer.MIN_VALUE) {
+            return null;
+        }
+        synchronized (this) {
+            PreparedPolygon field = table.get(id);
+            if (field != null) {
+                return field;
+            }
+        }
+        PreparedPolygon field = repository.get(id);
+        if (field != null) {
+            synchronized (this) {
+                table.put(field);
+            }
+        }
+        return field;
+    }
+
+    // Clé commune à toutes les géofences d'un même champ ("g2s"), gardée dans la table avec le champ : un événement
+    // d'un champ enregistré ne crée pas de chaîne. Les autres identifiants sont rendus tels quels.
+    public String fieldKey(String requestId) {
+        int id = polygonId(requestId);
+        if (id == Integer.MIN_VALUE) {
+            return requestId;
+        }
+        synchronized (this) {
+            String key = table.key(id);
+            if (key != null) {
+                return key;
+            }
+        }
+        int separator = requestId.indexOf(SEPARATOR);
+        return separator < 0 ? requestId : requestId.substring(0, separator);
+    }
+
+    // Indice du cercle dans le recouvrement du champ, -1 si l'identifiant n'est pas valide
+    public static int circleIndex(String requestId) {
+        int separator = requestId.indexOf(SEPARATOR);
+        if (separator < 0) {
+            return -1;
+        }
+        int index = parse(requestId, separator + 1, requestId.length());
+        return index == Integer.MIN_VALUE ? -1 : index;
+    }
+
+    public synchronized void remove(int polygonId) {
+        table.remove(polygonId);
+    }
+
+    public synchronized int size() {
+        return table.size;
+    }
+
+    // Id du polygone lu directement dans les caractères de l'identifiant, Integer.MIN_VALUE s'il n'est pas valide
+    private static int polygonId(String requestId) {
+        if (requestId.length() < 2 || requestId.charAt(0) != PREFIX) {
+            return Integer.MIN_VALUE;
+        }
+        int separator = requestId.indexOf(SEPARATOR);
+        return parse(requestId, 1, separator < 0 ? requestId.length() : separator);
+    }
+
+    // Entier signé en base 36 de s[from, to), Integer.MIN_VALUE s'il est invalide
+    private static int parse(String s, int from, int to) {
+        boolean negative = from < to && s.charAt(from) == '-';
+        int i = negative ? from + 1 : from;
+        if (i == to || to - i > 7) {
+            return Integer.MIN_VALUE;
+        }
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = Character.digit(s.charAt(i), RADIX);
+            if (digit < 0) {
+                return Integer.MIN_VALUE;
+            }
+            value = value * RADIX + digit;
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE || value <= Integer.MIN_VALUE ? Integer.MIN_VALUE : (int) value;
+    }
+
+    // Sondage linéaire ; la capacité est une puissance de deux. Accès sous le verrou du registre, sauf pendant
+    // la construction d'une table pas encore publiée.
+    private static final class Table {
+
+        private int[] keys;
+        private PreparedPolygon[] fields;
+        // Clé de champ ("g2s"), créée une fois par champ
+        private String[] names;
+        int size;
+
+        Table(int capacity) {
+            keys = new int[capacity];
+            fields = new PreparedPolygon[capacity];
+            names = new String[capacity];
+        }
+
+        PreparedPolygon get(int id) {
+            return fields[findSlot(id)];
+        }
+
+        String key(int id) {
+            return names[findSlot(id)];
+        }
+
+        void put(PreparedPolygon field) {
+            int slot = findSlot(field.id());
+            if (fields[slot] == null) {
+                if ((size + 1) * 2 > keys.length) {
+                    grow();
+                    slot = findSlot(field.id());
+                }
+                size++;
+                keys[slot] = field.id();
+                names[slot] = PREFIX + Integer.toString(field.id(), RADIX);
+                fields[slot] = field;
+            } else if (fields[slot].version() <= field.version()) {
+                // Remplacer une version plus ancienne du même champ, jamais une plus récente
+                fields[slot] = field;
+            }
+        }
+
+        void remove(int id) {
+            int capacity = keys.length;
+            int slot = findSlot(id);
+            if (fields[slot] == null) {
+                return;
+            }
+            fields[slot] = null;
+            names[slot] = null;
+            size--;
+            // Réinsérer la suite du groupe pour garder les sondages linéaires valides
+            for (int i = (slot + 1) & (capacity - 1); fields[i] != null; i = (i + 1) & (capacity - 1)) {
+                PreparedPolygon field = fields[i];
+                fields[i] = null;
+                names[i] = null;
+                size--;
+                put(field);
+            }
+        }
+
+        private int findSlot(int id) {
+            int mask = keys.length - 1;
+            int slot = (id * 0x9E3779B9) >>> 16 & mask;
+            while (fields[slot] != null && keys[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void grow() {
+            PreparedPolygon[] old = fields;
+            keys = new int[keys.length * 2];
+            fields = new PreparedPolygon[old.length * 2];
+            names = new String[old.length * 2];
+            size = 0;
+            for (PreparedPolygon field : old) {
+                if (field != null) {
+                    put(field);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.geofencing.core;
+
+// Transition de géofence après regroupement : dernière position de déclenchement de la rafale
+// et nombre d'événements bruts qu'elle remplace
+public final class GeofenceTransition {
+
+    private final String fenceKey;
+    private final int transition;
+    private final double lat;
+    private final double lng;
+    private final long timeMillis;
+    private final int coalescedCount;
+
+    public GeofenceTransition(String fenceKey, int transition, double lat, double lng, long timeMillis, int coalescedCount) {
+        this.fenceKey = fenceKey;
+        this.transition = transition;
+        this.lat = lat;
+        this.lng = lng;
+        this.timeMillis = timeMillis;
+        this.coalescedCount = coalescedCount;
+    }
+
+    public String fenceKey() {
+        return fenceKey;
+    }
+
+    // CircularFence.TRANSITION_ENTER, TRANSITION_DWELL ou TRANSITION_EXIT
+    public int transition() {
+        return transition;
+    }
+
+    public double lat() {
+        return lat;
+    }
+
+    public double lng() {
+        return lng;
+    }
+
+    public long timeMillis() {
+        return timeMillis;
+    }
+
+    public int coalescedCount() {
+        return coalescedCount;
+    }
+}
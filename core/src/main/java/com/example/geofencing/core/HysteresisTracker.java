@@ -0,0 +1,230 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Présence de l'appareil dans les champs, à partir de lots de positions (suivi continu, hors géofences du système).
+//
+// Hystérésis : on n'entre dans un champ qu'une fois à plus de enterBuffer mètres à l'intérieur de son contour,
+// on n'en sort qu'une fois à plus de exitBuffer mètres à l'extérieur. Le bruit GPS le long d'une bordure
+// ne produit donc pas de rafale d'entrées et de sorties.
+//
+// Un lot est traité en une passe : les champs candidats sont cherchés une seule fois autour de la boîte
+// englobante du lot, puis chaque position n'est testée que contre eux. La distance au contour n'est calculée
+// que lorsqu'elle peut changer l'état (position dedans d'un champ où l'on n'est pas encore, ou dehors d'un
+// champ où l'on est) et pour la dernière position, dont la distance à la bordure la plus proche règle
+// l'intervalle de localisation (LocationIntervalPolicy). Les bordures des trous d'un champ comptent comme son contour.
+// Une instance n'est pas thread-safe : les lots sont traités sur un seul thread.
+public final class HysteresisTracker {
+
+    public static final double DEFAULT_ENTER_BUFFER_METERS = 3;
+    public static final double DEFAULT_EXIT_BUFFER_METERS = 5;
+
+    // Rayon de recherche des champs autour du lot : au-delà, la distance à la bordure est seulement minorée
+    public static final double SEARCH_RADIUS_METERS = 500;
+
+    private static final LatencyHistogram BATCH_LATENCY = Metrics.getInstance().histogram("tracking.batch");
+    private static final Metrics.Counter TRANSITIONS = Metrics.getInstance().counter("tracking.transitions");
+
+    public interface Listener {
+        void onEnter(PreparedPolygon field, double lat, double lng, long timeMillis);
+
+        void onExit(PreparedPolygon field, double lat, double lng, long timeMillis);
+    }
+
+    private final PolygonRepository repository;
+    private final double enterBuffer;
+    private final double exitBuffer;
+    // Champs où se trouve l'appareil, par identifiant
+    private final Map<Integer, PreparedPolygon> inside = new HashMap<>();
+    private final List<PreparedPolygon> candidates = new ArrayList<>();
+
+    private double lastLat = Double.NaN;
+    private double lastLng = Double.NaN;
+    private long lastTime;
+    private double boundaryDistance = Double.POSITIVE_INFINITY;
+    private double speed;
+
+    public HysteresisTracker(PolygonRepository repository) {
+        this(repository, DEFAULT_ENTER_BUFFER_METERS, DEFAULT_EXIT_BUFFER_METERS);
+    }
+
+    public HysteresisTracker(PolygonRepository repository, double enterBufferMeters, double exitBufferMeters) {
+        if (enterBufferMeters < 0 || exitBufferMeters < 0) {
+            throw new IllegalArgumentException("buffers must be >= 0");
+        }
+        this.repository = repository;
+        this.enterBuffer = enterBufferMeters;
+        this.exitBuffer = exitBufferMeters;
+    }
+
+    public boolean isInside(int polygonId) {
+        return inside.containsKey(polygonId);
+    }
+
+    public int insideCount() {
+        return inside.size();
+    }
+
+    // Distance de la dernière position à la bordure de champ la plus proche (mètres) ; minorée par
+    // SEARCH_RADIUS_METERS quand aucun champ n'est proche, infinie avant le premier lot
+    public double boundaryDistanceMeters() {
+        return boundaryDistance;
+    }
+
+    // Vitesse estimée sur les deux dernières positions (m/s)
+    public double speedMetersPerSecond() {
+        return speed;
+    }
+
+    // Positions triées par date ; retourne le nombre de transitions émises
+    public int processBatch(double[] lats, double[] lngs, long[] timesMillis, int count, Listener listener) {
+        if (count == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            south = Math.min(south, lats[i]);
+            north = Math.max(north, lats[i]);
+            west = Math.min(west, lngs[i]);
+            east = Math.max(east, lngs[i]);
+        }
+        LocalProjection projection = new LocalProjection((south + north) * 0.5, (west + east) * 0.5);
+        double marginLat = SEARCH_RADIUS_METERS / projection.metersPerDegreeLat();
+        double marginLng = SEARCH_RADIUS_METERS / projection.metersPerDegreeLng();
+        candidates.clear();
+        repository.queryBounds(south - marginLat, west - marginLng, north + marginLat, east + marginLng, field -> {
+            if (field.vertexCount() >= 3) {
+                candidates.add(field);
+            }
+            return true;
+        });
+
+        int transitions = 0;
+        for (int i = 0; i < count; i++) {
+            double lat = lats[i];
+            double lng = lngs[i];
+            for (int c = 0; c < candidates.size(); c++) {
+                PreparedPolygon field = candidates.get(c);
+                boolean wasInside = inside.containsKey(field.id());
+                if (wasInside == field.contains(lat, lng)) {
+                    continue;
+                }
+                // Bordure franchie : ne changer d'état qu'au-delà de la zone tampon
+                double distance = boundaryDistance(field, projection, lat, lng);
+                if (wasInside && distance > exitBuffer) {
+                    inside.remove(field.id());
+                    listener.onExit(field, lat, lng, timesMillis[i]);
+                    transitions++;
+                } else if (!wasInside && distance > enterBuffer) {
+                    inside.put(field.id(), field);
+                    listener.onEnter(field, lat, lng, timesMillis[i]);
+                    transitions++;
+                }
+            }
+        }
+
+        // Champs quittés hors de la zone de recherche (saut de position, champ supprimé)
+        double lastLatInBatch = lats[count - 1];
+        double lastLngInBatch = lngs[count - 1];
+        Iterator<PreparedPolygon> it = inside.values().iterator();
+        while (it.hasNext()) {
+            PreparedPolygon field = it.next();
+            if (!isCandidate(field.id())) {
+                it.remove();
+                listener.onExit(field, lastLatInBatch, lastLngInBatch, timesMillis[count - 1]);
+                transitions++;
+            }
+        }
+
+        updateMotion(lats, lngs, timesMillis, count, projection);
+        boundaryDistance = SEARCH_RADIUS_METERS;
+        for (int c = 0; c < candidates.size(); c++) {
+            PreparedPolygon field = candidates.get(c);
+            double bound = boundsDistance(field, projection, lastLatInBatch, lastLngInBatch);
+            if (bound < boundaryDistance) {
+                boundaryDistance = Math.min(boundaryDistance, boundaryDistance(field, projection, lastLatInBatch, lastLngInBatch));
+            }
+        }
+        TRANSITIONS.add(transitions);
+        BATCH_LATENCY.recordSince(start);
+        return transitions;
+    }
+
+    // Comparaison par identifiant : un champ modifié est une nouvelle instance
+    private boolean isCandidate(int polygonId) {
+        for (int c = 0; c < candidates.size(); c++) {
+            if (candidates.get(c).id() == polygonId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateMotion(double[] lats, double[] lngs, long[] timesMillis, int count, LocalProjection projection) {
+        double previousLat = count > 1 ? lats[count - 2] : lastLat;
+        double previousLng = count > 1 ? lngs[count - 2] : lastLng;
+        long previousTime = count > 1 ? timesMillis[count - 2] : lastTime;
+        long elapsed = timesMillis[count - 1] - previousTime;
+        if (!Double.isNaN(previousLat) && elapsed > 0) {
+            speed = projection.distance(previousLat, previousLng, lats[count - 1], lngs[count - 1]) * 1000.0 / elapsed;
+        }
+        lastLat = lats[count - 1];
+        lastLng = lngs[count - 1];
+        lastTime = timesMillis[count - 1];
+    }
+
+    // Distance du point à la boîte englobante du champ : 0 dedans, minore la distance au contour dehors
+    private static double boundsDistance(PreparedPolygon field, LocalProjection projection, double lat, double lng) {
+        double dx = Math.max(0, Math.max(projection.toX(field.minLng()) - projection.toX(lng), projection.toX(lng) - projection.toX(field.maxLng())));
+        double dy = Math.max(0, Math.max(projection.toY(field.minLat()) - projection.toY(lat), projection.toY(lat) - projection.toY(field.maxLat())));
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Distance du point au contour du champ (mètres, projection du lot), bordures des trous comprises : sortir
+    // d'un champ en entrant dans une zone exclue passe par les mêmes zones tampons qu'au contour extérieur
+    static double boundaryDistance(PreparedPolygon field, LocalProjection projection, double lat, double lng) {
+        double px = projection.toX(lng);
+        double py = projection.toY(lat);
+        int n = field.vertexCount();
+        double best = Double.POSITIVE_INFINITY;
+        double ax = projection.toX(field.lng(n - 1));
+        double ay = projection.toY(field.lat(n - 1));
+        for (int i = 0; i < n; i++) {
+            double bx = projection.toX(field.lng(i));
+            double by = projection.toY(field.lat(i));
+            best = Math.min(best, segmentDistanceSquared(px, py, ax, ay, bx, by));
+            ax = bx;
+            ay = by;
+        }
+        MultiPolygon holes = field.holes();
+        if (holes != null) {
+            for (int ring = 0; ring < holes.ringCount(); ring++) {
+                int m = holes.ringVertexCount(ring);
+                ax = projection.toX(holes.lng(ring, m - 1));
+                ay = projection.toY(holes.lat(ring, m - 1));
+                for (int i = 0; i < m; i++) {
+                    double bx = projection.toX(holes.lng(ring, i));
+                    double by = projection.toY(holes.lat(ring, i));
+                    best = Math.min(best, segmentDistanceSquared(px, py, ax, ay, bx, by));
+                    ax = bx;
+                    ay = by;
+                }
+            }
+        }
+        return Math.sqrt(best);
+    }
+
+    private static double segmentDistanceSquared(double px, double py, double ax, double ay, double bx, double by) {
+        double ex = bx - ax, ey = by - ay;
+        double lengthSquared = ex * ex + ey * ey;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * ex + (py - ay) * ey) / lengthSquared));
+        double dx = ax + t * ex - px, dy = ay + t * ey - py;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Client de géofences en mémoire, pour exécuter la logique d'enregistrement sur la JVM.
+// Reproduit la limite de géofences actives du système et compte les appels ; evaluate() détecte
+// les transitions des géofences enregistrées à la place du service de localisation.
+public class InMemoryGeofenceClient implements GeofenceClient {
+
+    public interface TransitionListener {
+        void onTransition(String requestId, int transition, double lat, double lng, long timeMillis);
+    }
+
+    private static final int UNKNOWN = 0;
+    private static final int INSIDE = 1;
+    private static final int OUTSIDE = 2;
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * PolygonMath.EARTH_RADIUS_METERS;
+
+    // Géofence enregistrée et état de l'appareil par rapport à elle
+    private static final class Active {
+        final CircularFence fence;
+        final double metersPerDegreeLng;
+        int state = UNKNOWN;
+        long enteredAt;
+        boolean dwelling;
+
+        Active(CircularFence fence) {
+            this.fence = fence;
+            this.metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(fence.lat()));
+        }
+    }
+
+    private final int maxActiveFences;
+    private final long loiteringDelayMillis;
+    private final Map<String, Active> registered = new LinkedHashMap<>();
+    private int addCalls;
+    private int removeCalls;
+    private long fencesAdded;
+    private long fencesRemoved;
+
+    public InMemoryGeofenceClient() {
+        this(MAX_ACTIVE_FENCES);
+    }
+
+    public InMemoryGeofenceClient(int maxActiveFences) {
+        this(maxActiveFences, 5000);
+    }
+
+    // Même délai de présence avant DWELL que GeofenceHelper
+    public InMemoryGeofenceClient(int maxActiveFences, long loiteringDelayMillis) {
+        this.maxActiveFences = maxActiveFences;
+        this.loiteringDelayMillis = loiteringDelayMillis;
+    }
+
+    @Override
+    public synchronized void addFences(List<CircularFence> fences, Callback callback) {
+        addCalls++;
+        int added = 0;
+        for (CircularFence fence : fences) {
+            if (!registered.containsKey(fence.requestId())) {
+                added++;
+            }
+        }
+        if (registered.size() + added > maxActiveFences) {
+            callback.onComplete(false, new IllegalStateException("GEOFENCE_TOO_MANY_GEOFENCES"));
+            return;
+        }
+        for (CircularFence fence : fences) {
+            registered.put(fence.requestId(), new Active(fence));
+        }
+        fencesAdded += fences.size();
+        callback.onComplete(true, null);
+    }
+
+    @Override
+    public synchronized void removeFences(List<String> requestIds, Callback callback) {
+        removeCalls++;
+        for (String requestId : requestIds) {
+            registered.remove(requestId);
+        }
+        fencesRemoved += requestIds.size();
+        callback.onComplete(true, null);
+    }
+
+    // Nouvelle position : transitions des géofences enregistrées, dans l'ordre d'enregistrement.
+    // Comme avec INITIAL_TRIGGER_ENTER, une géofence qui contient déjà l'appareil à son enregistrement
+    // déclenche ENTER ; DWELL suit après le délai de présence. Les transitions non demandées ne sont pas émises.
+    // Retourne le nombre de transitions émises.
+    public synchronized int evaluate(double lat, double lng, long timeMillis, TransitionListener listener) {
+        int emitted = 0;
+        for (Active active : registered.values()) {
+            CircularFence fence = active.fence;
+            double dy = (lat - fence.lat()) * METERS_PER_DEGREE;
+            double dx = (lng - fence.lng()) * active.metersPerDegreeLng;
+            boolean inside = dx * dx + dy * dy <= (double) fence.radiusMeters() * fence.radiusMeters();
+            int transition = 0;
+            if (inside && active.state != INSIDE) {
+                active.enteredAt = timeMillis;
+                active.dwelling = false;
+                transition = CircularFence.TRANSITION_ENTER;
+            } else if (!inside && active.state == INSIDE) {
+                transition = CircularFence.TRANSITION_EXIT;
+            } else if (inside && !active.dwelling && timeMillis - active.enteredAt >= loiteringDelayMillis) {
+                active.dwelling = true;
+                transition = CircularFence.TRANSITION_DWELL;
+            }
+            active.state = inside ? INSIDE : OUTSIDE;
+            if (transition != 0 && (fence.transitionTypes() & transition) != 0) {
+                listener.onTransition(fence.requestId(), transition, lat, lng, timeMillis);
+                emitted++;
+            }
+        }
+        return emitted;
+    }
+
+    public synchronized List<CircularFence> registeredFences() {
+        List<CircularFence> fences = new ArrayList<>(registered.size());
+        for (Active active : registered.values()) {
+            fences.add(active.fence);
+        }
+        return fences;
+    }
+
+    public synchronized boolean isRegistered(String requestId) {
+        return registered.containsKey(requestId);
+    }
+
+    public synchronized int registeredCount() {
+        return registered.size();
+    }
+
+    public synchronized int addCalls() {
+        return addCalls;
+    }
+
+    public synchronized int removeCalls() {
+        return removeCalls;
+    }
+
+    public synchronized long fencesAdded() {
+        return fencesAdded;
+    }
+
+    public synchronized long fencesRemoved() {
+        return fencesRemoved;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Plan de pulvérisation tenu à jour segment par segment à partir d'un EditablePolygon :
+// une insertion, un déplacement ou une suppression ne recalcule que les segments touchés (au plus deux).
+// Tant que le polygone a moins de 3 sommets, tous les segments sont vides.
+public class IncrementalSprayPlan implements EditablePolygon.Listener {
+
+    public interface Listener {
+        void onSegmentInserted(IncrementalSprayPlan plan, int index);
+
+        void onSegmentChanged(IncrementalSprayPlan plan, int index);
+
+        void onSegmentRemoved(IncrementalSprayPlan plan, int index);
+    }
+
+    private static final int MIN_VERTICES = 3;
+
+    private final EditablePolygon polygon;
+    private final SprayPointGenerator generator;
+    private final List<PointList> segments = new ArrayList<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    // Projection figée au premier calcul : la déplacer avec les sommets obligerait à tout recalculer,
+    // et l'erreur reste négligeable à l'échelle d'un champ
+    private LocalProjection projection;
+    private int totalPointCount;
+
+    public IncrementalSprayPlan(EditablePolygon polygon, SprayPointGenerator generator) {
+        this.polygon = polygon;
+        this.generator = generator;
+        for (int i = 0; i < polygon.size(); i++) {
+            segments.add(new PointList());
+        }
+        recomputeAll();
+        polygon.addListener(this);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Détache le plan du polygone
+    public void release() {
+        polygon.removeListener(this);
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    // Points du segment index ; à ne pas modifier
+    public PointList segment(int index) {
+        return segments.get(index);
+    }
+
+    public int totalPointCount() {
+        return totalPointCount;
+    }
+
+    // Concatène tous les segments dans out, dans l'ordre du contour
+    public void copyTo(PointList out) {
+        out.ensureCapacity(out.size() + totalPointCount);
+        for (int s = 0; s < segments.size(); s++) {
+            PointList segment = segments.get(s);
+            for (int i = 0; i < segment.size(); i++) {
+                out.add(segment.lat(i), segment.lng(i));
+            }
+        }
+    }
+
+    @Override
+    public void onVertexInserted(EditablePolygon polygon, int index) {
+        segments.add(index, new PointList());
+        if (polygon.size() == MIN_VERTICES) {
+            notifyInserted(index);
+            recomputeAll();
+            return;
+        }
+        recompute(index);
+        notifyInserted(index);
+        // Le segment précédent aboutit maintenant au nouveau sommet
+        int previous = previousIndex(index);
+        if (previous != index) {
+            recompute(previous);
+            notifyChanged(previous);
+        }
+    }
+
+    @Override
+    public void onVertexMoved(EditablePolygon polygon, int index) {
+        recompute(index);
+        notifyChanged(index);
+        int previous = previousIndex(index);
+        if (previous != index) {
+            recompute(previous);
+            notifyChanged(previous);
+        }
+    }
+
+    @Override
+    public void onVertexRemoved(EditablePolygon polygon, int index) {
+        totalPointCount -= segments.remove(index).size();
+        notifyRemoved(index);
+        if (polygon.size() == 0) {
+            projection = null;
+            return;
+        }
+        if (polygon.size() < MIN_VERTICES) {
+            recomputeAll();
+            return;
+        }
+        int previous = previousIndex(index);
+        recompute(previous);
+        notifyChanged(previous);
+    }
+
+    private int previousIndex(int index) {
+        int size = polygon.size();
+        return (index - 1 + size) % size;
+    }
+
+    private void recomputeAll() {
+        for (int i = 0; i < segments.size(); i++) {
+            recompute(i);
+            notifyChanged(i);
+        }
+    }
+
+    private void recompute(int index) {
+        PointList segment = segments.get(index);
+        totalPointCount -= segment.size();
+        segment.clear();
+        int size = polygon.size();
+        if (size < MIN_VERTICES) {
+            return;
+        }
+        if (projection == null) {
+            projection = new LocalProjection(polygon.lat(0), polygon.lng(0));
+        }
+        int next = index + 1 == size ? 0 : index + 1;
+        totalPointCount += generator.generateSegment(projection, polygon.lat(index), polygon.lng(index),
+                polygon.lat(next), polygon.lng(next), segment);
+    }
+
+    private void notifyInserted(int index) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onSegmentInserted(this, index);
+        }
+    }
+
+    private void notifyChanged(int index) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onSegmentChanged(this, index);
+        }
+    }
+
+    private void notifyRemoved(int index) {
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onSegmentRemoved(this, index);
+        }
+    }
+}
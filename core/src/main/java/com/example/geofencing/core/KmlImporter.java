@@ -0,0 +1,344 @@
+package com.example.geofencing.core;
+
+import java.io.IOException;
+import java.io.Reader;
+
+// Lecture en flux de KML : un simple scanner de balises, sans DOM ni parseur XML.
+// Seuls les <coordinates> des <Polygon> sont lus (y compris dans les <MultiGeometry>) : <outerBoundaryIs> pour
+// le contour extérieur, <innerBoundaryIs> pour les trous ; le polygone est transmis à sa balise fermante.
+// Les lignes et les points sont ignorés.
+// Non thread-safe : une instance par import.
+public final class KmlImporter {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+    private static final int MAX_NUMBER_LENGTH = 64;
+    private static final int MAX_NAME_LENGTH = 64;
+
+    // Puissances de 10 exactes en double
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final char[] name = new char[MAX_NAME_LENGTH];
+    private final char[] number = new char[MAX_NUMBER_LENGTH];
+    private PointList ring = new PointList(1024);
+    // Polygone en cours : contour extérieur (vide s'il manque) et trous déjà lus
+    private PointList outer = new PointList(1024);
+    private MultiPolygon.Builder holes;
+    private Reader reader;
+    private int position;
+    private int limit;
+    private int nameLength;
+    private int numberLength;
+
+    // Retourne le nombre de polygones transmis au sink
+    public int read(Reader reader, PolygonSink sink) throws IOException {
+        this.reader = reader;
+        position = 0;
+        limit = 0;
+        outer.clear();
+        holes = null;
+        int polygonCount = 0;
+        int outerDepth = 0;
+        int innerDepth = 0;
+        int c;
+        while ((c = next()) >= 0) {
+            if (c != '<') {
+                continue;
+            }
+            c = next();
+            if (c == '!') {
+                skipDeclaration();
+                continue;
+            }
+            if (c == '?') {
+                skipPast('?', '>');
+                continue;
+            }
+            boolean closing = c == '/';
+            if (closing) {
+                c = next();
+            }
+            readName(c);
+            boolean empty = skipTagEnd();
+            if (empty) {
+                continue;
+            }
+            if (nameIs("Polygon")) {
+                // Début ou fin du polygone : le précédent, même sans balise fermante, est transmis
+                polygonCount += emitPolygon(sink);
+            } else if (nameIs("outerBoundaryIs")) {
+                outerDepth += closing ? -1 : 1;
+            } else if (nameIs("innerBoundaryIs")) {
+                innerDepth += closing ? -1 : 1;
+            } else if (!closing && nameIs("coordinates") && (outerDepth > 0 || innerDepth > 0)) {
+                readCoordinates();
+                if (!closeRing()) {
+                    continue;
+                }
+                if (innerDepth == 0) {
+                    // Second contour extérieur sans <Polygon> entre les deux : le premier est transmis seul
+                    polygonCount += emitPolygon(sink);
+                    // Le contour lu devient le contour extérieur, sans copie
+                    PointList read = ring;
+                    ring = outer;
+                    outer = read;
+                } else if (outer.size() > 0) {
+                    if (holes == null) {
+                        holes = new MultiPolygon.Builder();
+                    }
+                    holes.addOuter(ring.toLatArray(), ring.toLngArray(), ring.size());
+                }
+            }
+        }
+        return polygonCount + emitPolygon(sink);
+    }
+
+    // KML répète le premier sommet en fin d'anneau ; retourne false si l'anneau a moins de 3 sommets
+    private boolean closeRing() {
+        int n = ring.size();
+        if (n > 1 && ring.lat(0) == ring.lat(n - 1) && ring.lng(0) == ring.lng(n - 1)) {
+            ring.removeLast();
+        }
+        return ring.size() >= 3;
+    }
+
+    // Retourne le nombre de polygones transmis (0 ou 1)
+    private int emitPolygon(PolygonSink sink) throws IOException {
+        int emitted = 0;
+        if (outer.size() > 0) {
+            sink.onPolygon(outer, holes == null ? null : holes.build());
+            emitted = 1;
+        }
+        outer.clear();
+        holes = null;
+        return emitted;
+    }
+
+    private int next() throws IOException {
+        if (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return -1;
+            }
+        }
+        return buffer[position++];
+    }
+
+    // Nom local de la balise (préfixe d'espace de noms retiré), arrêté au premier blanc, '/' ou '>'
+    private void readName(int c) throws IOException {
+        nameLength = 0;
+        while (c >= 0 && c != '>' && c != '/' && !isWhitespace(c)) {
+            if (c == ':') {
+                nameLength = 0;
+            } else if (nameLength < MAX_NAME_LENGTH) {
+                name[nameLength++] = (char) c;
+            }
+            c = next();
+        }
+        if (c >= 0) {
+            // Le caractère d'arrêt est relu par skipTagEnd
+            position--;
+        }
+    }
+
+    private boolean nameIs(String expected) {
+        if (nameLength != expected.length()) {
+            return false;
+        }
+        for (int i = 0; i < nameLength; i++) {
+            if (name[i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Passe les attributs jusqu'au '>' ; retourne true pour une balise vide "<... />"
+    private boolean skipTagEnd() throws IOException {
+        int previous = 0;
+        int quote = 0;
+        int c;
+        while ((c = next()) >= 0) {
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                return previous == '/';
+            }
+            previous = c;
+        }
+        return false;
+    }
+
+    // Commentaire "<!-- -->", section "<![CDATA[ ]]>" ou déclaration "<!DOCTYPE >"
+    private void skipDeclaration() throws IOException {
+        int c = next();
+        if (c == '-') {
+            next();
+            skipPast('-', '-', '>');
+        } else if (c == '[') {
+            skipPast(']', ']', '>');
+        } else {
+            while (c >= 0 && c != '>') {
+                c = next();
+            }
+        }
+    }
+
+    private void skipPast(char a, char b) throws IOException {
+        int previous = 0;
+        int c;
+        while ((c = next()) >= 0) {
+            if (previous == a && c == b) {
+                return;
+            }
+            previous = c;
+        }
+    }
+
+    private void skipPast(char a, char b, char c) throws IOException {
+        int first = 0;
+        int second = 0;
+        int ch;
+        while ((ch = next()) >= 0) {
+            if (first == a && second == b && ch == c) {
+                return;
+            }
+            first = second;
+            second = ch;
+        }
+    }
+
+    // Tuples "lng,lat[,altitude]" séparés par des blancs, jusqu'à la balise fermante
+    private void readCoordinates() throws IOException {
+        ring.clear();
+        while (true) {
+            int c = skipWhitespace();
+            if (c < 0 || c == '<') {
+                if (c == '<') {
+                    position--;
+                }
+                return;
+            }
+            double lng = readNumber(c);
+            c = next();
+            if (c != ',') {
+                // Tuple incomplet ou invalide : ignoré jusqu'au prochain blanc
+                skipToken(c);
+                continue;
+            }
+            double lat = readNumber(next());
+            c = next();
+            if (c == ',') {
+                readNumber(next());
+                c = next();
+            }
+            if (c >= 0) {
+                position--;
+            }
+            if (!Double.isNaN(lng) && !Double.isNaN(lat)) {
+                ring.add(lat, lng);
+            }
+        }
+    }
+
+    private void skipToken(int c) throws IOException {
+        while (c >= 0 && c != '<' && !isWhitespace(c)) {
+            c = next();
+        }
+        if (c == '<') {
+            position--;
+        }
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c >= 0 && isWhitespace(c));
+        return c;
+    }
+
+    // Lit un nombre commençant par c ; laisse le caractère suivant à relire. NaN si invalide.
+    private double readNumber(int c) throws IOException {
+        numberLength = 0;
+        while (c >= 0 && isNumberChar(c)) {
+            if (numberLength < MAX_NUMBER_LENGTH) {
+                number[numberLength++] = (char) c;
+            }
+            c = next();
+        }
+        if (c >= 0) {
+            position--;
+        }
+        return parseNumber(number, numberLength);
+    }
+
+    // Chemin rapide sans allocation pour les coordonnées usuelles (au plus 15 chiffres significatifs,
+    // sans exposant) : une seule division par une puissance de 10 exacte, donc correctement arrondie.
+    static double parseNumber(char[] chars, int length) {
+        if (length == 0) {
+            return Double.NaN;
+        }
+        int i = 0;
+        boolean negative = chars[0] == '-';
+        if (negative || chars[0] == '+') {
+            i++;
+        }
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean dot = false;
+        boolean digits = false;
+        for (; i < length; i++) {
+            char ch = chars[i];
+            if (ch >= '0' && ch <= '9') {
+                digits = true;
+                mantissa = mantissa * 10 + (ch - '0');
+                if (mantissa != 0) {
+                    significant++;
+                }
+                if (dot) {
+                    scale++;
+                }
+                if (significant > 15) {
+                    return slowParse(chars, length);
+                }
+            } else if (ch == '.' && !dot) {
+                dot = true;
+            } else {
+                // Exposant ou caractère inattendu
+                return slowParse(chars, length);
+            }
+        }
+        if (!digits || scale >= POWERS_OF_TEN.length) {
+            return slowParse(chars, length);
+        }
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(char[] chars, int length) {
+        try {
+            return Double.parseDouble(new String(chars, 0, length));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    private static boolean isNumberChar(int c) {
+        return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+    }
+
+    private static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
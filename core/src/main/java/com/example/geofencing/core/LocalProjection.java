@@ -0,0 +1,72 @@
+package com.example.geofencing.core;
+
+// Projection équirectangulaire locale autour d'une origine : (lat, lng) en degrés <-> (x, y) en mètres.
+// Suffisamment précise à l'échelle d'un champ (quelques kilomètres).
+public final class LocalProjection {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * PolygonMath.EARTH_RADIUS_METERS;
+
+    private final double originLat;
+    private final double originLng;
+    private final double metersPerDegreeLat;
+    private final double metersPerDegreeLng;
+
+    public LocalProjection(double originLat, double originLng) {
+        this.originLat = originLat;
+        this.originLng = originLng;
+        this.metersPerDegreeLat = METERS_PER_DEGREE;
+        this.metersPerDegreeLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(originLat));
+    }
+
+    // Projection centrée sur le centre de la boîte englobante des sommets
+    public static LocalProjection forPolygon(double[] lats, double[] lngs, int count) {
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLng = Math.min(minLng, lngs[i]);
+            maxLng = Math.max(maxLng, lngs[i]);
+        }
+        return count == 0 ? new LocalProjection(0, 0) : new LocalProjection((minLat + maxLat) * 0.5, (minLng + maxLng) * 0.5);
+    }
+
+    public double originLat() {
+        return originLat;
+    }
+
+    public double originLng() {
+        return originLng;
+    }
+
+    public double metersPerDegreeLat() {
+        return metersPerDegreeLat;
+    }
+
+    public double metersPerDegreeLng() {
+        return metersPerDegreeLng;
+    }
+
+    public double toX(double lng) {
+        return (lng - originLng) * metersPerDegreeLng;
+    }
+
+    public double toY(double lat) {
+        return (lat - originLat) * metersPerDegreeLat;
+    }
+
+    public double toLng(double x) {
+        return originLng + x / metersPerDegreeLng;
+    }
+
+    public double toLat(double y) {
+        return originLat + y / metersPerDegreeLat;
+    }
+
+    // Distance en mètres entre deux points proches de l'origine
+    public double distance(double lat1, double lng1, double lat2, double lng2) {
+        double dx = (lng2 - lng1) * metersPerDegreeLng;
+        double dy = (lat2 - lat1) * metersPerDegreeLat;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.geofencing.core;
+
+// Intervalle de localisation et délai de regroupement des positions (max-wait), adaptés à la vitesse
+// et à la distance de la bordure de champ la plus proche.
+//
+// Le temps avant d'atteindre la bordure, à la vitesse courante, doit laisser SAMPLES_BEFORE_BOUNDARY
+// positions : loin des champs ou à l'arrêt, l'intervalle s'allonge jusqu'à maxInterval. Les positions
+// sont livrées par lots, traités d'un coup : le délai de livraison est au plus la moitié du temps avant
+// la bordure (la transition est signalée à temps), et nul près d'une bordure.
+// Les nouvelles valeurs ne sont retenues que si elles s'écartent de plus de CHANGE_RATIO des précédentes,
+// pour ne pas renouveler la demande de localisation à chaque lot.
+public final class LocationIntervalPolicy {
+
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 1000;
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = 60000;
+    public static final long DEFAULT_MAX_WAIT_MILLIS = 5 * 60000;
+
+    static final int SAMPLES_BEFORE_BOUNDARY = 4;
+    // Vitesse plancher : un appareil à l'arrêt peut repartir
+    static final double MIN_SPEED_METERS_PER_SECOND = 1;
+    static final double CHANGE_RATIO = 0.25;
+
+    private final long minInterval;
+    private final long maxInterval;
+    private final long maxWait;
+    private long interval;
+    private long wait;
+
+    public LocationIntervalPolicy() {
+        this(DEFAULT_MIN_INTERVAL_MILLIS, DEFAULT_MAX_INTERVAL_MILLIS, DEFAULT_MAX_WAIT_MILLIS);
+    }
+
+    public LocationIntervalPolicy(long minIntervalMillis, long maxIntervalMillis, long maxWaitMillis) {
+        if (minIntervalMillis <= 0 || maxIntervalMillis < minIntervalMillis || maxWaitMillis < maxIntervalMillis) {
+            throw new IllegalArgumentException("expected 0 < minInterval <= maxInterval <= maxWait");
+        }
+        this.minInterval = minIntervalMillis;
+        this.maxInterval = maxIntervalMillis;
+        this.maxWait = maxWaitMillis;
+        // Avant la première position : suivi précis, sans regroupement
+        this.interval = minIntervalMillis;
+        this.wait = minIntervalMillis;
+    }
+
+    public long intervalMillis() {
+        return interval;
+    }
+
+    // Délai maximal de livraison d'un lot, toujours >= intervalMillis()
+    public long maxWaitMillis() {
+        return wait;
+    }
+
+    // Retourne true si l'intervalle ou le délai de regroupement a changé et que la demande doit être renouvelée
+    public boolean update(double speedMetersPerSecond, double boundaryDistanceMeters) {
+        double speed = Math.max(MIN_SPEED_METERS_PER_SECOND, Double.isNaN(speedMetersPerSecond) ? 0 : speedMetersPerSecond);
+        double millisToBoundary = Math.max(0, boundaryDistanceMeters) / speed * 1000;
+        long newInterval = clamp((long) (millisToBoundary / SAMPLES_BEFORE_BOUNDARY), minInterval, maxInterval);
+        long newWait = clamp((long) (millisToBoundary / 2), newInterval, maxWait);
+        if (!changed(interval, newInterval) && !changed(wait, newWait)) {
+            return false;
+        }
+        interval = newInterval;
+        wait = newWait;
+        return true;
+    }
+
+    private static boolean changed(long current, long proposed) {
+        return Math.abs(proposed - current) > CHANGE_RATIO * current;
+    }
+
+    private static long clamp(long value, long min, long max) {
+        return Math.max(min, Math.min(max, value));
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.geofencing.core;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Trace de positions enregistrée (temps en millisecondes epoch, degrés), lue depuis un CSV ou un GPX.
+// Stockage en tableaux primitifs : une trace d'un million de points tient en 24 Mo.
+public final class LocationTrace {
+
+    private final String name;
+    private long[] times = new long[256];
+    private double[] lats = new double[256];
+    private double[] lngs = new double[256];
+    private int size;
+
+    public LocationTrace(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void add(long timeMillis, double lat, double lng) {
+        if (size == times.length) {
+            times = Arrays.copyOf(times, size * 2);
+            lats = Arrays.copyOf(lats, size * 2);
+            lngs = Arrays.copyOf(lngs, size * 2);
+        }
+        times[size] = timeMillis;
+        lats[size] = lat;
+        lngs[size] = lng;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long time(int index) {
+        return times[index];
+    }
+
+    public double lat(int index) {
+        return lats[index];
+    }
+
+    public double lng(int index) {
+        return lngs[index];
+    }
+
+    // CSV "time,lat,lng" (en-tête facultatif, séparateur ',' ou ';') ; le temps est en millisecondes epoch
+    // ou en ISO-8601 UTC. Les lignes illisibles sont ignorées.
+    public static LocationTrace readCsv(String name, Reader reader) throws IOException {
+        LocationTrace trace = new LocationTrace(name);
+        BufferedReader lines = new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            String[] columns = line.split("[,;]");
+            if (columns.length < 3) {
+                continue;
+            }
+            try {
+                String time = columns[0].trim();
+                long timeMillis = time.indexOf('T') > 0 ? parseIsoTime(time) : Long.parseLong(time);
+                trace.add(timeMillis, Double.parseDouble(columns[1].trim()), Double.parseDouble(columns[2].trim()));
+            } catch (IllegalArgumentException e) {
+                // En-tête ou ligne invalide
+            }
+        }
+        return trace;
+    }
+
+    // GPX : points <trkpt lat=".." lon=".."> (ou <rtept>, <wpt>) et leur <time> ; lecture en flux par balises
+    public static LocationTrace readGpx(String name, Reader reader) throws IOException {
+        LocationTrace trace = new LocationTrace(name);
+        BufferedReader in = new BufferedReader(reader);
+        StringBuilder tag = new StringBuilder();
+        StringBuilder text = new StringBuilder();
+        double lat = Double.NaN;
+        double lng = Double.NaN;
+        long time = Long.MIN_VALUE;
+        boolean inPoint = false;
+        boolean inTime = false;
+        int c;
+        while ((c = in.read()) >= 0) {
+            if (c != '<') {
+                if (inTime) {
+                    text.append((char) c);
+                }
+                continue;
+            }
+            tag.setLength(0);
+            while ((c = in.read()) >= 0 && c != '>') {
+                tag.append((char) c);
+            }
+            String element = localName(tag);
+            if (element.equals("trkpt") || element.equals("rtept") || element.equals("wpt")) {
+                inPoint = true;
+                lat = attribute(tag, "lat");
+                lng = attribute(tag, "lon");
+                time = Long.MIN_VALUE;
+                if (tag.charAt(tag.length() - 1) == '/') {
+                    inPoint = false;
+                }
+            } else if (element.equals("/trkpt") || element.equals("/rtept") || element.equals("/wpt")) {
+                if (!Double.isNaN(lat) && !Double.isNaN(lng)) {
+                    // Sans horodatage : un point par seconde après le précédent
+                    long previous = trace.size > 0 ? trace.times[trace.size - 1] : 0;
+                    trace.add(time != Long.MIN_VALUE ? time : previous + 1000, lat, lng);
+                }
+                inPoint = false;
+            } else if (inPoint && element.equals("time")) {
+                inTime = true;
+                text.setLength(0);
+            } else if (inTime && element.equals("/time")) {
+                inTime = false;
+                try {
+                    time = parseIsoTime(text.toString().trim());
+                } catch (IllegalArgumentException e) {
+                    time = Long.MIN_VALUE;
+                }
+            }
+        }
+        return trace;
+    }
+
+    private static String localName(StringBuilder tag) {
+        int end = tag.length() > 0 && tag.charAt(0) == '/' ? 1 : 0;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        String name = tag.substring(0, end);
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            name = (name.startsWith("/") ? "/" : "") + name.substring(colon + 1);
+        }
+        return name;
+    }
+
+    private static double attribute(StringBuilder tag, String attribute) {
+        String s = tag.toString();
+        int i = s.indexOf(" " + attribute + "=");
+        if (i < 0) {
+            return Double.NaN;
+        }
+        int start = i + attribute.length() + 2;
+        char quote = s.charAt(start);
+        int end = s.indexOf(quote, start + 1);
+        try {
+            return Double.parseDouble(s.substring(start + 1, end));
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    // "2024-05-01T10:00:00Z", avec fraction de seconde ou décalage "+01:00" facultatifs.
+    // Sans java.time, indisponible sur les versions d'Android visées.
+    static long parseIsoTime(String s) {
+        if (s.length() < 19 || s.charAt(4) != '-' || s.charAt(10) != 'T') {
+            throw new IllegalArgumentException(s);
+        }
+        int year = Integer.parseInt(s.substring(0, 4));
+        int month = Integer.parseInt(s.substring(5, 7));
+        int day = Integer.parseInt(s.substring(8, 10));
+        int hour = Integer.parseInt(s.substring(11, 13));
+        int minute = Integer.parseInt(s.substring(14, 16));
+        int second = Integer.parseInt(s.substring(17, 19));
+        int i = 19;
+        long millis = 0;
+        if (i < s.length() && s.charAt(i) == '.') {
+            int scale = 100;
+            for (i++; i < s.length() && Character.isDigit(s.charAt(i)); i++) {
+                millis += (s.charAt(i) - '0') * scale;
+                scale /= 10;
+            }
+        }
+        long offsetMinutes = 0;
+        if (i < s.length() && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            int sign = s.charAt(i) == '-' ? -1 : 1;
+            offsetMinutes = sign * (Integer.parseInt(s.substring(i + 1, i + 3)) * 60L + Integer.parseInt(s.substring(i + 4, i + 6)));
+        }
+        long days = daysFromCivil(year, month, day);
+        return (((days * 24 + hour) * 60 + minute - offsetMinutes) * 60 + second) * 1000 + millis;
+    }
+
+    // Jours depuis le 1970-01-01 (calendrier grégorien proleptique)
+    private static long daysFromCivil(int year, int month, int day) {
+        year -= month <= 2 ? 1 : 0;
+        long era = (year >= 0 ? year : year - 399) / 400;
+        long yearOfEra = year - era * 400;
+        long dayOfYear = (153L * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
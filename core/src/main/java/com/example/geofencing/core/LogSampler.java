@@ -0,0 +1,30 @@
+package com.example.geofencing.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Échantillonnage des journaux de debug sur les chemins fréquents : un message sur every,
+// le premier compris. Le nombre d'appels ignorés depuis le dernier message peut être journalisé avec lui.
+public final class LogSampler {
+
+    private final int every;
+    private final AtomicLong calls = new AtomicLong();
+
+    public LogSampler(int every) {
+        if (every < 1) {
+            throw new IllegalArgumentException("every must be >= 1");
+        }
+        this.every = every;
+    }
+
+    public boolean sample() {
+        return (calls.getAndIncrement() % every) == 0;
+    }
+
+    public long calls() {
+        return calls.get();
+    }
+
+    public int every() {
+        return every;
+    }
+}
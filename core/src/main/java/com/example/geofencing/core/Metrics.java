@@ -0,0 +1,114 @@
+package com.example.geofencing.core;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Compteurs et histogrammes de durées du processus, par nom ("store.load", "polygon.contains"...).
+// Les classes instrumentées gardent leurs métriques dans des constantes : aucun accès à la table
+// sur le chemin critique. Exportés en une ligne JSON par relevé, ou en texte pour l'écran de debug.
+public final class Metrics {
+
+    public static final class Counter {
+        private final AtomicLong value = new AtomicLong();
+
+        // Retourne la nouvelle valeur (utile pour n'échantillonner qu'un appel sur N)
+        public long increment() {
+            return value.incrementAndGet();
+        }
+
+        public void add(long delta) {
+            value.addAndGet(delta);
+        }
+
+        public long get() {
+            return value.get();
+        }
+    }
+
+    private static final Metrics INSTANCE = new Metrics();
+
+    private final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+
+    Metrics() {
+    }
+
+    public static Metrics getInstance() {
+        return INSTANCE;
+    }
+
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            counters.putIfAbsent(name, new Counter());
+            counter = counters.get(name);
+        }
+        return counter;
+    }
+
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            histograms.putIfAbsent(name, new LatencyHistogram(name));
+            histogram = histograms.get(name);
+        }
+        return histogram;
+    }
+
+    // {"time":..,"counters":{"nom":n,..},"histograms":{"nom":{"count":..,"p50":..,"p90":..,"p99":..,"max":..,"mean":..},..}}
+    // Durées en microsecondes ; noms triés pour des lignes comparables d'un relevé à l'autre
+    public void writeJsonLine(long timeMillis, Appendable out) throws IOException {
+        out.append("{\"time\":").append(Long.toString(timeMillis)).append(",\"counters\":{");
+        boolean first = true;
+        for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet()) {
+            out.append(first ? "" : ",").append('"').append(e.getKey()).append("\":").append(Long.toString(e.getValue().get()));
+            first = false;
+        }
+        out.append("},\"histograms\":{");
+        first = true;
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = e.getValue();
+            out.append(first ? "" : ",").append('"').append(e.getKey()).append("\":{\"count\":").append(Long.toString(h.count()))
+                    .append(",\"p50\":").append(micros(h.percentileNanos(50)))
+                    .append(",\"p90\":").append(micros(h.percentileNanos(90)))
+                    .append(",\"p99\":").append(micros(h.percentileNanos(99)))
+                    .append(",\"max\":").append(micros(h.maxNanos()))
+                    .append(",\"mean\":").append(micros((long) h.meanNanos())).append('}');
+            first = false;
+        }
+        out.append("}}\n");
+    }
+
+    // Une ligne par métrique, pour l'écran de debug
+    public String format() {
+        StringBuilder text = new StringBuilder();
+        for (Map.Entry<String, Counter> e : new TreeMap<>(counters).entrySet()) {
+            text.append(String.format(Locale.ROOT, "%-24s %12d%n", e.getKey(), e.getValue().get()));
+        }
+        text.append('\n');
+        text.append(String.format(Locale.ROOT, "%-24s %8s %9s %9s %9s %9s%n", "durations (us)", "count", "p50", "p90", "p99", "max"));
+        for (Map.Entry<String, LatencyHistogram> e : new TreeMap<>(histograms).entrySet()) {
+            LatencyHistogram h = e.getValue();
+            text.append(String.format(Locale.ROOT, "%-24s %8d %9s %9s %9s %9s%n", e.getKey(), h.count(),
+                    micros(h.percentileNanos(50)), micros(h.percentileNanos(90)), micros(h.percentileNanos(99)), micros(h.maxNanos())));
+        }
+        return text.toString();
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.reset();
+        }
+        for (Counter counter : counters.values()) {
+            counter.value.set(0);
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / 1e3);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.geofencing.core;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+// Relevés périodiques des métriques, une ligne JSON par relevé, dans un fichier à envoyer depuis le terrain.
+// Au-delà de maxBytes, le fichier est renommé en ".1" (le précédent est écrasé) : au plus deux fichiers.
+public final class MetricsDump {
+
+    private final Metrics metrics;
+    private final File file;
+    private final long maxBytes;
+
+    public MetricsDump(Metrics metrics, File file, long maxBytes) {
+        this.metrics = metrics;
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    public File file() {
+        return file;
+    }
+
+    public File rotatedFile() {
+        return new File(file.getPath() + ".1");
+    }
+
+    public synchronized void append(long timeMillis) throws IOException {
+        if (file.length() >= maxBytes) {
+            File rotated = rotatedFile();
+            if (rotated.exists() && !rotated.delete()) {
+                throw new IOException("Cannot delete " + rotated);
+            }
+            if (!file.renameTo(rotated)) {
+                throw new IOException("Cannot rotate " + file);
+            }
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            StringBuilder line = new StringBuilder(512);
+            metrics.writeJsonLine(timeMillis, line);
+            out.write(line.toString());
+        }
+    }
+}
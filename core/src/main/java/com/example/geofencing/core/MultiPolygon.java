@@ -0,0 +1,303 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Champ en plusieurs parcelles, chacune avec ses zones exclues (mares, bâtiments) : contours extérieurs
+// et trous, anneaux fermés sans répétition du premier sommet, qui ne se croisent pas.
+//
+// Le containment suit la règle pair-impair sur tous les anneaux, comme le lancer de rayon, mais sans parcourir
+// toutes les arêtes. Les latitudes des sommets découpent le plan en bandes horizontales (slabs) ; une décomposition
+// naïve range chaque arête dans toutes les bandes qu'elle traverse, O(n²) sur un contour très découpé. Ici les
+// bandes sont les feuilles d'un arbre de segments : une arête est rangée dans au plus 2 log n nœuds dont elle
+// traverse tout l'intervalle, et les arêtes d'un nœud, qui ne se croisent pas, y sont triées par longitude.
+// Un point remonte de sa bande à la racine avec une recherche dichotomique par nœud :
+// O(n log n) en mémoire, O(log² n) par requête.
+public final class MultiPolygon {
+
+    public static final class Builder {
+        private final List<double[]> ringLats = new ArrayList<>();
+        private final List<double[]> ringLngs = new ArrayList<>();
+        private final List<Boolean> holes = new ArrayList<>();
+        private int polygonCount;
+
+        // Nouvelle parcelle
+        public Builder addOuter(double[] lats, double[] lngs, int count) {
+            polygonCount++;
+            return addRing(lats, lngs, count, false);
+        }
+
+        // Zone exclue de la dernière parcelle ajoutée
+        public Builder addHole(double[] lats, double[] lngs, int count) {
+            if (polygonCount == 0) {
+                throw new IllegalStateException("a hole needs an outer ring");
+            }
+            return addRing(lats, lngs, count, true);
+        }
+
+        private Builder addRing(double[] lats, double[] lngs, int count, boolean hole) {
+            if (count < 3) {
+                throw new IllegalArgumentException("a ring needs at least 3 vertices");
+            }
+            ringLats.add(Arrays.copyOf(lats, count));
+            ringLngs.add(Arrays.copyOf(lngs, count));
+            holes.add(hole);
+            return this;
+        }
+
+        public MultiPolygon build() {
+            boolean[] isHole = new boolean[holes.size()];
+            for (int i = 0; i < isHole.length; i++) {
+                isHole[i] = holes.get(i);
+            }
+            return new MultiPolygon(polygonCount, ringLats.toArray(new double[0][]), ringLngs.toArray(new double[0][]), isHole);
+        }
+    }
+
+    private final int polygonCount;
+    private final double[][] ringLats;
+    private final double[][] ringLngs;
+    private final boolean[] holes;
+    private final int vertexCount;
+    private final double minLat, maxLat, minLng, maxLng;
+
+    // Arêtes non horizontales, orientées du sud au nord : latitudes de départ et d'arrivée, longitude de départ,
+    // pente en longitude par degré de latitude
+    private final double[] edgeLat;
+    private final double[] edgeLatEnd;
+    private final double[] edgeLng;
+    private final double[] edgeSlope;
+    // Bords des bandes : latitudes des sommets triées et dédoublonnées. Arbre de segments sur les bandes (nœud 1
+    // à la racine, bande s à la feuille leafCount + s) : arêtes du nœud k, triées par longitude,
+    // dans nodeEdges[nodeStart[k] .. nodeStart[k + 1])
+    private final double[] slabLats;
+    private final int leafCount;
+    private final int[] nodeStart;
+    private final int[] nodeEdges;
+
+    private MultiPolygon(int polygonCount, double[][] ringLats, double[][] ringLngs, boolean[] holes) {
+        this.polygonCount = polygonCount;
+        this.ringLats = ringLats;
+        this.ringLngs = ringLngs;
+        this.holes = holes;
+
+        int vertices = 0;
+        double south = Double.POSITIVE_INFINITY, north = Double.NEGATIVE_INFINITY;
+        double west = Double.POSITIVE_INFINITY, east = Double.NEGATIVE_INFINITY;
+        for (int r = 0; r < ringLats.length; r++) {
+            vertices += ringLats[r].length;
+            for (int i = 0; i < ringLats[r].length; i++) {
+                south = Math.min(south, ringLats[r][i]);
+                north = Math.max(north, ringLats[r][i]);
+                west = Math.min(west, ringLngs[r][i]);
+                east = Math.max(east, ringLngs[r][i]);
+            }
+        }
+        this.vertexCount = vertices;
+        this.minLat = south;
+        this.maxLat = north;
+        this.minLng = west;
+        this.maxLng = east;
+
+        // Arêtes orientées du sud au nord
+        double[] lat0 = new double[vertices];
+        double[] lat1 = new double[vertices];
+        double[] lng0 = new double[vertices];
+        double[] slope = new double[vertices];
+        int edges = 0;
+        for (int r = 0; r < ringLats.length; r++) {
+            double[] lats = ringLats[r];
+            double[] lngs = ringLngs[r];
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if (lats[i] == lats[j]) {
+                    continue;
+                }
+                int a = lats[j] < lats[i] ? j : i;
+                int b = a == i ? j : i;
+                lat0[edges] = lats[a];
+                lat1[edges] = lats[b];
+                lng0[edges] = lngs[a];
+                slope[edges] = (lngs[b] - lngs[a]) / (lats[b] - lats[a]);
+                edges++;
+            }
+        }
+        this.edgeLat = Arrays.copyOf(lat0, edges);
+        this.edgeLatEnd = Arrays.copyOf(lat1, edges);
+        this.edgeLng = Arrays.copyOf(lng0, edges);
+        this.edgeSlope = Arrays.copyOf(slope, edges);
+
+        this.slabLats = distinctLats();
+        int leaves = 1;
+        while (leaves < slabLats.length - 1) {
+            leaves *= 2;
+        }
+        this.leafCount = leaves;
+        this.nodeStart = new int[leaves * 2 + 1];
+        this.nodeEdges = buildTree();
+    }
+
+    // Polygone simple, sans trou
+    public static MultiPolygon of(double[] lats, double[] lngs, int count) {
+        return new Builder().addOuter(lats, lngs, count).build();
+    }
+
+    public int polygonCount() {
+        return polygonCount;
+    }
+
+    public int ringCount() {
+        return ringLats.length;
+    }
+
+    public boolean isHole(int ring) {
+        return holes[ring];
+    }
+
+    public int ringVertexCount(int ring) {
+        return ringLats[ring].length;
+    }
+
+    public double lat(int ring, int index) {
+        return ringLats[ring][index];
+    }
+
+    public double lng(int ring, int index) {
+        return ringLngs[ring][index];
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    // Entrées de l'arbre (arêtes comptées une fois par nœud)
+    public int slabEntryCount() {
+        return nodeEdges.length;
+    }
+
+    public boolean contains(double lat, double lng) {
+        if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+            return false;
+        }
+        // Bande s telle que slabLats[s] <= lat < slabLats[s + 1]
+        int s = Arrays.binarySearch(slabLats, lat);
+        s = s >= 0 ? s : -s - 2;
+        if (s < 0 || s >= slabLats.length - 1) {
+            return false;
+        }
+        // Les nœuds de la feuille à la racine contiennent exactement les arêtes qui traversent la latitude du
+        // point ; dans chacun, les arêtes à l'est du point sont celles après la dernière à l'ouest ou sur sa longitude
+        boolean inside = false;
+        for (int node = leafCount + s; node >= 1; node >>= 1) {
+            int low = nodeStart[node];
+            int high = nodeStart[node + 1];
+            int end = high;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                int e = nodeEdges[mid];
+                if (edgeLng[e] + edgeSlope[e] * (lat - edgeLat[e]) <= lng) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (((end - low) & 1) == 1) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // Lancer de rayon sur tous les anneaux, O(n) : référence et repli
+    public boolean containsRayCast(double lat, double lng) {
+        if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+            return false;
+        }
+        boolean inside = false;
+        for (int r = 0; r < ringLats.length; r++) {
+            if (PolygonMath.containsPoint(ringLats[r], ringLngs[r], lat, lng)) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    private double[] distinctLats() {
+        int edges = edgeLat.length;
+        double[] lats = new double[edges * 2];
+        System.arraycopy(edgeLat, 0, lats, 0, edges);
+        System.arraycopy(edgeLatEnd, 0, lats, edges, edges);
+        Arrays.sort(lats);
+        int distinct = 0;
+        for (int i = 0; i < lats.length; i++) {
+            if (i == 0 || lats[i] != lats[distinct - 1]) {
+                lats[distinct++] = lats[i];
+            }
+        }
+        return Arrays.copyOf(lats, distinct);
+    }
+
+    // Chaque arête est rangée dans les nœuds qui recouvrent ses bandes (comptage puis remplissage), puis les
+    // arêtes de chaque nœud sont triées par longitude au milieu de son intervalle
+    private int[] buildTree() {
+        int edges = edgeLat.length;
+        int[] first = new int[edges];
+        int[] last = new int[edges];
+        int[] count = new int[leafCount * 2];
+        for (int e = 0; e < edges; e++) {
+            first[e] = Arrays.binarySearch(slabLats, edgeLat[e]);
+            last[e] = Arrays.binarySearch(slabLats, edgeLatEnd[e]);
+            for (int l = first[e] + leafCount, r = last[e] + leafCount; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    count[l++]++;
+                }
+                if ((r & 1) == 1) {
+                    count[--r]++;
+                }
+            }
+        }
+        for (int node = 1; node < leafCount * 2; node++) {
+            nodeStart[node + 1] = nodeStart[node] + count[node];
+        }
+        int[] entries = new int[nodeStart[leafCount * 2]];
+        int[] fill = Arrays.copyOf(nodeStart, leafCount * 2);
+        for (int e = 0; e < edges; e++) {
+            for (int l = first[e] + leafCount, r = last[e] + leafCount; l < r; l >>= 1, r >>= 1) {
+                if ((l & 1) == 1) {
+                    entries[fill[l++]++] = e;
+                }
+                if ((r & 1) == 1) {
+                    entries[fill[--r]++] = e;
+                }
+            }
+        }
+
+        double[] keys = new double[edges];
+        Integer[] order = new Integer[0];
+        for (int node = 1; node < leafCount * 2; node++) {
+            int from = nodeStart[node];
+            int size = nodeStart[node + 1] - from;
+            if (size < 2) {
+                continue;
+            }
+            // Intervalle de bandes [low, low + width) du nœud, entièrement traversé par ses arêtes
+            int depth = 31 - Integer.numberOfLeadingZeros(node);
+            int width = leafCount >> depth;
+            int low = (node - (1 << depth)) * width;
+            double middle = (slabLats[low] + slabLats[low + width]) / 2;
+            if (order.length < size) {
+                order = new Integer[Math.max(size, order.length * 2)];
+            }
+            for (int k = 0; k < size; k++) {
+                int e = entries[from + k];
+                keys[e] = edgeLng[e] + edgeSlope[e] * (middle - edgeLat[e]);
+                order[k] = e;
+            }
+            Arrays.sort(order, 0, size, (a, b) -> Double.compare(keys[a], keys[b]));
+            for (int k = 0; k < size; k++) {
+                entries[from + k] = order[k];
+            }
+        }
+        return entries;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Index immuable de points sur une grille régulière (au plus 1024 x 1024 cellules).
+// Les points sont triés par cellule ; chaque cellule garde son nombre de points et son barycentre,
+// ce qui permet d'agréger rapidement à faible zoom.
+public final class PointGridIndex {
+
+    private static final int MAX_CELLS_PER_SIDE = 1024;
+
+    public interface PointVisitor {
+        // Retourne false pour arrêter la recherche
+        boolean visit(int index, double lat, double lng);
+    }
+
+    public interface ClusterVisitor {
+        void visit(double lat, double lng, int count);
+    }
+
+    private interface CellVisitor {
+        boolean visit(int cell);
+    }
+
+    private final double originLat;
+    private final double originLng;
+    private final double cellSize;
+    private final int rows;
+    private final int cols;
+    // Cellules non vides triées par clé (row * cols + col), points [cellStart[c], cellStart[c + 1])
+    private final int[] cellKeys;
+    private final int[] cellStart;
+    private final double[] cellLat;
+    private final double[] cellLng;
+    private final double[] lats;
+    private final double[] lngs;
+
+    private PointGridIndex(double originLat, double originLng, double cellSize, int rows, int cols, int[] cellKeys,
+                           int[] cellStart, double[] cellLat, double[] cellLng, double[] lats, double[] lngs) {
+        this.originLat = originLat;
+        this.originLng = originLng;
+        this.cellSize = cellSize;
+        this.rows = rows;
+        this.cols = cols;
+        this.cellKeys = cellKeys;
+        this.cellStart = cellStart;
+        this.cellLat = cellLat;
+        this.cellLng = cellLng;
+        this.lats = lats;
+        this.lngs = lngs;
+    }
+
+    public static PointGridIndex build(PointList points) {
+        int n = points.size();
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            minLat = Math.min(minLat, points.lat(i));
+            maxLat = Math.max(maxLat, points.lat(i));
+            minLng = Math.min(minLng, points.lng(i));
+            maxLng = Math.max(maxLng, points.lng(i));
+        }
+        if (n == 0) {
+            minLat = maxLat = minLng = maxLng = 0;
+        }
+
+        // Environ 4 points par cellule pour une répartition uniforme
+        int cellsPerSide = (int) Math.max(1, Math.min(MAX_CELLS_PER_SIDE, Math.sqrt(n / 4.0)));
+        double extent = Math.max(maxLat - minLat, maxLng - minLng);
+        double cellSize = extent > 0 ? extent / cellsPerSide : 1e-6;
+        int rows = Math.min(MAX_CELLS_PER_SIDE, (int) ((maxLat - minLat) / cellSize) + 1);
+        int cols = Math.min(MAX_CELLS_PER_SIDE, (int) ((maxLng - minLng) / cellSize) + 1);
+
+        // Clé de cellule dans les 32 bits de poids fort, indice du point dans les 32 bits de poids faible
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            int row = Math.min(rows - 1, (int) ((points.lat(i) - minLat) / cellSize));
+            int col = Math.min(cols - 1, (int) ((points.lng(i) - minLng) / cellSize));
+            packed[i] = ((long) (row * cols + col) << 32) | i;
+        }
+        Arrays.sort(packed);
+
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        int cellCount = 0;
+        int previousKey = -1;
+        for (int i = 0; i < n; i++) {
+            int key = (int) (packed[i] >>> 32);
+            if (key != previousKey) {
+                cellCount++;
+                previousKey = key;
+            }
+            int source = (int) packed[i];
+            lats[i] = points.lat(source);
+            lngs[i] = points.lng(source);
+        }
+
+        int[] cellKeys = new int[cellCount];
+        int[] cellStart = new int[cellCount + 1];
+        double[] cellLat = new double[cellCount];
+        double[] cellLng = new double[cellCount];
+        int cell = -1;
+        previousKey = -1;
+        for (int i = 0; i < n; i++) {
+            int key = (int) (packed[i] >>> 32);
+            if (key != previousKey) {
+                cell++;
+                cellKeys[cell] = key;
+                cellStart[cell] = i;
+                previousKey = key;
+            }
+            cellLat[cell] += lats[i];
+            cellLng[cell] += lngs[i];
+        }
+        cellStart[cellCount] = n;
+        for (int c = 0; c < cellCount; c++) {
+            int count = cellStart[c + 1] - cellStart[c];
+            cellLat[c] /= count;
+            cellLng[c] /= count;
+        }
+        return new PointGridIndex(minLat, minLng, cellSize, rows, cols, cellKeys, cellStart, cellLat, cellLng, lats, lngs);
+    }
+
+    public int size() {
+        return lats.length;
+    }
+
+    // Visite les points de la zone ; l'indice est la position du point dans l'index (stable pour un même index)
+    public void query(double south, double west, double north, double east, PointVisitor visitor) {
+        forEachCell(south, west, north, east, c -> {
+            for (int i = cellStart[c]; i < cellStart[c + 1]; i++) {
+                if (lats[i] >= south && lats[i] <= north && lngs[i] >= west && lngs[i] <= east) {
+                    if (!visitor.visit(i, lats[i], lngs[i])) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+    }
+
+    public int count(double south, double west, double north, double east) {
+        final int[] count = {0};
+        query(south, west, north, east, (index, lat, lng) -> {
+            count[0]++;
+            return true;
+        });
+        return count[0];
+    }
+
+    // Regroupe les points de la zone en amas sur une grille de pas clusterSize (degrés).
+    // Quand le pas dépasse celui de l'index, on agrège directement les barycentres des cellules.
+    public void cluster(double south, double west, double north, double east, double clusterSize, ClusterVisitor visitor) {
+        Map<Long, double[]> clusters = new HashMap<>();
+        if (clusterSize <= cellSize) {
+            query(south, west, north, east, (index, lat, lng) -> {
+                accumulate(clusters, clusterSize, lat, lng, 1);
+                return true;
+            });
+        } else {
+            forEachCell(south, west, north, east, c -> {
+                accumulate(clusters, clusterSize, cellLat[c], cellLng[c], cellStart[c + 1] - cellStart[c]);
+                return true;
+            });
+        }
+        for (double[] cluster : clusters.values()) {
+            visitor.visit(cluster[0] / cluster[2], cluster[1] / cluster[2], (int) cluster[2]);
+        }
+    }
+
+    // Parcourt les cellules non vides qui intersectent la zone, ligne par ligne
+    private void forEachCell(double south, double west, double north, double east, CellVisitor visitor) {
+        int row0 = Math.max(0, row(south));
+        int row1 = Math.min(rows - 1, row(north));
+        int col0 = Math.max(0, col(west));
+        int col1 = Math.min(cols - 1, col(east));
+        if (row0 > row1 || col0 > col1) {
+            return;
+        }
+        for (int row = row0; row <= row1; row++) {
+            int last = row * cols + col1;
+            for (int c = firstCellAtOrAfter(row * cols + col0); c < cellKeys.length && cellKeys[c] <= last; c++) {
+                if (!visitor.visit(c)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void accumulate(Map<Long, double[]> clusters, double clusterSize, double lat, double lng, int count) {
+        long key = ((long) Math.floor(lat / clusterSize) << 32) ^ (long) Math.floor(lng / clusterSize);
+        double[] cluster = clusters.get(key);
+        if (cluster == null) {
+            cluster = new double[3];
+            clusters.put(key, cluster);
+        }
+        cluster[0] += lat * count;
+        cluster[1] += lng * count;
+        cluster[2] += count;
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor((lat - originLat) / cellSize);
+    }
+
+    private int col(double lng) {
+        return (int) Math.floor((lng - originLng) / cellSize);
+    }
+
+    private int firstCellAtOrAfter(int key) {
+        int index = Arrays.binarySearch(cellKeys, key);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.geofencing.core;
+
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+// Liste de coordonnées (latitude, longitude) stockées dans deux tableaux de doubles, sans objet par point.
+// Pensée pour être réutilisée : clear() conserve la capacité déjà allouée.
+public class PointList {
+
+    private double[] lats;
+    private double[] lngs;
+    private int size;
+
+    public PointList() {
+        this(16);
+    }
+
+    public PointList(int initialCapacity) {
+        lats = new double[Math.max(initialCapacity, 1)];
+        lngs = new double[Math.max(initialCapacity, 1)];
+    }
+
+    public void ensureCapacity(int capacity) {
+        if (capacity > lats.length) {
+            int newCapacity = Math.max(capacity, lats.length * 2);
+            lats = Arrays.copyOf(lats, newCapacity);
+            lngs = Arrays.copyOf(lngs, newCapacity);
+        }
+    }
+
+    public void add(double lat, double lng) {
+        if (size == lats.length) {
+            ensureCapacity(size + 1);
+        }
+        lats[size] = lat;
+        lngs[size] = lng;
+        size++;
+    }
+
+    public double lat(int index) {
+        return lats[index];
+    }
+
+    public double lng(int index) {
+        return lngs[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public void removeLast() {
+        if (size > 0) {
+            size--;
+        }
+    }
+
+    public int capacity() {
+        return lats.length;
+    }
+
+    // Vues sans copie sur les size premières valeurs ; invalidées par le prochain agrandissement
+    public DoubleBuffer latBuffer() {
+        return DoubleBuffer.wrap(lats, 0, size).slice();
+    }
+
+    public DoubleBuffer lngBuffer() {
+        return DoubleBuffer.wrap(lngs, 0, size).slice();
+    }
+
+    public double[] toLatArray() {
+        return Arrays.copyOf(lats, size);
+    }
+
+    public double[] toLngArray() {
+        return Arrays.copyOf(lngs, size);
+    }
+}
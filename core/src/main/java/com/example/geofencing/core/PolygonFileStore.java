@@ -0,0 +1,520 @@
+package com.example.geofencing.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Stockage binaire des polygones dans un journal en ajout seul.
+//
+// Fichier : en-tête (MAGIC, VERSION) puis enregistrements [longueur int][type byte][id int][données].
+// Les coordonnées sont en virgule fixe (1e-7 degré, environ 1 cm) et chaque sommet est codé en varint
+// zigzag comme différence avec le précédent : un sommet ajouté coûte quelques octets au lieu de réécrire
+// tout le polygone. À l'ouverture, seul l'index des enregistrements est construit (lecture par mmap) ;
+// les sommets d'un polygone ne sont décodés qu'à la demande, par load().
+// Les zones exclues (trous) d'un champ sont dans un enregistrement HOLES à part, [nombre d'anneaux] puis chaque
+// anneau [nombre de sommets][deltas], écrit après le REPLACE du contour ; un REPLACE seul efface les trous.
+public final class PolygonFileStore implements Closeable {
+
+    private static final int MAGIC = 0x47465043; // "GFPC"
+    // Version 1 : sans enregistrement HOLES, toujours lisible
+    private static final int VERSION = 2;
+    private static final int HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 9; // longueur + type + id
+
+    private static final byte TYPE_REPLACE = 1;
+    private static final byte TYPE_APPEND = 2;
+    private static final byte TYPE_DELETE = 3;
+    private static final byte TYPE_HOLES = 4;
+
+    private static final double FIXED_POINT_SCALE = 1e7;
+    // Compacter quand le journal fait plus de COMPACTION_RATIO fois les données vivantes
+    private static final int COMPACTION_RATIO = 4;
+    private static final long MIN_COMPACTION_SIZE = 64 * 1024;
+
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.getInstance().histogram("store.load");
+    private static final LatencyHistogram SAVE_LATENCY = Metrics.getInstance().histogram("store.save");
+    private static final LatencyHistogram SYNC_LATENCY = Metrics.getInstance().histogram("store.sync");
+    private static final LatencyHistogram COMPACT_LATENCY = Metrics.getInstance().histogram("store.compact");
+
+    // Enregistrements d'un polygone depuis son dernier REPLACE, et dernier sommet pour les prochains deltas
+    // (décodé seulement au premier ajout qui en a besoin)
+    private static final class Entry {
+        long[] offsets = new long[4];
+        int recordCount;
+        int vertexCount;
+        boolean lastKnown;
+        int lastLat;
+        int lastLng;
+        long bytes;
+        // Enregistrement HOLES en vigueur, -1 sans trou
+        long holesOffset = -1;
+        long holesLength;
+
+        void addRecord(long offset, long length) {
+            if (recordCount == offsets.length) {
+                offsets = Arrays.copyOf(offsets, recordCount * 2);
+            }
+            offsets[recordCount++] = offset;
+            bytes += length;
+        }
+    }
+
+    private final File file;
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long size;
+    private int fileVersion;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private long liveBytes;
+    private ByteBuffer writeBuffer = ByteBuffer.allocate(4096).order(ByteOrder.LITTLE_ENDIAN);
+
+    private PolygonFileStore(File file) {
+        this.file = file;
+    }
+
+    public static PolygonFileStore open(File file) throws IOException {
+        PolygonFileStore store = new PolygonFileStore(file);
+        store.openChannel();
+        store.scan();
+        return store;
+    }
+
+    public synchronized int[] polygonIds() {
+        int[] ids = new int[entries.size()];
+        int i = 0;
+        for (Integer id : entries.keySet()) {
+            ids[i++] = id;
+        }
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    public synchronized boolean contains(int polygonId) {
+        return entries.containsKey(polygonId);
+    }
+
+    public synchronized int vertexCount(int polygonId) {
+        Entry entry = entries.get(polygonId);
+        return entry == null ? 0 : entry.vertexCount;
+    }
+
+    public synchronized long fileSize() {
+        return size;
+    }
+
+    // Décode les sommets du polygone dans out ; retourne false s'il n'existe pas
+    public synchronized boolean load(int polygonId, PointList out) throws IOException {
+        Entry entry = entries.get(polygonId);
+        if (entry == null) {
+            return false;
+        }
+        long start = System.nanoTime();
+        ensureMapped();
+        out.ensureCapacity(out.size() + entry.vertexCount);
+        ByteBuffer record = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int lat = 0;
+        int lng = 0;
+        for (int r = 0; r < entry.recordCount; r++) {
+            record.position((int) entry.offsets[r] + RECORD_HEADER_SIZE);
+            int count = readVarint(record);
+            for (int i = 0; i < count; i++) {
+                lat += zigzagDecode(readVarint(record));
+                lng += zigzagDecode(readVarint(record));
+                out.add(lat / FIXED_POINT_SCALE, lng / FIXED_POINT_SCALE);
+            }
+        }
+        LOAD_LATENCY.recordSince(start);
+        return true;
+    }
+
+    // Zones exclues du polygone, ou null s'il n'en a pas (ou n'existe pas)
+    public synchronized MultiPolygon loadHoles(int polygonId) throws IOException {
+        Entry entry = entries.get(polygonId);
+        if (entry == null || entry.holesOffset < 0) {
+            return null;
+        }
+        ensureMapped();
+        ByteBuffer record = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        record.position((int) entry.holesOffset + RECORD_HEADER_SIZE);
+        MultiPolygon.Builder holes = new MultiPolygon.Builder();
+        int ringCount = readVarint(record);
+        int lat = 0;
+        int lng = 0;
+        for (int r = 0; r < ringCount; r++) {
+            int count = readVarint(record);
+            double[] lats = new double[count];
+            double[] lngs = new double[count];
+            for (int i = 0; i < count; i++) {
+                lat += zigzagDecode(readVarint(record));
+                lng += zigzagDecode(readVarint(record));
+                lats[i] = lat / FIXED_POINT_SCALE;
+                lngs[i] = lng / FIXED_POINT_SCALE;
+            }
+            holes.addOuter(lats, lngs, count);
+        }
+        return holes.build();
+    }
+
+    // Boîte englobante du polygone dans out (sud, ouest, nord, est), sans allouer ses sommets ;
+    // retourne false s'il n'existe pas ou n'a aucun sommet
+    public synchronized boolean bounds(int polygonId, double[] out) throws IOException {
+        Entry entry = entries.get(polygonId);
+        if (entry == null || entry.vertexCount == 0) {
+            return false;
+        }
+        ensureMapped();
+        ByteBuffer record = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int lat = 0;
+        int lng = 0;
+        int south = Integer.MAX_VALUE, west = Integer.MAX_VALUE;
+        int north = Integer.MIN_VALUE, east = Integer.MIN_VALUE;
+        for (int r = 0; r < entry.recordCount; r++) {
+            record.position((int) entry.offsets[r] + RECORD_HEADER_SIZE);
+            int count = readVarint(record);
+            for (int i = 0; i < count; i++) {
+                lat += zigzagDecode(readVarint(record));
+                lng += zigzagDecode(readVarint(record));
+                south = Math.min(south, lat);
+                north = Math.max(north, lat);
+                west = Math.min(west, lng);
+                east = Math.max(east, lng);
+            }
+        }
+        // Le dernier sommet est décodé au passage : les prochains ajouts n'auront pas à le rechercher
+        entry.lastLat = lat;
+        entry.lastLng = lng;
+        entry.lastKnown = true;
+        out[0] = south / FIXED_POINT_SCALE;
+        out[1] = west / FIXED_POINT_SCALE;
+        out[2] = north / FIXED_POINT_SCALE;
+        out[3] = east / FIXED_POINT_SCALE;
+        return true;
+    }
+
+    // Remplace tous les sommets du polygone (le crée s'il n'existe pas) ; ses trous sont effacés
+    public synchronized void replace(int polygonId, double[] lats, double[] lngs, int count) throws IOException {
+        replace(polygonId, lats, lngs, count, null);
+    }
+
+    // Remplace le contour et les zones exclues (holes, une parcelle par trou, ou null) du polygone
+    public synchronized void replace(int polygonId, double[] lats, double[] lngs, int count, MultiPolygon holes) throws IOException {
+        long start = System.nanoTime();
+        Entry previous = entries.remove(polygonId);
+        if (previous != null) {
+            liveBytes -= previous.bytes;
+        }
+        Entry entry = new Entry();
+        entries.put(polygonId, entry);
+        writeVertices(TYPE_REPLACE, polygonId, entry, lats, lngs, count);
+        if (holes != null && holes.ringCount() > 0) {
+            writeHoles(polygonId, entry, holes);
+        }
+        SAVE_LATENCY.recordSince(start);
+        maybeCompact();
+    }
+
+    // Ajoute un sommet à la fin du polygone (le crée s'il n'existe pas)
+    public synchronized void append(int polygonId, double lat, double lng) throws IOException {
+        Entry entry = entries.get(polygonId);
+        if (entry == null) {
+            replace(polygonId, new double[]{lat}, new double[]{lng}, 1);
+            return;
+        }
+        long start = System.nanoTime();
+        if (!entry.lastKnown) {
+            decodeLastVertex(entry);
+        }
+        writeVertices(TYPE_APPEND, polygonId, entry, new double[]{lat}, new double[]{lng}, 1);
+        SAVE_LATENCY.recordSince(start);
+    }
+
+    public synchronized boolean delete(int polygonId) throws IOException {
+        Entry entry = entries.remove(polygonId);
+        if (entry == null) {
+            return false;
+        }
+        liveBytes -= entry.bytes;
+        beginRecord(TYPE_DELETE, polygonId);
+        endRecord();
+        maybeCompact();
+        return true;
+    }
+
+    // Force l'écriture sur disque des enregistrements déjà ajoutés
+    public synchronized void sync() throws IOException {
+        long start = System.nanoTime();
+        channel.force(false);
+        SYNC_LATENCY.recordSince(start);
+    }
+
+    // Réécrit le journal avec un seul enregistrement REPLACE par polygone vivant
+    public synchronized void compact() throws IOException {
+        long start = System.nanoTime();
+        File tmp = new File(file.getPath() + ".tmp");
+        int[] ids = polygonIds();
+        PointList points = new PointList();
+        if (tmp.exists() && !tmp.delete()) {
+            throw new IOException("Cannot delete " + tmp);
+        }
+        try (PolygonFileStore compacted = open(tmp)) {
+            for (int id : ids) {
+                points.clear();
+                load(id, points);
+                compacted.replace(id, points.toLatArray(), points.toLngArray(), points.size(), loadHoles(id));
+            }
+            compacted.sync();
+        }
+        closeChannel();
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Cannot replace " + file + " with " + tmp);
+        }
+        entries.clear();
+        openChannel();
+        scan();
+        COMPACT_LATENCY.recordSince(start);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeChannel();
+    }
+
+    private void writeVertices(byte type, int polygonId, Entry entry, double[] lats, double[] lngs, int count) throws IOException {
+        beginRecord(type, polygonId);
+        ensureWriteCapacity(5 + count * 10);
+        writeVarint(count);
+        int lastLat = type == TYPE_APPEND ? entry.lastLat : 0;
+        int lastLng = type == TYPE_APPEND ? entry.lastLng : 0;
+        for (int i = 0; i < count; i++) {
+            int lat = (int) Math.round(lats[i] * FIXED_POINT_SCALE);
+            int lng = (int) Math.round(lngs[i] * FIXED_POINT_SCALE);
+            writeVarint(zigzagEncode(lat - lastLat));
+            writeVarint(zigzagEncode(lng - lastLng));
+            lastLat = lat;
+            lastLng = lng;
+        }
+        long offset = size;
+        long length = endRecord();
+        entry.addRecord(offset, length);
+        entry.vertexCount += count;
+        entry.lastKnown = true;
+        entry.lastLat = lastLat;
+        entry.lastLng = lastLng;
+        liveBytes += length;
+    }
+
+    private void writeHoles(int polygonId, Entry entry, MultiPolygon holes) throws IOException {
+        if (fileVersion < VERSION) {
+            // Un lecteur de la version 1 prendrait l'enregistrement pour des sommets
+            writeHeader();
+        }
+        beginRecord(TYPE_HOLES, polygonId);
+        ensureWriteCapacity(5 + holes.ringCount() * 5 + holes.vertexCount() * 10);
+        writeVarint(holes.ringCount());
+        int lastLat = 0;
+        int lastLng = 0;
+        for (int r = 0; r < holes.ringCount(); r++) {
+            writeVarint(holes.ringVertexCount(r));
+            for (int i = 0; i < holes.ringVertexCount(r); i++) {
+                int lat = (int) Math.round(holes.lat(r, i) * FIXED_POINT_SCALE);
+                int lng = (int) Math.round(holes.lng(r, i) * FIXED_POINT_SCALE);
+                writeVarint(zigzagEncode(lat - lastLat));
+                writeVarint(zigzagEncode(lng - lastLng));
+                lastLat = lat;
+                lastLng = lng;
+            }
+        }
+        long offset = size;
+        long length = endRecord();
+        entry.holesOffset = offset;
+        entry.holesLength = length;
+        entry.bytes += length;
+        liveBytes += length;
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+        fileVersion = VERSION;
+    }
+
+    private void beginRecord(byte type, int polygonId) {
+        writeBuffer.clear();
+        writeBuffer.putInt(0); // longueur, complétée par endRecord()
+        writeBuffer.put(type);
+        writeBuffer.putInt(polygonId);
+    }
+
+    private long endRecord() throws IOException {
+        int length = writeBuffer.position();
+        writeBuffer.putInt(0, length);
+        writeBuffer.flip();
+        long position = size;
+        while (writeBuffer.hasRemaining()) {
+            position += channel.write(writeBuffer, position);
+        }
+        size = position;
+        return length;
+    }
+
+    private void scan() throws IOException {
+        if (size == 0) {
+            writeHeader();
+            size = HEADER_SIZE;
+            liveBytes = 0;
+            return;
+        }
+        ensureMapped();
+        ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (size < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) < 1 || buffer.getInt(4) > VERSION) {
+            throw new IOException("Not a polygon store: " + file);
+        }
+        fileVersion = buffer.getInt(4);
+        liveBytes = 0;
+        long offset = HEADER_SIZE;
+        while (offset + RECORD_HEADER_SIZE <= size) {
+            buffer.position((int) offset);
+            int length = buffer.getInt();
+            byte type = buffer.get();
+            int polygonId = buffer.getInt();
+            if (length < RECORD_HEADER_SIZE || offset + length > size) {
+                break; // Enregistrement tronqué par un arrêt brutal : on l'ignore
+            }
+            if (type == TYPE_DELETE) {
+                Entry removed = entries.remove(polygonId);
+                if (removed != null) {
+                    liveBytes -= removed.bytes;
+                }
+            } else if (type == TYPE_HOLES) {
+                Entry entry = entries.get(polygonId);
+                if (entry != null) {
+                    if (entry.holesOffset >= 0) {
+                        entry.bytes -= entry.holesLength;
+                        liveBytes -= entry.holesLength;
+                    }
+                    entry.holesOffset = offset;
+                    entry.holesLength = length;
+                    entry.bytes += length;
+                    liveBytes += length;
+                }
+            } else {
+                Entry entry = entries.get(polygonId);
+                if (type == TYPE_REPLACE || entry == null) {
+                    if (entry != null) {
+                        liveBytes -= entry.bytes;
+                    }
+                    entry = new Entry();
+                    entries.put(polygonId, entry);
+                }
+                // Seul le nombre de sommets est lu : les coordonnées restent dans le fichier jusqu'à load()
+                entry.addRecord(offset, length);
+                entry.vertexCount += readVarint(buffer);
+                liveBytes += length;
+            }
+            offset += length;
+        }
+        if (offset < size) {
+            channel.truncate(offset);
+            size = offset;
+            mapped = null;
+        }
+    }
+
+    private void decodeLastVertex(Entry entry) throws IOException {
+        ensureMapped();
+        ByteBuffer record = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int lat = 0;
+        int lng = 0;
+        for (int r = 0; r < entry.recordCount; r++) {
+            record.position((int) entry.offsets[r] + RECORD_HEADER_SIZE);
+            int count = readVarint(record);
+            for (int i = 0; i < count; i++) {
+                lat += zigzagDecode(readVarint(record));
+                lng += zigzagDecode(readVarint(record));
+            }
+        }
+        entry.lastLat = lat;
+        entry.lastLng = lng;
+        entry.lastKnown = true;
+    }
+
+    private void maybeCompact() throws IOException {
+        if (size > MIN_COMPACTION_SIZE && size > COMPACTION_RATIO * (liveBytes + HEADER_SIZE)) {
+            compact();
+        }
+    }
+
+    private void openChannel() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+        size = channel.size();
+        mapped = null;
+    }
+
+    private void closeChannel() throws IOException {
+        mapped = null;
+        if (channel != null) {
+            channel.close();
+            raf.close();
+            channel = null;
+            raf = null;
+        }
+    }
+
+    // Le mapping est refait paresseusement quand le fichier a grandi depuis la dernière lecture
+    private void ensureMapped() throws IOException {
+        if (mapped == null || mapped.capacity() < size) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+    }
+
+    private void ensureWriteCapacity(int extra) {
+        if (writeBuffer.remaining() < extra) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(writeBuffer.capacity() * 2, writeBuffer.position() + extra))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            writeBuffer.flip();
+            larger.put(writeBuffer);
+            writeBuffer = larger;
+        }
+    }
+
+    private void writeVarint(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeBuffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        writeBuffer.put((byte) value);
+    }
+
+    private static int readVarint(ByteBuffer buffer) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int zigzagEncode(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int zigzagDecode(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Pyramide de niveaux de détail d'un contour : niveau 0 = contour d'origine, puis des simplifications
+// de Douglas-Peucker à tolérance doublée à chaque niveau (0,5 m, 1 m, 2 m...).
+// Sert au rendu (niveau choisi selon les mètres par pixel) et de filtre rapide pour le containment.
+public final class PolygonLod {
+
+    private static final double BASE_TOLERANCE_METERS = 0.5;
+    // Un niveau n'est gardé que s'il retire au moins un quart des sommets du précédent
+    private static final double MIN_REDUCTION = 0.75;
+    private static final int MIN_VERTICES = 4;
+    // Nombre de sommets visé pour le niveau servant de filtre de containment
+    private static final int FILTER_VERTICES = 64;
+
+    private final LocalProjection projection;
+    private final double[] tolerances;
+    private final double[][] levelLats;
+    private final double[][] levelLngs;
+
+    // Niveau filtre, projeté en mètres
+    private final double filterTolerance;
+    private final double[] filterXs;
+    private final double[] filterYs;
+
+    private PolygonLod(LocalProjection projection, List<Double> tolerances, List<double[]> lats, List<double[]> lngs) {
+        this.projection = projection;
+        int levels = tolerances.size();
+        this.tolerances = new double[levels];
+        this.levelLats = lats.toArray(new double[levels][]);
+        this.levelLngs = lngs.toArray(new double[levels][]);
+        int filter = 0;
+        for (int level = 0; level < levels; level++) {
+            this.tolerances[level] = tolerances.get(level);
+            if (levelLats[filter].length > FILTER_VERTICES) {
+                filter = level;
+            }
+        }
+        filterTolerance = this.tolerances[filter];
+        int n = levelLats[filter].length;
+        filterXs = new double[n];
+        filterYs = new double[n];
+        for (int i = 0; i < n; i++) {
+            filterXs[i] = projection.toX(levelLngs[filter][i]);
+            filterYs[i] = projection.toY(levelLats[filter][i]);
+        }
+    }
+
+    public static PolygonLod build(double[] lats, double[] lngs, int count) {
+        LocalProjection projection = LocalProjection.forPolygon(lats, lngs, count);
+        double diagonal = projection.distance(minOf(lats, count), minOf(lngs, count), maxOf(lats, count), maxOf(lngs, count));
+
+        List<Double> tolerances = new ArrayList<>();
+        List<double[]> levelLats = new ArrayList<>();
+        List<double[]> levelLngs = new ArrayList<>();
+        tolerances.add(0.0);
+        levelLats.add(Arrays.copyOf(lats, count));
+        levelLngs.add(Arrays.copyOf(lngs, count));
+
+        PolygonSimplifier simplifier = new PolygonSimplifier();
+        PointList simplified = new PointList(count);
+        int previous = count;
+        // Chaque niveau est simplifié depuis le contour d'origine : l'erreur reste bornée par sa propre tolérance
+        for (double tolerance = BASE_TOLERANCE_METERS; previous > MIN_VERTICES && tolerance < diagonal; tolerance *= 2) {
+            int n = simplifier.simplify(lats, lngs, count, projection, tolerance, simplified);
+            if (n <= previous * MIN_REDUCTION) {
+                tolerances.add(tolerance);
+                levelLats.add(simplified.toLatArray());
+                levelLngs.add(simplified.toLngArray());
+                previous = n;
+            }
+        }
+        return new PolygonLod(projection, tolerances, levelLats, levelLngs);
+    }
+
+    public int levelCount() {
+        return tolerances.length;
+    }
+
+    // Distance maximale entre le contour d'origine et celui du niveau, en mètres
+    public double toleranceMeters(int level) {
+        return tolerances[level];
+    }
+
+    public int vertexCount(int level) {
+        return levelLats[level].length;
+    }
+
+    public double lat(int level, int index) {
+        return levelLats[level][index];
+    }
+
+    public double lng(int level, int index) {
+        return levelLngs[level][index];
+    }
+
+    // Niveau le plus simple dont l'erreur reste sous un demi-pixel
+    public int levelFor(double metersPerPixel) {
+        int level = 0;
+        while (level + 1 < tolerances.length && tolerances[level + 1] <= metersPerPixel / 2) {
+            level++;
+        }
+        return level;
+    }
+
+    // Filtre conservateur : 1 dedans, 0 dehors, -1 à moins de la tolérance du contour simplifié (test exact nécessaire).
+    // Le contour d'origine reste à moins de la tolérance du contour simplifié, un point plus éloigné
+    // est donc du même côté des deux contours.
+    int classify(double lat, double lng) {
+        double x = projection.toX(lng);
+        double y = projection.toY(lat);
+        boolean inside = false;
+        double best = Double.POSITIVE_INFINITY;
+        int n = filterXs.length;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double ax = filterXs[j], ay = filterYs[j];
+            double bx = filterXs[i], by = filterYs[i];
+            if ((ay <= y && y < by) || (by <= y && y < ay)) {
+                if (x < (bx - ax) * (y - ay) / (by - ay) + ax) {
+                    inside = !inside;
+                }
+            }
+            double dx = bx - ax, dy = by - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared > 0 ? ((x - ax) * dx + (y - ay) * dy) / lengthSquared : 0;
+            t = Math.max(0, Math.min(1, t));
+            double ex = ax + t * dx - x, ey = ay + t * dy - y;
+            best = Math.min(best, ex * ex + ey * ey);
+        }
+        // Marge pour les arrondis de la projection
+        double margin = filterTolerance + 1e-6;
+        if (best <= margin * margin) {
+            return -1;
+        }
+        return inside ? 1 : 0;
+    }
+
+    private static double minOf(double[] values, int count) {
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            min = Math.min(min, values[i]);
+        }
+        return min;
+    }
+
+    private static double maxOf(double[] values, int count) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+}
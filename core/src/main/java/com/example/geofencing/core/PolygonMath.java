@@ -0,0 +1,44 @@
+package com.example.geofencing.core;
+
+// Fonctions géométriques de base sur des polygones décrits par des tableaux de latitudes et longitudes
+public final class PolygonMath {
+
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private PolygonMath() {
+    }
+
+    // Ray casting sur un anneau simple (le dernier sommet est relié au premier)
+    public static boolean containsPoint(double[] lats, double[] lngs, double lat, double lng) {
+        return containsPoint(lats, lngs, lats.length, lat, lng);
+    }
+
+    public static boolean containsPoint(double[] lats, double[] lngs, int count, double lat, double lng) {
+        boolean inside = false;
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            if (((lats[i] <= lat && lat < lats[j]) || (lats[j] <= lat && lat < lats[i]))
+                    && (lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i])) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // Distance euclidienne directement en degrés, ni en mètres ni isotrope : référence de l'ancien calcul des
+    // points de pulvérisation. Pour des mètres, voir GeoDistance
+    public static double degreeDistance(double lat1, double lng1, double lat2, double lng2) {
+        double dx = lng2 - lng1;
+        double dy = lat2 - lat1;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Distance orthodromique en mètres (formule de haversine)
+    public static double haversineMeters(double lat1, double lng1, double lat2, double lng2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double sinDPhi = Math.sin((phi2 - phi1) * 0.5);
+        double sinDLambda = Math.sin(Math.toRadians(lng2 - lng1) * 0.5);
+        double a = sinDPhi * sinDPhi + Math.cos(phi1) * Math.cos(phi2) * sinDLambda * sinDLambda;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.geofencing.core;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Cache mémoire des polygones partagé par tout le processus (carte, récepteur de géofences...).
+// Chaque polygone est stocké sous forme de PreparedPolygon versionné : une modification remplace
+// uniquement l'entrée concernée et incrémente la version du dépôt, les autres restent valides.
+// Les lecteurs ne font ni entrée-sortie ni parsing : tout est prétraité au moment du put().
+public final class PolygonRepository {
+
+    private static final PolygonRepository INSTANCE = new PolygonRepository();
+
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.getInstance().histogram("repository.load");
+
+    public interface Visitor {
+        // Retourne false pour arrêter la recherche
+        boolean visit(PreparedPolygon polygon);
+    }
+
+    private final ConcurrentHashMap<Integer, PreparedPolygon> polygons = new ConcurrentHashMap<>();
+    private final PolygonStore index = new PolygonStore();
+    private final AtomicLong version = new AtomicLong();
+    private final CountDownLatch loadedLatch = new CountDownLatch(1);
+
+    PolygonRepository() {
+    }
+
+    public static PolygonRepository getInstance() {
+        return INSTANCE;
+    }
+
+    // Version globale, incrémentée à chaque modification
+    public long version() {
+        return version.get();
+    }
+
+    public boolean isLoaded() {
+        return loadedLatch.getCount() == 0;
+    }
+
+    // Attend la fin du chargement (loadFrom ou StagedPolygonLoader) ; retourne false à l'expiration du délai
+    public boolean awaitLoaded(long timeout, TimeUnit unit) throws InterruptedException {
+        return loadedLatch.await(timeout, unit);
+    }
+
+    void markLoaded() {
+        loadedLatch.countDown();
+    }
+
+    public int size() {
+        return polygons.size();
+    }
+
+    // Charge tous les polygones du fichier (au démarrage du processus, hors thread principal)
+    public void loadFrom(PolygonFileStore store) throws IOException {
+        long start = System.nanoTime();
+        PointList points = new PointList();
+        for (int id : store.polygonIds()) {
+            points.clear();
+            if (store.load(id, points)) {
+                PreparedPolygon polygon = put(id, points.toLatArray(), points.toLngArray(), store.loadHoles(id), null);
+                polygon.prepareContainment();
+                if (polygon.vertexCount() >= 3) {
+                    polygon.lod();
+                }
+            }
+        }
+        markLoaded();
+        LOAD_LATENCY.recordSince(start);
+    }
+
+    public PreparedPolygon get(int polygonId) {
+        return polygons.get(polygonId);
+    }
+
+    // Remplace le polygone ; sprayPlan peut fournir un plan déjà calculé (sinon calculé à la première demande)
+    public PreparedPolygon put(int polygonId, double[] lats, double[] lngs, PointList sprayPlan) {
+        return put(polygonId, lats, lngs, null, sprayPlan);
+    }
+
+    // holes : zones exclues du champ, ou null
+    public PreparedPolygon put(int polygonId, double[] lats, double[] lngs, MultiPolygon holes, PointList sprayPlan) {
+        synchronized (index) {
+            PreparedPolygon polygon = new PreparedPolygon(polygonId, version.incrementAndGet(), lats, lngs, holes, sprayPlan);
+            polygons.put(polygonId, polygon);
+            index.put(polygonId, lats, lngs);
+            return polygon;
+        }
+    }
+
+    public boolean remove(int polygonId) {
+        synchronized (index) {
+            if (polygons.remove(polygonId) == null) {
+                return false;
+            }
+            index.remove(polygonId);
+            version.incrementAndGet();
+            return true;
+        }
+    }
+
+    // Premier polygone contenant le point, ou null
+    public PreparedPolygon findContaining(double lat, double lng) {
+        final PreparedPolygon[] found = {null};
+        queryBounds(lat, lng, lat, lng, polygon -> {
+            if (polygon.contains(lat, lng)) {
+                found[0] = polygon;
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    // Polygones dont la boîte englobante intersecte la zone
+    public void queryBounds(double south, double west, double north, double east, Visitor visitor) {
+        index.queryBounds(south, west, north, east, (polygonId, lats, lngs) -> {
+            PreparedPolygon polygon = polygons.get(polygonId);
+            return polygon == null || visitor.visit(polygon);
+        });
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+
+// Simplification de Douglas-Peucker d'un contour fermé, en mètres dans une projection locale.
+// Chaque sommet supprimé est à moins de la tolérance du contour simplifié, dont les sommets
+// sont un sous-ensemble des sommets d'origine. Itératif (pile d'indices) pour les contours
+// de plusieurs dizaines de milliers de sommets. Non thread-safe : une instance par thread.
+public final class PolygonSimplifier {
+
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private boolean[] kept = new boolean[0];
+    private int[] stack = new int[0];
+
+    // Écrit les sommets retenus dans out (vidé au préalable) ; retourne leur nombre
+    public int simplify(double[] lats, double[] lngs, int count, LocalProjection projection, double toleranceMeters, PointList out) {
+        out.clear();
+        if (count <= 3 || toleranceMeters <= 0) {
+            out.ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                out.add(lats[i], lngs[i]);
+            }
+            return count;
+        }
+        project(lats, lngs, count, projection);
+
+        // Contour fermé : deux chaînes entre le sommet 0 et le sommet le plus éloigné de lui
+        int far = 0;
+        double farDistance = -1;
+        for (int i = 1; i < count; i++) {
+            double dx = xs[i] - xs[0], dy = ys[i] - ys[0];
+            double d = dx * dx + dy * dy;
+            if (d > farDistance) {
+                farDistance = d;
+                far = i;
+            }
+        }
+        kept[0] = true;
+        kept[far] = true;
+        // L'indice count représente le sommet 0 en fin de seconde chaîne
+        simplifyChain(0, far, toleranceMeters * toleranceMeters, count);
+        simplifyChain(far, count, toleranceMeters * toleranceMeters, count);
+
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (kept[i]) {
+                n++;
+            }
+        }
+        if (n < 3) {
+            // Contour quasi plat : garder le sommet le plus éloigné de la corde pour rester un polygone
+            kept[farthestFromChord(0, far, count)] = true;
+            n++;
+        }
+        out.ensureCapacity(n);
+        for (int i = 0; i < count; i++) {
+            if (kept[i]) {
+                out.add(lats[i], lngs[i]);
+            }
+        }
+        return out.size();
+    }
+
+    private void project(double[] lats, double[] lngs, int count, LocalProjection projection) {
+        if (xs.length < count + 1) {
+            int capacity = Math.max(count + 1, xs.length * 2);
+            xs = new double[capacity];
+            ys = new double[capacity];
+            kept = new boolean[capacity];
+            stack = new int[2 * capacity + 4];
+        }
+        for (int i = 0; i < count; i++) {
+            xs[i] = projection.toX(lngs[i]);
+            ys[i] = projection.toY(lats[i]);
+        }
+        xs[count] = xs[0];
+        ys[count] = ys[0];
+        Arrays.fill(kept, 0, count + 1, false);
+    }
+
+    private void simplifyChain(int first, int last, double toleranceSquared, int count) {
+        int top = 0;
+        stack[top++] = first;
+        stack[top++] = last;
+        while (top > 0) {
+            int b = stack[--top];
+            int a = stack[--top];
+            if (b - a < 2) {
+                continue;
+            }
+            int worst = -1;
+            double worstDistance = toleranceSquared;
+            for (int i = a + 1; i < b; i++) {
+                double d = segmentDistanceSquared(i, a, b);
+                if (d > worstDistance) {
+                    worstDistance = d;
+                    worst = i;
+                }
+            }
+            if (worst >= 0) {
+                kept[worst == count ? 0 : worst] = true;
+                stack[top++] = a;
+                stack[top++] = worst;
+                stack[top++] = worst;
+                stack[top++] = b;
+            }
+        }
+    }
+
+    private int farthestFromChord(int a, int b, int count) {
+        int best = a == 0 ? 1 : 0;
+        double bestDistance = -1;
+        for (int i = 0; i < count; i++) {
+            if (i != a && i != b) {
+                double d = segmentDistanceSquared(i, a, b);
+                if (d > bestDistance) {
+                    bestDistance = d;
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
+    private double segmentDistanceSquared(int i, int a, int b) {
+        double ax = xs[a], ay = ys[a];
+        double dx = xs[b] - ax, dy = ys[b] - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared > 0 ? ((xs[i] - ax) * dx + (ys[i] - ay) * dy) / lengthSquared : 0;
+        t = Math.max(0, Math.min(1, t));
+        double ex = ax + t * dx - xs[i], ey = ay + t * dy - ys[i];
+        return ex * ex + ey * ey;
+    }
+}
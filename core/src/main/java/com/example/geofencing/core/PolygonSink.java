@@ -0,0 +1,10 @@
+package com.example.geofencing.core;
+
+import java.io.IOException;
+
+// Reçoit les champs lus par un importeur, un par un : contour extérieur et zones exclues (trous).
+// Le contour (sans sommet de fermeture répété) est réutilisé par l'importeur : le copier pour le garder.
+// holes est immuable (une parcelle par trou), null si le champ n'en a pas.
+public interface PolygonSink {
+    void onPolygon(PointList ring, MultiPolygon holes) throws IOException;
+}
@@ -0,0 +1,239 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Stockage des polygones de champs avec un index spatial (R-tree STR) sur leurs boîtes englobantes.
+// Les requêtes ne testent exactement (ray casting) que les polygones candidats renvoyés par l'index.
+// L'arbre est reconstruit par les écritures (thread d'entrée-sortie), jamais par une requête : une lecture depuis
+// le thread principal ne paie ni tri ni compactage. queryBounds appelle le visiteur hors du verrou.
+public class PolygonStore {
+
+    // Deux arbres : le principal, reconstruit (avec compactage) quand les modifications depuis sa construction
+    // dépassent max(64, n / 16), et celui des emplacements ajoutés depuis, reconstruit tous les max(64, √n) ajouts.
+    // Seuls les derniers ajouts, moins de max(64, √n), sont parcourus linéairement. Un chargement en masse garde
+    // ainsi un coût amorti en O(√n / 16 · log n) par écriture au lieu d'un arbre complet tous les √n ajouts.
+    private static final int MIN_REBUILD_THRESHOLD = 64;
+    private static final int REBUILD_FRACTION = 16;
+
+    public interface PolygonVisitor {
+        // Retourne false pour arrêter la recherche
+        boolean visit(int polygonId, double[] lats, double[] lngs);
+    }
+
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+
+    // Un emplacement par version de polygone ; un put() sur un id existant invalide l'ancien emplacement
+    private int[] slotIds = new int[16];
+    private double[][] slotLats = new double[16][];
+    private double[][] slotLngs = new double[16][];
+    private double[] minLat = new double[16];
+    private double[] minLng = new double[16];
+    private double[] maxLat = new double[16];
+    private double[] maxLng = new double[16];
+    private boolean[] dead = new boolean[16];
+    private int slotCount;
+    private int deadCount;
+
+    // L'arbre principal couvre les emplacements [0, indexedCount), le second [indexedCount, recentCount) ;
+    // les suivants sont parcourus linéairement
+    private StrTree tree;
+    private int indexedCount;
+    private StrTree recentTree;
+    private int recentCount;
+
+    public synchronized void put(int polygonId, double[] lats, double[] lngs) {
+        if (lats.length != lngs.length) {
+            throw new IllegalArgumentException("lats and lngs must have the same length");
+        }
+        remove(polygonId);
+        ensureCapacity(slotCount + 1);
+
+        double lat0 = Double.POSITIVE_INFINITY, lng0 = Double.POSITIVE_INFINITY;
+        double lat1 = Double.NEGATIVE_INFINITY, lng1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < lats.length; i++) {
+            lat0 = Math.min(lat0, lats[i]);
+            lng0 = Math.min(lng0, lngs[i]);
+            lat1 = Math.max(lat1, lats[i]);
+            lng1 = Math.max(lng1, lngs[i]);
+        }
+
+        int slot = slotCount++;
+        slotIds[slot] = polygonId;
+        slotLats[slot] = lats;
+        slotLngs[slot] = lngs;
+        minLat[slot] = lat0;
+        minLng[slot] = lng0;
+        maxLat[slot] = lat1;
+        maxLng[slot] = lng1;
+        dead[slot] = false;
+        slotById.put(polygonId, slot);
+        maybeRebuild();
+    }
+
+    public synchronized boolean remove(int polygonId) {
+        Integer slot = slotById.remove(polygonId);
+        if (slot == null) {
+            return false;
+        }
+        dead[slot] = true;
+        slotLats[slot] = null;
+        slotLngs[slot] = null;
+        deadCount++;
+        maybeRebuild();
+        return true;
+    }
+
+    public synchronized int size() {
+        return slotById.size();
+    }
+
+    public synchronized double[] getLats(int polygonId) {
+        Integer slot = slotById.get(polygonId);
+        return slot == null ? null : slotLats[slot];
+    }
+
+    public synchronized double[] getLngs(int polygonId) {
+        Integer slot = slotById.get(polygonId);
+        return slot == null ? null : slotLngs[slot];
+    }
+
+    // Retourne l'id du premier polygone contenant le point, ou -1
+    public synchronized int findContaining(double lat, double lng) {
+        final int[] found = {-1};
+        visitCandidates(lat, lng, lat, lng, slot -> {
+            if (PolygonMath.containsPoint(slotLats[slot], slotLngs[slot], lat, lng)) {
+                found[0] = slotIds[slot];
+                return false;
+            }
+            return true;
+        });
+        return found[0];
+    }
+
+    // Ajoute à out les ids de tous les polygones contenant le point
+    public synchronized void findAllContaining(double lat, double lng, List<Integer> out) {
+        visitCandidates(lat, lng, lat, lng, slot -> {
+            if (PolygonMath.containsPoint(slotLats[slot], slotLngs[slot], lat, lng)) {
+                out.add(slotIds[slot]);
+            }
+            return true;
+        });
+    }
+
+    // Visite les polygones dont la boîte englobante intersecte la zone (par exemple la zone visible de la carte).
+    // Les résultats sont copiés sous le verrou puis visités sans lui : un visiteur lent (carte) ne bloque pas les écritures.
+    public void queryBounds(double south, double west, double north, double east, PolygonVisitor visitor) {
+        Hits hits = new Hits();
+        synchronized (this) {
+            visitCandidates(south, west, north, east, slot -> {
+                hits.add(slotIds[slot], slotLats[slot], slotLngs[slot]);
+                return true;
+            });
+        }
+        for (int i = 0; i < hits.count; i++) {
+            if (!visitor.visit(hits.ids[i], hits.lats[i], hits.lngs[i])) {
+                return;
+            }
+        }
+    }
+
+    private static final class Hits {
+        int[] ids = new int[16];
+        double[][] lats = new double[16][];
+        double[][] lngs = new double[16][];
+        int count;
+
+        void add(int id, double[] polygonLats, double[] polygonLngs) {
+            if (count == ids.length) {
+                ids = Arrays.copyOf(ids, count * 2);
+                lats = Arrays.copyOf(lats, count * 2);
+                lngs = Arrays.copyOf(lngs, count * 2);
+            }
+            ids[count] = id;
+            lats[count] = polygonLats;
+            lngs[count] = polygonLngs;
+            count++;
+        }
+    }
+
+    private void visitCandidates(double south, double west, double north, double east, StrTree.Visitor visitor) {
+        if (tree != null && !tree.query(west, south, east, north, slot -> dead[slot] || visitor.visit(slot))) {
+            return;
+        }
+        if (recentTree != null && !recentTree.query(west, south, east, north, slot -> dead[slot] || visitor.visit(slot))) {
+            return;
+        }
+        for (int slot = recentCount; slot < slotCount; slot++) {
+            if (dead[slot] || !intersects(slot, south, west, north, east)) {
+                continue;
+            }
+            if (!visitor.visit(slot)) {
+                return;
+            }
+        }
+    }
+
+    private boolean intersects(int slot, double south, double west, double north, double east) {
+        return minLat[slot] <= north && maxLat[slot] >= south && minLng[slot] <= east && maxLng[slot] >= west;
+    }
+
+    private void maybeRebuild() {
+        int pending = slotCount - indexedCount + deadCount;
+        if (pending < Math.max(MIN_REBUILD_THRESHOLD, slotById.size() / REBUILD_FRACTION)) {
+            if (slotCount - recentCount >= Math.max(MIN_REBUILD_THRESHOLD, (int) Math.sqrt(slotById.size()))) {
+                recentTree = new StrTree(minLng, minLat, maxLng, maxLat, indexedCount, slotCount);
+                recentCount = slotCount;
+            }
+            return;
+        }
+
+        // Compacter les emplacements vivants avant de reconstruire l'arbre
+        int write = 0;
+        for (int read = 0; read < slotCount; read++) {
+            if (dead[read]) {
+                continue;
+            }
+            if (write != read) {
+                slotIds[write] = slotIds[read];
+                slotLats[write] = slotLats[read];
+                slotLngs[write] = slotLngs[read];
+                minLat[write] = minLat[read];
+                minLng[write] = minLng[read];
+                maxLat[write] = maxLat[read];
+                maxLng[write] = maxLng[read];
+                dead[write] = false;
+                slotById.put(slotIds[write], write);
+            }
+            write++;
+        }
+        for (int i = write; i < slotCount; i++) {
+            slotLats[i] = null;
+            slotLngs[i] = null;
+        }
+        slotCount = write;
+        deadCount = 0;
+
+        tree = new StrTree(minLng, minLat, maxLng, maxLat, 0, slotCount);
+        indexedCount = slotCount;
+        recentTree = null;
+        recentCount = slotCount;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= slotIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, slotIds.length * 2);
+        slotIds = Arrays.copyOf(slotIds, newCapacity);
+        slotLats = Arrays.copyOf(slotLats, newCapacity);
+        slotLngs = Arrays.copyOf(slotLngs, newCapacity);
+        minLat = Arrays.copyOf(minLat, newCapacity);
+        minLng = Arrays.copyOf(minLng, newCapacity);
+        maxLat = Arrays.copyOf(maxLat, newCapacity);
+        maxLng = Arrays.copyOf(maxLng, newCapacity);
+        dead = Arrays.copyOf(dead, newCapacity);
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+
+// Version immuable d'un polygone, prétraitée pour les requêtes répétées :
+// boîte englobante, arêtes précalculées pour le ray casting (pente sans division par requête)
+// plan de pulvérisation, recouvrement par cercles et niveaux de détail calculés une seule fois, à la première demande.
+// Les zones exclues (trous) sont retirées du containment ; le plan de pulvérisation, le recouvrement par cercles
+// et les niveaux de détail suivent le contour extérieur.
+public final class PreparedPolygon {
+
+    // À partir de cette taille, le containment passe d'abord par le filtre du niveau de détail simplifié
+    static final int LOD_FILTER_MIN_VERTICES = 256;
+
+    private static final Metrics.Counter CONTAINS_CALLS = Metrics.getInstance().counter("polygon.contains");
+    private static final LatencyHistogram CONTAINS_LATENCY = Metrics.getInstance().histogram("polygon.contains");
+
+    private final int id;
+    private final long version;
+    private final double[] lats;
+    private final double[] lngs;
+    // Zones exclues, une parcelle par trou ; null s'il n'y en a pas
+    private final MultiPolygon holes;
+    private final double minLat;
+    private final double minLng;
+    private final double maxLat;
+    private final double maxLng;
+
+    // Arête i : du sommet i au sommet (i + 1) % n
+    private final double[] edgeLat0;
+    private final double[] edgeLat1;
+    private final double[] edgeLng0;
+    private final double[] edgeSlope;
+
+    private volatile PointList sprayPlan;
+    private volatile CircleCovering circleCovering;
+    private volatile PolygonLod lod;
+    private volatile MultiPolygon slabs;
+
+    PreparedPolygon(int id, long version, double[] lats, double[] lngs, MultiPolygon holes, PointList sprayPlan) {
+        this.id = id;
+        this.version = version;
+        this.lats = Arrays.copyOf(lats, lats.length);
+        this.lngs = Arrays.copyOf(lngs, lngs.length);
+        this.holes = holes != null && holes.ringCount() > 0 ? holes : null;
+        this.sprayPlan = sprayPlan;
+
+        int n = lats.length;
+        double lat0 = Double.POSITIVE_INFINITY, lng0 = Double.POSITIVE_INFINITY;
+        double lat1 = Double.NEGATIVE_INFINITY, lng1 = Double.NEGATIVE_INFINITY;
+        edgeLat0 = new double[n];
+        edgeLat1 = new double[n];
+        edgeLng0 = new double[n];
+        edgeSlope = new double[n];
+        for (int i = 0; i < n; i++) {
+            int j = i + 1 == n ? 0 : i + 1;
+            lat0 = Math.min(lat0, lats[i]);
+            lng0 = Math.min(lng0, lngs[i]);
+            lat1 = Math.max(lat1, lats[i]);
+            lng1 = Math.max(lng1, lngs[i]);
+            edgeLat0[i] = lats[i];
+            edgeLat1[i] = lats[j];
+            edgeLng0[i] = lngs[i];
+            // Arête horizontale : jamais croisée par le rayon, la pente n'est pas utilisée
+            edgeSlope[i] = lats[j] != lats[i] ? (lngs[j] - lngs[i]) / (lats[j] - lats[i]) : 0;
+        }
+        minLat = lat0;
+        minLng = lng0;
+        maxLat = lat1;
+        maxLng = lng1;
+    }
+
+    public int id() {
+        return id;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public int vertexCount() {
+        return lats.length;
+    }
+
+    public double lat(int index) {
+        return lats[index];
+    }
+
+    public double lng(int index) {
+        return lngs[index];
+    }
+
+    // Copies des sommets
+    public double[] toLatArray() {
+        return Arrays.copyOf(lats, lats.length);
+    }
+
+    public double[] toLngArray() {
+        return Arrays.copyOf(lngs, lngs.length);
+    }
+
+    public MultiPolygon holes() {
+        return holes;
+    }
+
+    public double minLat() {
+        return minLat;
+    }
+
+    public double minLng() {
+        return minLng;
+    }
+
+    public double maxLat() {
+        return maxLat;
+    }
+
+    public double maxLng() {
+        return maxLng;
+    }
+
+    // Une évaluation sur 64 est chronométrée : le compteur seul coûte un incrément atomique
+    public boolean contains(double lat, double lng) {
+        if ((CONTAINS_CALLS.increment() & 63) != 0) {
+            return containsUntimed(lat, lng);
+        }
+        long start = System.nanoTime();
+        boolean inside = containsUntimed(lat, lng);
+        CONTAINS_LATENCY.recordSince(start);
+        return inside;
+    }
+
+    private boolean containsUntimed(double lat, double lng) {
+        if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+            return false;
+        }
+        return outerContains(lat, lng) && (holes == null || !holes.contains(lat, lng));
+    }
+
+    // Les index des grands champs ne sont utilisés que s'ils sont prêts (prepareContainment)
+    private boolean outerContains(double lat, double lng) {
+        PolygonLod levels = lod;
+        if (levels != null && lats.length >= LOD_FILTER_MIN_VERTICES) {
+            int side = levels.classify(lat, lng);
+            if (side >= 0) {
+                return side == 1;
+            }
+        }
+        MultiPolygon index = slabs;
+        if (index != null) {
+            // Près du bord : test exact en O(log n) par la décomposition en bandes
+            return index.contains(lat, lng);
+        }
+        boolean inside = false;
+        for (int i = 0; i < edgeLat0.length; i++) {
+            double a = edgeLat0[i];
+            double b = edgeLat1[i];
+            if (((a <= lat && lat < b) || (b <= lat && lat < a)) && lng < edgeSlope[i] * (lat - a) + edgeLng0[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // Construit, sur le thread appelant, les index du containment des grands champs (niveaux de détail, bandes) :
+    // contains() ne les construit jamais, il passe au lancer de rayon tant qu'ils manquent
+    public void prepareContainment() {
+        if (lats.length >= LOD_FILTER_MIN_VERTICES) {
+            lod();
+            slabs();
+        }
+    }
+
+    // Plan de pulvérisation du contour ; à ne pas modifier
+    public PointList sprayPlan() {
+        PointList plan = sprayPlan;
+        if (plan == null) {
+            synchronized (this) {
+                plan = sprayPlan;
+                if (plan == null) {
+                    plan = new PointList(Math.max(16, lats.length));
+                    new SprayPointGenerator().generate(lats, lngs, lats.length, plan);
+                    sprayPlan = plan;
+                }
+            }
+        }
+        return plan;
+    }
+
+    // Recouvrement par cercles pour l'enregistrement des géofences, gardé pour la dernière tolérance demandée
+    public CircleCovering circleCovering(double toleranceMeters) {
+        CircleCovering covering = circleCovering;
+        if (covering == null || covering.toleranceMeters() != toleranceMeters) {
+            covering = CircleCovering.compute(lats, lngs, lats.length, toleranceMeters);
+            circleCovering = covering;
+        }
+        return covering;
+    }
+
+    // Décomposition en bandes du contour extérieur pour le containment exact des grands polygones
+    public MultiPolygon slabs() {
+        MultiPolygon index = slabs;
+        if (index == null) {
+            synchronized (this) {
+                index = slabs;
+                if (index == null) {
+                    index = MultiPolygon.of(lats, lngs, lats.length);
+                    slabs = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    // Niveaux de détail s'ils sont déjà construits, sinon null : pour le thread principal, qui ne les construit pas
+    public PolygonLod lodIfReady() {
+        return lod;
+    }
+
+    // Niveaux de détail pour le rendu selon le zoom
+    public PolygonLod lod() {
+        PolygonLod levels = lod;
+        if (levels == null) {
+            synchronized (this) {
+                levels = lod;
+                if (levels == null) {
+                    levels = PolygonLod.build(lats, lngs, lats.length);
+                    lod = levels;
+                }
+            }
+        }
+        return levels;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.geofencing.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+
+// Export d'un plan de pulvérisation vers un canal NIO (fichier, socket du contrôleur de pulvérisation),
+// écrit directement depuis les tableaux de coordonnées dans un tampon direct réutilisé, sans liste d'objets.
+//
+// BINARY (little-endian) : en-tête MAGIC, VERSION, puis des trames [nombre de points int][points], chaque point
+// en virgule fixe (lat, lng en int, 1e-7 degré, environ 1 cm) ; une trame vide termine le flux.
+// CSV : ligne d'en-tête "lat,lng" puis une ligne par point, 7 décimales (les mêmes valeurs que le binaire).
+//
+// Les points sont écrits par trames de chunkPoints : un très grand plan, ou un plan produit segment par segment,
+// s'exporte en mémoire constante. Relecture : SprayPlanReader.
+// Une instance n'est pas thread-safe.
+public final class SprayPlanExporter implements Closeable {
+
+    public enum Format {
+        BINARY,
+        CSV
+    }
+
+    static final int MAGIC = 0x50534647; // "GFSP"
+    static final int VERSION = 1;
+    static final double FIXED_POINT_SCALE = 1e7;
+    static final int POINT_BYTES = 8;
+
+    public static final int DEFAULT_CHUNK_POINTS = 4096;
+
+    private static final byte[] CSV_HEADER = {'l', 'a', 't', ',', 'l', 'n', 'g', '\n'};
+    // "-180.0000000,-180.0000000\n"
+    private static final int MAX_CSV_LINE_BYTES = 26;
+
+    private final WritableByteChannel channel;
+    private final Format format;
+    private final int chunkPoints;
+    private final ByteBuffer buffer;
+    // Points de la trame en cours (BINARY) ou du tampon (CSV)
+    private int chunkCount;
+    private long pointCount;
+    private long bytesWritten;
+    private boolean finished;
+
+    private SprayPlanExporter(WritableByteChannel channel, Format format, int chunkPoints) {
+        if (chunkPoints <= 0) {
+            throw new IllegalArgumentException("chunkPoints must be > 0");
+        }
+        this.channel = channel;
+        this.format = format;
+        this.chunkPoints = chunkPoints;
+        int capacity = format == Format.BINARY ? 8 + 4 + chunkPoints * POINT_BYTES : CSV_HEADER.length + chunkPoints * MAX_CSV_LINE_BYTES;
+        this.buffer = ByteBuffer.allocateDirect(capacity).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public static SprayPlanExporter open(WritableByteChannel channel, Format format) {
+        return open(channel, format, DEFAULT_CHUNK_POINTS);
+    }
+
+    public static SprayPlanExporter open(WritableByteChannel channel, Format format, int chunkPoints) {
+        SprayPlanExporter exporter = new SprayPlanExporter(channel, format, chunkPoints);
+        if (format == Format.BINARY) {
+            exporter.buffer.putInt(MAGIC).putInt(VERSION);
+            exporter.buffer.putInt(0); // nombre de points de la première trame, complété par flushChunk()
+        } else {
+            exporter.buffer.put(CSV_HEADER);
+        }
+        return exporter;
+    }
+
+    // Export complet d'un plan ; retourne le nombre d'octets écrits
+    public static long export(PointList points, WritableByteChannel channel, Format format) throws IOException {
+        SprayPlanExporter exporter = open(channel, format);
+        exporter.append(points);
+        exporter.finish();
+        return exporter.bytesWritten();
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    public long pointCount() {
+        return pointCount;
+    }
+
+    // Octets passés au canal jusqu'ici
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    public void append(double lat, double lng) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("export already finished");
+        }
+        int fixedLat = (int) Math.round(lat * FIXED_POINT_SCALE);
+        int fixedLng = (int) Math.round(lng * FIXED_POINT_SCALE);
+        if (format == Format.BINARY) {
+            buffer.putInt(fixedLat).putInt(fixedLng);
+        } else {
+            putFixed(fixedLat);
+            buffer.put((byte) ',');
+            putFixed(fixedLng);
+            buffer.put((byte) '\n');
+        }
+        pointCount++;
+        if (++chunkCount == chunkPoints) {
+            flushChunk(false);
+        }
+    }
+
+    public void append(double[] lats, double[] lngs, int from, int count) throws IOException {
+        for (int i = from; i < from + count; i++) {
+            append(lats[i], lngs[i]);
+        }
+    }
+
+    public void append(PointList points) throws IOException {
+        for (int i = 0; i < points.size(); i++) {
+            append(points.lat(i), points.lng(i));
+        }
+    }
+
+    // Écrit la dernière trame et la fin de flux ; le canal reste ouvert
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (format == Format.BINARY && chunkCount > 0) {
+            flushChunk(false);
+        }
+        flushChunk(true);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+
+    // BINARY : complète le nombre de points de la trame en cours (0 pour la trame de fin), puis réserve
+    // celui de la suivante
+    private void flushChunk(boolean last) throws IOException {
+        if (format == Format.BINARY) {
+            buffer.putInt(buffer.position() - 4 - chunkCount * POINT_BYTES, chunkCount);
+        }
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+        if (format == Format.BINARY && !last) {
+            buffer.putInt(0);
+        }
+        chunkCount = 0;
+    }
+
+    // Valeur en virgule fixe 1e-7 écrite en décimal, sans String.format ni allocation
+    private void putFixed(int value) {
+        long v = value;
+        if (v < 0) {
+            buffer.put((byte) '-');
+            v = -v;
+        }
+        long integer = v / 10000000L;
+        long fraction = v % 10000000L;
+        if (integer >= 100) {
+            buffer.put((byte) ('0' + integer / 100));
+        }
+        if (integer >= 10) {
+            buffer.put((byte) ('0' + integer / 10 % 10));
+        }
+        buffer.put((byte) ('0' + integer % 10));
+        buffer.put((byte) '.');
+        for (long divisor = 1000000L; divisor > 0; divisor /= 10) {
+            buffer.put((byte) ('0' + fraction / divisor % 10));
+        }
+    }
+}
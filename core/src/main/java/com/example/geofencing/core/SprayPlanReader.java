@@ -0,0 +1,106 @@
+package com.example.geofencing.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+// Lecture en flux d'un plan de pulvérisation exporté au format BINARY par SprayPlanExporter :
+// le canal est lu par blocs dans un tampon réutilisé, les points sont ajoutés à un PointList fourni.
+// Une instance n'est pas thread-safe.
+public final class SprayPlanReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    // Points restant à lire dans la trame en cours
+    private int frameRemaining;
+    private long pointCount;
+    private boolean ended;
+
+    private SprayPlanReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer.limit(0);
+    }
+
+    // Vérifie l'en-tête ; IOException si le flux n'est pas un plan exporté
+    public static SprayPlanReader open(ReadableByteChannel channel) throws IOException {
+        SprayPlanReader reader = new SprayPlanReader(channel);
+        reader.require(8);
+        if (reader.buffer.getInt() != SprayPlanExporter.MAGIC) {
+            throw new IOException("Not a spray plan");
+        }
+        int version = reader.buffer.getInt();
+        if (version != SprayPlanExporter.VERSION) {
+            throw new IOException("Unsupported spray plan version " + version);
+        }
+        return reader;
+    }
+
+    public long pointCount() {
+        return pointCount;
+    }
+
+    public boolean isEnded() {
+        return ended;
+    }
+
+    // Ajoute au plus maxPoints points à out ; retourne le nombre de points lus, -1 à la fin du flux
+    public int read(PointList out, int maxPoints) throws IOException {
+        int read = 0;
+        while (read < maxPoints && !ended) {
+            if (frameRemaining == 0) {
+                require(4);
+                frameRemaining = buffer.getInt();
+                if (frameRemaining < 0) {
+                    throw new IOException("Corrupted spray plan frame");
+                }
+                if (frameRemaining == 0) {
+                    ended = true;
+                    break;
+                }
+            }
+            if (buffer.remaining() < SprayPlanExporter.POINT_BYTES) {
+                require(SprayPlanExporter.POINT_BYTES);
+            }
+            // Points disponibles dans le tampon, sans dépasser la trame ni la demande
+            int available = Math.min(buffer.remaining() / SprayPlanExporter.POINT_BYTES, Math.min(frameRemaining, maxPoints - read));
+            out.ensureCapacity(out.size() + available);
+            for (int i = 0; i < available; i++) {
+                double lat = buffer.getInt() / SprayPlanExporter.FIXED_POINT_SCALE;
+                double lng = buffer.getInt() / SprayPlanExporter.FIXED_POINT_SCALE;
+                out.add(lat, lng);
+            }
+            frameRemaining -= available;
+            read += available;
+        }
+        pointCount += read;
+        return read == 0 && ended ? -1 : read;
+    }
+
+    // Lit tout le reste du plan dans out ; retourne le nombre de points lus
+    public long readAll(PointList out) throws IOException {
+        long total = 0;
+        int read;
+        while ((read = read(out, Integer.MAX_VALUE)) >= 0) {
+            total += read;
+        }
+        return total;
+    }
+
+    // Garantit au moins bytes octets lisibles dans le tampon
+    private void require(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Truncated spray plan");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.geofencing.core;
+
+// Génère les points de pulvérisation le long des segments d'un polygone, espacés en mètres
+// dans une projection locale. Les points sont écrits dans un PointList réutilisable : une fois
+// les tableaux dimensionnés, une génération n'alloue plus rien.
+// Une instance n'est pas thread-safe (tableaux de travail partagés).
+public final class SprayPointGenerator {
+
+    public static final double SPRAYING_DIAMETER = 1.5; // Diamètre de pulvérisation en mètres
+    public static final double DISTANCE_BETWEEN_POINTS = 1.45; // Distance entre chaque point de pulvérisation en mètres
+
+    private static final LatencyHistogram GENERATE_LATENCY = Metrics.getInstance().histogram("spray.generate");
+    private static final LatencyHistogram SEGMENT_LATENCY = Metrics.getInstance().histogram("spray.segment");
+
+    private final double distanceBetweenPoints;
+    private int[] pointsPerSegment = new int[16];
+
+    public SprayPointGenerator() {
+        this(DISTANCE_BETWEEN_POINTS);
+    }
+
+    public SprayPointGenerator(double distanceBetweenPoints) {
+        if (!(distanceBetweenPoints > 0)) {
+            throw new IllegalArgumentException("distanceBetweenPoints must be > 0");
+        }
+        this.distanceBetweenPoints = distanceBetweenPoints;
+    }
+
+    public double distanceBetweenPoints() {
+        return distanceBetweenPoints;
+    }
+
+    // Ajoute à out les points de pulvérisation du polygone fermé, retourne le nombre de points ajoutés
+    public int generate(double[] lats, double[] lngs, int count, PointList out) {
+        if (count < 2) {
+            return 0;
+        }
+        return generate(lats, lngs, count, LocalProjection.forPolygon(lats, lngs, count), out);
+    }
+
+    public int generate(double[] lats, double[] lngs, int count, LocalProjection projection, PointList out) {
+        return generate(lats, lngs, count, projection, null, out);
+    }
+
+    // Longueurs de segments mesurées par le moteur de distance donné (haversine ou Vincenty pour
+    // des contours de plusieurs kilomètres, où la projection locale dérive)
+    public int generate(double[] lats, double[] lngs, int count, GeoDistance distance, PointList out) {
+        return generate(lats, lngs, count, null, distance, out);
+    }
+
+    // Un seul des deux est fourni ; la projection seule évite d'allouer un moteur à chaque génération
+    private int generate(double[] lats, double[] lngs, int count, LocalProjection projection, GeoDistance distance, PointList out) {
+        if (count < 2) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        if (pointsPerSegment.length < count) {
+            pointsPerSegment = new int[Math.max(count, pointsPerSegment.length * 2)];
+        }
+
+        // Première passe : nombre de points par segment, pour dimensionner la sortie une seule fois
+        int total = 0;
+        for (int i = 0; i < count; i++) {
+            int next = i + 1 == count ? 0 : i + 1;
+            double length = projection != null
+                    ? projection.distance(lats[i], lngs[i], lats[next], lngs[next])
+                    : distance.meters(lats[i], lngs[i], lats[next], lngs[next]);
+            int numPoints = segmentPointCount(length);
+            pointsPerSegment[i] = numPoints;
+            total += numPoints;
+        }
+        out.ensureCapacity(out.size() + total);
+
+        // Seconde passe : interpolation. Le sommet d'arrivée d'un segment est le premier point du suivant.
+        for (int i = 0; i < count; i++) {
+            int next = i + 1 == count ? 0 : i + 1;
+            writeSegment(lats[i], lngs[i], lats[next], lngs[next], pointsPerSegment[i], out);
+        }
+        GENERATE_LATENCY.recordSince(start);
+        return total;
+    }
+
+    // Points d'un seul segment [from, to[, tels que produits par generate()
+    public int generateSegment(LocalProjection projection, double fromLat, double fromLng, double toLat, double toLng, PointList out) {
+        long start = System.nanoTime();
+        int numPoints = segmentPointCount(projection.distance(fromLat, fromLng, toLat, toLng));
+        out.ensureCapacity(out.size() + numPoints);
+        writeSegment(fromLat, fromLng, toLat, toLng, numPoints, out);
+        SEGMENT_LATENCY.recordSince(start);
+        return numPoints;
+    }
+
+    private int segmentPointCount(double length) {
+        return Math.max(1, (int) Math.ceil(length / distanceBetweenPoints));
+    }
+
+    private static void writeSegment(double fromLat, double fromLng, double toLat, double toLng, int numPoints, PointList out) {
+        double dLat = toLat - fromLat;
+        double dLng = toLng - fromLng;
+        for (int j = 0; j < numPoints; j++) {
+            double t = (double) j / numPoints;
+            out.add(fromLat + t * dLat, fromLng + t * dLng);
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+// Itinéraire de pulvérisation de l'intérieur d'un polygone : passes parallèles en aller-retour (boustrophédon)
+// espacées du diamètre de pulvérisation, points espacés comme ceux de SprayPointGenerator.
+//
+// 1. Recherche de la direction des passes : tous les 5° et selon chaque arête, celle dont le parcours est
+//    le plus court (moins de demi-tours, moins de liaisons entre les parties d'un champ concave).
+// 2. Amélioration 2-opt de l'ordre des passes (chaque passe peut être parcourue dans les deux sens) ;
+//    la recherche du meilleur échange est répartie en fork-join.
+// 3. Points de pulvérisation le long des passes, dans l'ordre retenu.
+//
+// Les calculs se font en mètres dans la projection locale du polygone. Un planificateur sert à un seul
+// calcul à la fois ; cancel() l'interrompt (polygone modifié entre-temps) par une CancellationException.
+public final class SprayRoutePlanner {
+
+    private static final double ANGLE_STEP_DEGREES = 5;
+    // Lignes de recherche du meilleur échange par tâche fork-join
+    private static final int SEQUENTIAL_THRESHOLD = 64;
+
+    public static final class Route {
+        private final PointList points;
+        private final PointList path;
+        private final double sweepAngleDegrees;
+        private final int passCount;
+        private final double initialLengthMeters;
+        private final double lengthMeters;
+        private final int twoOptMoves;
+        private final long computeNanos;
+
+        Route(PointList points, PointList path, double sweepAngleDegrees, int passCount, double initialLengthMeters,
+              double lengthMeters, int twoOptMoves, long computeNanos) {
+            this.points = points;
+            this.path = path;
+            this.sweepAngleDegrees = sweepAngleDegrees;
+            this.passCount = passCount;
+            this.initialLengthMeters = initialLengthMeters;
+            this.lengthMeters = lengthMeters;
+            this.twoOptMoves = twoOptMoves;
+            this.computeNanos = computeNanos;
+        }
+
+        // Points de pulvérisation dans l'ordre de passage
+        public PointList points() {
+            return points;
+        }
+
+        // Début et fin de chaque passe dans l'ordre de passage : le tracé de l'itinéraire
+        public PointList path() {
+            return path;
+        }
+
+        // Direction des passes, en degrés depuis l'est vers le nord
+        public double sweepAngleDegrees() {
+            return sweepAngleDegrees;
+        }
+
+        public int passCount() {
+            return passCount;
+        }
+
+        // Longueur du boustrophédon avant 2-opt
+        public double initialLengthMeters() {
+            return initialLengthMeters;
+        }
+
+        public double lengthMeters() {
+            return lengthMeters;
+        }
+
+        public int twoOptMoves() {
+            return twoOptMoves;
+        }
+
+        public long computeNanos() {
+            return computeNanos;
+        }
+    }
+
+    // Passes orientées : (x0, y0) -> (x1, y1)
+    private static final class Passes {
+        double[] x0 = new double[64];
+        double[] y0 = new double[64];
+        double[] x1 = new double[64];
+        double[] y1 = new double[64];
+        int size;
+
+        void add(double ax, double ay, double bx, double by) {
+            if (size == x0.length) {
+                x0 = Arrays.copyOf(x0, size * 2);
+                y0 = Arrays.copyOf(y0, size * 2);
+                x1 = Arrays.copyOf(x1, size * 2);
+                y1 = Arrays.copyOf(y1, size * 2);
+            }
+            x0[size] = ax;
+            y0[size] = ay;
+            x1[size] = bx;
+            y1[size] = by;
+            size++;
+        }
+
+        double length(int i) {
+            return Math.hypot(x1[i] - x0[i], y1[i] - y0[i]);
+        }
+
+        // Longueur totale dans l'ordre actuel : passes et liaisons
+        double pathLength() {
+            double length = 0;
+            for (int i = 0; i < size; i++) {
+                length += length(i);
+                if (i > 0) {
+                    length += Math.hypot(x0[i] - x1[i - 1], y0[i] - y1[i - 1]);
+                }
+            }
+            return length;
+        }
+    }
+
+    private final double passSpacing;
+    private final double pointSpacing;
+    private final ForkJoinPool pool;
+    private volatile boolean cancelled;
+
+    public SprayRoutePlanner() {
+        this(SprayPointGenerator.SPRAYING_DIAMETER, SprayPointGenerator.DISTANCE_BETWEEN_POINTS, ForkJoinPool.commonPool());
+    }
+
+    public SprayRoutePlanner(double passSpacing, double pointSpacing, ForkJoinPool pool) {
+        if (!(passSpacing > 0) || !(pointSpacing > 0)) {
+            throw new IllegalArgumentException("spacings must be > 0");
+        }
+        this.passSpacing = passSpacing;
+        this.pointSpacing = pointSpacing;
+        this.pool = pool;
+    }
+
+    // Peut être appelé depuis n'importe quel thread ; plan() lève alors une CancellationException
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public Route plan(double[] lats, double[] lngs, int count) {
+        long start = System.nanoTime();
+        LocalProjection projection = LocalProjection.forPolygon(lats, lngs, count);
+        if (count < 3) {
+            return new Route(new PointList(), new PointList(), 0, 0, 0, 0, 0, System.nanoTime() - start);
+        }
+        double[] xs = new double[count];
+        double[] ys = new double[count];
+        for (int i = 0; i < count; i++) {
+            xs[i] = projection.toX(lngs[i]);
+            ys[i] = projection.toY(lats[i]);
+        }
+
+        // Directions candidates : pas régulier, plus la direction de chaque arête
+        int steps = (int) (180 / ANGLE_STEP_DEGREES);
+        double[] angles = new double[steps + count];
+        for (int i = 0; i < steps; i++) {
+            angles[i] = Math.toRadians(i * ANGLE_STEP_DEGREES);
+        }
+        for (int i = 0, j = count - 1; i < count; j = i++) {
+            double angle = Math.atan2(ys[i] - ys[j], xs[i] - xs[j]);
+            angles[steps + i] = angle < 0 ? angle + Math.PI : angle;
+        }
+        double[] lengths = new double[angles.length];
+        pool.invoke(new SweepSearch(xs, ys, angles, lengths, 0, angles.length));
+        int best = 0;
+        for (int i = 1; i < angles.length; i++) {
+            if (lengths[i] < lengths[best]) {
+                best = i;
+            }
+        }
+
+        Passes passes = sweep(xs, ys, angles[best]);
+        double initialLength = passes.pathLength();
+        int moves = twoOpt(passes);
+        double length = passes.pathLength();
+
+        // Points le long des passes, extrémités comprises
+        PointList points = new PointList();
+        PointList path = new PointList(passes.size * 2);
+        for (int i = 0; i < passes.size; i++) {
+            checkCancelled();
+            double ax = passes.x0[i], ay = passes.y0[i], bx = passes.x1[i], by = passes.y1[i];
+            int n = (int) Math.ceil(passes.length(i) / pointSpacing);
+            points.ensureCapacity(points.size() + n + 1);
+            for (int k = 0; k <= n; k++) {
+                double t = n == 0 ? 0 : (double) k / n;
+                points.add(projection.toLat(ay + t * (by - ay)), projection.toLng(ax + t * (bx - ax)));
+            }
+            path.add(projection.toLat(ay), projection.toLng(ax));
+            path.add(projection.toLat(by), projection.toLng(bx));
+        }
+        double angleDegrees = Math.toDegrees(angles[best]);
+        return new Route(points, path, angleDegrees, passes.size, initialLength, length, moves, System.nanoTime() - start);
+    }
+
+    // Longueur d'un itinéraire de points (mètres), pour comparer avec d'autres ordres, par exemple celui
+    // des points de contour de SprayPointGenerator
+    public static double pathLengthMeters(PointList points) {
+        double length = 0;
+        for (int i = 1; i < points.size(); i++) {
+            length += PolygonMath.haversineMeters(points.lat(i - 1), points.lng(i - 1), points.lat(i), points.lng(i));
+        }
+        return length;
+    }
+
+    private void checkCancelled() {
+        if (cancelled || Thread.currentThread().isInterrupted()) {
+            cancelled = true;
+            throw new CancellationException("route planning cancelled");
+        }
+    }
+
+    // Passes en boustrophédon dans la direction angle : lignes espacées de passSpacing, coupées par le polygone,
+    // raccourcies d'un demi-diamètre à chaque bout pour que la rampe reste dans le champ
+    private Passes sweep(double[] xs, double[] ys, double angle) {
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        int count = xs.length;
+        // (p le long des passes, q en travers)
+        double[] ps = new double[count];
+        double[] qs = new double[count];
+        double minQ = Double.POSITIVE_INFINITY, maxQ = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            ps[i] = xs[i] * cos + ys[i] * sin;
+            qs[i] = -xs[i] * sin + ys[i] * cos;
+            minQ = Math.min(minQ, qs[i]);
+            maxQ = Math.max(maxQ, qs[i]);
+        }
+        double inset = passSpacing / 2;
+        Passes passes = new Passes();
+        double[] crossings = new double[8];
+        boolean forward = true;
+        for (double q = minQ + inset; q < maxQ; q += passSpacing) {
+            int n = 0;
+            for (int i = 0, j = count - 1; i < count; j = i++) {
+                if ((qs[i] > q) != (qs[j] > q)) {
+                    if (n == crossings.length) {
+                        crossings = Arrays.copyOf(crossings, n * 2);
+                    }
+                    crossings[n++] = ps[j] + (q - qs[j]) / (qs[i] - qs[j]) * (ps[i] - ps[j]);
+                }
+            }
+            Arrays.sort(crossings, 0, n);
+            int spans = n / 2;
+            for (int s = 0; s < spans; s++) {
+                // Sens alterné d'une ligne à l'autre, parties d'une même ligne dans le sens de la passe
+                int k = forward ? s : spans - 1 - s;
+                double p0 = crossings[2 * k], p1 = crossings[2 * k + 1];
+                if (p1 - p0 > 2 * inset) {
+                    p0 += inset;
+                    p1 -= inset;
+                } else {
+                    p0 = p1 = (p0 + p1) / 2;
+                }
+                double from = forward ? p0 : p1;
+                double to = forward ? p1 : p0;
+                passes.add(from * cos - q * sin, from * sin + q * cos, to * cos - q * sin, to * sin + q * cos);
+            }
+            if (spans > 0) {
+                forward = !forward;
+            }
+        }
+        return passes;
+    }
+
+    private final class SweepSearch extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] xs;
+        private final double[] ys;
+        private final double[] angles;
+        private final double[] lengths;
+        private final int from;
+        private final int to;
+
+        SweepSearch(double[] xs, double[] ys, double[] angles, double[] lengths, int from, int to) {
+            this.xs = xs;
+            this.ys = ys;
+            this.angles = angles;
+            this.lengths = lengths;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 4) {
+                for (int i = from; i < to; i++) {
+                    checkCancelled();
+                    lengths[i] = sweep(xs, ys, angles[i]).pathLength();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SweepSearch(xs, ys, angles, lengths, from, mid), new SweepSearch(xs, ys, angles, lengths, mid, to));
+        }
+    }
+
+    // 2-opt sur l'ordre des passes : inverser passes[i..j] (ordre et sens) quand cela raccourcit les liaisons.
+    // À chaque tour, le meilleur échange est appliqué ; arrêt quand aucun ne raccourcit plus.
+    private int twoOpt(Passes passes) {
+        int moves = 0;
+        int maxMoves = passes.size * 4;
+        while (moves < maxMoves) {
+            checkCancelled();
+            Move move = pool.invoke(new MoveSearch(passes, 0, passes.size));
+            if (move == null || move.gain <= 1e-9) {
+                break;
+            }
+            reverse(passes, move.i, move.j);
+            moves++;
+        }
+        return moves;
+    }
+
+    // Inverse l'ordre de passes[i..j] ; chaque passe est alors parcourue dans l'autre sens
+    private static void reverse(Passes passes, int i, int j) {
+        for (int a = i, b = j; a < b; a++, b--) {
+            swap(passes.x0, a, b);
+            swap(passes.y0, a, b);
+            swap(passes.x1, a, b);
+            swap(passes.y1, a, b);
+        }
+        for (int k = i; k <= j; k++) {
+            swap2(passes.x0, passes.x1, k);
+            swap2(passes.y0, passes.y1, k);
+        }
+    }
+
+    private static void swap2(double[] a, double[] b, int index) {
+        double tmp = a[index];
+        a[index] = b[index];
+        b[index] = tmp;
+    }
+
+    private static void swap(double[] values, int a, int b) {
+        double tmp = values[a];
+        values[a] = values[b];
+        values[b] = tmp;
+    }
+
+    private static final class Move {
+        final double gain;
+        final int i;
+        final int j;
+
+        Move(double gain, int i, int j) {
+            this.gain = gain;
+            this.i = i;
+            this.j = j;
+        }
+    }
+
+    // Meilleur échange (gain maximal) pour i dans [from, to)
+    private final class MoveSearch extends RecursiveTask<Move> {
+        private static final long serialVersionUID = 1L;
+
+        private final Passes passes;
+        private final int from;
+        private final int to;
+
+        MoveSearch(Passes passes, int from, int to) {
+            this.passes = passes;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Move compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                return search();
+            }
+            int mid = (from + to) >>> 1;
+            MoveSearch right = new MoveSearch(passes, mid, to);
+            right.fork();
+            Move left = new MoveSearch(passes, from, mid).compute();
+            Move other = right.join();
+            return other != null && (left == null || other.gain > left.gain) ? other : left;
+        }
+
+        private Move search() {
+            checkCancelled();
+            int n = passes.size;
+            double[] x0 = passes.x0, y0 = passes.y0, x1 = passes.x1, y1 = passes.y1;
+            double bestGain = 0;
+            int bestI = -1, bestJ = -1;
+            for (int i = from; i < to; i++) {
+                // Liaison entrante de i : fin de i - 1 -> début de i (aucune pour la première passe)
+                boolean hasPrev = i > 0;
+                double px = hasPrev ? x1[i - 1] : 0, py = hasPrev ? y1[i - 1] : 0;
+                double before = hasPrev ? Math.hypot(x0[i] - px, y0[i] - py) : 0;
+                for (int j = i; j < n; j++) {
+                    boolean hasNext = j + 1 < n;
+                    double removed = before + (hasNext ? Math.hypot(x0[j + 1] - x1[j], y0[j + 1] - y1[j]) : 0);
+                    // Après inversion, i..j commence par la fin de j et se termine par le début de i
+                    double added = (hasPrev ? Math.hypot(x1[j] - px, y1[j] - py) : 0)
+                            + (hasNext ? Math.hypot(x0[j + 1] - x0[i], y0[j + 1] - y0[i]) : 0);
+                    double gain = removed - added;
+                    if (gain > bestGain) {
+                        bestGain = gain;
+                        bestI = i;
+                        bestJ = j;
+                    }
+                }
+            }
+            return bestI < 0 ? null : new Move(bestGain, bestI, bestJ);
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.geofencing.core;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Chargement du cache de polygones par étapes, pour que la carte soit utilisable avant la fin du chargement :
+// 1. readOutlines() : boîtes englobantes de tous les champs, décodées sans allouer leurs sommets
+//    (la carte peut dessiner des contours provisoires)
+// 2. loadNext() : géométrie complète par lots, les champs visibles (puis les plus proches de la zone
+//    visible) d'abord. Chaque champ a ses niveaux de détail précalculés ici (la carte ne dessine que les champs
+//    dont ils sont prêts), les champs visibles aussi leur plan de pulvérisation.
+//    Le dépôt est marqué chargé après le dernier lot.
+// Les étapes s'exécutent sur un seul thread ; setViewport() et queryOutlines() peuvent être appelés de n'importe où.
+public final class StagedPolygonLoader {
+
+    public static final int DEFAULT_CHUNK_SIZE = 32;
+
+    private static final LatencyHistogram OUTLINES_LATENCY = Metrics.getInstance().histogram("startup.outlines");
+    private static final LatencyHistogram CHUNK_LATENCY = Metrics.getInstance().histogram("startup.chunk");
+
+    public interface OutlineVisitor {
+        // Retourne false pour arrêter le parcours
+        boolean visit(int polygonId, double south, double west, double north, double east);
+    }
+
+    private final PolygonFileStore store;
+    private final PolygonRepository repository;
+    private final PointList points = new PointList();
+
+    // Contours lus par readOutlines(), publiés par l'écriture de outlineCount
+    private int[] ids = new int[0];
+    private double[] bounds = new double[0];
+    private volatile int outlineCount;
+    // Champs déjà chargés (thread de chargement uniquement)
+    private boolean[] done = new boolean[0];
+    private int pending;
+    private boolean outlinesRead;
+    // Ordre de chargement des champs restants, trié pour la zone visible sortedFor
+    private Integer[] order = new Integer[0];
+    private int cursor;
+    private boolean sorted;
+    private double[] sortedFor;
+
+    // Zone visible : sud, ouest, nord, est ; null tant que la carte n'est pas prête
+    private volatile double[] viewport;
+
+    public StagedPolygonLoader(PolygonFileStore store, PolygonRepository repository) {
+        this.store = store;
+        this.repository = repository;
+    }
+
+    // Étape 1 ; retourne le nombre de champs
+    public int readOutlines() throws IOException {
+        long start = System.nanoTime();
+        int[] storedIds = store.polygonIds();
+        int[] outlineIds = new int[storedIds.length];
+        double[] outlineBounds = new double[storedIds.length * 4];
+        double[] box = new double[4];
+        int count = 0;
+        for (int id : storedIds) {
+            if (store.bounds(id, box)) {
+                outlineIds[count] = id;
+                System.arraycopy(box, 0, outlineBounds, count * 4, 4);
+                count++;
+            }
+        }
+        ids = outlineIds;
+        bounds = outlineBounds;
+        done = new boolean[count];
+        pending = count;
+        outlinesRead = true;
+        outlineCount = count;
+        if (count == 0) {
+            repository.markLoaded();
+        }
+        OUTLINES_LATENCY.recordSince(start);
+        return count;
+    }
+
+    public void setViewport(double south, double west, double north, double east) {
+        viewport = new double[]{south, west, north, east};
+    }
+
+    // Charge immédiatement un champ (polygone en cours d'édition) ; retourne false s'il n'est pas stocké
+    public boolean load(int polygonId) throws IOException {
+        int count = outlineCount;
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == polygonId) {
+                if (!done[i]) {
+                    loadAt(i, false);
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Étape 2 : charge au plus maxFields champs, par priorité ; retourne le nombre de champs chargés
+    public int loadNext(int maxFields) throws IOException {
+        if (pending == 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        double[] view = viewport;
+        int loaded = 0;
+        if (!sorted || view != sortedFor) {
+            sortPending(view);
+        }
+        while (loaded < maxFields && pending > 0) {
+            int index = order[cursor++];
+            if (!done[index]) {
+                loadAt(index, view != null && viewportDistance(index, view) == 0);
+                loaded++;
+            }
+        }
+        if (pending == 0) {
+            repository.markLoaded();
+        }
+        CHUNK_LATENCY.recordSince(start);
+        return loaded;
+    }
+
+    public boolean isComplete() {
+        return outlinesRead && pending == 0;
+    }
+
+    public int pendingCount() {
+        return pending;
+    }
+
+    public int outlineCount() {
+        return outlineCount;
+    }
+
+    // Contours des champs de la zone dont la géométrie n'est pas encore dans le dépôt
+    public void queryOutlines(double south, double west, double north, double east, OutlineVisitor visitor) {
+        int count = outlineCount;
+        int[] outlineIds = ids;
+        double[] outlineBounds = bounds;
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            if (outlineBounds[b] > north || outlineBounds[b + 2] < south || outlineBounds[b + 1] > east || outlineBounds[b + 3] < west) {
+                continue;
+            }
+            if (repository.get(outlineIds[i]) == null
+                    && !visitor.visit(outlineIds[i], outlineBounds[b], outlineBounds[b + 1], outlineBounds[b + 2], outlineBounds[b + 3])) {
+                return;
+            }
+        }
+    }
+
+    private void loadAt(int index, boolean visible) throws IOException {
+        done[index] = true;
+        pending--;
+        points.clear();
+        if (!store.load(ids[index], points)) {
+            return; // Supprimé depuis la lecture des contours
+        }
+        // Un champ modifié entre-temps (put depuis la carte) est déjà à jour dans le dépôt
+        if (repository.get(ids[index]) != null) {
+            return;
+        }
+        PreparedPolygon polygon = repository.put(ids[index], points.toLatArray(), points.toLngArray(), store.loadHoles(ids[index]), null);
+        // Index du containment et niveaux de détail construits ici, sur le thread de chargement, et non au premier
+        // contains() ou au premier affichage
+        polygon.prepareContainment();
+        if (polygon.vertexCount() >= 3) {
+            polygon.lod();
+            if (visible) {
+                polygon.sprayPlan();
+            }
+        }
+    }
+
+    // Champs restants, les plus proches de la zone visible d'abord (ordre du fichier sans zone visible)
+    private void sortPending(double[] view) {
+        Integer[] remaining = new Integer[pending];
+        int count = 0;
+        for (int i = 0; i < done.length; i++) {
+            if (!done[i]) {
+                remaining[count++] = i;
+            }
+        }
+        if (view != null) {
+            double[] keys = new double[done.length];
+            for (int i = 0; i < count; i++) {
+                keys[remaining[i]] = viewportDistance(remaining[i], view);
+            }
+            Arrays.sort(remaining, (a, b) -> Double.compare(keys[a], keys[b]));
+        }
+        order = remaining;
+        cursor = 0;
+        sorted = true;
+        sortedFor = view;
+    }
+
+    // Écart (en degrés, au carré) entre la boîte du champ et la zone visible ; 0 si elles se recouvrent
+    private double viewportDistance(int index, double[] view) {
+        int b = index * 4;
+        double dLat = Math.max(0, Math.max(view[0] - bounds[b + 2], bounds[b] - view[2]));
+        double dLng = Math.max(0, Math.max(view[1] - bounds[b + 3], bounds[b + 1] - view[3]));
+        return dLat * dLat + dLng * dLng;
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.geofencing.core;
+
+import java.util.Arrays;
+
+// R-tree compact construit en une seule passe (Sort-Tile-Recursive) sur des boîtes englobantes.
+// L'arbre est immuable : on le reconstruit quand le contenu change trop.
+final class StrTree {
+
+    static final int NODE_CAPACITY = 16;
+
+    private static final int INSERTION_SORT_SIZE = 16;
+
+    interface Visitor {
+        // Retourne false pour arrêter la recherche
+        boolean visit(int item);
+    }
+
+    // levelMin*/levelMax*[0] : boîtes des feuilles, dans l'ordre STR ; niveaux suivants : nœuds internes
+    private final double[][] levelMinX;
+    private final double[][] levelMinY;
+    private final double[][] levelMaxX;
+    private final double[][] levelMaxY;
+    private final int[] leafItems;
+    private final int[] stack;
+
+    // Indexe les éléments [from, to) des tableaux de boîtes
+    StrTree(double[] minX, double[] minY, double[] maxX, double[] maxY, int from, int to) {
+        int count = to - from;
+        leafItems = strOrder(minX, minY, maxX, maxY, from, count);
+
+        int levels = 1;
+        for (int n = count; n > 1; n = (n + NODE_CAPACITY - 1) / NODE_CAPACITY) {
+            levels++;
+        }
+        levelMinX = new double[levels][];
+        levelMinY = new double[levels][];
+        levelMaxX = new double[levels][];
+        levelMaxY = new double[levels][];
+
+        double[] lMinX = new double[count];
+        double[] lMinY = new double[count];
+        double[] lMaxX = new double[count];
+        double[] lMaxY = new double[count];
+        for (int i = 0; i < count; i++) {
+            int item = leafItems[i];
+            lMinX[i] = minX[item];
+            lMinY[i] = minY[item];
+            lMaxX[i] = maxX[item];
+            lMaxY[i] = maxY[item];
+        }
+        levelMinX[0] = lMinX;
+        levelMinY[0] = lMinY;
+        levelMaxX[0] = lMaxX;
+        levelMaxY[0] = lMaxY;
+
+        // Les enfants d'un nœud sont contigus : le nœud i couvre [i * NODE_CAPACITY, (i + 1) * NODE_CAPACITY)
+        for (int level = 1; level < levels; level++) {
+            int childCount = levelMinX[level - 1].length;
+            int nodeCount = (childCount + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            double[] nMinX = new double[nodeCount];
+            double[] nMinY = new double[nodeCount];
+            double[] nMaxX = new double[nodeCount];
+            double[] nMaxY = new double[nodeCount];
+            for (int node = 0; node < nodeCount; node++) {
+                int start = node * NODE_CAPACITY;
+                int end = Math.min(start + NODE_CAPACITY, childCount);
+                double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+                double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+                for (int c = start; c < end; c++) {
+                    x0 = Math.min(x0, levelMinX[level - 1][c]);
+                    y0 = Math.min(y0, levelMinY[level - 1][c]);
+                    x1 = Math.max(x1, levelMaxX[level - 1][c]);
+                    y1 = Math.max(y1, levelMaxY[level - 1][c]);
+                }
+                nMinX[node] = x0;
+                nMinY[node] = y0;
+                nMaxX[node] = x1;
+                nMaxY[node] = y1;
+            }
+            levelMinX[level] = nMinX;
+            levelMinY[level] = nMinY;
+            levelMaxX[level] = nMaxX;
+            levelMaxY[level] = nMaxY;
+        }
+
+        stack = new int[2 * levels * NODE_CAPACITY + 2];
+    }
+
+    int size() {
+        return leafItems.length;
+    }
+
+    // Visite les éléments dont la boîte intersecte [minX, maxX] x [minY, maxY].
+    // N'est pas réentrant : l'appelant synchronise les accès concurrents.
+    boolean query(double minX, double minY, double maxX, double maxY, Visitor visitor) {
+        if (leafItems.length == 0) {
+            return true;
+        }
+        int top = levelMinX.length - 1;
+        int sp = 0;
+        for (int node = 0; node < levelMinX[top].length; node++) {
+            stack[sp++] = top;
+            stack[sp++] = node;
+        }
+        while (sp > 0) {
+            int node = stack[--sp];
+            int level = stack[--sp];
+            if (levelMinX[level][node] > maxX || levelMaxX[level][node] < minX
+                    || levelMinY[level][node] > maxY || levelMaxY[level][node] < minY) {
+                continue;
+            }
+            if (level == 0) {
+                if (!visitor.visit(leafItems[node])) {
+                    return false;
+                }
+                continue;
+            }
+            int start = node * NODE_CAPACITY;
+            int end = Math.min(start + NODE_CAPACITY, levelMinX[level - 1].length);
+            for (int c = start; c < end; c++) {
+                stack[sp++] = level - 1;
+                stack[sp++] = c;
+            }
+        }
+        return true;
+    }
+
+    // Ordre STR : tri par centre X, découpage en tranches verticales, puis tri par centre Y dans chaque tranche
+    private static int[] strOrder(double[] minX, double[] minY, double[] maxX, double[] maxY, int from, int count) {
+        double[] centerX = new double[count];
+        double[] centerY = new double[count];
+        for (int i = 0; i < count; i++) {
+            centerX[i] = (minX[from + i] + maxX[from + i]) * 0.5;
+            centerY[i] = (minY[from + i] + maxY[from + i]) * 0.5;
+        }
+
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(order, 0, count, centerX);
+
+        int leafCount = (count + NODE_CAPACITY - 1) / NODE_CAPACITY;
+        int sliceCount = (int) Math.ceil(Math.sqrt(leafCount));
+        int sliceSize = sliceCount == 0 ? count : sliceCount * NODE_CAPACITY;
+        for (int start = 0; start < count; start += sliceSize) {
+            sort(order, start, Math.min(start + sliceSize, count), centerY);
+        }
+        for (int i = 0; i < count; i++) {
+            order[i] += from;
+        }
+        return order;
+    }
+
+    // Tri de items[from, to) par keys[item], sur des int : ni Integer ni comparateur.
+    // Tri rapide à trois voies (les centres égaux ne dégradent pas le tri), insertion sous INSERTION_SORT_SIZE.
+    private static void sort(int[] items, int from, int to, double[] keys) {
+        while (to - from > INSERTION_SORT_SIZE) {
+            int a = items[from], b = items[(from + to) >>> 1], c = items[to - 1];
+            double pivot = median(keys[a], keys[b], keys[c]);
+            // [from, lt) < pivot, [lt, i) == pivot, (gt, to) > pivot
+            int lt = from, i = from, gt = to - 1;
+            while (i <= gt) {
+                double key = keys[items[i]];
+                if (key < pivot) {
+                    swap(items, lt++, i++);
+                } else if (key > pivot) {
+                    swap(items, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            // Récursion sur la plus petite partie, boucle sur la plus grande : pile en O(log n)
+            if (lt - from < to - gt - 1) {
+                sort(items, from, lt, keys);
+                from = gt + 1;
+            } else {
+                sort(items, gt + 1, to, keys);
+                to = lt;
+            }
+        }
+        for (int i = from + 1; i < to; i++) {
+            int item = items[i];
+            double key = keys[item];
+            int j = i - 1;
+            while (j >= from && keys[items[j]] > key) {
+                items[j + 1] = items[j];
+                j--;
+            }
+            items[j + 1] = item;
+        }
+    }
+
+    private static double median(double a, double b, double c) {
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    private static void swap(int[] items, int a, int b) {
+        int tmp = items[a];
+        items[a] = items[b];
+        items[b] = tmp;
+    }
+}
@@ -0,0 +1,416 @@
+package com.example.geofencing.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Rejeu hors appareil de traces GPS enregistrées dans le chemin de décision des géofences :
+// rotation (GeofenceRegistrationManager), détection des transitions (InMemoryGeofenceClient à la place
+// de Play Services), puis le FieldTransitionRouter de GeofenceEventPipeline : champ par le GeofenceRegistry,
+// containment du point de déclenchement, regroupement et plan de pulvérisation.
+//
+// Le temps des traces sert d'horloge : le rejeu va aussi vite que possible, ou speedup fois plus vite
+// que l'enregistrement. Plusieurs traces sont rejouées ensemble, chacune comme un appareil distinct,
+// dans l'ordre de leurs horodatages.
+//
+// Usage : java ... TraceReplayEngine polygones.bin trace.csv trace.gpx ... [--speedup 60]
+public final class TraceReplayEngine {
+
+    // Mêmes valeurs que l'application
+    public static final double COVERING_TOLERANCE_METERS = 25;
+    public static final long COALESCING_WINDOW_MILLIS = 3000;
+
+    private static final int TRANSITION_TYPES = CircularFence.TRANSITION_ENTER
+            | CircularFence.TRANSITION_DWELL | CircularFence.TRANSITION_EXIT;
+
+    public static final class Report {
+        private final long events;
+        private final long rawTransitions;
+        private final long enters;
+        private final long dwells;
+        private final long exits;
+        private final long rankings;
+        private final long sprayPoints;
+        private final long elapsedNanos;
+        private final long[] sortedLatencies;
+        private final long allocatedBytes;
+
+        Report(long events, long rawTransitions, long enters, long dwells, long exits, long rankings, long sprayPoints,
+               long elapsedNanos, long[] sortedLatencies, long allocatedBytes) {
+            this.events = events;
+            this.rawTransitions = rawTransitions;
+            this.enters = enters;
+            this.dwells = dwells;
+            this.exits = exits;
+            this.rankings = rankings;
+            this.sprayPoints = sprayPoints;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatencies = sortedLatencies;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        // Positions rejouées
+        public long events() {
+            return events;
+        }
+
+        // Transitions détectées avant regroupement
+        public long rawTransitions() {
+            return rawTransitions;
+        }
+
+        // Transitions de champ traitées après regroupement
+        public long enters() {
+            return enters;
+        }
+
+        public long dwells() {
+            return dwells;
+        }
+
+        public long exits() {
+            return exits;
+        }
+
+        // Classements des géofences, tous appareils confondus
+        public long rankings() {
+            return rankings;
+        }
+
+        // Points des plans de pulvérisation remis aux notifications
+        public long sprayPoints() {
+            return sprayPoints;
+        }
+
+        public long elapsedNanos() {
+            return elapsedNanos;
+        }
+
+        public double eventsPerSecond() {
+            return elapsedNanos > 0 ? events * 1e9 / elapsedNanos : 0;
+        }
+
+        // Latence de traitement d'une position (nanosecondes), p entre 0 et 100
+        public long latencyPercentileNanos(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p / 100 * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, Math.min(sortedLatencies.length - 1, index))];
+        }
+
+        // -1 si la JVM ne mesure pas les allocations par thread (Android notamment)
+        public long allocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public double allocatedBytesPerSecond() {
+            return allocatedBytes < 0 || elapsedNanos == 0 ? -1 : allocatedBytes * 1e9 / elapsedNanos;
+        }
+
+        public double allocatedBytesPerEvent() {
+            return allocatedBytes < 0 || events == 0 ? -1 : (double) allocatedBytes / events;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "events=%d in %.1f ms (%.0f events/s)%n"
+                            + "latency p50=%.1f us p90=%.1f us p99=%.1f us max=%.1f us%n"
+                            + "transitions raw=%d enter=%d dwell=%d exit=%d, rankings=%d, spray points=%d%n"
+                            + "allocation %.1f MB/s, %.0f bytes/event",
+                    events, elapsedNanos / 1e6, eventsPerSecond(),
+                    latencyPercentileNanos(50) / 1e3, latencyPercentileNanos(90) / 1e3,
+                    latencyPercentileNanos(99) / 1e3, latencyPercentileNanos(100) / 1e3,
+                    rawTransitions, enters, dwells, exits, rankings, sprayPoints,
+                    allocatedBytesPerSecond() / (1 << 20), allocatedBytesPerEvent());
+        }
+    }
+
+    // Un appareil : ses géofences actives, son chemin de décision (celui de GeofenceEventPipeline), sa position
+    // dans la trace. Seule la notification est remplacée par des compteurs.
+    private final class Device implements InMemoryGeofenceClient.TransitionListener, FieldTransitionRouter.Handler {
+        final LocationTrace trace;
+        final InMemoryGeofenceClient client = new InMemoryGeofenceClient();
+        final GeofenceRegistrationManager manager = new GeofenceRegistrationManager(client);
+        final FieldTransitionRouter router = new FieldTransitionRouter(registry, coalescingWindowMillis);
+        int next;
+
+        Device(LocationTrace trace) {
+            this.trace = trace;
+            manager.setCandidates(candidates);
+        }
+
+        @Override
+        public void onTransition(String requestId, int transition, double lat, double lng, long timeMillis) {
+            rawTransitions++;
+            router.offer(requestId, transition, lat, lng, timeMillis);
+        }
+
+        @Override
+        public void onRerank(double lat, double lng) {
+            manager.onLocation(lat, lng);
+        }
+
+        @Override
+        public void onFieldTransition(PreparedPolygon field, GeofenceTransition transition) {
+            switch (transition.transition()) {
+                case CircularFence.TRANSITION_ENTER:
+                    enters++;
+                    sprayPoints += field.sprayPlan().size();
+                    break;
+                case CircularFence.TRANSITION_DWELL:
+                    dwells++;
+                    sprayPoints += field.sprayPlan().size();
+                    break;
+                default:
+                    exits++;
+                    break;
+            }
+        }
+    }
+
+    private final GeofenceRegistry registry;
+    private final List<CircularFence> candidates = new ArrayList<>();
+    private final long coalescingWindowMillis;
+
+    private long rawTransitions;
+    private long enters;
+    private long dwells;
+    private long exits;
+    private long sprayPoints;
+
+    public TraceReplayEngine(PolygonRepository repository) {
+        this(repository, COVERING_TOLERANCE_METERS, COALESCING_WINDOW_MILLIS);
+    }
+
+    // Géofences candidates construites comme GeofenceRegistration.buildCandidates
+    public TraceReplayEngine(PolygonRepository repository, double coveringToleranceMeters, long coalescingWindowMillis) {
+        this.registry = new GeofenceRegistry(repository);
+        this.coalescingWindowMillis = coalescingWindowMillis;
+        List<PreparedPolygon> polygons = new ArrayList<>();
+        repository.queryBounds(-90, -180, 90, 180, polygon -> {
+            if (polygon.vertexCount() >= 3) {
+                polygons.add(polygon);
+            }
+            return true;
+        });
+        CircleCovering.computeAll(polygons, coveringToleranceMeters, ForkJoinPool.commonPool());
+        for (PreparedPolygon polygon : polygons) {
+            registry.mintFences(polygon, coveringToleranceMeters, TRANSITION_TYPES, candidates);
+        }
+    }
+
+    public int candidateCount() {
+        return candidates.size();
+    }
+
+    // Rejoue les traces aussi vite que possible
+    public Report replay(List<LocationTrace> traces) {
+        return replay(traces, 0);
+    }
+
+    // speedup > 0 : la trace est rejouée speedup fois plus vite qu'enregistrée (60 : une heure par minute)
+    public synchronized Report replay(List<LocationTrace> traces, double speedup) {
+        rawTransitions = 0;
+        enters = 0;
+        dwells = 0;
+        exits = 0;
+        sprayPoints = 0;
+
+        Device[] devices = new Device[traces.size()];
+        int total = 0;
+        long startTime = Long.MAX_VALUE;
+        for (int i = 0; i < devices.length; i++) {
+            devices[i] = new Device(traces.get(i));
+            total += traces.get(i).size();
+            if (traces.get(i).size() > 0) {
+                startTime = Math.min(startTime, traces.get(i).time(0));
+            }
+        }
+        DeviceHeap heap = new DeviceHeap(devices);
+        long[] latencies = new long[total];
+        int events = 0;
+
+        long allocatedBefore = threadAllocatedBytes();
+        long start = System.nanoTime();
+        int device;
+        while ((device = heap.poll()) >= 0) {
+            Device d = devices[device];
+            int i = d.next++;
+            long time = d.trace.time(i);
+            if (speedup > 0) {
+                long due = start + (long) ((time - startTime) * 1e6 / speedup);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            }
+
+            long t0 = System.nanoTime();
+            double lat = d.trace.lat(i);
+            double lng = d.trace.lng(i);
+            if (i == 0) {
+                // Premier classement autour de la dernière position connue, comme GeofenceRegistration.refresh
+                d.manager.onLocation(lat, lng);
+            }
+            d.client.evaluate(lat, lng, time, d);
+            if (d.router.nextDeadline() <= time) {
+                d.router.flush(time, d);
+            }
+            latencies[events++] = System.nanoTime() - t0;
+
+            if (d.next < d.trace.size()) {
+                heap.add(device);
+            }
+        }
+        // Fin des traces : les rafales en attente sont traitées
+        for (Device d : devices) {
+            d.router.flush(Long.MAX_VALUE, d);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = threadAllocatedBytes();
+
+        long rankings = 0;
+        for (Device d : devices) {
+            rankings += d.manager.rankings();
+        }
+        Arrays.sort(latencies);
+        long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+        return new Report(events, rawTransitions, enters, dwells, exits, rankings, sprayPoints, elapsed, latencies, allocated);
+    }
+
+    // Tas binaire d'indices d'appareils, ordonné par l'horodatage de leur prochaine position
+    private static final class DeviceHeap {
+        private final Device[] devices;
+        private final int[] heap;
+        private int size;
+
+        DeviceHeap(Device[] devices) {
+            this.devices = devices;
+            this.heap = new int[devices.length];
+            for (int i = 0; i < devices.length; i++) {
+                if (devices[i].trace.size() > 0) {
+                    add(i);
+                }
+            }
+        }
+
+        void add(int device) {
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (key(heap[parent]) <= key(device)) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = device;
+        }
+
+        // -1 quand toutes les traces sont épuisées
+        int poll() {
+            if (size == 0) {
+                return -1;
+            }
+            int top = heap[0];
+            int last = heap[--size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && key(heap[child + 1]) < key(heap[child])) {
+                    child++;
+                }
+                if (key(last) <= key(heap[child])) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+
+        private long key(int device) {
+            Device d = devices[device];
+            return d.trace.time(d.next);
+        }
+    }
+
+    // Octets alloués par le thread courant (com.sun.management.ThreadMXBean), -1 si indisponible.
+    // Par réflexion : java.lang.management n'existe pas sur Android, où ce module est aussi utilisé.
+    private static Object threadBean;
+    private static Method allocatedBytesMethod;
+    private static boolean allocationProbed;
+
+    private static synchronized long threadAllocatedBytes() {
+        if (!allocationProbed) {
+            allocationProbed = true;
+            try {
+                threadBean = Class.forName("java.lang.management.ManagementFactory").getMethod("getThreadMXBean").invoke(null);
+                Method method = Class.forName("com.sun.management.ThreadMXBean").getMethod("getThreadAllocatedBytes", long.class);
+                if (method.getDeclaringClass().isInstance(threadBean)) {
+                    allocatedBytesMethod = method;
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                allocatedBytesMethod = null;
+            }
+        }
+        if (allocatedBytesMethod == null) {
+            return -1;
+        }
+        try {
+            return (Long) allocatedBytesMethod.invoke(threadBean, Thread.currentThread().getId());
+        } catch (ReflectiveOperationException e) {
+            return -1;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: TraceReplayEngine <polygons.bin> <trace.csv|trace.gpx>... [--speedup N]");
+            System.exit(2);
+        }
+        double speedup = 0;
+        List<LocationTrace> traces = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--speedup") && i + 1 < args.length) {
+                speedup = Double.parseDouble(args[++i]);
+            } else {
+                traces.add(readTrace(new File(args[i])));
+            }
+        }
+        PolygonRepository repository = new PolygonRepository();
+        try (PolygonFileStore store = PolygonFileStore.open(new File(args[0]))) {
+            repository.loadFrom(store);
+        }
+        long start = System.nanoTime();
+        TraceReplayEngine engine = new TraceReplayEngine(repository);
+        System.out.printf(Locale.ROOT, "%d fields, %d candidate fences prepared in %d ms%n", repository.size(),
+                engine.candidateCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        System.out.println(engine.replay(traces, speedup));
+    }
+
+    private static LocationTrace readTrace(File file) throws IOException {
+        try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+            return file.getName().toLowerCase(Locale.ROOT).endsWith(".gpx")
+                    ? LocationTrace.readGpx(file.getName(), reader)
+                    : LocationTrace.readCsv(file.getName(), reader);
+        }
+    }
+}
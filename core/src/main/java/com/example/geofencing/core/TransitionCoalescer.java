@@ -0,0 +1,121 @@
+package com.example.geofencing.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+// Regroupe les rafales de transitions d'une même géofence (GPS instable au bord d'un champ).
+// Les transitions reçues pendant la fenêtre qui suit la première sont fusionnées : seule la dernière
+// est émise, et seulement si elle change l'état déjà émis (ENTER, EXIT, ENTER depuis l'extérieur -> ENTER ;
+// ENTER, EXIT depuis l'extérieur -> rien). Le temps est fourni par l'appelant.
+// La géofence de reclassement est réenregistrée autour de l'appareil après chaque sortie : chacune de ses
+// sorties est un nouvel événement, regroupé par fenêtre mais jamais écarté comme « déjà dehors ».
+public final class TransitionCoalescer {
+
+    public interface Sink {
+        void onTransition(GeofenceTransition transition);
+    }
+
+    private static final class Pending {
+        final long deadline;
+        int transition;
+        double lat;
+        double lng;
+        long timeMillis;
+        int count;
+
+        Pending(long deadline) {
+            this.deadline = deadline;
+        }
+    }
+
+    private final long windowMillis;
+    private final Map<String, Pending> pending = new HashMap<>();
+    // Dernière transition émise par géofence
+    private final Map<String, Integer> emitted = new HashMap<>();
+    private long droppedCount;
+
+    public TransitionCoalescer(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    // Retourne l'instant à partir duquel flush() traitera cette transition
+    public synchronized long offer(String fenceKey, int transition, double lat, double lng, long timeMillis) {
+        Pending entry = pending.get(fenceKey);
+        if (entry == null) {
+            entry = new Pending(timeMillis + windowMillis);
+            pending.put(fenceKey, entry);
+        }
+        entry.transition = transition;
+        entry.lat = lat;
+        entry.lng = lng;
+        entry.timeMillis = timeMillis;
+        entry.count++;
+        return entry.deadline;
+    }
+
+    // Émet les rafales dont la fenêtre est écoulée ; retourne le nombre de transitions émises
+    public int flush(long nowMillis, Sink sink) {
+        List<GeofenceTransition> ready = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Pending>> it = pending.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Pending> e = it.next();
+                Pending entry = e.getValue();
+                if (entry.deadline > nowMillis) {
+                    continue;
+                }
+                it.remove();
+                boolean rerank = GeofenceRegistrationManager.RERANK_FENCE_ID.equals(e.getKey());
+                if (rerank || changesState(emitted.get(e.getKey()), entry.transition)) {
+                    if (!rerank) {
+                        emitted.put(e.getKey(), entry.transition);
+                    }
+                    ready.add(new GeofenceTransition(e.getKey(), entry.transition, entry.lat, entry.lng, entry.timeMillis, entry.count));
+                    droppedCount += entry.count - 1;
+                } else {
+                    droppedCount += entry.count;
+                }
+            }
+        }
+        // Hors du verrou : les gestionnaires peuvent être longs
+        for (GeofenceTransition transition : ready) {
+            sink.onTransition(transition);
+        }
+        return ready.size();
+    }
+
+    // ENTER et DWELL valent « dedans », EXIT « dehors » ; un DWELL après un ENTER reste une information
+    private static boolean changesState(Integer previous, int transition) {
+        if (previous == null) {
+            return true;
+        }
+        if (transition == CircularFence.TRANSITION_EXIT) {
+            return previous != CircularFence.TRANSITION_EXIT;
+        }
+        if (transition == CircularFence.TRANSITION_DWELL) {
+            return previous != CircularFence.TRANSITION_DWELL;
+        }
+        return previous == CircularFence.TRANSITION_EXIT;
+    }
+
+    // Long.MAX_VALUE si rien n'est en attente
+    public synchronized long nextDeadline() {
+        long next = Long.MAX_VALUE;
+        for (Pending entry : pending.values()) {
+            next = Math.min(next, entry.deadline);
+        }
+        return next;
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    // Transitions brutes absorbées par le regroupement ou sans changement d'état
+    public synchronized long droppedCount() {
+        return droppedCount;
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class CircleCoveringTest {
+
+    // Champ en L d'environ 200 m de côté (concave)
+    private static final double[] L_LATS = {34.0200, 34.0200, 34.0209, 34.0209, 34.0218, 34.0218};
+    private static final double[] L_LNGS = {-6.8420, -6.8398, -6.8398, -6.8409, -6.8409, -6.8420};
+
+    @Test
+    public void compute_coversEveryPointOfThePolygon() {
+        CircleCovering covering = CircleCovering.compute(L_LATS, L_LNGS, L_LATS.length, 10);
+
+        assertTrue(covering.size() > 1);
+        for (double lat = 34.0199; lat < 34.0219; lat += 0.00005) {
+            for (double lng = -6.8421; lng < -6.8397; lng += 0.00005) {
+                if (PolygonMath.containsPoint(L_LATS, L_LNGS, lat, lng)) {
+                    assertTrue(lat + "," + lng, covered(covering, lat, lng));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void compute_staysWithinToleranceOfThePolygon() {
+        CircleCovering covering = CircleCovering.compute(L_LATS, L_LNGS, L_LATS.length, 10);
+
+        assertWithinTolerance(covering, L_LATS, L_LNGS, 10);
+    }
+
+    @Test
+    public void compute_coversA100HectareFieldWithFewCircles() {
+        double[][] field = rectangle(1000, 1000);
+
+        CircleCovering covering = CircleCovering.compute(field[0], field[1], 4, 25);
+
+        // 136 cercles en quadtree seul
+        assertTrue(covering.size() + " circles", covering.size() <= 32);
+        assertEquals(25, covering.appliedToleranceMeters(), 0);
+        assertCovers(covering, field[0], field[1]);
+        assertWithinTolerance(covering, field[0], field[1], 25);
+    }
+
+    @Test
+    public void compute_raisesToleranceToStayUnderTheCircleLimit() {
+        double[][] strip = rectangle(2000, 100);
+
+        CircleCovering covering = CircleCovering.compute(strip[0], strip[1], 4, 10);
+
+        assertTrue(covering.size() <= CircleCovering.MAX_CIRCLES);
+        assertEquals(10, covering.toleranceMeters(), 0);
+        assertTrue(covering.appliedToleranceMeters() > 10);
+        assertCovers(covering, strip[0], strip[1]);
+        assertWithinTolerance(covering, strip[0], strip[1], covering.appliedToleranceMeters());
+    }
+
+    @Test
+    public void compute_usesFewerCirclesForLargerTolerance() {
+        int fine = CircleCovering.compute(L_LATS, L_LNGS, L_LATS.length, 5).size();
+        int coarse = CircleCovering.compute(L_LATS, L_LNGS, L_LATS.length, 40).size();
+
+        assertTrue(coarse + " < " + fine, coarse < fine);
+        assertEquals(0, CircleCovering.compute(L_LATS, L_LNGS, 2, 10).size());
+    }
+
+    @Test
+    public void compute_coversAGpsTracedFieldWithThousandsOfVertices() {
+        // Contour dentelé de 2000 sommets, environ 300 m de rayon
+        Random random = new Random(5);
+        int n = 2000;
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double radius = 0.0027 * (0.8 + 0.2 * random.nextDouble());
+            lats[i] = 34.0 + radius * Math.sin(angle);
+            lngs[i] = -6.8 + radius * Math.cos(angle) / Math.cos(Math.toRadians(34));
+        }
+
+        CircleCovering covering = CircleCovering.compute(lats, lngs, n, 25);
+
+        assertTrue(covering.size() <= CircleCovering.MAX_CIRCLES);
+        assertCovers(covering, lats, lngs);
+        assertWithinTolerance(covering, lats, lngs, covering.appliedToleranceMeters());
+    }
+
+    @Test
+    public void computeAll_matchesSequentialAndIsCachedPerVersion() {
+        PolygonRepository repository = new PolygonRepository();
+        Random random = new Random(5);
+        List<PreparedPolygon> polygons = new ArrayList<>();
+        for (int id = 0; id < 40; id++) {
+            double[][] field = PolygonStoreTest.randomField(random);
+            polygons.add(repository.put(id, field[0], field[1], null));
+        }
+
+        CircleCovering[] coverings = CircleCovering.computeAll(polygons, 20, new ForkJoinPool(4));
+
+        for (int i = 0; i < polygons.size(); i++) {
+            PreparedPolygon polygon = polygons.get(i);
+            assertSame(coverings[i], polygon.circleCovering(20));
+            CircleCovering expected = CircleCovering.compute(polygon.toLatArray(), polygon.toLngArray(), polygon.vertexCount(), 20);
+            assertEquals(expected.size(), coverings[i].size());
+        }
+        PreparedPolygon edited = repository.put(0, polygons.get(1).toLatArray(), polygons.get(1).toLngArray(), null);
+        assertNotSame(coverings[0], edited.circleCovering(20));
+    }
+
+    // Rectangle de width x height mètres
+    private static double[][] rectangle(double width, double height) {
+        double dLat = height / (Math.toRadians(1) * PolygonMath.EARTH_RADIUS_METERS);
+        double dLng = width / (Math.toRadians(1) * PolygonMath.EARTH_RADIUS_METERS * Math.cos(Math.toRadians(34)));
+        return new double[][]{{34.0, 34.0, 34.0 + dLat, 34.0 + dLat}, {-6.8, -6.8 + dLng, -6.8 + dLng, -6.8}};
+    }
+
+    private static void assertCovers(CircleCovering covering, double[] lats, double[] lngs) {
+        double minLat = Double.POSITIVE_INFINITY, maxLat = Double.NEGATIVE_INFINITY;
+        double minLng = Double.POSITIVE_INFINITY, maxLng = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < lats.length; i++) {
+            minLat = Math.min(minLat, lats[i]);
+            maxLat = Math.max(maxLat, lats[i]);
+            minLng = Math.min(minLng, lngs[i]);
+            maxLng = Math.max(maxLng, lngs[i]);
+        }
+        for (double lat = minLat; lat <= maxLat; lat += (maxLat - minLat) / 97) {
+            for (double lng = minLng; lng <= maxLng; lng += (maxLng - minLng) / 101) {
+                if (PolygonMath.containsPoint(lats, lngs, lat, lng)) {
+                    assertTrue(lat + "," + lng, covered(covering, lat, lng));
+                }
+            }
+        }
+    }
+
+    private static void assertWithinTolerance(CircleCovering covering, double[] lats, double[] lngs, double tolerance) {
+        LocalProjection projection = LocalProjection.forPolygon(lats, lngs, lats.length);
+        Random random = new Random(3);
+        for (int i = 0; i < covering.size(); i++) {
+            for (int k = 0; k < 50; k++) {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double r = covering.radiusMeters(i) * Math.sqrt(random.nextDouble());
+                double lat = projection.toLat(projection.toY(covering.lat(i)) + r * Math.sin(angle));
+                double lng = projection.toLng(projection.toX(covering.lng(i)) + r * Math.cos(angle));
+                if (!PolygonMath.containsPoint(lats, lngs, lat, lng)) {
+                    assertTrue(distanceToBoundary(projection, lats, lngs, lat, lng) <= tolerance + 0.01);
+                }
+            }
+        }
+    }
+
+    private static boolean covered(CircleCovering covering, double lat, double lng) {
+        LocalProjection projection = new LocalProjection(lat, lng);
+        for (int i = 0; i < covering.size(); i++) {
+            if (projection.distance(lat, lng, covering.lat(i), covering.lng(i)) <= covering.radiusMeters(i) + 1e-6) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static double distanceToBoundary(LocalProjection projection, double[] lats, double[] lngs, double lat, double lng) {
+        double x = projection.toX(lng);
+        double y = projection.toY(lat);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+            double ax = projection.toX(lngs[j]), ay = projection.toY(lats[j]);
+            double bx = projection.toX(lngs[i]), by = projection.toY(lats[i]);
+            double dx = bx - ax, dy = by - ay;
+            double t = Math.max(0, Math.min(1, ((x - ax) * dx + (y - ay) * dy) / (dx * dx + dy * dy)));
+            best = Math.min(best, Math.hypot(ax + t * dx - x, ay + t * dy - y));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CoverageTrackerTest {
+
+    private static final double ORIGIN_LAT = 34.02;
+    private static final double ORIGIN_LNG = -6.84;
+
+    @Test
+    public void forPolygon_rasterisesTheFieldArea() {
+        // Champ en L de 150 m x 150 m privé d'un carré de 75 m : 16875 m²
+        LocalProjection projection = new LocalProjection(ORIGIN_LAT, ORIGIN_LNG);
+        double[] xs = {0, 150, 150, 75, 75, 0};
+        double[] ys = {0, 0, 75, 75, 150, 150};
+        double[] lats = new double[xs.length];
+        double[] lngs = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            lats[i] = projection.toLat(ys[i]);
+            lngs[i] = projection.toLng(xs[i]);
+        }
+
+        CoverageTracker tracker = CoverageTracker.forPolygon(lats, lngs, lats.length);
+
+        double cellArea = SprayPointGenerator.SPRAYING_DIAMETER * SprayPointGenerator.SPRAYING_DIAMETER;
+        assertEquals(16875 / cellArea, tracker.fieldCells(), 16875 / cellArea * 0.02);
+        assertEquals(0, tracker.coverage(), 0);
+        assertFalse(tracker.mark(projection.toLat(120), projection.toLng(120)));
+    }
+
+    @Test
+    public void mark_countsEachFieldCellOnce() {
+        double[][] field = square(60);
+        CoverageTracker tracker = CoverageTracker.forPolygon(field[0], field[1], 4);
+        int cells = tracker.fieldCells();
+
+        assertTrue(tracker.mark(ORIGIN_LAT + 0.0001, ORIGIN_LNG + 0.0001));
+        assertFalse(tracker.mark(ORIGIN_LAT + 0.0001, ORIGIN_LNG + 0.0001));
+        assertFalse(tracker.mark(ORIGIN_LAT - 0.01, ORIGIN_LNG));
+        assertTrue(tracker.isCovered(ORIGIN_LAT + 0.0001, ORIGIN_LNG + 0.0001));
+
+        assertEquals(1, tracker.coveredCells());
+        assertEquals(cells - 1, tracker.uncoveredCells());
+        assertEquals(1.0 / cells, tracker.coverage(), 1e-12);
+    }
+
+    @Test
+    public void sweep_coversTheFieldAndListsTheRest() {
+        double[][] field = square(60);
+        CoverageTracker tracker = CoverageTracker.forPolygon(field[0], field[1], 4);
+        LocalProjection projection = new LocalProjection(ORIGIN_LAT, ORIGIN_LNG);
+
+        // Passes tous les 1,5 m, une position tous les 0,5 m, sur la moitié sud du champ
+        for (double y = 0.75; y < 30; y += SprayPointGenerator.SPRAYING_DIAMETER) {
+            for (double x = 0; x < 60; x += 0.5) {
+                tracker.mark(projection.toLat(y), projection.toLng(x));
+            }
+        }
+
+        assertEquals(0.5, tracker.coverage(), 0.03);
+        int[] listed = new int[1];
+        tracker.forEachUncovered((lat, lng) -> {
+            assertFalse(tracker.isCovered(lat, lng));
+            assertTrue(projection.toY(lat) > 29);
+            listed[0]++;
+            return true;
+        });
+        assertEquals(tracker.uncoveredCells(), listed[0]);
+
+        PointList some = new PointList();
+        tracker.uncoveredCells(some, 10);
+        assertEquals(10, some.size());
+
+        int marked = tracker.mark(projection.toLat(45), projection.toLng(30), 6);
+        assertTrue(marked > 40);
+    }
+
+    @Test
+    public void memory_staysBoundedForLargeFields() {
+        // 500 ha en carré, puis en triangle : les tuiles hors du champ ne sont pas allouées
+        double[][] field = square(2236);
+        CoverageTracker tracker = CoverageTracker.forPolygon(field[0], field[1], 4);
+        assertTrue(tracker.memoryBytes() < 600 * 1024);
+
+        CoverageTracker triangle = CoverageTracker.forPolygon(
+                new double[]{field[0][0], field[0][1], field[0][2]}, new double[]{field[1][0], field[1][1], field[1][2]}, 3);
+        assertTrue(triangle.memoryBytes() < tracker.memoryBytes() * 0.6);
+        assertEquals(tracker.fieldCells() / 2.0, triangle.fieldCells(), tracker.fieldCells() * 0.01);
+    }
+
+    // Carré de side mètres dont le coin sud-ouest est l'origine
+    private static double[][] square(double side) {
+        LocalProjection projection = new LocalProjection(ORIGIN_LAT, ORIGIN_LNG);
+        double north = projection.toLat(side);
+        double east = projection.toLng(side);
+        return new double[][]{{ORIGIN_LAT, ORIGIN_LAT, north, north}, {ORIGIN_LNG, east, east, ORIGIN_LNG}};
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class FieldImporterTest {
+
+    private static final String GEOJSON = "{\"type\":\"FeatureCollection\",\"features\":["
+            + "{\"type\":\"Feature\",\"properties\":{\"name\":\"a\",\"tags\":[[1,2]]},\"geometry\":"
+            + "{\"type\":\"Polygon\",\"coordinates\":[[[-6.842,34.02],[-6.8409,34.02],[-6.8409,34.0209],[-6.842,34.02]],"
+            + "[[-6.8415,34.0202],[-6.8412,34.0202],[-6.8412,34.0205],[-6.8415,34.0202]]]}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"coordinates\":[[[[1,2],[3,2],[3,4],[1,4],[1,2]]],[[[5,6,100],[7,6,100],[7,8,100],[5,6,100]]]],"
+            + "\"type\":\"MultiPolygon\"}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1],[2,0]]}},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"coordinates\":[[[0,0],[1,1],[2,0]]],\"type\":\"MultiLineString\"}}"
+            + "]}";
+
+    private static final String KML = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<kml xmlns=\"http://www.opengis.net/kml/2.2\"><Document><!-- <coordinates>9,9 9,8 8,8</coordinates> -->\n"
+            + "<Placemark><name><![CDATA[Champ <1>]]></name><Polygon><outerBoundaryIs><LinearRing>\n"
+            + "<coordinates>\n  -6.842,34.02,0 -6.8409,34.02,0\n\t-6.8409,34.0209,0 -6.842,34.02,0\n</coordinates>\n"
+            + "</LinearRing></outerBoundaryIs><innerBoundaryIs><LinearRing><coordinates>-6.8415,34.0202 -6.8412,34.0202 -6.8412,34.0205</coordinates>"
+            + "</LinearRing></innerBoundaryIs></Polygon></Placemark>\n"
+            + "<Placemark><MultiGeometry><kml:Polygon><kml:outerBoundaryIs><kml:LinearRing><kml:coordinates>1,2 3,2 3,4 1,4</kml:coordinates>"
+            + "</kml:LinearRing></kml:outerBoundaryIs></kml:Polygon><LineString><coordinates>0,0 1,1 2,0</coordinates></LineString>"
+            + "<Polygon><outerBoundaryIs><LinearRing><coordinates>5,6 7,6 bad 7,8 1e0,2.5E1</coordinates></LinearRing></outerBoundaryIs></Polygon>"
+            + "</MultiGeometry></Placemark></Document></kml>";
+
+    @Test
+    public void geoJson_readsOuterRingsOfPolygonsOnly() throws IOException {
+        List<double[][]> rings = new ArrayList<>();
+
+        int count = new GeoJsonImporter().read(new StringReader(GEOJSON), collector(rings));
+
+        assertEquals(3, count);
+        assertRing(rings.get(0), new double[]{34.02, 34.02, 34.0209}, new double[]{-6.842, -6.8409, -6.8409});
+        assertRing(rings.get(1), new double[]{2, 2, 4, 4}, new double[]{1, 3, 3, 1});
+        assertRing(rings.get(2), new double[]{6, 6, 8}, new double[]{5, 7, 7});
+    }
+
+    @Test
+    public void kml_readsOuterBoundariesOnly() throws IOException {
+        List<double[][]> rings = new ArrayList<>();
+
+        int count = new KmlImporter().read(new StringReader(KML), collector(rings));
+
+        assertEquals(3, count);
+        assertRing(rings.get(0), new double[]{34.02, 34.02, 34.0209}, new double[]{-6.842, -6.8409, -6.8409});
+        assertRing(rings.get(1), new double[]{2, 2, 4, 4}, new double[]{1, 3, 3, 1});
+        assertRing(rings.get(2), new double[]{6, 6, 8, 25}, new double[]{5, 7, 7, 1});
+    }
+
+    @Test
+    public void geoJsonAndKml_carryHolesWithTheirField() throws IOException {
+        for (boolean kml : new boolean[]{false, true}) {
+            List<MultiPolygon> holes = new ArrayList<>();
+            PolygonSink sink = (ring, fieldHoles) -> holes.add(fieldHoles);
+
+            int count = kml
+                    ? new KmlImporter().read(new StringReader(KML), sink)
+                    : new GeoJsonImporter().read(new StringReader(GEOJSON), sink);
+
+            assertEquals(3, count);
+            MultiPolygon pond = holes.get(0);
+            assertEquals(1, pond.ringCount());
+            assertEquals(3, pond.ringVertexCount(0));
+            assertEquals(34.0205, pond.lat(0, 2), 0);
+            assertEquals(-6.8412, pond.lng(0, 2), 0);
+            assertNull(holes.get(1));
+            assertNull(holes.get(2));
+        }
+    }
+
+    @Test
+    public void parseNumber_matchesDoubleParseDouble() {
+        Random random = new Random(5);
+        for (int i = 0; i < 100000; i++) {
+            String s = String.format(java.util.Locale.ROOT, "%." + random.nextInt(12) + "f", (random.nextDouble() - 0.5) * 360);
+            assertEquals(s, Double.parseDouble(s), KmlImporter.parseNumber(s.toCharArray(), s.length()), 0);
+        }
+        for (String s : new String[]{"0", "-0.0", "1e-7", "12345678901234567890.5", "+3.25", ".5"}) {
+            assertEquals(s, Double.parseDouble(s), KmlImporter.parseNumber(s.toCharArray(), s.length()), 0);
+        }
+        assertTrue(Double.isNaN(KmlImporter.parseNumber("-".toCharArray(), 1)));
+    }
+
+    @Test
+    public void importStream_reportsProgressUpToTheFileSize() throws IOException {
+        StringBuilder kml = new StringBuilder("<kml><Document>");
+        for (int i = 0; i < 2000; i++) {
+            kml.append("<Placemark><Polygon><outerBoundaryIs><LinearRing><coordinates>")
+                    .append(i).append(",0 ").append(i).append(".5,0 ").append(i).append(".5,0.5 ").append(i).append(",0")
+                    .append("</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>");
+        }
+        byte[] bytes = kml.append("</Document></kml>").toString().getBytes(StandardCharsets.UTF_8);
+        List<long[]> reports = new ArrayList<>();
+        int[] received = new int[1];
+
+        int count = FieldImporter.importStream(new ByteArrayInputStream(bytes), bytes.length, FieldImporter.Format.KML,
+                (ring, holes) -> received[0]++, (read, total, polygons) -> reports.add(new long[]{read, total, polygons}));
+
+        assertEquals(2000, count);
+        assertEquals(2000, received[0]);
+        assertTrue(reports.size() > 10 && reports.size() < 200);
+        for (int i = 1; i < reports.size(); i++) {
+            assertTrue(reports.get(i)[0] >= reports.get(i - 1)[0]);
+        }
+        long[] last = reports.get(reports.size() - 1);
+        assertEquals(bytes.length, last[0]);
+        assertEquals(2000, last[2]);
+        assertEquals(FieldImporter.Format.KML, FieldImporter.Format.forFileName("Fermes.KML"));
+        assertEquals(FieldImporter.Format.GEOJSON, FieldImporter.Format.forFileName("fermes.geojson"));
+        assertNull(FieldImporter.Format.forFileName("fermes.csv"));
+
+        // Format déduit du contenu
+        byte[] geoJson = ("\uFEFF\n " + GEOJSON).getBytes(StandardCharsets.UTF_8);
+        assertEquals(3, FieldImporter.importStream(new ByteArrayInputStream(geoJson), -1, null, (ring, holes) -> {
+        }, (read, total, polygons) -> {
+        }));
+        assertEquals(2000, FieldImporter.importStream(new ByteArrayInputStream(bytes), -1, null, (ring, holes) -> {
+        }, (read, total, polygons) -> {
+        }));
+    }
+
+    private static PolygonSink collector(List<double[][]> rings) {
+        return (ring, holes) -> rings.add(new double[][]{ring.toLatArray(), ring.toLngArray()});
+    }
+
+    private static void assertRing(double[][] ring, double[] lats, double[] lngs) {
+        assertArrayEquals(lats, ring[0], 0);
+        assertArrayEquals(lngs, ring[1], 0);
+    }
+}
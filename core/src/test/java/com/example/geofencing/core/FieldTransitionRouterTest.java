@@ -0,0 +1,90 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.geofencing.core.CircularFence.TRANSITION_ENTER;
+import static com.example.geofencing.core.CircularFence.TRANSITION_EXIT;
+import static org.junit.Assert.*;
+
+public class FieldTransitionRouterTest {
+
+    private static final double[] FIELD_LATS = {34.0200, 34.0200, 34.0209, 34.0209};
+    private static final double[] FIELD_LNGS = {-6.8420, -6.8409, -6.8409, -6.8420};
+
+    private static final class Recorder implements FieldTransitionRouter.Handler {
+        final List<GeofenceTransition> transitions = new ArrayList<>();
+        final List<PreparedPolygon> fields = new ArrayList<>();
+        int reranks;
+        double rerankLat;
+
+        @Override
+        public void onRerank(double lat, double lng) {
+            reranks++;
+            rerankLat = lat;
+        }
+
+        @Override
+        public void onFieldTransition(PreparedPolygon field, GeofenceTransition transition) {
+            fields.add(field);
+            transitions.add(transition);
+        }
+    }
+
+    @Test
+    public void offer_dropsTransitionsContradictedByThePosition() {
+        PolygonRepository repository = new PolygonRepository();
+        GeofenceRegistry registry = new GeofenceRegistry(repository);
+        PreparedPolygon field = repository.put(1000, FIELD_LATS, FIELD_LNGS, null);
+        List<CircularFence> fences = new ArrayList<>();
+        registry.mintFences(field, 15, TRANSITION_ENTER, fences);
+        String circle = fences.get(0).requestId();
+        FieldTransitionRouter router = new FieldTransitionRouter(registry, 1000);
+        Recorder recorder = new Recorder();
+
+        // Entrée dans le débord d'un cercle, hors du champ : écartée sans attendre
+        assertEquals(0, router.offer(circle, TRANSITION_ENTER, 34.0195, -6.8415, 0));
+        // Sortie d'un cercle en restant dans le champ : écartée
+        assertEquals(0, router.offer(circle, TRANSITION_EXIT, 34.0204, -6.8415, 0));
+        assertEquals(Long.MAX_VALUE, router.nextDeadline());
+
+        assertEquals(1000, router.offer(circle, TRANSITION_ENTER, 34.0204, -6.8415, 0));
+        assertEquals(1, router.flush(1000, recorder));
+
+        assertSame(field, recorder.fields.get(0));
+        assertEquals(registry.fieldKey(circle), recorder.transitions.get(0).fenceKey());
+        assertEquals(0, recorder.reranks);
+    }
+
+    @Test
+    public void flush_routesTheRerankFenceAndIgnoresUnknownFields() {
+        FieldTransitionRouter router = new FieldTransitionRouter(new GeofenceRegistry(new PolygonRepository()), 1000);
+        Recorder recorder = new Recorder();
+
+        router.offer(GeofenceRegistrationManager.RERANK_FENCE_ID, TRANSITION_EXIT, 34.5, -6.8, 0);
+        router.offer("g5.1", TRANSITION_ENTER, 34.0, -6.8, 0);
+
+        assertEquals(2, router.flush(1000, recorder));
+        assertEquals(1, recorder.reranks);
+        assertEquals(34.5, recorder.rerankLat, 0);
+        assertTrue(recorder.transitions.isEmpty());
+    }
+
+    @Test
+    public void flush_routesEveryRerankExit() {
+        FieldTransitionRouter router = new FieldTransitionRouter(new GeofenceRegistry(new PolygonRepository()), 1000);
+        Recorder recorder = new Recorder();
+
+        // La géofence de reclassement est réenregistrée après chaque sortie : la rotation ne doit pas s'arrêter
+        for (int i = 0; i < 4; i++) {
+            long start = i * 10000L;
+            assertEquals(start + 1000, router.offer(GeofenceRegistrationManager.RERANK_FENCE_ID, TRANSITION_EXIT, 34.0 + i, -6.8, start));
+            assertEquals(1, router.flush(start + 1000, recorder));
+            assertEquals(i + 1, recorder.reranks);
+            assertEquals(34.0 + i, recorder.rerankLat, 0);
+        }
+        assertTrue(recorder.transitions.isEmpty());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeoDistanceTest {
+
+    @Test
+    public void vincenty_matchesGeodeticReference() {
+        // Flinders Peak -> Buninyong (exemple de Vincenty, 1975) : 54 972,271 m
+        double lat1 = -(37 + 57 / 60.0 + 3.72030 / 3600);
+        double lng1 = 144 + 25 / 60.0 + 29.52440 / 3600;
+        double lat2 = -(37 + 39 / 60.0 + 10.15610 / 3600);
+        double lng2 = 143 + 55 / 60.0 + 35.38390 / 3600;
+        assertEquals(54972.271, GeoDistance.vincentyMeters(lat1, lng1, lat2, lng2), 0.001);
+    }
+
+    @Test
+    public void vincenty_handlesDegenerateCases() {
+        assertEquals(0, GeoDistance.vincentyMeters(34, -6.8, 34, -6.8), 0);
+        // Sur l'équateur : arc de l'ellipse équatoriale
+        assertEquals(Math.toRadians(1) * GeoDistance.WGS84_A, GeoDistance.vincentyMeters(0, 0, 0, 1), 0.001);
+        // Antipodes : pas de convergence, repli sur haversine
+        double antipodal = GeoDistance.vincentyMeters(0, 0, 0.5, 179.7);
+        assertEquals(PolygonMath.haversineMeters(0, 0, 0.5, 179.7), antipodal, 0.01 * antipodal);
+    }
+
+    @Test
+    public void haversine_staysWithinSixTenthsOfAPercentOfVincenty() {
+        Random random = new Random(11);
+        GeoDistance haversine = GeoDistance.haversine();
+        for (int i = 0; i < 2000; i++) {
+            double lat1 = (random.nextDouble() - 0.5) * 160;
+            double lng1 = (random.nextDouble() - 0.5) * 360;
+            double lat2 = lat1 + (random.nextDouble() - 0.5) * 2;
+            double lng2 = lng1 + (random.nextDouble() - 0.5) * 2;
+            double reference = GeoDistance.vincentyMeters(lat1, lng1, lat2, lng2);
+            assertEquals(reference, haversine.meters(lat1, lng1, lat2, lng2), 0.006 * reference + 1e-6);
+        }
+    }
+
+    @Test
+    public void equirectangular_staysWithinSixTenthsOfAPercentOfVincentyAtFieldScale() {
+        // Champs jusqu'à 5 km autour de l'origine, aux latitudes du Maroc comme plus au nord
+        Random random = new Random(13);
+        double[] origins = {0, 34, 60};
+        for (double originLat : origins) {
+            double[] lats = {originLat - 0.045, originLat - 0.045, originLat + 0.045, originLat + 0.045};
+            double[] lngs = {-6.9, -6.8, -6.8, -6.9};
+            GeoDistance distance = GeoDistance.forField(GeoDistance.Mode.EQUIRECTANGULAR, lats, lngs, 4);
+            assertNotNull(distance.projection());
+            for (int i = 0; i < 2000; i++) {
+                double lat1 = originLat + (random.nextDouble() - 0.5) * 0.09;
+                double lng1 = -6.85 + (random.nextDouble() - 0.5) * 0.1;
+                double lat2 = originLat + (random.nextDouble() - 0.5) * 0.09;
+                double lng2 = -6.85 + (random.nextDouble() - 0.5) * 0.1;
+                double reference = GeoDistance.vincentyMeters(lat1, lng1, lat2, lng2);
+                assertEquals(reference, distance.meters(lat1, lng1, lat2, lng2), 0.006 * reference + 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void forField_selectsMode() {
+        double[] lats = {0, 0, 1};
+        double[] lngs = {0, 1, 1};
+        assertEquals(GeoDistance.Mode.HAVERSINE, GeoDistance.forField(GeoDistance.Mode.HAVERSINE, lats, lngs, 3).mode());
+        assertNull(GeoDistance.forField(GeoDistance.Mode.VINCENTY, lats, lngs, 3).projection());
+    }
+
+    @Test
+    public void sprayPoints_sameCountWithProjectionOrHaversineOnAField() {
+        double[][] field = {{34.02, 34.02, 34.021, 34.021}, {-6.84, -6.839, -6.839, -6.84}};
+        SprayPointGenerator generator = new SprayPointGenerator();
+        PointList projected = new PointList();
+        PointList haversine = new PointList();
+        generator.generate(field[0], field[1], 4, projected);
+        generator.generate(field[0], field[1], 4, GeoDistance.haversine(), haversine);
+        assertEquals(projected.size(), haversine.size(), 4);
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GeofenceRegistrationManagerTest {
+
+    // Champs alignés vers l'est, un tous les 100 m environ
+    private static List<CircularFence> lineOfFences(int count) {
+        List<CircularFence> fences = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            fences.add(new CircularFence("field" + i, 34.0, -6.8 + i * 0.001, 30, CircularFence.TRANSITION_ENTER));
+        }
+        return fences;
+    }
+
+    @Test
+    public void onLocation_registersNearestFencesWithinTheLimit() {
+        InMemoryGeofenceClient client = new InMemoryGeofenceClient();
+        GeofenceRegistrationManager manager = new GeofenceRegistrationManager(client);
+        manager.setCandidates(lineOfFences(500));
+
+        manager.onLocation(34.0, -6.8 + 250 * 0.001);
+
+        assertEquals(GeofenceClient.MAX_ACTIVE_FENCES, client.registeredCount());
+        assertTrue(client.isRegistered(GeofenceRegistrationManager.RERANK_FENCE_ID));
+        for (int i = 201; i < 300; i++) {
+            assertEquals("field" + i, Math.abs(i - 250) <= 49, client.isRegistered("field" + i));
+        }
+        assertFalse(client.isRegistered("field0"));
+        assertEquals(manager.registeredIds().size(), client.registeredCount());
+    }
+
+    @Test
+    public void onLocation_ignoresSmallMovesAndSwapsOnlyTheDifference() {
+        InMemoryGeofenceClient client = new InMemoryGeofenceClient();
+        GeofenceRegistrationManager manager = new GeofenceRegistrationManager(client);
+        manager.setCandidates(lineOfFences(500));
+        manager.onLocation(34.0, -6.8 + 250 * 0.001);
+        long added = client.fencesAdded();
+
+        assertFalse(manager.onLocation(34.0, -6.8 + 250.5 * 0.001));
+        assertEquals(added, client.fencesAdded());
+
+        // 30 champs plus loin : 30 champs échangés, plus la géofence de reclassement
+        assertTrue(manager.onLocation(34.0, -6.8 + 280 * 0.001));
+        assertEquals(added + 31, client.fencesAdded());
+        assertEquals(31, client.fencesRemoved());
+        assertTrue(client.isRegistered("field320"));
+        assertFalse(client.isRegistered("field210"));
+        assertEquals(GeofenceClient.MAX_ACTIVE_FENCES, client.registeredCount());
+    }
+
+    @Test
+    public void failedAdd_isRetriedOnNextRanking() {
+        InMemoryGeofenceClient client = new InMemoryGeofenceClient(10);
+        GeofenceRegistrationManager manager = new GeofenceRegistrationManager(client, 20);
+        manager.setCandidates(lineOfFences(50));
+
+        manager.onLocation(34.0, -6.8);
+
+        assertEquals(0, client.registeredCount());
+        assertTrue(manager.registeredIds().isEmpty());
+
+        manager.setCandidates(lineOfFences(5));
+        assertEquals(6, client.registeredCount());
+        assertEquals(6, manager.registeredIds().size());
+    }
+
+    @Test
+    public void editedField_replacesCirclesRegisteredUnderTheSameIds() {
+        PolygonRepository repository = new PolygonRepository();
+        GeofenceRegistry registry = new GeofenceRegistry(repository);
+        InMemoryGeofenceClient client = new InMemoryGeofenceClient();
+        GeofenceRegistrationManager manager = new GeofenceRegistrationManager(client);
+        double[] lats = {34.0200, 34.0200, 34.0209, 34.0209};
+        double[] lngs = {-6.8420, -6.8409, -6.8409, -6.8420};
+        List<CircularFence> fences = new ArrayList<>();
+        registry.mintFences(repository.put(7, lats, lngs, null), 15, CircularFence.TRANSITION_ENTER, fences);
+        manager.setCandidates(fences);
+        manager.onLocation(34.0204, -6.8414);
+
+        // Même champ, décalé d'environ 300 m vers l'est : mêmes identifiants, autres cercles
+        double[] movedLngs = new double[lngs.length];
+        for (int i = 0; i < lngs.length; i++) {
+            movedLngs[i] = lngs[i] + 0.0033;
+        }
+        List<CircularFence> edited = new ArrayList<>();
+        registry.mintFences(repository.put(7, lats, movedLngs, null), 15, CircularFence.TRANSITION_ENTER, edited);
+        assertEquals(fences.get(0).requestId(), edited.get(0).requestId());
+        manager.setCandidates(edited);
+
+        assertEquals(edited.size() + 1, client.registeredCount());
+        for (CircularFence fence : client.registeredFences()) {
+            if (!GeofenceRegistrationManager.RERANK_FENCE_ID.equals(fence.requestId())) {
+                assertTrue(fence.requestId(), fence.lng() > -6.8420 + 0.003);
+            }
+        }
+        // Un nouvel envoi des mêmes cercles, à la même position, ne change rien
+        long added = client.fencesAdded();
+        manager.setCandidates(edited);
+        assertEquals(added, client.fencesAdded());
+    }
+
+    @Test
+    public void replaceCandidates_swapsOnlyTheEditedFieldsCircles() {
+        PolygonRepository repository = new PolygonRepository();
+        GeofenceRegistry registry = new GeofenceRegistry(repository);
+        InMemoryGeofenceClient client = new InMemoryGeofenceClient();
+        GeofenceRegistrationManager manager = new GeofenceRegistrationManager(client);
+        double[] lats = {34.0200, 34.0200, 34.0209, 34.0209};
+        double[] lngs = {-6.8420, -6.8409, -6.8409, -6.8420};
+        List<CircularFence> fences = lineOfFences(5);
+        assertFalse(manager.replaceCandidates(GeofenceRegistry.fenceIdPrefix(7), fences));
+        manager.onLocation(34.0204, -6.8414);
+        long added = client.fencesAdded();
+
+        // Un champ fermé pendant l'édition : seuls ses cercles sont ajoutés
+        List<CircularFence> edited = new ArrayList<>();
+        registry.mintFences(repository.put(7, lats, lngs, null), 15, CircularFence.TRANSITION_ENTER, edited);
+        assertTrue(manager.replaceCandidates(GeofenceRegistry.fenceIdPrefix(7), edited));
+        assertEquals(added + edited.size(), client.fencesAdded());
+        assertEquals(fences.size() + edited.size() + 1, client.registeredCount());
+
+        // Son recouvrement passe à un seul cercle : les autres cercles du champ sont retirés, pas ceux des voisins
+        List<CircularFence> single = new ArrayList<>();
+        single.add(new CircularFence(edited.get(0).requestId(), 34.0204, -6.8414, 80, CircularFence.TRANSITION_ENTER));
+        manager.replaceCandidates(GeofenceRegistry.fenceIdPrefix(7), single);
+        assertEquals(fences.size() + 2, client.registeredCount());
+        assertTrue(client.isRegistered("field4"));
+        for (CircularFence fence : client.registeredFences()) {
+            if (fence.requestId().startsWith(GeofenceRegistry.fenceIdPrefix(7))) {
+                assertEquals(80, fence.radiusMeters(), 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class GeofenceRegistryTest {
+
+    private static final double[] FIELD_LATS = {34.0200, 34.0200, 34.0209, 34.0209};
+    private static final double[] FIELD_LNGS = {-6.8420, -6.8409, -6.8409, -6.8420};
+
+    @Test
+    public void mintFences_idsResolveToTheFieldAndCircle() {
+        PolygonRepository repository = new PolygonRepository();
+        GeofenceRegistry registry = new GeofenceRegistry(repository);
+        PreparedPolygon field = repository.put(1000, FIELD_LATS, FIELD_LNGS, null);
+        List<CircularFence> fences = new ArrayList<>();
+
+        registry.mintFences(field, 15, CircularFence.TRANSITION_ENTER, fences);
+
+        CircleCovering covering = field.circleCovering(15);
+        assertEquals(covering.size(), fences.size());
+        assertSame(field, registry.field("grs"));
+        for (int i = 0; i < fences.size(); i++) {
+            CircularFence fence = fences.get(i);
+            assertTrue(fence.requestId(), fence.requestId().startsWith("grs."));
+            assertSame(field, registry.field(fence.requestId()));
+            assertEquals(i, GeofenceRegistry.circleIndex(fence.requestId()));
+            assertSame(registry.fieldKey(fences.get(0).requestId()), registry.fieldKey(fence.requestId()));
+            assertEquals("grs", registry.fieldKey(fence.requestId()));
+            assertEquals(covering.lat(i), fence.lat(), 0);
+        }
+    }
+
+    @Test
+    public void field_rejectsForeignIds() {
+        GeofenceRegistry registry = new GeofenceRegistry(new PolygonRepository());
+
+        assertNull(registry.field(GeofenceRegistrationManager.RERANK_FENCE_ID));
+        assertNull(registry.field("34.02_-6.84"));
+        assertNull(registry.field("g"));
+        assertNull(registry.field("g.1"));
+        assertEquals(GeofenceRegistrationManager.RERANK_FENCE_ID, registry.fieldKey(GeofenceRegistrationManager.RERANK_FENCE_ID));
+        assertNull(registry.field("g#.1"));
+        assertNull(registry.field("gzzzzzzzz.1"));
+        assertNull(registry.field("g5.1"));
+        assertEquals(-1, GeofenceRegistry.circleIndex("g5"));
+    }
+
+    @Test
+    public void field_keepsNewestVersionAndFallsBackToRepository() {
+        PolygonRepository repository = new PolygonRepository();
+        GeofenceRegistry registry = new GeofenceRegistry(repository);
+        Random random = new Random(7);
+        List<CircularFence> fences = new ArrayList<>();
+        PreparedPolygon[] fields = new PreparedPolygon[500];
+        for (int id = 0; id < fields.length; id++) {
+            double[][] field = PolygonStoreTest.randomField(random);
+            fields[id] = repository.put(id * 37 - 100, field[0], field[1], null);
+            registry.mintFences(fields[id], 25, CircularFence.TRANSITION_ENTER, fences);
+        }
+        assertEquals(fields.length, registry.size());
+        for (PreparedPolygon field : fields) {
+            assertSame(field, registry.field("g" + Integer.toString(field.id(), 36) + ".0"));
+        }
+
+        PreparedPolygon edited = repository.put(fields[3].id(), FIELD_LATS, FIELD_LNGS, null);
+        registry.mintFences(edited, 25, CircularFence.TRANSITION_ENTER, fences);
+        registry.mintFences(fields[3], 25, CircularFence.TRANSITION_ENTER, fences);
+        assertSame(edited, registry.field("g" + Integer.toString(edited.id(), 36) + ".0"));
+
+        registry.remove(fields[10].id());
+        assertEquals(fields.length - 1, registry.size());
+        for (int i = 11; i < fields.length; i++) {
+            assertSame(fields[i], registry.field("g" + Integer.toString(fields[i].id(), 36) + ".0"));
+        }
+
+        // Nouveau processus : registre vide, le champ est repris du cache de polygones
+        registry = new GeofenceRegistry(repository);
+        assertSame(fields[20], registry.field("g" + Integer.toString(fields[20].id(), 36) + ".0"));
+        repository.remove(fields[30].id());
+        assertNull(registry.field("g" + Integer.toString(fields[30].id(), 36) + ".0"));
+    }
+
+    @Test
+    public void mintAll_swapsInATableOfTheGivenFieldsOnly() {
+        PolygonRepository repository = new PolygonRepository();
+        GeofenceRegistry registry = new GeofenceRegistry(repository);
+        Random random = new Random(11);
+        List<PreparedPolygon> fields = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            double[][] field = PolygonStoreTest.randomField(random);
+            fields.add(repository.put(id, field[0], field[1], null));
+        }
+        List<CircularFence> fences = new ArrayList<>();
+        registry.mintAll(fields, 25, CircularFence.TRANSITION_ENTER, fences);
+        assertEquals(100, registry.size());
+        String key = registry.fieldKey(fences.get(0).requestId());
+
+        // Un champ supprimé entre deux reconstructions n'est plus dans la table ; les autres restent résolus
+        repository.remove(50);
+        fields.remove(50);
+        fences.clear();
+        registry.mintAll(fields, 25, CircularFence.TRANSITION_ENTER, fences);
+        assertEquals(99, registry.size());
+        assertNull(registry.field("g1e.0"));
+        assertSame(fields.get(0), registry.field(fences.get(0).requestId()));
+        assertEquals(key, registry.fieldKey(fences.get(0).requestId()));
+        for (CircularFence fence : fences) {
+            assertFalse(fence.requestId(), fence.requestId().startsWith("g1e."));
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HysteresisTrackerTest {
+
+    // Carré d'environ 110 m de côté
+    private static final double[] LATS = {34.0, 34.0, 34.001, 34.001};
+    private static final double[] LNGS = {-6.8, -6.7988, -6.7988, -6.8};
+    private static final LocalProjection PROJECTION = new LocalProjection(34.0005, -6.7994);
+
+    private final List<String> events = new ArrayList<>();
+    private final HysteresisTracker.Listener recorder = new HysteresisTracker.Listener() {
+        @Override
+        public void onEnter(PreparedPolygon field, double lat, double lng, long timeMillis) {
+            events.add("enter " + field.id() + " @" + timeMillis);
+        }
+
+        @Override
+        public void onExit(PreparedPolygon field, double lat, double lng, long timeMillis) {
+            events.add("exit " + field.id() + " @" + timeMillis);
+        }
+    };
+
+    @Test
+    public void jitterAlongTheBoundaryProducesNoTransitions() {
+        PolygonRepository repository = new PolygonRepository();
+        repository.put(7, LATS, LNGS, null);
+        HysteresisTracker tracker = new HysteresisTracker(repository);
+
+        // Bien dedans : une entrée
+        tracker.processBatch(new double[]{34.0005}, new double[]{-6.7994}, new long[]{0}, 1, recorder);
+        assertEquals(1, events.size());
+        assertTrue(tracker.isInside(7));
+
+        // Bruit de ±3 m autour de la bordure ouest : aucune sortie (zone tampon de 5 m)
+        Random random = new Random(1);
+        int count = 200;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 34.0005;
+            lngs[i] = PROJECTION.toLng(PROJECTION.toX(-6.8) + (random.nextDouble() - 0.5) * 6);
+            times[i] = 1000 + i * 1000L;
+        }
+        assertEquals(0, tracker.processBatch(lats, lngs, times, count, recorder));
+        assertTrue(tracker.isInside(7));
+        assertTrue(tracker.boundaryDistanceMeters() < 4);
+    }
+
+    @Test
+    public void leavingBeyondTheBufferExits() {
+        PolygonRepository repository = new PolygonRepository();
+        repository.put(7, LATS, LNGS, null);
+        HysteresisTracker tracker = new HysteresisTracker(repository);
+
+        // Traversée ouest -> est à 1 m/s dans un seul lot, d'un point à 20 m dehors jusqu'à 20 m au-delà
+        double x0 = PROJECTION.toX(-6.8) - 20;
+        double x1 = PROJECTION.toX(-6.7988) + 20;
+        int count = (int) (x1 - x0) + 1;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = 34.0005;
+            lngs[i] = PROJECTION.toLng(x0 + i);
+            times[i] = i * 1000L;
+        }
+        assertEquals(2, tracker.processBatch(lats, lngs, times, count, recorder));
+        assertEquals(2, events.size());
+        // Entrée une fois 3 m à l'intérieur, sortie une fois 5 m à l'extérieur
+        assertEquals("enter 7 @24000", events.get(0));
+        long exitTime = Long.parseLong(events.get(1).substring(events.get(1).indexOf('@') + 1));
+        assertEquals((long) ((PROJECTION.toX(-6.7988) + 6 - x0)) * 1000, exitTime, 1000);
+        assertFalse(tracker.isInside(7));
+        assertEquals(1, tracker.speedMetersPerSecond(), 0.01);
+    }
+
+    @Test
+    public void farJumpAndRemovedFieldsExit() {
+        PolygonRepository repository = new PolygonRepository();
+        repository.put(7, LATS, LNGS, null);
+        HysteresisTracker tracker = new HysteresisTracker(repository);
+        tracker.processBatch(new double[]{34.0005}, new double[]{-6.7994}, new long[]{0}, 1, recorder);
+
+        // Saut de 10 km : le champ n'est plus candidat
+        tracker.processBatch(new double[]{34.1}, new double[]{-6.7994}, new long[]{1000}, 1, recorder);
+        assertEquals("exit 7 @1000", events.get(1));
+        assertEquals(HysteresisTracker.SEARCH_RADIUS_METERS, tracker.boundaryDistanceMeters(), 0);
+
+        // Champ supprimé pendant que l'appareil y est
+        tracker.processBatch(new double[]{34.0005}, new double[]{-6.7994}, new long[]{2000}, 1, recorder);
+        repository.remove(7);
+        tracker.processBatch(new double[]{34.0005}, new double[]{-6.7994}, new long[]{3000}, 1, recorder);
+        assertEquals("exit 7 @3000", events.get(3));
+        assertEquals(0, tracker.insideCount());
+    }
+
+    @Test
+    public void boundaryDistance_isPointToSegment() {
+        PreparedPolygon field = new PolygonRepository().put(1, LATS, LNGS, null);
+        // 10 m à l'ouest de la bordure ouest
+        double lng = PROJECTION.toLng(PROJECTION.toX(-6.8) - 10);
+        assertEquals(10, HysteresisTracker.boundaryDistance(field, PROJECTION, 34.0005, lng), 1e-6);
+        // Au centre : moitié de la largeur
+        double halfWidth = (PROJECTION.toX(-6.7988) - PROJECTION.toX(-6.8)) / 2;
+        assertEquals(halfWidth, HysteresisTracker.boundaryDistance(field, PROJECTION, 34.0005, -6.7994), 1e-6);
+    }
+
+    @Test
+    public void holeBordersAreBoundariesWithTheSameBuffers() {
+        // Zone exclue d'environ 22 x 37 m au centre du carré
+        double[] holeLats = {34.0004, 34.0004, 34.0006, 34.0006};
+        double[] holeLngs = {-6.7996, -6.7992, -6.7992, -6.7996};
+        MultiPolygon holes = MultiPolygon.of(holeLats, holeLngs, 4);
+        PolygonRepository repository = new PolygonRepository();
+        PreparedPolygon field = repository.put(7, LATS, LNGS, holes, null);
+        double holeSouthY = PROJECTION.toY(34.0004);
+        assertEquals(PROJECTION.toY(34.0005) - holeSouthY,
+                HysteresisTracker.boundaryDistance(field, PROJECTION, 34.0005, -6.7994), 1e-6);
+
+        HysteresisTracker tracker = new HysteresisTracker(repository);
+        tracker.processBatch(new double[]{34.0002}, new double[]{-6.7994}, new long[]{0}, 1, recorder);
+        assertTrue(tracker.isInside(7));
+
+        // Bruit de ±3 m autour de la bordure sud du trou : ni sortie ni nouvelle entrée
+        Random random = new Random(2);
+        int count = 100;
+        double[] lats = new double[count];
+        double[] lngs = new double[count];
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            lats[i] = PROJECTION.toLat(holeSouthY + (random.nextDouble() - 0.5) * 6);
+            lngs[i] = -6.7994;
+            times[i] = 1000 + i * 1000L;
+        }
+        assertEquals(0, tracker.processBatch(lats, lngs, times, count, recorder));
+        assertTrue(tracker.isInside(7));
+        assertTrue(tracker.boundaryDistanceMeters() < 4);
+
+        // 8 m dans la zone exclue : sortie du champ
+        tracker.processBatch(new double[]{PROJECTION.toLat(holeSouthY + 8)}, new double[]{-6.7994}, new long[]{200000}, 1, recorder);
+        assertFalse(tracker.isInside(7));
+        assertEquals(8, tracker.boundaryDistanceMeters(), 0.5);
+    }
+
+    @Test
+    public void intervalPolicy_adaptsToSpeedAndBoundaryDistance() {
+        LocationIntervalPolicy policy = new LocationIntervalPolicy();
+        assertEquals(LocationIntervalPolicy.DEFAULT_MIN_INTERVAL_MILLIS, policy.intervalMillis());
+
+        // Loin de tout champ, à l'arrêt : intervalle et regroupement maximaux
+        assertTrue(policy.update(0, Double.POSITIVE_INFINITY));
+        assertEquals(LocationIntervalPolicy.DEFAULT_MAX_INTERVAL_MILLIS, policy.intervalMillis());
+        assertEquals(LocationIntervalPolicy.DEFAULT_MAX_WAIT_MILLIS, policy.maxWaitMillis());
+
+        // 200 m à 10 m/s : 20 s avant la bordure, une position toutes les 5 s, lot livré sous 10 s
+        assertTrue(policy.update(10, 200));
+        assertEquals(5000, policy.intervalMillis());
+        assertEquals(10000, policy.maxWaitMillis());
+        // Petite variation : pas de nouvelle demande
+        assertFalse(policy.update(10, 190));
+        assertEquals(5000, policy.intervalMillis());
+
+        // Sur la bordure : intervalle minimal, sans regroupement
+        assertTrue(policy.update(2, 0));
+        assertEquals(LocationIntervalPolicy.DEFAULT_MIN_INTERVAL_MILLIS, policy.intervalMillis());
+        assertEquals(policy.intervalMillis(), policy.maxWaitMillis());
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class IncrementalSprayPlanTest {
+
+    private final EditablePolygon polygon = new EditablePolygon();
+    private final IncrementalSprayPlan plan = new IncrementalSprayPlan(polygon, new SprayPointGenerator());
+    private final List<String> events = new ArrayList<>();
+
+    public IncrementalSprayPlanTest() {
+        plan.addListener(new IncrementalSprayPlan.Listener() {
+            @Override
+            public void onSegmentInserted(IncrementalSprayPlan plan, int index) {
+                events.add("+" + index);
+            }
+
+            @Override
+            public void onSegmentChanged(IncrementalSprayPlan plan, int index) {
+                events.add("~" + index);
+            }
+
+            @Override
+            public void onSegmentRemoved(IncrementalSprayPlan plan, int index) {
+                events.add("-" + index);
+            }
+        });
+    }
+
+    @Test
+    public void segmentsStayEmptyBelowThreeVertices() {
+        polygon.addVertex(34.0200, -6.8420);
+        polygon.addVertex(34.0200, -6.8409);
+
+        assertEquals(2, plan.segmentCount());
+        assertEquals(0, plan.totalPointCount());
+    }
+
+    @Test
+    public void edits_recomputeOnlyTouchedSegments() {
+        square();
+        events.clear();
+
+        polygon.addVertex(34.0204, -6.8425);
+        assertEquals(Arrays.asList("+4", "~3"), events);
+
+        events.clear();
+        polygon.moveVertex(1, 34.0199, -6.8408);
+        assertEquals(Arrays.asList("~1", "~0"), events);
+
+        events.clear();
+        polygon.removeVertex(2);
+        assertEquals(Arrays.asList("-2", "~1"), events);
+
+        assertConsistent();
+    }
+
+    @Test
+    public void insertAtStart_updatesClosingSegment() {
+        square();
+        events.clear();
+
+        polygon.insertVertex(0, 34.0198, -6.8415);
+
+        assertEquals(Arrays.asList("+0", "~4"), events);
+        assertConsistent();
+    }
+
+    private void square() {
+        polygon.addVertex(34.0200, -6.8420);
+        polygon.addVertex(34.0200, -6.8409);
+        polygon.addVertex(34.0209, -6.8409);
+        polygon.addVertex(34.0209, -6.8420);
+    }
+
+    // Chaque segment commence sur son sommet et le total correspond à la somme des segments
+    private void assertConsistent() {
+        assertEquals(polygon.size(), plan.segmentCount());
+        int total = 0;
+        for (int i = 0; i < plan.segmentCount(); i++) {
+            PointList segment = plan.segment(i);
+            assertTrue(segment.size() > 0);
+            assertEquals(polygon.lat(i), segment.lat(0), 1e-12);
+            assertEquals(polygon.lng(i), segment.lng(0), 1e-12);
+            total += segment.size();
+        }
+        assertEquals(total, plan.totalPointCount());
+    }
+}
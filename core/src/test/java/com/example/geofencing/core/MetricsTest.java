@@ -0,0 +1,113 @@
+package com.example.geofencing.core;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void histogram_bucketsCoverEveryValueWithBoundedError() {
+        for (long value : new long[]{0, 1, 63, 64, 65, 100, 1000, 123456, 1L << 40, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.indexFor(value);
+            assertTrue(value + " >= lower", value >= LatencyHistogram.lowerBound(index));
+            assertTrue(value + " <= upper", value <= LatencyHistogram.upperBound(index));
+            double width = LatencyHistogram.upperBound(index) - LatencyHistogram.lowerBound(index);
+            assertTrue(width <= Math.max(0, value * 0.0625));
+        }
+        for (long value = 0; value < 100000; value++) {
+            assertTrue(LatencyHistogram.indexFor(value) <= LatencyHistogram.indexFor(value + 1));
+        }
+    }
+
+    @Test
+    public void histogram_percentilesMatchRecordedValues() {
+        LatencyHistogram histogram = new LatencyHistogram("test");
+        Random random = new Random(1);
+        long[] values = new long[10000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 1000 + random.nextInt(1000000);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.count());
+        assertEquals(values[values.length - 1], histogram.maxNanos());
+        for (double p : new double[]{50, 90, 99}) {
+            long exact = values[(int) Math.ceil(p / 100 * values.length) - 1];
+            assertEquals(exact, histogram.percentileNanos(p), exact * 0.04);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.count());
+        assertEquals(0, histogram.percentileNanos(99));
+    }
+
+    @Test
+    public void writeJsonLine_isOneParsableLine() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.counter("polygon.contains").add(42);
+        metrics.histogram("store.load").record(2500);
+
+        StringBuilder line = new StringBuilder();
+        metrics.writeJsonLine(1000, line);
+
+        assertEquals(line.length() - 1, line.indexOf("\n"));
+        JsonObject json = JsonParser.parseString(line.toString()).getAsJsonObject();
+        assertEquals(1000, json.get("time").getAsLong());
+        assertEquals(42, json.getAsJsonObject("counters").get("polygon.contains").getAsLong());
+        JsonObject load = json.getAsJsonObject("histograms").getAsJsonObject("store.load");
+        assertEquals(1, load.get("count").getAsLong());
+        assertEquals(2.5, load.get("max").getAsDouble(), 0);
+        assertTrue(metrics.format().contains("store.load"));
+    }
+
+    @Test
+    public void dump_appendsLinesAndRotates() throws IOException {
+        Metrics metrics = new Metrics();
+        metrics.histogram("receiver.onReceive").record(1000);
+        File file = new File(folder.getRoot(), "metrics.jsonl");
+        MetricsDump dump = new MetricsDump(metrics, file, 300);
+
+        for (int i = 0; i < 10; i++) {
+            dump.append(i);
+        }
+
+        assertTrue(file.length() < 600);
+        assertTrue(dump.rotatedFile().exists());
+        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertTrue(line.startsWith("{\"time\":"));
+            }
+        }
+    }
+
+    @Test
+    public void logSampler_keepsOneCallInN() {
+        LogSampler sampler = new LogSampler(10);
+        int sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (sampler.sample()) {
+                sampled++;
+            }
+        }
+        assertEquals(10, sampled);
+        assertEquals(100, sampler.calls());
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MultiPolygonTest {
+
+    @Test
+    public void contains_excludesHolesAndCoversEveryParcel() {
+        // Deux parcelles carrées ; la première a une mare au centre
+        MultiPolygon field = new MultiPolygon.Builder()
+                .addOuter(new double[]{0, 0, 10, 10}, new double[]{0, 10, 10, 0}, 4)
+                .addHole(new double[]{4, 4, 6, 6}, new double[]{4, 6, 6, 4}, 4)
+                .addOuter(new double[]{20, 20, 30, 30}, new double[]{0, 10, 10, 0}, 4)
+                .build();
+
+        assertEquals(2, field.polygonCount());
+        assertEquals(3, field.ringCount());
+        assertTrue(field.isHole(1));
+
+        assertTrue(field.contains(2, 2));
+        assertFalse(field.contains(5, 5));
+        assertTrue(field.contains(25, 5));
+        assertFalse(field.contains(15, 5));
+        assertFalse(field.contains(5, 11));
+    }
+
+    @Test
+    public void contains_matchesRayCastOnRandomRings() {
+        Random random = new Random(3);
+        for (int round = 0; round < 20; round++) {
+            int n = 3 + random.nextInt(300);
+            double[][] outer = star(random, 0, 0, 1, n);
+            double[][] hole = star(random, 0.1, -0.1, 0.2, 3 + random.nextInt(40));
+            MultiPolygon field = new MultiPolygon.Builder()
+                    .addOuter(outer[0], outer[1], outer[0].length)
+                    .addHole(hole[0], hole[1], hole[0].length)
+                    .build();
+            for (int q = 0; q < 2000; q++) {
+                double lat = (random.nextDouble() - 0.5) * 3;
+                double lng = (random.nextDouble() - 0.5) * 3;
+                assertEquals(field.containsRayCast(lat, lng), field.contains(lat, lng));
+            }
+            // Latitudes des sommets : bords de bandes
+            for (int i = 0; i < n; i++) {
+                double lat = outer[0][i];
+                double lng = (random.nextDouble() - 0.5) * 3;
+                assertEquals(field.containsRayCast(lat, lng), field.contains(lat, lng));
+            }
+        }
+    }
+
+    @Test
+    public void contains_matchesRayCastOnGridAlignedVertices() {
+        // Sommets partageant leurs latitudes, arêtes horizontales
+        double[] lats = {0, 0, 2, 2, 1, 1, 3, 3};
+        double[] lngs = {0, 4, 4, 3, 3, 1, 1, 0};
+        MultiPolygon field = MultiPolygon.of(lats, lngs, lats.length);
+        for (double lat = -0.5; lat <= 3.5; lat += 0.25) {
+            for (double lng = -0.5; lng <= 4.5; lng += 0.25) {
+                assertEquals(lat + "," + lng, PolygonMath.containsPoint(lats, lngs, lat, lng), field.contains(lat, lng));
+            }
+        }
+    }
+
+    @Test
+    public void contains_staysCompactOnJaggedRingsAndMatchesRayCast() {
+        // Peigne de dents de hauteurs toutes différentes : une bande fine coupe presque toutes les dents
+        Random random = new Random(9);
+        int teeth = 400;
+        double[] lats = new double[teeth * 2 + 2];
+        double[] lngs = new double[teeth * 2 + 2];
+        for (int i = 0; i < teeth; i++) {
+            lats[2 * i] = 1 + random.nextDouble();
+            lngs[2 * i] = i;
+            lats[2 * i + 1] = lats[2 * i];
+            lngs[2 * i + 1] = i + 0.5;
+        }
+        lats[teeth * 2] = 0;
+        lngs[teeth * 2] = teeth;
+        lats[teeth * 2 + 1] = 0;
+        lngs[teeth * 2 + 1] = 0;
+        MultiPolygon field = MultiPolygon.of(lats, lngs, lats.length);
+
+        // Une bande par bande traversée donnerait environ teeth² / 2 entrées ; au plus 2 log n nœuds par arête ici
+        assertTrue(field.slabEntryCount() + " entries", field.slabEntryCount() <= 2 * 10 * field.vertexCount());
+        for (int q = 0; q < 20000; q++) {
+            double lat = random.nextDouble() * 2.2 - 0.1;
+            double lng = random.nextDouble() * (teeth + 2) - 1;
+            assertEquals(field.containsRayCast(lat, lng), field.contains(lat, lng));
+        }
+    }
+
+    @Test
+    public void preparedPolygon_excludesHoles() {
+        MultiPolygon pond = MultiPolygon.of(new double[]{4, 4, 6, 6}, new double[]{4, 6, 6, 4}, 4);
+        PreparedPolygon field = new PolygonRepository().put(1, new double[]{0, 0, 10, 10}, new double[]{0, 10, 10, 0}, pond, null);
+
+        assertSame(pond, field.holes());
+        assertTrue(field.contains(2, 2));
+        assertFalse(field.contains(5, 5));
+        assertFalse(field.contains(5, 11));
+    }
+
+    @Test
+    public void preparedPolygon_largeFieldsUseSlabs() {
+        Random random = new Random(5);
+        double[][] field = star(random, 34.02, -6.84, 0.002, 2000);
+        PreparedPolygon polygon = new PolygonRepository().put(1, field[0], field[1], null);
+
+        // Sans index préparé, contains() passe au lancer de rayon sans rien construire
+        assertEquals(PolygonMath.containsPoint(field[0], field[1], 34.02, -6.84), polygon.contains(34.02, -6.84));
+        polygon.prepareContainment();
+        assertTrue(polygon.slabs().slabEntryCount() > 0);
+        for (int q = 0; q < 5000; q++) {
+            double lat = 34.02 + (random.nextDouble() - 0.5) * 0.005;
+            double lng = -6.84 + (random.nextDouble() - 0.5) * 0.005;
+            assertEquals(PolygonMath.containsPoint(field[0], field[1], lat, lng), polygon.contains(lat, lng));
+        }
+    }
+
+    // Anneau étoilé de n sommets (rayon entre 0,5 et 1 fois radius)
+    private static double[][] star(Random random, double lat, double lng, double radius, int n) {
+        double[] lats = new double[n];
+        double[] lngs = new double[n];
+        for (int i = 0; i < n; i++) {
+            double angle = 2 * Math.PI * i / n;
+            double r = radius * (0.5 + random.nextDouble() * 0.5);
+            lats[i] = lat + r * Math.sin(angle);
+            lngs[i] = lng + r * Math.cos(angle);
+        }
+        return new double[][]{lats, lngs};
+    }
+}
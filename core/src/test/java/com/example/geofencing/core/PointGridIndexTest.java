@@ -0,0 +1,52 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PointGridIndexTest {
+
+    @Test
+    public void query_matchesLinearScan() {
+        Random random = new Random(3);
+        PointList points = randomPoints(random, 50000);
+        PointGridIndex index = PointGridIndex.build(points);
+
+        for (int q = 0; q < 200; q++) {
+            double south = 34.0 + random.nextDouble() * 0.01;
+            double west = -6.85 + random.nextDouble() * 0.01;
+            double north = south + random.nextDouble() * 0.003;
+            double east = west + random.nextDouble() * 0.003;
+
+            int expected = 0;
+            for (int i = 0; i < points.size(); i++) {
+                if (points.lat(i) >= south && points.lat(i) <= north && points.lng(i) >= west && points.lng(i) <= east) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, index.count(south, west, north, east));
+        }
+    }
+
+    @Test
+    public void cluster_keepsEveryVisiblePoint() {
+        PointList points = randomPoints(new Random(4), 20000);
+        PointGridIndex index = PointGridIndex.build(points);
+
+        for (double clusterSize : new double[]{0.00001, 0.001, 0.01}) {
+            final int[] total = {0};
+            index.cluster(33, -7, 35, -6, clusterSize, (lat, lng, count) -> total[0] += count);
+            assertEquals(points.size(), total[0]);
+        }
+    }
+
+    private static PointList randomPoints(Random random, int count) {
+        PointList points = new PointList(count);
+        for (int i = 0; i < count; i++) {
+            points.add(34.0 + random.nextDouble() * 0.012, -6.85 + random.nextDouble() * 0.012);
+        }
+        return points;
+    }
+}
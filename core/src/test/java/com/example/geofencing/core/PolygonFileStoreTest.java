@@ -0,0 +1,114 @@
+package com.example.geofencing.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import static org.junit.Assert.*;
+
+public class PolygonFileStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void appendAndReplace_surviveReopen() throws IOException {
+        File file = folder.newFile("polygons.bin");
+        file.delete();
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            store.replace(1, new double[]{34.02, 34.021}, new double[]{-6.84, -6.841}, 2);
+            store.append(1, 34.0215, -6.8395);
+            store.append(2, 35.5, -5.5);
+            store.replace(3, new double[]{1, 2}, new double[]{3, 4}, 2);
+            assertTrue(store.delete(3));
+        }
+
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            assertArrayEquals(new int[]{1, 2}, store.polygonIds());
+            assertEquals(3, store.vertexCount(1));
+
+            // Un ajout après réouverture repart du dernier sommet stocké
+            store.append(1, 34.0201, -6.8388);
+            PointList points = new PointList();
+            assertTrue(store.load(1, points));
+            assertEquals(4, points.size());
+            assertEquals(34.0215, points.lat(2), 1e-7);
+            assertEquals(-6.8395, points.lng(2), 1e-7);
+            assertEquals(34.0201, points.lat(3), 1e-7);
+            assertEquals(-6.8388, points.lng(3), 1e-7);
+            assertFalse(store.load(3, points));
+        }
+    }
+
+    @Test
+    public void truncatedTail_isDropped() throws IOException {
+        File file = folder.newFile("truncated.bin");
+        file.delete();
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            store.replace(1, new double[]{34.02, 34.021, 34.022}, new double[]{-6.84, -6.841, -6.842}, 3);
+            store.append(1, 34.023, -6.843);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 2);
+        }
+
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            assertEquals(3, store.vertexCount(1));
+        }
+    }
+
+    @Test
+    public void compact_keepsLivePolygons() throws IOException {
+        File file = folder.newFile("compact.bin");
+        file.delete();
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            for (int i = 0; i < 200; i++) {
+                store.replace(i % 5, new double[]{34 + i * 1e-4, 34.1}, new double[]{-6.8, -6.9}, 2);
+            }
+            long before = store.fileSize();
+            store.compact();
+
+            assertTrue(store.fileSize() < before);
+            assertArrayEquals(new int[]{0, 1, 2, 3, 4}, store.polygonIds());
+            PointList points = new PointList();
+            store.load(4, points);
+            assertEquals(34 + 199 * 1e-4, points.lat(0), 1e-7);
+        }
+    }
+
+    @Test
+    public void holes_surviveAppendReopenAndCompaction() throws IOException {
+        File file = folder.newFile("holes.bin");
+        file.delete();
+        MultiPolygon holes = new MultiPolygon.Builder()
+                .addOuter(new double[]{34.0202, 34.0202, 34.0205}, new double[]{-6.8415, -6.8412, -6.8412}, 3)
+                .addOuter(new double[]{34.0206, 34.0206, 34.0207, 34.0207}, new double[]{-6.8419, -6.8418, -6.8418, -6.8419}, 4)
+                .build();
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            store.replace(1, new double[]{34.02, 34.02, 34.0209}, new double[]{-6.842, -6.8409, -6.8409}, 3, holes);
+            store.append(1, 34.0209, -6.842);
+            store.replace(2, new double[]{1, 2, 2}, new double[]{3, 3, 4}, 3, holes);
+            store.replace(2, new double[]{1, 2, 2}, new double[]{3, 3, 4}, 3);
+        }
+
+        try (PolygonFileStore store = PolygonFileStore.open(file)) {
+            assertEquals(4, store.vertexCount(1));
+            // Un REPLACE sans trou efface les précédents
+            assertNull(store.loadHoles(2));
+            store.compact();
+
+            MultiPolygon loaded = store.loadHoles(1);
+            assertEquals(2, loaded.ringCount());
+            assertEquals(4, loaded.ringVertexCount(1));
+            assertEquals(34.0205, loaded.lat(0, 2), 1e-7);
+            assertEquals(-6.8418, loaded.lng(1, 2), 1e-7);
+            PointList points = new PointList();
+            store.load(1, points);
+            assertEquals(4, points.size());
+        }
+    }
+}
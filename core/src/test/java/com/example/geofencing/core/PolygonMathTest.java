@@ -0,0 +1,23 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PolygonMathTest {
+
+    private static final double[] SQUARE_LATS = {0, 0, 1, 1};
+    private static final double[] SQUARE_LNGS = {0, 1, 1, 0};
+
+    @Test
+    public void containsPoint_square() {
+        assertTrue(PolygonMath.containsPoint(SQUARE_LATS, SQUARE_LNGS, 0.5, 0.5));
+        assertFalse(PolygonMath.containsPoint(SQUARE_LATS, SQUARE_LNGS, 1.5, 0.5));
+        assertFalse(PolygonMath.containsPoint(SQUARE_LATS, SQUARE_LNGS, 0.5, -0.1));
+    }
+
+    @Test
+    public void haversineMeters_oneDegreeOfLatitude() {
+        assertEquals(111195, PolygonMath.haversineMeters(34, -6.8, 35, -6.8), 1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class PolygonRepositoryTest {
+
+    private static final double[] FIELD_LATS = {34.0200, 34.0200, 34.0209, 34.0209};
+    private static final double[] FIELD_LNGS = {-6.8420, -6.8409, -6.8409, -6.8420};
+
+    @Test
+    public void put_replacesOnlyTheEditedEntry() {
+        PolygonRepository repository = new PolygonRepository();
+        PreparedPolygon first = repository.put(1, FIELD_LATS, FIELD_LNGS, null);
+        PreparedPolygon second = repository.put(2, shift(FIELD_LATS, 0.01), FIELD_LNGS, null);
+        PointList plan = first.sprayPlan();
+
+        PreparedPolygon edited = repository.put(1, shift(FIELD_LATS, 0.0001), FIELD_LNGS, null);
+
+        assertTrue(edited.version() > second.version());
+        assertEquals(edited.version(), repository.version());
+        assertSame(second, repository.get(2));
+        assertNotSame(plan, edited.sprayPlan());
+        assertSame(edited.sprayPlan(), edited.sprayPlan());
+    }
+
+    @Test
+    public void findContaining_usesPreparedEdges() {
+        PolygonRepository repository = new PolygonRepository();
+        repository.put(1, FIELD_LATS, FIELD_LNGS, null);
+        repository.put(2, shift(FIELD_LATS, 0.01), FIELD_LNGS, null);
+
+        assertEquals(2, repository.findContaining(34.0304, -6.8415).id());
+        assertNull(repository.findContaining(34.0250, -6.8415));
+
+        for (double lat = 34.0195; lat < 34.0215; lat += 0.00007) {
+            for (double lng = -6.8425; lng < -6.8405; lng += 0.00007) {
+                assertEquals(PolygonMath.containsPoint(FIELD_LATS, FIELD_LNGS, lat, lng),
+                        repository.get(1).contains(lat, lng));
+            }
+        }
+    }
+
+    private static double[] shift(double[] values, double delta) {
+        double[] shifted = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            shifted[i] = values[i] + delta;
+        }
+        return shifted;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PolygonSimplifierTest {
+
+    // Contour relevé bruité : cercle d'environ 500 m, 20 000 sommets, bruit de ±0,3 m
+    private static double[][] surveyedBoundary(int vertexCount) {
+        Random random = new Random(11);
+        LocalProjection projection = new LocalProjection(34.02, -6.84);
+        double[] lats = new double[vertexCount];
+        double[] lngs = new double[vertexCount];
+        for (int i = 0; i < vertexCount; i++) {
+            double angle = 2 * Math.PI * i / vertexCount;
+            double r = 500 + 60 * Math.sin(5 * angle) + (random.nextDouble() - 0.5) * 0.6;
+            lats[i] = projection.toLat(r * Math.sin(angle));
+            lngs[i] = projection.toLng(r * Math.cos(angle));
+        }
+        return new double[][]{lats, lngs};
+    }
+
+    @Test
+    public void simplify_keepsEveryVertexWithinTolerance() {
+        double[][] boundary = surveyedBoundary(20000);
+        LocalProjection projection = LocalProjection.forPolygon(boundary[0], boundary[1], 20000);
+        PointList out = new PointList();
+
+        int n = new PolygonSimplifier().simplify(boundary[0], boundary[1], 20000, projection, 2, out);
+
+        assertTrue(n + " vertices", n >= 3 && n < 500);
+        for (int i = 0; i < 20000; i += 7) {
+            assertTrue(distanceToRing(projection, out, boundary[0][i], boundary[1][i]) <= 2 + 1e-6);
+        }
+    }
+
+    @Test
+    public void lod_levelsShrinkAndAreChosenByScale() {
+        double[][] boundary = surveyedBoundary(20000);
+        PolygonLod lod = PolygonLod.build(boundary[0], boundary[1], 20000);
+
+        assertTrue(lod.levelCount() > 4);
+        assertEquals(20000, lod.vertexCount(0));
+        for (int level = 1; level < lod.levelCount(); level++) {
+            assertTrue(lod.vertexCount(level) < lod.vertexCount(level - 1));
+            assertTrue(lod.toleranceMeters(level) > lod.toleranceMeters(level - 1));
+        }
+        assertEquals(0, lod.levelFor(0.1));
+        int level = lod.levelFor(10);
+        assertTrue(lod.toleranceMeters(level) <= 5);
+        assertTrue(level + 1 == lod.levelCount() || lod.toleranceMeters(level + 1) > 5);
+    }
+
+    @Test
+    public void contains_withFilterMatchesExactTest() {
+        double[][] boundary = surveyedBoundary(20000);
+        PreparedPolygon polygon = new PolygonRepository().put(1, boundary[0], boundary[1], null);
+        LocalProjection projection = new LocalProjection(34.02, -6.84);
+
+        Random random = new Random(3);
+        for (int q = 0; q < 4000; q++) {
+            double lat = projection.toLat((random.nextDouble() - 0.5) * 1300);
+            double lng = projection.toLng((random.nextDouble() - 0.5) * 1300);
+            assertEquals(PolygonMath.containsPoint(boundary[0], boundary[1], lat, lng), polygon.contains(lat, lng));
+        }
+        // Points au plus près du contour : test exact
+        for (int i = 0; i < 20000; i += 13) {
+            double lat = boundary[0][i] + (random.nextDouble() - 0.5) * 1e-6;
+            double lng = boundary[1][i] + (random.nextDouble() - 0.5) * 1e-6;
+            assertEquals(PolygonMath.containsPoint(boundary[0], boundary[1], lat, lng), polygon.contains(lat, lng));
+        }
+    }
+
+    private static double distanceToRing(LocalProjection projection, PointList ring, double lat, double lng) {
+        double x = projection.toX(lng);
+        double y = projection.toY(lat);
+        double best = Double.POSITIVE_INFINITY;
+        for (int i = 0, j = ring.size() - 1; i < ring.size(); j = i++) {
+            double ax = projection.toX(ring.lng(j)), ay = projection.toY(ring.lat(j));
+            double bx = projection.toX(ring.lng(i)), by = projection.toY(ring.lat(i));
+            double dx = bx - ax, dy = by - ay;
+            double t = Math.max(0, Math.min(1, ((x - ax) * dx + (y - ay) * dy) / (dx * dx + dy * dy)));
+            best = Math.min(best, Math.hypot(ax + t * dx - x, ay + t * dy - y));
+        }
+        return best;
+    }
+}
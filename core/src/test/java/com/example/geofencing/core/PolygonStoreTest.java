@@ -0,0 +1,103 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PolygonStoreTest {
+
+    @Test
+    public void findContaining_matchesLinearScan() {
+        Random random = new Random(42);
+        PolygonStore store = new PolygonStore();
+        List<double[][]> polygons = new ArrayList<>();
+        for (int id = 0; id < 2000; id++) {
+            double[][] polygon = randomField(random);
+            polygons.add(polygon);
+            store.put(id, polygon[0], polygon[1]);
+        }
+
+        for (int q = 0; q < 5000; q++) {
+            double lat = 34.0 + random.nextDouble() * 0.5;
+            double lng = -6.9 + random.nextDouble() * 0.5;
+
+            List<Integer> expected = new ArrayList<>();
+            for (int id = 0; id < polygons.size(); id++) {
+                if (PolygonMath.containsPoint(polygons.get(id)[0], polygons.get(id)[1], lat, lng)) {
+                    expected.add(id);
+                }
+            }
+            List<Integer> actual = new ArrayList<>();
+            store.findAllContaining(lat, lng, actual);
+            Collections.sort(actual);
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void put_replacesAndRemoveHidesPolygon() {
+        PolygonStore store = new PolygonStore();
+        store.put(7, new double[]{0, 0, 1, 1}, new double[]{0, 1, 1, 0});
+        assertEquals(7, store.findContaining(0.5, 0.5));
+
+        store.put(7, new double[]{10, 10, 11, 11}, new double[]{10, 11, 11, 10});
+        assertEquals(-1, store.findContaining(0.5, 0.5));
+        assertEquals(7, store.findContaining(10.5, 10.5));
+
+        assertTrue(store.remove(7));
+        assertEquals(-1, store.findContaining(10.5, 10.5));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void queryBounds_visitsOutsideTheLockAndFindsIdenticalBoxes() {
+        PolygonStore store = new PolygonStore();
+        // Boîtes identiques : mêmes centres pour le tri de la construction de l'arbre
+        for (int id = 0; id < 500; id++) {
+            store.put(id, new double[]{0, 0, 1, 1}, new double[]{0, 1, 1, 0});
+        }
+        List<Integer> visited = new ArrayList<>();
+        boolean[] written = {false};
+
+        store.queryBounds(0.2, 0.2, 0.4, 0.4, (polygonId, lats, lngs) -> {
+            if (visited.isEmpty()) {
+                // Une écriture depuis un autre thread n'attend pas la fin de la visite
+                Thread writer = new Thread(() -> store.put(1000, new double[]{5, 5, 6, 6}, new double[]{5, 6, 6, 5}));
+                writer.start();
+                try {
+                    writer.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written[0] = !writer.isAlive();
+            }
+            visited.add(polygonId);
+            return true;
+        });
+
+        assertTrue(written[0]);
+        assertEquals(500, visited.size());
+        Collections.sort(visited);
+        for (int id = 0; id < 500; id++) {
+            assertEquals(id, (int) visited.get(id));
+        }
+        assertEquals(1000, store.findContaining(5.5, 5.5));
+    }
+
+    // Quadrilatère aléatoire d'environ 100 m de côté autour de Rabat
+    static double[][] randomField(Random random) {
+        double lat = 34.0 + random.nextDouble() * 0.5;
+        double lng = -6.9 + random.nextDouble() * 0.5;
+        double size = 0.0005 + random.nextDouble() * 0.001;
+        return new double[][]{
+                {lat, lat + size, lat + size * 1.1, lat - size * 0.1},
+                {lng, lng - size * 0.1, lng + size, lng + size * 1.2}
+        };
+    }
+}
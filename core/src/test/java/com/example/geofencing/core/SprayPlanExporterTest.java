@@ -0,0 +1,155 @@
+package com.example.geofencing.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SprayPlanExporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static PointList randomPlan(int count) {
+        Random random = new Random(count);
+        PointList points = new PointList(count);
+        for (int i = 0; i < count; i++) {
+            points.add((random.nextDouble() - 0.5) * 180, (random.nextDouble() - 0.5) * 360);
+        }
+        return points;
+    }
+
+    private static byte[] export(PointList points, SprayPlanExporter.Format format, int chunkPoints) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SprayPlanExporter exporter = SprayPlanExporter.open(Channels.newChannel(bytes), format, chunkPoints)) {
+            exporter.append(points);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static PointList readBinary(byte[] data, int maxPointsPerRead) throws IOException {
+        SprayPlanReader reader = SprayPlanReader.open(Channels.newChannel(new ByteArrayInputStream(data)));
+        PointList points = new PointList();
+        while (reader.read(points, maxPointsPerRead) >= 0) {
+            assertTrue(points.size() <= reader.pointCount());
+        }
+        assertTrue(reader.isEnded());
+        return points;
+    }
+
+    @Test
+    public void binary_roundTripsAcrossChunkSizes() throws IOException {
+        for (int count : new int[]{0, 1, 7, 64, 1000}) {
+            PointList plan = randomPlan(count);
+            for (int chunk : new int[]{1, 7, 64, SprayPlanExporter.DEFAULT_CHUNK_POINTS}) {
+                byte[] data = export(plan, SprayPlanExporter.Format.BINARY, chunk);
+                // En-tête, trames (nombre de points + points), trame de fin
+                int frames = (count + chunk - 1) / chunk;
+                assertEquals(8 + frames * 4 + count * 8 + 4, data.length);
+
+                PointList read = readBinary(data, 5);
+                assertEquals(count, read.size());
+                for (int i = 0; i < count; i++) {
+                    assertEquals(plan.lat(i), read.lat(i), 0.5e-7);
+                    assertEquals(plan.lng(i), read.lng(i), 0.5e-7);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void csv_carriesTheSameFixedPointValues() throws IOException {
+        PointList plan = randomPlan(500);
+        plan.add(-0.00000004, 179.99999999);
+        plan.add(0, -180);
+        PointList binary = readBinary(export(plan, SprayPlanExporter.Format.BINARY, 64), Integer.MAX_VALUE);
+        String csv = new String(export(plan, SprayPlanExporter.Format.CSV, 64), StandardCharsets.US_ASCII);
+
+        String[] lines = csv.split("\n");
+        assertEquals("lat,lng", lines[0]);
+        assertEquals(plan.size() + 1, lines.length);
+        for (int i = 0; i < plan.size(); i++) {
+            String[] fields = lines[i + 1].split(",");
+            assertEquals(7, fields[0].length() - fields[0].indexOf('.') - 1);
+            assertEquals(binary.lat(i), Double.parseDouble(fields[0]), 1e-12);
+            assertEquals(binary.lng(i), Double.parseDouble(fields[1]), 1e-12);
+        }
+        assertEquals("0.0000000,180.0000000", lines[plan.size() - 1]);
+        assertEquals("0.0000000,-180.0000000", lines[plan.size()]);
+    }
+
+    @Test
+    public void largePlan_streamsThroughAFileInChunks() throws IOException {
+        File file = folder.newFile("plan.bin");
+        SprayPointGenerator generator = new SprayPointGenerator();
+        LocalProjection projection = new LocalProjection(34.02, -6.84);
+        PointList segment = new PointList();
+        long exported;
+        // Plan produit segment par segment : 200 passes de 1 km, sans jamais tout garder en mémoire
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+             SprayPlanExporter exporter = SprayPlanExporter.open(channel, SprayPlanExporter.Format.BINARY)) {
+            for (int pass = 0; pass < 200; pass++) {
+                double lat = projection.toLat(pass * SprayPointGenerator.SPRAYING_DIAMETER);
+                segment.clear();
+                generator.generateSegment(projection, lat, projection.toLng(0), lat, projection.toLng(1000), segment);
+                exporter.append(segment);
+            }
+            exporter.finish();
+            exported = exporter.pointCount();
+            assertEquals(file.length(), exporter.bytesWritten());
+        }
+        assertTrue(exported > 100000);
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            SprayPlanReader reader = SprayPlanReader.open(channel);
+            PointList chunk = new PointList();
+            long read = 0;
+            int count;
+            while ((count = reader.read(chunk, 10000)) >= 0) {
+                read += count;
+                chunk.clear();
+            }
+            assertEquals(exported, read);
+        }
+    }
+
+    @Test
+    public void reader_rejectsForeignAndTruncatedStreams() throws IOException {
+        try {
+            SprayPlanReader.open(Channels.newChannel(new ByteArrayInputStream("lat,lng\n1,2\n".getBytes(StandardCharsets.US_ASCII))));
+            fail();
+        } catch (IOException expected) {
+            assertEquals("Not a spray plan", expected.getMessage());
+        }
+
+        byte[] data = export(randomPlan(100), SprayPlanExporter.Format.BINARY, 64);
+        byte[] truncated = Arrays.copyOf(data, data.length - 10);
+        SprayPlanReader reader = SprayPlanReader.open(Channels.newChannel(new ByteArrayInputStream(truncated)));
+        try {
+            reader.readAll(new PointList());
+            fail();
+        } catch (EOFException expected) {
+            assertEquals("Truncated spray plan", expected.getMessage());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void append_afterFinishThrows() throws IOException {
+        SprayPlanExporter exporter = SprayPlanExporter.open(Channels.newChannel(new ByteArrayOutputStream()), SprayPlanExporter.Format.CSV);
+        exporter.finish();
+        exporter.append(1, 2);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SprayPointGeneratorTest {
+
+    // Carré d'environ 100 m de côté à Rabat
+    private static final double[] FIELD_LATS = {34.0200, 34.0200, 34.0209, 34.0209};
+    private static final double[] FIELD_LNGS = {-6.8420, -6.8409, -6.8409, -6.8420};
+
+    @Test
+    public void generate_spacingIsInMeters() {
+        SprayPointGenerator generator = new SprayPointGenerator();
+        PointList points = new PointList();
+        int count = generator.generate(FIELD_LATS, FIELD_LNGS, FIELD_LATS.length, points);
+
+        assertEquals(count, points.size());
+        LocalProjection projection = LocalProjection.forPolygon(FIELD_LATS, FIELD_LNGS, FIELD_LATS.length);
+        double perimeter = 0;
+        for (int i = 0; i < FIELD_LATS.length; i++) {
+            int next = (i + 1) % FIELD_LATS.length;
+            perimeter += projection.distance(FIELD_LATS[i], FIELD_LNGS[i], FIELD_LATS[next], FIELD_LNGS[next]);
+        }
+        assertTrue(count >= perimeter / SprayPointGenerator.DISTANCE_BETWEEN_POINTS);
+        for (int i = 0; i < count; i++) {
+            int next = (i + 1) % count;
+            double gap = projection.distance(points.lat(i), points.lng(i), points.lat(next), points.lng(next));
+            assertTrue("gap " + gap, gap <= SprayPointGenerator.DISTANCE_BETWEEN_POINTS + 1e-9);
+        }
+    }
+
+    @Test
+    public void generate_reusesPresizedBuffer() {
+        SprayPointGenerator generator = new SprayPointGenerator();
+        PointList points = new PointList(1);
+        generator.generate(FIELD_LATS, FIELD_LNGS, FIELD_LATS.length, points);
+        int capacity = points.capacity();
+
+        points.clear();
+        generator.generate(FIELD_LATS, FIELD_LNGS, FIELD_LATS.length, points);
+
+        assertEquals(capacity, points.capacity());
+        assertEquals(points.size(), points.latBuffer().remaining());
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CancellationException;
+
+import static org.junit.Assert.*;
+
+public class SprayRoutePlannerTest {
+
+    private static final LocalProjection PROJECTION = new LocalProjection(34.02, -6.84);
+
+    @Test
+    public void plan_sweepsAlongTheLongSideOfARectangle() {
+        // 30 m x 100 m, grand côté nord-sud
+        double[][] field = field(new double[]{0, 30, 30, 0}, new double[]{0, 0, 100, 100});
+
+        SprayRoutePlanner.Route route = new SprayRoutePlanner().plan(field[0], field[1], 4);
+
+        assertEquals(90, route.sweepAngleDegrees(), 1e-6);
+        assertEquals(20, route.passCount());
+        // 20 passes de 98,5 m et 19 demi-tours de 1,5 m
+        assertEquals(20 * 98.5 + 19 * 1.5, route.lengthMeters(), 0.5);
+        assertEquals(route.lengthMeters(), SprayRoutePlanner.pathLengthMeters(route.points()), 1);
+        assertEquals(40, route.path().size());
+        for (int i = 0; i < route.points().size(); i++) {
+            assertTrue(PolygonMath.containsPoint(field[0], field[1], route.points().lat(i), route.points().lng(i)));
+        }
+        assertTrue(route.computeNanos() > 0);
+    }
+
+    @Test
+    public void plan_coversAConcaveFieldAndTwoOptNeverLengthens() {
+        // U de 120 m x 90 m ouvert au nord
+        double[][] field = field(new double[]{0, 120, 120, 80, 80, 40, 40, 0}, new double[]{0, 0, 90, 90, 30, 30, 90, 90});
+        int count = field[0].length;
+
+        SprayRoutePlanner.Route route = new SprayRoutePlanner().plan(field[0], field[1], count);
+
+        assertTrue(route.lengthMeters() <= route.initialLengthMeters() + 1e-6);
+        CoverageTracker coverage = CoverageTracker.forPolygon(field[0], field[1], count);
+        for (int i = 0; i < route.points().size(); i++) {
+            coverage.mark(route.points().lat(i), route.points().lng(i), SprayPointGenerator.SPRAYING_DIAMETER / 2);
+        }
+        assertTrue(String.valueOf(coverage.coverage()), coverage.coverage() > 0.95);
+    }
+
+    @Test(expected = CancellationException.class)
+    public void plan_throwsOnceCancelled() {
+        double[][] field = field(new double[]{0, 300, 300, 0}, new double[]{0, 0, 300, 300});
+        SprayRoutePlanner planner = new SprayRoutePlanner();
+        planner.cancel();
+
+        planner.plan(field[0], field[1], 4);
+    }
+
+    private static double[][] field(double[] xs, double[] ys) {
+        double[] lats = new double[xs.length];
+        double[] lngs = new double[xs.length];
+        for (int i = 0; i < xs.length; i++) {
+            lats[i] = PROJECTION.toLat(ys[i]);
+            lngs[i] = PROJECTION.toLng(xs[i]);
+        }
+        return new double[][]{lats, lngs};
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.geofencing.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class StagedPolygonLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    // Champs carrés de 0,001 degré, un tous les 0,01 degré vers l'est
+    private PolygonFileStore storeWithFields(int count) throws IOException {
+        File file = folder.newFile("polygons.bin");
+        file.delete();
+        PolygonFileStore store = PolygonFileStore.open(file);
+        for (int id = 0; id < count; id++) {
+            double lng = -6.9 + id * 0.01;
+            store.replace(id, new double[]{34.0, 34.0, 34.001, 34.001}, new double[]{lng, lng + 0.001, lng + 0.001, lng}, 4);
+        }
+        return store;
+    }
+
+    @Test
+    public void bounds_matchDecodedVertices() throws IOException {
+        try (PolygonFileStore store = storeWithFields(1)) {
+            store.append(0, 34.0005, -6.9005);
+            double[] box = new double[4];
+            assertTrue(store.bounds(0, box));
+            assertArrayEquals(new double[]{34.0, -6.9005, 34.001, -6.899}, box, 1e-7);
+            assertFalse(store.bounds(5, box));
+            // Le dernier sommet décodé sert aux ajouts suivants
+            store.append(0, 34.0002, -6.9002);
+            PointList points = new PointList();
+            store.load(0, points);
+            assertEquals(-6.9002, points.lng(5), 1e-7);
+        }
+    }
+
+    @Test
+    public void outlinesFirst_thenVisibleFieldsFirst() throws IOException, InterruptedException {
+        try (PolygonFileStore store = storeWithFields(100)) {
+            PolygonRepository repository = new PolygonRepository();
+            StagedPolygonLoader loader = new StagedPolygonLoader(store, repository);
+
+            assertEquals(100, loader.readOutlines());
+            assertEquals(0, repository.size());
+            List<Integer> outlines = new ArrayList<>();
+            loader.queryOutlines(33.9, -7, 34.1, -6.85, (id, south, west, north, east) -> {
+                outlines.add(id);
+                return true;
+            });
+            // Champs 0 à 5 (le 5 commence à -6.85)
+            assertEquals(6, outlines.size());
+
+            assertTrue(loader.load(0));
+            assertNotNull(repository.get(0));
+
+            // Zone visible autour du champ 70 : il est chargé dans le premier lot, puis ses voisins
+            loader.setViewport(34.0002, -6.2 + 0.0002, 34.0008, -6.2 + 0.0008);
+            assertEquals(3, loader.loadNext(3));
+            assertNotNull(repository.get(70));
+            assertNotNull(repository.get(69));
+            assertNotNull(repository.get(71));
+            assertFalse(repository.isLoaded());
+            // Géométrie chargée : plus de contour provisoire
+            loader.queryOutlines(33.9, -6.21, 34.1, -6.19, (id, south, west, north, east) -> {
+                fail("field " + id + " is loaded");
+                return true;
+            });
+
+            int loaded = 0;
+            while (!loader.isComplete()) {
+                loaded += loader.loadNext(StagedPolygonLoader.DEFAULT_CHUNK_SIZE);
+            }
+            assertEquals(96, loaded);
+            assertEquals(100, repository.size());
+            // Niveaux de détail prêts pour la carte, visibles ou non
+            assertNotNull(repository.get(99).lodIfReady());
+            assertTrue(repository.awaitLoaded(0, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Test
+    public void emptyStore_isLoadedAfterOutlines() throws IOException {
+        try (PolygonFileStore store = storeWithFields(0)) {
+            PolygonRepository repository = new PolygonRepository();
+            StagedPolygonLoader loader = new StagedPolygonLoader(store, repository);
+            assertFalse(loader.isComplete());
+            assertEquals(0, loader.readOutlines());
+            assertTrue(loader.isComplete());
+            assertTrue(repository.isLoaded());
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TraceReplayEngineTest {
+
+    // Champ d'environ 100 m x 90 m
+    private static final double[] FIELD_LATS = {34.0200, 34.0200, 34.0209, 34.0209};
+    private static final double[] FIELD_LNGS = {-6.8420, -6.8409, -6.8409, -6.8420};
+    private static final double FIELD_LNG = -6.84145;
+
+    @Test
+    public void readCsv_acceptsMillisIsoTimesAndHeader() throws IOException {
+        String csv = "time,lat,lng\n"
+                + "1714557600000,34.02,-6.84\n"
+                + "2024-05-01T10:00:01.500Z;34.03;-6.85\n"
+                + "not,a,point\n"
+                + "2024-05-01T12:00:02+02:00,34.04,-6.86\n";
+
+        LocationTrace trace = LocationTrace.readCsv("t", new StringReader(csv));
+
+        assertEquals(3, trace.size());
+        assertEquals(1714557600000L, trace.time(0));
+        assertEquals(1714557601500L, trace.time(1));
+        assertEquals(1714557602000L, trace.time(2));
+        assertEquals(34.03, trace.lat(1), 0);
+        assertEquals(-6.86, trace.lng(2), 0);
+    }
+
+    @Test
+    public void readGpx_readsTrackPoints() throws IOException {
+        String gpx = "<?xml version=\"1.0\"?><gpx xmlns=\"http://www.topografix.com/GPX/1/1\"><trk><trkseg>"
+                + "<trkpt lat=\"34.02\" lon=\"-6.84\"><ele>12</ele><time>2024-05-01T10:00:00Z</time></trkpt>"
+                + "<trkpt lon='-6.85' lat='34.03'><time>2024-05-01T10:00:05Z</time></trkpt>"
+                + "<trkpt lat=\"34.04\" lon=\"-6.86\"></trkpt>"
+                + "</trkseg></trk></gpx>";
+
+        LocationTrace trace = LocationTrace.readGpx("t", new StringReader(gpx));
+
+        assertEquals(3, trace.size());
+        assertEquals(1714557600000L, trace.time(0));
+        assertEquals(1714557605000L, trace.time(1));
+        assertEquals(1714557606000L, trace.time(2));
+        assertEquals(34.03, trace.lat(1), 0);
+        assertEquals(-6.85, trace.lng(1), 0);
+    }
+
+    @Test
+    public void replay_leavingAFieldEntersDwellsAndExitsOnce() {
+        PolygonRepository repository = new PolygonRepository();
+        repository.put(1, FIELD_LATS, FIELD_LNGS, null);
+        TraceReplayEngine engine = new TraceReplayEngine(repository);
+
+        TraceReplayEngine.Report report = engine.replay(Arrays.asList(crossing("a", 0)));
+
+        assertEquals(crossing("a", 0).size(), report.events());
+        assertTrue(report.rawTransitions() >= 2);
+        assertEquals(1, report.enters());
+        assertEquals(1, report.dwells());
+        assertEquals(1, report.exits());
+        assertTrue(report.sprayPoints() > 0);
+        assertTrue(report.latencyPercentileNanos(50) <= report.latencyPercentileNanos(99));
+        assertTrue(report.latencyPercentileNanos(99) <= report.latencyPercentileNanos(100));
+        assertTrue(report.eventsPerSecond() > 0);
+        assertTrue(report.allocatedBytes() == -1 || report.allocatedBytes() > 0);
+    }
+
+    @Test
+    public void replay_fleetDevicesAreIndependent() {
+        PolygonRepository repository = new PolygonRepository();
+        repository.put(1, FIELD_LATS, FIELD_LNGS, null);
+        TraceReplayEngine engine = new TraceReplayEngine(repository);
+        LocationTrace parked = new LocationTrace("parked");
+        for (int i = 0; i < 50; i++) {
+            parked.add(i * 1000L, 34.0100, FIELD_LNG);
+        }
+
+        TraceReplayEngine.Report report = engine.replay(Arrays.asList(crossing("a", 0), parked, crossing("b", 7000)));
+
+        assertEquals(2 * crossing("a", 0).size() + parked.size(), report.events());
+        assertEquals(2, report.enters());
+        assertEquals(2, report.exits());
+    }
+
+    // Arrêt de 20 s au milieu du champ, puis sortie vers le nord à 5 m/s.
+    // (Une entrée par le débordement d'un cercle hors du champ est écartée comme dans l'application.)
+    private static LocationTrace crossing(String name, long startMillis) {
+        LocationTrace trace = new LocationTrace(name);
+        long time = startMillis;
+        for (int i = 0; i < 20; i++) {
+            trace.add(time += 1000, 34.02045, FIELD_LNG);
+        }
+        for (double lat = 34.0205; lat < 34.0230; lat += 0.000045) {
+            trace.add(time += 1000, lat, FIELD_LNG);
+        }
+        return trace;
+    }
+}
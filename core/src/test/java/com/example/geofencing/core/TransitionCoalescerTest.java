@@ -0,0 +1,82 @@
+package com.example.geofencing.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.geofencing.core.CircularFence.TRANSITION_DWELL;
+import static com.example.geofencing.core.CircularFence.TRANSITION_ENTER;
+import static com.example.geofencing.core.CircularFence.TRANSITION_EXIT;
+import static org.junit.Assert.*;
+
+public class TransitionCoalescerTest {
+
+    @Test
+    public void flush_emitsOnlyTheLastTransitionOfABurst() {
+        TransitionCoalescer coalescer = new TransitionCoalescer(1000);
+        List<GeofenceTransition> out = new ArrayList<>();
+
+        assertEquals(1000, coalescer.offer("a", TRANSITION_ENTER, 34.0, -6.8, 0));
+        coalescer.offer("a", TRANSITION_EXIT, 34.1, -6.8, 200);
+        assertEquals(1000, coalescer.offer("a", TRANSITION_ENTER, 34.2, -6.8, 400));
+        coalescer.offer("b", TRANSITION_ENTER, 35.0, -6.8, 500);
+
+        assertEquals(0, coalescer.flush(999, out::add));
+        assertEquals(1, coalescer.flush(1000, out::add));
+        assertEquals(1500, coalescer.nextDeadline());
+
+        GeofenceTransition a = out.get(0);
+        assertEquals("a", a.fenceKey());
+        assertEquals(TRANSITION_ENTER, a.transition());
+        assertEquals(34.2, a.lat(), 0);
+        assertEquals(3, a.coalescedCount());
+        assertEquals(2, coalescer.droppedCount());
+
+        assertEquals(1, coalescer.flush(2000, out::add));
+        assertEquals(0, coalescer.pendingCount());
+        assertEquals(Long.MAX_VALUE, coalescer.nextDeadline());
+    }
+
+    @Test
+    public void flush_dropsBurstsThatDoNotChangeTheState() {
+        TransitionCoalescer coalescer = new TransitionCoalescer(1000);
+        List<GeofenceTransition> out = new ArrayList<>();
+        coalescer.offer("a", TRANSITION_ENTER, 34.0, -6.8, 0);
+        coalescer.flush(1000, out::add);
+
+        // Sortie puis retour dans la fenêtre : toujours dedans
+        coalescer.offer("a", TRANSITION_EXIT, 34.0, -6.8, 2000);
+        coalescer.offer("a", TRANSITION_ENTER, 34.0, -6.8, 2100);
+        assertEquals(0, coalescer.flush(3000, out::add));
+
+        coalescer.offer("a", TRANSITION_DWELL, 34.0, -6.8, 4000);
+        assertEquals(1, coalescer.flush(5000, out::add));
+        coalescer.offer("a", TRANSITION_ENTER, 34.0, -6.8, 6000);
+        assertEquals(0, coalescer.flush(7000, out::add));
+        coalescer.offer("a", TRANSITION_EXIT, 34.0, -6.8, 8000);
+        assertEquals(1, coalescer.flush(9000, out::add));
+
+        assertEquals(3, out.size());
+        assertEquals(TRANSITION_EXIT, out.get(2).transition());
+    }
+
+    @Test
+    public void flush_emitsEveryRerankExitOncePerWindow() {
+        TransitionCoalescer coalescer = new TransitionCoalescer(1000);
+        List<GeofenceTransition> out = new ArrayList<>();
+        String rerank = GeofenceRegistrationManager.RERANK_FENCE_ID;
+
+        // Chaque sortie de la zone de reclassement suit un réenregistrement : aucune n'est « déjà dehors »
+        for (int i = 0; i < 3; i++) {
+            long start = i * 5000L;
+            coalescer.offer(rerank, TRANSITION_EXIT, 34.0 + i, -6.8, start);
+            coalescer.offer(rerank, TRANSITION_EXIT, 34.5 + i, -6.8, start + 100);
+            assertEquals(1, coalescer.flush(start + 1000, out::add));
+        }
+
+        assertEquals(3, out.size());
+        assertEquals(36.5, out.get(2).lat(), 0);
+        assertEquals(3, coalescer.droppedCount());
+    }
+}